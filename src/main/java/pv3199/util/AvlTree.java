@@ -0,0 +1,147 @@
+package pv3199.util;
+
+/**
+ * A {@link BinaryTree} kept balanced as an AVL tree: the heights of the two subtrees of every node differ
+ * by at most one, so the height of a tree of <code>n</code> values is below <code>1.45 log n</code>. Each
+ * insertion and removal restores the balance on its way back up to the root with at most
+ * <code>O(log n)</code> rotations.
+ * <p>
+ * Lookups are the fastest of the balanced trees, since the tree is the shallowest; in exchange, removals
+ * may rotate at every level.
+ *
+ * @param <E> a comparable data type
+ * @see RedBlackTree
+ */
+public class AvlTree<E extends Comparable<E>> extends BinaryTree<E> {
+	/**
+	 * Constructs an empty AvlTree.
+	 */
+	public AvlTree() {
+		super();
+	}
+
+	/**
+	 * Constructs an AvlTree, initializing its root with a given value.
+	 *
+	 * @param initialRoot value of the root.
+	 */
+	public AvlTree(E initialRoot) {
+		super(initialRoot);
+	}
+
+	@Override
+	protected BinaryNode newNode(BinaryNode parent, E value) {
+		return new AvlNode(parent, value);
+	}
+
+	@Override
+	protected void inserted(BinaryNode node) {
+		rebalance((BinaryNode) node.parent);
+	}
+
+	@Override
+	protected void removed(BinaryNode parent) {
+		rebalance(parent);
+	}
+
+	/**
+	 * Sets the heights of the nodes of a rebuilt tree, which are visited children first.
+	 */
+	@Override
+	protected void relinked(BinaryNode node, int depth, int height) {
+		update(node);
+	}
+
+	/**
+	 * Walks up from a node whose subtree changed, updating heights and rotating unbalanced nodes, until a
+	 * subtree's height is unchanged.
+	 *
+	 * @param node the node; may be null.
+	 */
+	private void rebalance(BinaryNode node) {
+		while (node != null) {
+			int previous = height(node);
+			BinaryNode top = balance(node);
+
+			if (height(top) == previous) {
+				return;
+			}
+
+			node = (BinaryNode) top.parent;
+		}
+	}
+
+	/**
+	 * Updates the height of a node whose children are balanced, rotating it if it is not balanced itself.
+	 *
+	 * @param node the node.
+	 * @return the node that holds its place afterwards.
+	 */
+	private BinaryNode balance(BinaryNode node) {
+		int factor = height(node.left) - height(node.right);
+
+		if (factor > 1) {
+			if (height(node.left.left) < height(node.left.right)) {
+				rotate(node.left, false);
+			}
+
+			return rotate(node, true);
+		} else if (factor < -1) {
+			if (height(node.right.right) < height(node.right.left)) {
+				rotate(node.right, true);
+			}
+
+			return rotate(node, false);
+		}
+
+		update(node);
+		return node;
+	}
+
+	/**
+	 * Rotates a node and updates the heights of it and the child that takes its place.
+	 *
+	 * @param node the node.
+	 * @param right true to rotate right, false to rotate left.
+	 * @return the child that holds the node's place.
+	 */
+	private BinaryNode rotate(BinaryNode node, boolean right) {
+		BinaryNode top = right ? rotateRight(node) : rotateLeft(node);
+
+		update(node);
+		update(top);
+
+		return top;
+	}
+
+	/**
+	 * Sets the height of a node from those of its children.
+	 *
+	 * @param node the node.
+	 */
+	private void update(BinaryNode node) {
+		((AvlNode) node).height = 1 + Math.max(height(node.left), height(node.right));
+	}
+
+	/**
+	 * @param node a node; may be null.
+	 * @return the height of the node's subtree; 0 for null.
+	 */
+	private int height(BinaryNode node) {
+		return node == null ? 0 : ((AvlNode) node).height;
+	}
+
+	/**
+	 * A node that knows the height of its subtree. Subclasses keeping more state in their nodes extend it.
+	 */
+	protected class AvlNode extends BinaryNode {
+		/**
+		 * The number of nodes on the longest path down from this node, counting itself.
+		 */
+		private int height = 1;
+
+		AvlNode(BinaryNode parent, E value) {
+			super(parent, value);
+		}
+	}
+}
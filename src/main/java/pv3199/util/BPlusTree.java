@@ -0,0 +1,827 @@
+package pv3199.util;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A B+tree: a balanced search tree whose nodes hold up to a fan-out of children, so that a lookup touches a
+ * few wide, contiguous nodes instead of one cache line per comparison. The values are kept in sorted arrays
+ * in the leaves, which are linked from left to right for range scans; the internal nodes hold only the
+ * separating keys. Duplicate values are kept.
+ * <p>
+ * Every node but the root is at least half full. An insertion splits a full node and pushes the separator
+ * into its parent; a removal refills a node that is too empty from a sibling, or merges the two. A tree can
+ * also be {@link #bulkLoad(Comparable[], int) bulk loaded} from sorted values in <code>O(n)</code>.
+ * <p>
+ * The metrics of {@link Tree} count the nodes of the tree, not the values: {@link #leafCount()} is the number
+ * of leaves and {@link #internalNodes()} the number of other nodes. All of them take <code>O(1)</code> time,
+ * or <code>O(height)</code> for the internal path length.
+ *
+ * @param <E> a comparable data type
+ */
+public class BPlusTree<E extends Comparable<E>> extends Tree<E> implements Iterable<E> {
+	/**
+	 * The fan-out of trees constructed without one.
+	 */
+	public final static int DEFAULT_FAN_OUT = 64;
+
+	/**
+	 * The largest number of children of an internal node. A leaf holds up to one fewer values.
+	 */
+	private final int fanOut;
+
+	/**
+	 * The number of values.
+	 */
+	private int size;
+
+	/**
+	 * The number of nodes on each level, counted up from the leaves.
+	 */
+	private int[] levels = new int[4];
+
+	/**
+	 * The number of levels; 0 if the tree is empty.
+	 */
+	private int height;
+
+	/**
+	 * The leftmost leaf; null if the tree is empty.
+	 */
+	private Leaf first;
+
+	/**
+	 * Constructs an empty BPlusTree with a fan-out of {@value #DEFAULT_FAN_OUT}.
+	 */
+	public BPlusTree() {
+		this(DEFAULT_FAN_OUT);
+	}
+
+	/**
+	 * Constructs an empty BPlusTree.
+	 *
+	 * @param fanOut the largest number of children of a node.
+	 * @throws IllegalArgumentException if the fan-out is less than 3
+	 */
+	public BPlusTree(int fanOut) throws IllegalArgumentException {
+		if (fanOut < 3) {
+			throw new IllegalArgumentException("fan-out less than 3");
+		}
+
+		this.fanOut = fanOut;
+	}
+
+	/**
+	 * Constructs a BPlusTree of sorted values in <code>O(n)</code>. The leaves and internal nodes are packed
+	 * full, which suits trees that are mostly read; the last two nodes of each level share what is left.
+	 *
+	 * @param sorted the values in ascending order; the array is not modified.
+	 * @param fanOut the largest number of children of a node.
+	 * @param <E> the type of the values.
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the values are not sorted, or the fan-out is less than 3
+	 */
+	public static <E extends Comparable<E>> BPlusTree<E> bulkLoad(E[] sorted, int fanOut) throws IllegalArgumentException {
+		BPlusTree<E> tree = new BPlusTree<>(fanOut);
+
+		for (int i = 0; i < sorted.length; i++) {
+			if (sorted[i] == null) {
+				throw new NullPointerException();
+			} else if (i > 0 && sorted[i - 1].compareTo(sorted[i]) > 0) {
+				throw new IllegalArgumentException("values not sorted");
+			}
+		}
+
+		if (sorted.length > 0) {
+			tree.load(sorted);
+		}
+
+		return tree;
+	}
+
+	/**
+	 * Builds the tree bottom up from sorted values, one level at a time.
+	 *
+	 * @param sorted the values; there must be at least one.
+	 */
+	private void load(E[] sorted) {
+		int[] bounds = partition(sorted.length, this.fanOut - 1, this.fanOut / 2);
+		// arrays of the inner classes can't be created generically
+		Object[] nodes = new Object[bounds.length - 1];
+		Object[] lows = new Object[bounds.length - 1];
+		Leaf previous = null;
+
+		for (int i = 0; i < nodes.length; i++) {
+			Leaf leaf = new Leaf();
+
+			leaf.count = bounds[i + 1] - bounds[i];
+			System.arraycopy(sorted, bounds[i], leaf.keys, 0, leaf.count);
+			lows[i] = leaf.keys[0];
+
+			if (previous == null) {
+				this.first = leaf;
+			} else {
+				previous.next = leaf;
+			}
+
+			previous = leaf;
+			nodes[i] = leaf;
+		}
+
+		addLevel(nodes.length);
+
+		while (nodes.length > 1) {
+			bounds = partition(nodes.length, this.fanOut, (this.fanOut + 1) / 2);
+			Object[] parents = new Object[bounds.length - 1];
+			Object[] parentLows = new Object[parents.length];
+
+			for (int i = 0; i < parents.length; i++) {
+				Internal parent = new Internal();
+
+				parent.count = bounds[i + 1] - bounds[i] - 1;
+
+				for (int c = bounds[i]; c < bounds[i + 1]; c++) {
+					BNode child = (BNode) nodes[c];
+
+					parent.children[c - bounds[i]] = child;
+					child.parent = parent;
+
+					if (c > bounds[i]) {
+						parent.keys[c - bounds[i] - 1] = lows[c];
+					}
+				}
+
+				parentLows[i] = lows[bounds[i]];
+				parents[i] = parent;
+			}
+
+			addLevel(parents.length);
+			nodes = parents;
+			lows = parentLows;
+		}
+
+		this.root = (BNode) nodes[0];
+		this.size = sorted.length;
+	}
+
+	/**
+	 * Splits a number of items into groups of a maximum size, all full but the last two, which share the
+	 * rest if the last would otherwise hold less than a minimum.
+	 *
+	 * @param items the number of items; positive.
+	 * @param max the largest size of a group.
+	 * @param min the smallest size of a group, unless there is only one.
+	 * @return the bounds of the groups: group <code>i</code> holds the items from <code>bounds[i]</code>
+	 * to <code>bounds[i + 1]</code>.
+	 */
+	private static int[] partition(int items, int max, int min) {
+		int groups = (items + max - 1) / max;
+		int[] bounds = new int[groups + 1];
+
+		for (int i = 1; i <= groups; i++) {
+			bounds[i] = Math.min(items, i * max);
+		}
+
+		if (groups > 1 && items - bounds[groups - 1] < min) {
+			int shared = items - bounds[groups - 2];
+
+			bounds[groups - 1] = bounds[groups - 2] + (shared + 1) / 2;
+		}
+
+		return bounds;
+	}
+
+	@Override
+	public void add(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+
+		this.size++;
+
+		if (this.root == null) {
+			Leaf leaf = new Leaf();
+
+			leaf.keys[leaf.count++] = value;
+			this.root = leaf;
+			this.first = leaf;
+			addLevel(1);
+			return;
+		}
+
+		// go right of equal separators and values, so a duplicate goes after the others
+		BNode node = (BNode) this.root;
+
+		while (!node.isLeaf()) {
+			node = ((Internal) node).children[upperBound(node, value)];
+		}
+
+		Leaf leaf = (Leaf) node;
+		int i = upperBound(leaf, value);
+
+		System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.count - i);
+		leaf.keys[i] = value;
+
+		if (++leaf.count == this.fanOut) {
+			split(leaf);
+		}
+	}
+
+	/**
+	 * Splits an overfull leaf in two and carries the split up through every parent that overflows in turn.
+	 *
+	 * @param leaf a leaf holding one more value than it may.
+	 */
+	private void split(Leaf leaf) {
+		Leaf right = new Leaf();
+		int mid = (leaf.count + 1) / 2;
+
+		right.count = leaf.count - mid;
+		System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+		java.util.Arrays.fill(leaf.keys, mid, leaf.count, null);
+		leaf.count = mid;
+		right.next = leaf.next;
+		leaf.next = right;
+		this.levels[0]++;
+
+		BNode left = leaf;
+		BNode added = right;
+		Object separator = right.keys[0];
+
+		for (int level = 1; ; level++) {
+			Internal parent = (Internal) left.parent;
+
+			if (parent == null) {
+				parent = new Internal();
+				parent.children[0] = left;
+				parent.children[1] = added;
+				parent.keys[0] = separator;
+				parent.count = 1;
+				left.parent = parent;
+				added.parent = parent;
+				this.root = parent;
+				addLevel(1);
+				return;
+			}
+
+			int i = parent.indexOf(left);
+
+			System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.count - i);
+			System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+			parent.keys[i] = separator;
+			parent.children[i + 1] = added;
+			added.parent = parent;
+
+			if (++parent.count < this.fanOut) {
+				return;
+			}
+
+			// the parent has one child too many: the middle separator moves up
+			Internal sibling = new Internal();
+			int children = parent.count + 1;
+			int keep = (children + 1) / 2;
+
+			separator = parent.keys[keep - 1];
+			sibling.count = parent.count - keep;
+			System.arraycopy(parent.keys, keep, sibling.keys, 0, sibling.count);
+			System.arraycopy(parent.children, keep, sibling.children, 0, sibling.count + 1);
+
+			for (int c = 0; c <= sibling.count; c++) {
+				sibling.children[c].parent = sibling;
+			}
+
+			java.util.Arrays.fill(parent.keys, keep - 1, parent.count, null);
+			java.util.Arrays.fill(parent.children, keep, children, null);
+			parent.count = keep - 1;
+			this.levels[level]++;
+
+			left = parent;
+			added = sibling;
+		}
+	}
+
+	@Override
+	public boolean contains(E value) {
+		return find(value) != null;
+	}
+
+	@Override
+	public boolean remove(E value) {
+		Leaf leaf = find(value);
+
+		if (leaf == null) {
+			return false;
+		}
+
+		int i = lowerBound(leaf, value);
+
+		System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.count - i - 1);
+		leaf.keys[--leaf.count] = null;
+		this.size--;
+
+		if (leaf == this.root) {
+			if (leaf.count == 0) {
+				this.root = null;
+				this.first = null;
+				this.levels[--this.height] = 0;
+			}
+		} else if (leaf.count < this.fanOut / 2) {
+			refill(leaf);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Refills a node holding one fewer entry than it must, by taking one from a sibling or merging with it.
+	 * A merge leaves the parent with one child fewer, which may need refilling in turn. The tree loses a level
+	 * when the root is left with a single child.
+	 *
+	 * @param node the node; not the root.
+	 */
+	private void refill(BNode node) {
+		for (int level = 0; node != this.root; level++) {
+			int min = node.isLeaf() ? this.fanOut / 2 : (this.fanOut + 1) / 2 - 1;
+
+			if (node.count >= min) {
+				return;
+			}
+
+			Internal parent = (Internal) node.parent;
+			int i = parent.indexOf(node);
+			BNode left = i > 0 ? parent.children[i - 1] : null;
+			BNode right = i < parent.count ? parent.children[i + 1] : null;
+
+			if (left != null && left.count > min) {
+				borrowLeft(parent, i);
+				return;
+			} else if (right != null && right.count > min) {
+				borrowRight(parent, i);
+				return;
+			}
+
+			if (left != null) {
+				merge(parent, i - 1);
+			} else {
+				merge(parent, i);
+			}
+
+			this.levels[level]--;
+			node = parent;
+		}
+
+		if (!node.isLeaf() && node.count == 0) {
+			BNode child = ((Internal) node).children[0];
+
+			child.parent = null;
+			this.root = child;
+			this.levels[--this.height] = 0;
+		}
+	}
+
+	/**
+	 * Moves the last entry of a node's left sibling into the node.
+	 *
+	 * @param parent the parent of both.
+	 * @param i the index of the node among the parent's children.
+	 */
+	private void borrowLeft(Internal parent, int i) {
+		BNode node = parent.children[i];
+		BNode left = parent.children[i - 1];
+
+		System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+
+		if (node.isLeaf()) {
+			node.keys[0] = left.keys[left.count - 1];
+			parent.keys[i - 1] = node.keys[0];
+		} else {
+			Internal n = (Internal) node;
+			Internal l = (Internal) left;
+
+			System.arraycopy(n.children, 0, n.children, 1, n.count + 1);
+			n.keys[0] = parent.keys[i - 1];
+			n.children[0] = l.children[l.count];
+			n.children[0].parent = n;
+			l.children[l.count] = null;
+			parent.keys[i - 1] = l.keys[l.count - 1];
+		}
+
+		left.keys[--left.count] = null;
+		node.count++;
+	}
+
+	/**
+	 * Moves the first entry of a node's right sibling into the node.
+	 *
+	 * @param parent the parent of both.
+	 * @param i the index of the node among the parent's children.
+	 */
+	private void borrowRight(Internal parent, int i) {
+		BNode node = parent.children[i];
+		BNode right = parent.children[i + 1];
+
+		if (node.isLeaf()) {
+			node.keys[node.count] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+			parent.keys[i] = right.keys[0];
+		} else {
+			Internal n = (Internal) node;
+			Internal r = (Internal) right;
+
+			n.keys[n.count] = parent.keys[i];
+			n.children[n.count + 1] = r.children[0];
+			n.children[n.count + 1].parent = n;
+			parent.keys[i] = r.keys[0];
+			System.arraycopy(r.keys, 1, r.keys, 0, r.count - 1);
+			System.arraycopy(r.children, 1, r.children, 0, r.count);
+			r.children[r.count] = null;
+		}
+
+		right.keys[--right.count] = null;
+		node.count++;
+	}
+
+	/**
+	 * Merges two neighboring children of a node, removing the separator between them.
+	 *
+	 * @param parent the parent of both.
+	 * @param i the index of the left child among the parent's children.
+	 */
+	private void merge(Internal parent, int i) {
+		BNode left = parent.children[i];
+		BNode right = parent.children[i + 1];
+
+		if (left.isLeaf()) {
+			System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+			left.count += right.count;
+			((Leaf) left).next = ((Leaf) right).next;
+		} else {
+			Internal l = (Internal) left;
+			Internal r = (Internal) right;
+
+			l.keys[l.count] = parent.keys[i];
+			System.arraycopy(r.keys, 0, l.keys, l.count + 1, r.count);
+			System.arraycopy(r.children, 0, l.children, l.count + 1, r.count + 1);
+
+			for (int c = 0; c <= r.count; c++) {
+				r.children[c].parent = l;
+			}
+
+			l.count += r.count + 1;
+		}
+
+		System.arraycopy(parent.keys, i + 1, parent.keys, i, parent.count - i - 1);
+		System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.count - i - 1);
+		parent.keys[parent.count - 1] = null;
+		parent.children[parent.count] = null;
+		parent.count--;
+	}
+
+	/**
+	 * Finds the leaf holding the first occurrence of a value.
+	 *
+	 * @param value the value.
+	 * @return the leaf; null if the value is not in the tree.
+	 */
+	private Leaf find(E value) {
+		Leaf leaf = lowerLeaf(value);
+
+		if (leaf == null) {
+			return null;
+		}
+
+		int i = lowerBound(leaf, value);
+
+		if (i == leaf.count) {
+			// every value of the leaf is less; the first one not less starts the next leaf
+			leaf = leaf.next;
+			i = 0;
+		}
+
+		return leaf != null && value.compareTo((E) leaf.keys[i]) == 0 ? leaf : null;
+	}
+
+	/**
+	 * @param value a value.
+	 * @return the leaf where the first value not less than the given one is, or which precedes it; null if
+	 * the tree is empty.
+	 */
+	private Leaf lowerLeaf(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+
+		BNode node = (BNode) this.root;
+
+		while (node != null && !node.isLeaf()) {
+			node = ((Internal) node).children[lowerBound(node, value)];
+		}
+
+		return (Leaf) node;
+	}
+
+	/**
+	 * @param node a node.
+	 * @param value a value.
+	 * @return the index of the first key of the node not less than the value; the count if there is none.
+	 */
+	private int lowerBound(BNode node, E value) {
+		Object[] keys = node.keys;
+		int lo = 0;
+		int hi = node.count;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (value.compareTo((E) keys[mid]) > 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * @param node a node.
+	 * @param value a value.
+	 * @return the index of the first key of the node greater than the value; the count if there is none.
+	 */
+	private int upperBound(BNode node, E value) {
+		Object[] keys = node.keys;
+		int lo = 0;
+		int hi = node.count;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (value.compareTo((E) keys[mid]) >= 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Counts a node as added to the top level, or adds a level for it.
+	 *
+	 * @param nodes the number of nodes of the new top level.
+	 */
+	private void addLevel(int nodes) {
+		if (this.height == this.levels.length) {
+			this.levels = java.util.Arrays.copyOf(this.levels, 2 * this.levels.length);
+		}
+
+		this.levels[this.height++] = nodes;
+	}
+
+	/**
+	 * @return an iterator over the values in ascending order, following the links between the leaves.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private Leaf leaf = first;
+			private int i;
+
+			@Override
+			public boolean hasNext() {
+				return this.leaf != null;
+			}
+
+			@Override
+			public E next() {
+				if (this.leaf == null) {
+					throw new NoSuchElementException();
+				}
+
+				E value = (E) this.leaf.keys[this.i];
+
+				if (++this.i == this.leaf.count) {
+					this.leaf = this.leaf.next;
+					this.i = 0;
+				}
+
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * Performs an action on every value in a range, in ascending order. Finds the start of the range in
+	 * <code>O(log n)</code> and then scans the leaves.
+	 *
+	 * @param lo the lowest value of the range, inclusive.
+	 * @param hi the end of the range, exclusive.
+	 * @param action the action.
+	 */
+	public void forEachInRange(E lo, E hi, Consumer<? super E> action) {
+		if (hi == null || action == null) {
+			throw new NullPointerException();
+		}
+
+		Leaf leaf = lowerLeaf(lo);
+		int i = leaf == null ? 0 : lowerBound(leaf, lo);
+
+		for (; leaf != null; leaf = leaf.next, i = 0) {
+			for (; i < leaf.count; i++) {
+				E value = (E) leaf.keys[i];
+
+				if (value.compareTo(hi) >= 0) {
+					return;
+				}
+
+				action.accept(value);
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the fan-out.
+	 */
+	public int fanOut() {
+		return this.fanOut;
+	}
+
+	/**
+	 * @return the number of levels of nodes; 0 if the tree is empty.
+	 */
+	public int height() {
+		return this.height;
+	}
+
+	/**
+	 * @return the sum of the depths of all nodes, the root being at depth 0.
+	 */
+	@Override
+	public int internalPathLength() {
+		int length = 0;
+
+		for (int level = 0; level < this.height; level++) {
+			length += this.levels[level] * (this.height - 1 - level);
+		}
+
+		return length;
+	}
+
+	@Override
+	public int internalNodes() {
+		return this.height == 0 ? 0 : nodeCount() - this.levels[0];
+	}
+
+	@Override
+	public int leafCount() {
+		return this.levels[0];
+	}
+
+	/**
+	 * @return the number of nodes.
+	 */
+	private int nodeCount() {
+		int count = 0;
+
+		for (int level = 0; level < this.height; level++) {
+			count += this.levels[level];
+		}
+
+		return count;
+	}
+
+	/**
+	 * Checks if both trees have the same fan-out and values, laid out in the same nodes.
+	 *
+	 * @return true if the trees are deeply equal; false otherwise.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof BPlusTree)) {
+			return false;
+		}
+
+		BPlusTree<?> other = (BPlusTree<?>) obj;
+
+		if (this.fanOut != other.fanOut || this.size != other.size || this.height != other.height) {
+			return false;
+		}
+
+		ArrayDeque<Object> queue = new ArrayDeque<>();
+
+		if (this.root != null) {
+			queue.add(this.root);
+			queue.add(other.root);
+		}
+
+		while (!queue.isEmpty()) {
+			BNode n1 = (BNode) queue.poll();
+			BPlusTree<?>.BNode n2 = (BPlusTree<?>.BNode) queue.poll();
+
+			if (n1.count != n2.count || n1.isLeaf() != n2.isLeaf()) {
+				return false;
+			}
+
+			for (int i = 0; i < n1.count; i++) {
+				if (!n1.keys[i].equals(n2.keys[i])) {
+					return false;
+				}
+			}
+
+			if (!n1.isLeaf()) {
+				for (int i = 0; i <= n1.count; i++) {
+					queue.add(((Internal) n1).children[i]);
+					queue.add(((BPlusTree<?>.Internal) n2).children[i]);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return the fan-out, size, height, internal path length, and number of internal nodes and leaves.
+	 */
+	@Override
+	public String toString() {
+		return String.format("[fanOut=%d],[size=%d],[height=%d],[internalPathLength=%d],[internalNodes=%d],[leaves=%d]",
+				this.fanOut, this.size, this.height, internalPathLength(), internalNodes(), leafCount());
+	}
+
+	/**
+	 * A node: a sorted array of keys with room for one more than a full node holds.
+	 */
+	private abstract class BNode extends Node {
+		/**
+		 * The keys: the values of a leaf, or the separators of an internal node.
+		 */
+		final Object[] keys = new Object[fanOut];
+
+		/**
+		 * The number of keys.
+		 */
+		int count;
+
+		BNode() {
+			super(null, null);
+		}
+
+		/**
+		 * @return true if this node is a leaf.
+		 */
+		abstract boolean isLeaf();
+	}
+
+	/**
+	 * A leaf, holding values.
+	 */
+	private final class Leaf extends BNode {
+		/**
+		 * The leaf to the right; null for the last.
+		 */
+		Leaf next;
+
+		@Override
+		boolean isLeaf() {
+			return true;
+		}
+	}
+
+	/**
+	 * An internal node. Its separator <code>i</code> is no greater than any value under child
+	 * <code>i + 1</code> and no less than any value under child <code>i</code>.
+	 */
+	private final class Internal extends BNode {
+		/**
+		 * The children; one more than the keys.
+		 */
+		final BNode[] children = (BNode[]) new BPlusTree<?>.BNode[fanOut + 1];
+
+		@Override
+		boolean isLeaf() {
+			return false;
+		}
+
+		/**
+		 * @param child a child of this node.
+		 * @return the index of the child.
+		 */
+		int indexOf(BNode child) {
+			int i = 0;
+
+			while (this.children[i] != child) {
+				i++;
+			}
+
+			return i;
+		}
+	}
+}
@@ -1,11 +1,28 @@
 package pv3199.util;
 
 /**
- * A binary tree stored in the form of a binary tree. This array is NOT self balancing.
+ * A binary search tree stored in the form of a binary tree array: the children of the node at index
+ * <code>i</code> are at <code>2i + 1</code> and <code>2i + 2</code>. Elements less than or equal to a node
+ * go to its left.
+ * <p>
+ * The array is self-balancing by partial rebuilding. The height of the tree is kept at most one more than
+ * the height of a complete tree holding the largest number of elements since the last full rebuild. When an
+ * insertion would go deeper, the lowest ancestor whose subtree is dense enough is rebuilt into a complete
+ * layout, which shortens the insertion's path. The density a subtree needs is 1/2 of its available slots at
+ * the root and rises towards 1 at the bottom, as in a packed-memory array, so that a rebuild leaves room
+ * for many more insertions below it and each insertion moves amortized <code>O(log<sup>2</sup> n)</code>
+ * elements. When removals leave fewer than half of that many elements, the whole tree is rebuilt. The array
+ * therefore holds <code>O(n)</code> slots, lookups take <code>O(log n)</code>, and nothing recurses.
  *
  * @param <E> a comparable data type
  */
 public final class BinaryArray<E extends Comparable<E>> extends HeapImpl<E> {
+	/**
+	 * The largest number of elements since the last full rebuild. The height is kept within
+	 * {@link #maxHeight()}, which derives from it.
+	 */
+	private int maxCount;
+
 	/**
 	 * Constructs a BinaryArray with a default capacity of 7.
 	 */
@@ -17,7 +34,7 @@ public final class BinaryArray<E extends Comparable<E>> extends HeapImpl<E> {
 	 * Constructs a BinaryArray with a <i>desired</i> initial capacity. The
 	 * given capacity is not always ensured because binary array's capacity must
 	 * be some positive power of 2 minus 1. As such, the initial capacity is
-	 * "rounded" down to the nearest such size.
+	 * "rounded" up to the nearest such size.
 	 *
 	 * @param initialCapacity the desired initial capacity of the binary array.
 	 */
@@ -31,62 +48,233 @@ public final class BinaryArray<E extends Comparable<E>> extends HeapImpl<E> {
 			throw new NullPointerException("nulls not allowed");
 		}
 
-		// get the best parent node index
-		int parent = bestParent(e, 0);
-
-		// if the parent index is less than 0, then we are adding the root
-		// to the tree; otherwise we must insert this element to the left
-		// subtree or right subtree of the parent node if the element is
-		// less than or equal to the parent or greater than the parent
-		// (respectively)
-		if (parent < 0) {
+		if (!exists(0)) {
+			// adding the root
 			set(0, e);
-		} else {
-			// if the supposed left index of this parent is out of bounds,
-			// the binary array must grow in size (we don't need to check
-			// for the right index because the left index is less than the
-			// right index
-			if (refLeft(parent) >= this.data.length) {
+			this.maxCount = Math.max(this.maxCount, size());
+			return;
+		}
+
+		// walk down to the best parent node, going left when the element is
+		// less than or equal to the node and right otherwise
+		int node = 0;
+		int slot;
+
+		while (true) {
+			slot = e.compareTo(get(node)) <= 0 ? refLeft(node) : refRight(node);
+
+			if (!exists(slot)) {
+				break;
+			}
+
+			node = slot;
+		}
+
+		this.maxCount = Math.max(this.maxCount, size() + 1);
+
+		if (depth(slot) <= maxHeight()) {
+			while (slot >= this.data.length) {
 				grow();
 			}
 
-			// insert element appropriately
-			if (e.compareTo(get(parent)) <= 0) {
-				setLeft(parent, e);
-			} else {
-				setRight(parent, e);
+			set(slot, e);
+		} else {
+			rebuildScapegoat(slot, e);
+		}
+	}
+
+	/**
+	 * Gets the depth of an index, counting the root as depth 1.
+	 *
+	 * @param i the index.
+	 * @return the depth of the index.
+	 */
+	private static int depth(int i) {
+		return 32 - Integer.numberOfLeadingZeros(i + 1);
+	}
+
+	/**
+	 * Gets the height of the shortest tree that holds a number of elements.
+	 *
+	 * @param n the number of elements.
+	 * @return the minimal height.
+	 */
+	private static int minHeight(int n) {
+		return 32 - Integer.numberOfLeadingZeros(n);
+	}
+
+	/**
+	 * @return the greatest height the tree may have: one more than the height of a complete tree of
+	 * {@link #maxCount} elements.
+	 */
+	private int maxHeight() {
+		return minHeight(this.maxCount) + 1;
+	}
+
+	/**
+	 * Inserts an element whose slot is too deep, by rebuilding the lowest ancestor of the slot whose subtree,
+	 * with the element, is taller than the shortest tree of its size. Rebuilding it shortens the element's
+	 * path by at least one level, which brings it back within {@link #maxHeight()}. The root always qualifies,
+	 * since the tree's height is within the bound before the insertion.
+	 *
+	 * @param slot the empty slot the element would go into.
+	 * @param e the element.
+	 */
+	private void rebuildScapegoat(int slot, E e) {
+		int child = slot;
+		int size = 1;
+		int node;
+
+		while (true) {
+			node = refParent(child);
+
+			int sibling = child == refLeft(node) ? refRight(node) : refLeft(node);
+			size += 1 + subtreeSize(sibling);
+
+			int levels = maxHeight() - depth(node) + 1;
+			double density = 0.5 + 0.5 * (depth(node) - 1) / Math.max(1, maxHeight() - 1);
+
+			if (size <= density * ((1L << levels) - 1)) {
+				break;
 			}
+
+			child = node;
 		}
+
+		rebuild(node, size, e);
 	}
 
 	/**
-	 * Gets the index of the best parent node for a given element.
+	 * Counts the nodes of a subtree.
 	 *
-	 * @param e the element to add.
-	 * @param node the current node.
-	 * @return the index of the best parent node for an element.
+	 * @param root the index of the subtree's root.
+	 * @return the number of nodes in the subtree.
 	 */
-	private int bestParent(E e, int node) {
-		// if the node doesn't exist, then return -1 (this should only
-		// happen when the binary array is empty
-		if (!exists(node)) {
-			return -1;
-		}
-
-		// get the compare result, and get the left and right node indices of "node"
-		int compare = e.compareTo(get(node));
-		int left = refLeft(node);
-		int right = refRight(node);
-
-		if (compare <= 0 && exists(left)) {
-			// best parent resides in the left subtree
-			return bestParent(e, left);
-		} else if (compare > 0 && exists(right)) {
-			// best parent resides in right subtree
-			return bestParent(e, right);
-		} else {
-			// this is the best parent
-			return node;
+	private int subtreeSize(int root) {
+		if (!exists(root)) {
+			return 0;
+		}
+
+		int[] stack = new int[maxHeight() + 2];
+		int sp = 0;
+		int n = 0;
+
+		stack[sp++] = root;
+
+		// depth-first, pushing the right child and walking down the left one
+		while (sp > 0) {
+			for (int i = stack[--sp]; exists(i); i = refLeft(i)) {
+				n++;
+
+				if (exists(refRight(i))) {
+					stack[sp++] = refRight(i);
+				}
+			}
+		}
+
+		return n;
+	}
+
+	/**
+	 * Collects the elements of a subtree in order, clearing their nodes.
+	 *
+	 * @param root the index of the subtree's root.
+	 * @param out the array to collect into.
+	 * @param n the index of out to start at.
+	 * @return the index of out after the last collected element.
+	 */
+	private int collect(int root, Object[] out, int n) {
+		int[] stack = new int[maxHeight() + 2];
+		int sp = 0;
+		int i = root;
+
+		while (exists(i) || sp > 0) {
+			while (exists(i)) {
+				stack[sp++] = i;
+				i = refLeft(i);
+			}
+
+			i = stack[--sp];
+			out[n++] = get(i);
+			int right = refRight(i);
+			set(i, null);
+			i = right;
+		}
+
+		return n;
+	}
+
+	/**
+	 * Rebuilds a subtree into a complete layout, optionally inserting an element into it.
+	 *
+	 * @param root the index of the subtree's root.
+	 * @param size the number of nodes in the subtree, counting the inserted element.
+	 * @param e the element to insert, or null.
+	 */
+	private void rebuild(int root, int size, E e) {
+		Object[] sorted = new Object[size];
+		int n = collect(root, sorted, 0);
+
+		if (e != null) {
+			// insert after any equal elements, as the walk down the tree would have
+			int at = n;
+
+			while (at > 0 && e.compareTo((E) sorted[at - 1]) < 0) {
+				at--;
+			}
+
+			System.arraycopy(sorted, at, sorted, at + 1, n - at);
+			sorted[at] = e;
+		}
+
+		layout(root, sorted);
+	}
+
+	/**
+	 * Writes sorted elements into an empty subtree as a complete tree, taking the middle element of each
+	 * range as the node and the halves as its subtrees.
+	 *
+	 * @param root the index of the subtree's root.
+	 * @param sorted the elements in order.
+	 */
+	private void layout(int root, Object[] sorted) {
+		if (sorted.length == 0) {
+			return;
+		}
+
+		int levels = minHeight(sorted.length);
+
+		// the deepest index of the subtree is the last one of its last level
+		while (((long) root + 2 << levels - 1) - 2 >= this.data.length) {
+			grow();
+		}
+
+		int[] stack = new int[3 * (2 * levels + 2)];
+		int sp = 0;
+
+		stack[sp++] = root;
+		stack[sp++] = 0;
+		stack[sp++] = sorted.length - 1;
+
+		while (sp > 0) {
+			int hi = stack[--sp];
+			int lo = stack[--sp];
+			int node = stack[--sp];
+
+			if (lo > hi) {
+				continue;
+			}
+
+			int mid = (lo + hi) >>> 1;
+
+			set(node, (E) sorted[mid]);
+
+			stack[sp++] = refRight(node);
+			stack[sp++] = mid + 1;
+			stack[sp++] = hi;
+			stack[sp++] = refLeft(node);
+			stack[sp++] = lo;
+			stack[sp++] = mid - 1;
 		}
 	}
 
@@ -97,30 +285,29 @@ public final class BinaryArray<E extends Comparable<E>> extends HeapImpl<E> {
 	 * @return true if the array has the element.
 	 */
 	public boolean contains(E e) {
-		return get(e, 0) >= 0;
+		return indexOf(e) >= 0;
 	}
 
 	/**
 	 * Gets the index of an element.
 	 *
 	 * @param e the element.
-	 * @param node the current node.
 	 * @return the index of the element; -1 if not found
 	 */
-	private int get(E e, int node) {
-		if (!exists(node)) {
-			// node doesn't exist aka not found
-			return -1;
-		} else if (e.compareTo(get(node)) == 0) {
-			// this is the node, return this index
-			return node;
-		} else if (e.compareTo(get(node)) < 0) {
-			// node resides in left subtree
-			return get(e, refLeft(node));
-		} else {
-			// node resides in right subtree
-			return get(e, refRight(node));
+	private int indexOf(E e) {
+		int node = 0;
+
+		while (exists(node)) {
+			int compare = e.compareTo(get(node));
+
+			if (compare == 0) {
+				return node;
+			}
+
+			node = compare < 0 ? refLeft(node) : refRight(node);
 		}
+
+		return -1;
 	}
 
 	/**
@@ -132,7 +319,7 @@ public final class BinaryArray<E extends Comparable<E>> extends HeapImpl<E> {
 	 */
 	public boolean remove(E e) {
 		// get the index of the element
-		int node = get(e, 0);
+		int node = indexOf(e);
 
 		if (node < 0) {
 			// node DNE
@@ -141,101 +328,51 @@ public final class BinaryArray<E extends Comparable<E>> extends HeapImpl<E> {
 
 		remove(node);
 
+		if (size() < this.maxCount / 2) {
+			// too few elements for the array's size; rebuild the whole tree
+			Object[] sorted = new Object[size()];
+
+			collect(0, sorted, 0);
+			reset(capacityFor(Math.max(1, sorted.length)));
+			layout(0, sorted);
+
+			this.maxCount = sorted.length;
+		}
+
 		return true;
 	}
 
 	/**
-	 * Removes a node from the binary array. 3 possible cases:
-	 * node is a leaf, has only one child, or has two children.
+	 * Removes a node from the binary array. A leaf is simply cleared. Otherwise, the node takes the value of
+	 * its in-order successor (or predecessor, if it has no right subtree), which has at most one child, and
+	 * the successor's node is removed the same way, until a leaf is reached.
 	 *
 	 * @param node the node index to remove.
 	 */
 	private void remove(int node) {
-		if (isLeaf(node)) {
-			leafRemoval(node);
-		} else if (isSingle(node)) {
-			singleRemoval(node);
-		} else {
-			doubleRemoval(node);
-		}
-	}
+		while (!isLeaf(node)) {
+			int next;
 
-	/**
-	 * Removes a leaf node.
-	 *
-	 * @param node the leaf node.
-	 */
-	private void leafRemoval(int node) {
-		this.data[node] = null;
-
-		/*if (node == 0) {
-			// node is root, set root to null
-			this.data[0] = null;
-		} else {
-			// get parent of node (it must have one since it's not the root)
-			int parent = refParent(node);
+			if (exists(refRight(node))) {
+				// smallest node on the right subtree
+				next = refRight(node);
 
-			// if the left child of this parent is the node, set that
-			// child to be null; similarly if it's the right child
-			if (refLeft(parent) == node) {
-				setLeft(parent, null);
+				while (exists(refLeft(next))) {
+					next = refLeft(next);
+				}
 			} else {
-				setRight(parent, null);
-			}
-		}*/
-	}
+				// largest node on the left subtree
+				next = refLeft(node);
 
-	/**
-	 * Removes a node with only one child.
-	 *
-	 * @param node the node with only child.
-	 */
-	private void singleRemoval(int node) {
-		// get parent of this node
-		int parent = refParent(node);
-		// get the only child of this node
-		int child = exists(refRight(node)) ? refRight(node) : refLeft(node);
-
-		if (node == 0) {
-			// node is root, set root to be node's child
-			this.data[0] = get(child);
-		} else {
-			// if node is right child of parent, set right child of parent
-			// to be the only child of node; similarly if it's the left child
-			if (refRight(parent) == node) {
-				setRight(parent, get(child));
-			} else {
-				setLeft(parent, get(child));
+				while (exists(refRight(next))) {
+					next = refRight(next);
+				}
 			}
-		}
-
-		remove(child);
-
-		// set the child index of this node to be null
-		// this.data[child] = null;
-	}
 
-	/**
-	 * Removes a node with two children.
-	 *
-	 * @param node the node with two children.
-	 */
-	private void doubleRemoval(int node) {
-		// getting the smallest node on the right subtree of node
-		int minSubRight = refRight(node);
-
-		while (exists(refLeft(minSubRight))) {
-			minSubRight = refLeft(minSubRight);
+			set(node, get(next));
+			node = next;
 		}
 
-		// set the node index to be it's smallest node on it's right subtree
-		set(node, get(minSubRight));
-
-		// remove minSubRight from tree appropriately (if it's leaf or single-child node)
-		if (isLeaf(minSubRight)) {
-			leafRemoval(minSubRight);
-		} else {
-			singleRemoval(minSubRight);
-		}
+		set(node, null);
 	}
-}
\ No newline at end of file
+}
@@ -1,6 +1,52 @@
 package pv3199.util;
 
-public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An unbalanced binary search tree. Values less than a node go to its left, and the others to its right.
+ * Every operation walks the tree iteratively, so a degenerate tree costs time but never overflows the stack.
+ * <p>
+ * Each node keeps the size, leaf count and internal path length of its subtree, updated on the way back up
+ * from every insertion and removal. The metrics of the tree are read off the root in <code>O(1)</code>, and
+ * {@link #rank(Comparable)} and {@link #select(int)} take time proportional to the height.
+ * <p>
+ * The tree can be traversed in-order, which is also its {@link #iterator() iteration order}, pre-order,
+ * post-order and level-order. All but the level-order iterator follow the parent links, so they need no
+ * stack; the {@link #spliterator() spliterator} splits the tree by subtree for parallel streams. The tree
+ * must not be modified during a traversal.
+ * <p>
+ * Subclasses can keep the tree balanced: nodes are created through {@link #newNode(BinaryNode, Object)},
+ * each insertion and removal is reported to {@link #inserted(BinaryNode)} and {@link #removed(BinaryNode)},
+ * and {@link #rotateLeft(BinaryNode)} and {@link #rotateRight(BinaryNode)} restructure the tree. Nodes can
+ * keep aggregates of their own in {@link BinaryNode#aggregate()}, which runs wherever the built-in ones are
+ * recomputed.
+ *
+ * @param <E> a comparable data type
+ * @see AvlTree
+ * @see RedBlackTree
+ */
+public class BinaryTree<E extends Comparable<E>> extends Tree<E> implements Iterable<E> {
+	/**
+	 * The size of the subtrees that {@link #reduce(Object, Function, BinaryOperator)}
+	 * and {@link #equals(Object)} walk in one thread rather than split
+	 * further; trees up to this size are walked in the calling thread.
+	 */
+	private final static int PARALLEL_THRESHOLD = 1 << 13;
+	
 	/**
 	 * Constructs a BinaryTree with a null root.
 	 */
@@ -14,7 +60,171 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 	 * @param initialRoot value of the root.
 	 */
 	public BinaryTree(E initialRoot) {
-		root = new BinaryNode(null, initialRoot);
+		root = newNode(null, initialRoot);
+		inserted((BinaryNode) root);
+	}
+	
+	/**
+	 * Builds a balanced tree from sorted values in <code>O(n)</code>. The
+	 * middle value becomes the root and each half is built the same way, so
+	 * the tree has the least height possible, unlike a tree built by adding
+	 * sorted values one by one, which degenerates into a list.
+	 *
+	 * @param sorted the values in ascending order.
+	 * @param <E> a comparable data type
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the values are not sorted
+	 * @throws NullPointerException if a value is null
+	 */
+	public static <E extends Comparable<E>> BinaryTree<E> fromSorted(E[] sorted) throws IllegalArgumentException {
+		return fromSorted(sorted, BinaryTree::new);
+	}
+	
+	/**
+	 * Builds a balanced tree of a given kind from sorted values in
+	 * <code>O(n)</code>, like {@link #fromSorted(Comparable[])}. Every node is
+	 * reported to {@link #relinked(BinaryNode, int, int)}, so a subclass such
+	 * as {@link AvlTree} or {@link RedBlackTree} sets up its balance
+	 * information as it would after {@link #rebalance()}.
+	 *
+	 * @param sorted the values in ascending order.
+	 * @param constructor makes the empty tree to link the values into.
+	 * @param <E> a comparable data type
+	 * @param <T> the kind of tree
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the values are not sorted
+	 * @throws NullPointerException if a value is null
+	 */
+	public static <E extends Comparable<E>, T extends BinaryTree<E>> T fromSorted(E[] sorted, Supplier<T> constructor) throws IllegalArgumentException {
+		T tree = constructor.get();
+		
+		((BinaryTree<E>) tree).load(sorted.clone());
+		
+		return tree;
+	}
+	
+	/**
+	 * Builds a balanced tree from a sorted list in <code>O(n)</code>, like
+	 * {@link #fromSorted(Comparable[])}.
+	 *
+	 * @param sorted the values in ascending order.
+	 * @param <E> a comparable data type
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the values are not sorted
+	 * @throws NullPointerException if a value is null
+	 */
+	public static <E extends Comparable<E>> BinaryTree<E> fromSorted(List<? extends E> sorted) throws IllegalArgumentException {
+		return fromSorted(sorted, BinaryTree::new);
+	}
+	
+	/**
+	 * Builds a balanced tree of a given kind from a sorted list in
+	 * <code>O(n)</code>, like {@link #fromSorted(Comparable[], Supplier)}.
+	 *
+	 * @param sorted the values in ascending order.
+	 * @param constructor makes the empty tree to link the values into.
+	 * @param <E> a comparable data type
+	 * @param <T> the kind of tree
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the values are not sorted
+	 * @throws NullPointerException if a value is null
+	 */
+	public static <E extends Comparable<E>, T extends BinaryTree<E>> T fromSorted(List<? extends E> sorted, Supplier<T> constructor) throws IllegalArgumentException {
+		T tree = constructor.get();
+		
+		((BinaryTree<E>) tree).load(sorted.toArray());
+		
+		return tree;
+	}
+	
+	/**
+	 * Builds a balanced tree from a sorted data structure in <code>O(n)</code>,
+	 * like {@link #fromSorted(Comparable[])}, provided the structure's
+	 * {@link DataStructure#forEach(Consumer)} takes linear time.
+	 *
+	 * @param sorted the values in ascending order.
+	 * @param <E> a comparable data type
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the values are not sorted
+	 * @throws NullPointerException if a value is null
+	 */
+	public static <E extends Comparable<E>> BinaryTree<E> fromSorted(DataStructure<E> sorted) throws IllegalArgumentException {
+		return fromSorted(sorted, BinaryTree::new);
+	}
+	
+	/**
+	 * Builds a balanced tree of a given kind from a sorted data structure in
+	 * <code>O(n)</code>, like {@link #fromSorted(Comparable[], Supplier)},
+	 * provided the structure's {@link DataStructure#forEach(Consumer)} takes
+	 * linear time.
+	 *
+	 * @param sorted the values in ascending order.
+	 * @param constructor makes the empty tree to link the values into.
+	 * @param <E> a comparable data type
+	 * @param <T> the kind of tree
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the values are not sorted
+	 * @throws NullPointerException if a value is null
+	 */
+	public static <E extends Comparable<E>, T extends BinaryTree<E>> T fromSorted(DataStructure<E> sorted, Supplier<T> constructor) throws IllegalArgumentException {
+		Object[] values = new Object[sorted.size()];
+		int[] i = new int[1];
+		
+		sorted.forEach((Consumer<E>) value -> values[i[0]++] = value);
+		
+		T tree = constructor.get();
+		
+		((BinaryTree<E>) tree).load(values);
+		
+		return tree;
+	}
+	
+	/**
+	 * Replaces the contents of the tree with sorted values, linked into a
+	 * tree of the least height possible.
+	 *
+	 * @param values the values in ascending order.
+	 * @throws IllegalArgumentException if the values are not sorted
+	 * @throws NullPointerException if a value is null
+	 */
+	private void load(Object[] values) throws IllegalArgumentException {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				throw new NullPointerException();
+			} else if (i > 0 && ((E) values[i - 1]).compareTo((E) values[i]) > 0) {
+				throw new IllegalArgumentException("values not sorted at index " + i);
+			}
+		}
+		
+		root = values.length == 0 ? null : link(values, 0, values.length, null, 0, minimumHeight(values.length));
+	}
+	
+	/**
+	 * Links a range of sorted values into a balanced subtree, its middle
+	 * value at the root.
+	 *
+	 * @param values the values.
+	 * @param from the first index of the range, inclusive.
+	 * @param to the last index of the range, exclusive.
+	 * @param parent the parent of the subtree.
+	 * @param depth the depth of the subtree's root.
+	 * @param height the height of the whole tree.
+	 * @return the root of the subtree; null if the range is empty.
+	 */
+	private BinaryNode link(Object[] values, int from, int to, BinaryNode parent, int depth, int height) {
+		if (from >= to) {
+			return null;
+		}
+		
+		int middle = (from + to) >>> 1;
+		BinaryNode node = newNode(parent, (E) values[middle]);
+		
+		node.left = link(values, from, middle, node, depth + 1, height);
+		node.right = link(values, middle + 1, to, node, depth + 1, height);
+		node.update();
+		relinked(node, depth, height);
+		
+		return node;
 	}
 	
 	/**
@@ -23,11 +233,14 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 	 */
 	@Override
 	public void add(E value) {
+		BinaryNode node;
+		
 		if (root == null) {
-			root = new BinaryNode(null, value);
+			node = newNode(null, value);
+			root = node;
 		} else {
-			BinaryNode parent = bestParent(value, (BinaryNode) root);
-			BinaryNode node = new BinaryNode(parent, value);
+			BinaryNode parent = bestParent(value);
+			node = newNode(parent, value);
 			
 			if (value.compareTo(parent.value) < 0) {
 				parent.left = node;
@@ -35,6 +248,9 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 				parent.right = node;
 			}
 		}
+		
+		inserted(node);
+		refresh(node);
 	}
 	
 	/**
@@ -56,141 +272,630 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 	
 	@Override
 	public boolean contains(E value) {
-		return get(value, (BinaryNode) root) != null;
+		return get(value) != null;
 	}
 	
 	@Override
 	public boolean remove(E value) {
-		BinaryNode node = get(value, (BinaryNode) root);
+		BinaryNode node = get(value);
 		
 		if (node == null) {
 			return false;
 		}
 		
-		((BinaryNode) root).remove(node);
+		BinaryNode parent = unlink(node);
+		
+		removed(parent);
+		refresh(parent);
 		
 		return true;
 	}
 	
 	/**
-	 * Recursively searches for a binary node based on its key.
+	 * Rebalances the tree in place in <code>O(n)</code> time and
+	 * <code>O(1)</code> space with the Day-Stout-Warren algorithm: right
+	 * rotations flatten the tree into a chain of right children, and rounds of
+	 * left rotations along the chain then fold it into a tree of the least
+	 * height possible. No values are compared.
+	 */
+	public void rebalance() {
+		if (root == null) {
+			return;
+		}
+		
+		int size = size();
+		BinaryNode node = (BinaryNode) root;
+		
+		while (node != null) {
+			node = node.left != null ? rotateRight(node) : node.right;
+		}
+		
+		// the first round leaves a perfect tree's worth of nodes above the bottom level
+		int perfect = Integer.highestOneBit(size + 1) - 1;
+		
+		compress(size - perfect);
+		
+		while (perfect > 1) {
+			perfect /= 2;
+			compress(perfect);
+		}
+		
+		relink((BinaryNode) root, 0, minimumHeight(size));
+	}
+	
+	/**
+	 * Rotates every other node of the chain of right children from the root
+	 * to the left, from the top.
+	 *
+	 * @param count the number of rotations.
+	 */
+	private void compress(int count) {
+		BinaryNode node = (BinaryNode) root;
+		
+		for (int i = 0; i < count; i++) {
+			node = rotateLeft(node).right;
+		}
+	}
+	
+	/**
+	 * Recomputes the aggregates of a subtree after it was rebuilt, children
+	 * first, reporting each node to {@link #relinked(BinaryNode, int, int)}.
+	 *
+	 * @param node the root of the subtree; may be null.
+	 * @param depth its depth.
+	 * @param height the height of the whole tree.
+	 */
+	private void relink(BinaryNode node, int depth, int height) {
+		if (node != null) {
+			relink(node.left, depth + 1, height);
+			relink(node.right, depth + 1, height);
+			node.update();
+			relinked(node, depth, height);
+		}
+	}
+	
+	/**
+	 * @param size a number of nodes.
+	 * @return the least height of a tree of that many nodes.
+	 */
+	private static int minimumHeight(int size) {
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+	
+	/**
+	 * Searches for a binary node based on its key.
 	 *
 	 * @param value the value of the binary node to look for.
-	 * @param node the binary node that is currently being evaluated.
 	 * @return null if there exists no such binary node in the tree whose key
 	 * matches the one passed in; otherwise the binary node instance
 	 * whose key does match the one passed in.
 	 */
-	private BinaryNode get(E value, BinaryNode node) {
-		if (node == null || value.compareTo(node.value) == 0) {
-			return node;
-		} else if (value.compareTo(node.value) > 0) {
-			return get(value, node.right);
-		} else {
-			return get(value, node.left);
+	protected final BinaryNode get(E value) {
+		BinaryNode node = (BinaryNode) root;
+		
+		while (node != null) {
+			int compare = value.compareTo(node.value);
+			
+			if (compare == 0) {
+				return node;
+			}
+			
+			node = compare < 0 ? node.left : node.right;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @param value a value.
+	 * @return the number of values in the tree less than the given one.
+	 */
+	public int rank(E value) {
+		BinaryNode node = (BinaryNode) root;
+		int rank = 0;
+		
+		while (node != null) {
+			if (value.compareTo(node.value) <= 0) {
+				node = node.left;
+			} else {
+				rank += size(node.left) + 1;
+				node = node.right;
+			}
 		}
+		
+		return rank;
 	}
 	
 	/**
-	 * Recursively searches through the binary tree for the best possible parent
-	 * to hold a key.
+	 * @param index an index in the sorted order of the values, from 0.
+	 * @return the value at the index.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less
+	 * than the size
+	 */
+	public E select(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+		}
+		
+		BinaryNode node = (BinaryNode) root;
+		
+		while (true) {
+			int left = size(node.left);
+			
+			if (index < left) {
+				node = node.left;
+			} else if (index == left) {
+				return node.value;
+			} else {
+				index -= left + 1;
+				node = node.right;
+			}
+		}
+	}
+	
+	/**
+	 * Searches through the binary tree for the node to hold a new key as a
+	 * child. The tree must not be empty.
 	 *
 	 * @param value the key for the parent to hold.
-	 * @param node the current binary node that is being evaluated.
-	 * @return the best possible binary node to hold a child whose key is the
-	 * one passed in.
-	 */
-	private BinaryNode bestParent(E value, BinaryNode node) {
-		int compare = value.compareTo(node.value);
-		// if this entire if statement is false, then node has no null children
-		if (node.right == null && node.left == null
-				|| node.right == null && compare > 0
-				|| node.left == null && compare < 0) {
-			return node;
-		} else if (compare < 0) {
-			return bestParent(value, node.left);
-		} else {
-			return bestParent(value, node.right);
+	 * @return the node whose child on the key's side is null.
+	 */
+	private BinaryNode bestParent(E value) {
+		BinaryNode node = (BinaryNode) root;
+		
+		while (true) {
+			BinaryNode child = value.compareTo(node.value) < 0 ? node.left : node.right;
+			
+			if (child == null) {
+				return node;
+			}
+			
+			node = child;
 		}
 	}
 	
-	@Override
-	public int size() {
-		return nodeCount0((BinaryNode) root);
+	/**
+	 * Removes a node from the tree. Subclasses that need to restructure the
+	 * tree differently can override this.
+	 *
+	 * @param node the node to remove.
+	 * @return the parent of the node that was taken out of the tree, which is
+	 * the node itself or, if it had two children, its successor; null if that
+	 * was the root.
+	 */
+	protected BinaryNode unlink(BinaryNode node) {
+		return ((BinaryNode) root).remove(node);
+	}
+	
+	/**
+	 * Creates a node. Subclasses can override this to create nodes carrying
+	 * more state.
+	 *
+	 * @param parent the parent of the node; null for the root.
+	 * @param value the value.
+	 * @return the node, not yet linked to from its parent.
+	 */
+	protected BinaryNode newNode(BinaryNode parent, E value) {
+		return new BinaryNode(parent, value);
+	}
+	
+	/**
+	 * Called after a node is linked into the tree as a leaf. Does nothing by
+	 * default.
+	 *
+	 * @param node the new node.
+	 */
+	protected void inserted(BinaryNode node) {
+	}
+	
+	/**
+	 * Called after a node is taken out of the tree. Does nothing by default.
+	 *
+	 * @param parent the parent the node had, as returned by
+	 * {@link #unlink(BinaryNode)}; null if it was the root.
+	 */
+	protected void removed(BinaryNode parent) {
+	}
+	
+	/**
+	 * Called for every node after the tree was built from sorted values or
+	 * {@link #rebalance() rebalanced}, children before their parent. The tree
+	 * then has the least height possible, and every node missing a child is
+	 * on one of its two lowest levels. Does nothing by default.
+	 *
+	 * @param node the node, whose aggregates are up to date.
+	 * @param depth the depth of the node; 0 for the root.
+	 * @param height the height of the tree.
+	 */
+	protected void relinked(BinaryNode node, int depth, int height) {
+	}
+	
+	/**
+	 * Recomputes the aggregates of a node and all of its ancestors, bottom
+	 * up. Called after every insertion and removal, from the node where the
+	 * tree changed; any node whose subtree changed must lie on that path by
+	 * then, which rotations keep true.
+	 *
+	 * @param node the lowest node to recompute; may be null.
+	 */
+	private void refresh(BinaryNode node) {
+		while (node != null) {
+			node.update();
+			node = (BinaryNode) node.parent;
+		}
 	}
 	
 	/**
-	 * Helper method for {@link #size()}. Recursively traverses the tree
-	 * and counts the nodes as it does.
+	 * Rotates a node down to the left, moving its right child up into its
+	 * place. The in-order sequence of the tree is unchanged.
 	 *
-	 * @param n the current node.
-	 * @return the amount of nodes counted so far.
+	 * @param node the node; its right child must not be null.
+	 * @return the right child, which now holds the node's place.
 	 */
-	private int nodeCount0(BinaryNode n) {
-		if (n == null) {
-			return 0;
+	protected final BinaryNode rotateLeft(BinaryNode node) {
+		BinaryNode child = node.right;
+		
+		node.right = child.left;
+		
+		if (child.left != null) {
+			child.left.parent = node;
 		}
 		
-		int rc = nodeCount0(n.right);
-		int lc = nodeCount0(n.left);
+		replace(node, child);
+		child.left = node;
+		node.parent = child;
+		node.update();
+		child.update();
 		
-		return 1 + rc + lc;
+		return child;
 	}
 	
-	@Override
-	public int internalPathLength() {
-		return internalPathLength0((BinaryNode) root, 0);
+	/**
+	 * Rotates a node down to the right, moving its left child up into its
+	 * place. The in-order sequence of the tree is unchanged.
+	 *
+	 * @param node the node; its left child must not be null.
+	 * @return the left child, which now holds the node's place.
+	 */
+	protected final BinaryNode rotateRight(BinaryNode node) {
+		BinaryNode child = node.left;
+		
+		node.left = child.right;
+		
+		if (child.right != null) {
+			child.right.parent = node;
+		}
+		
+		replace(node, child);
+		child.right = node;
+		node.parent = child;
+		node.update();
+		child.update();
+		
+		return child;
 	}
 	
 	/**
-	 * Recursively computes the internal path length of a node.
+	 * Puts a subtree in the place of a node, as the child of the node's parent
+	 * or as the root. The node's own links are left unchanged.
 	 *
 	 * @param node the node.
-	 * @param level the current level in the tree.
-	 * @return the internal path length from the current node.
+	 * @param subtree the root of the subtree; may be null.
+	 */
+	protected final void replace(BinaryNode node, BinaryNode subtree) {
+		BinaryNode parent = (BinaryNode) node.parent;
+		
+		if (parent == null) {
+			root = subtree;
+		} else if (parent.left == node) {
+			parent.left = subtree;
+		} else {
+			parent.right = subtree;
+		}
+		
+		if (subtree != null) {
+			subtree.parent = parent;
+		}
+	}
+	
+	@Override
+	public int size() {
+		return size((BinaryNode) root);
+	}
+	
+	/**
+	 * @return the number of nodes on the longest path from the root to a leaf;
+	 * 0 if the tree is empty.
 	 */
-	private int internalPathLength0(BinaryNode node, int level) {
-		return node != null
-				? level + internalPathLength0(node.left, level + 1) + internalPathLength0(node.right, level + 1)
-				: 0;
+	public int height() {
+		return reduceNodes(0, (node, depth) -> depth + 1, Math::max);
+	}
+	
+	@Override
+	public int internalPathLength() {
+		return root == null ? 0 : ((BinaryNode) root).pathLength;
 	}
 	
 	@Override
 	public int internalNodes() {
-		return internalNodes0((BinaryNode) root);
+		return size() - leafCount();
+	}
+	
+	@Override
+	public int leafCount() {
+		return root == null ? 0 : ((BinaryNode) root).leaves;
 	}
 	
 	/**
-	 * Recursively computes the number of internal nodes from a node.
-	 *
-	 * @param node the node.
-	 * @return the number of internal nodes from the current node.
+	 * @param node a node; may be null.
+	 * @return the size of the node's subtree; 0 for null.
 	 */
-	private int internalNodes0(BinaryNode node) {
-		return node == null || node.isLeaf()
-				? 0
-				: 1 + internalNodes0(node.left) + internalNodes0(node.right);
+	private int size(BinaryNode node) {
+		return node == null ? 0 : node.size;
 	}
 	
+	/**
+	 * @return an iterator over the values in ascending order.
+	 */
 	@Override
-	public int leafCount() {
-		return leafCount0((BinaryNode) root);
+	public Iterator<E> iterator() {
+		return inOrder();
+	}
+	
+	/**
+	 * @return an iterator over the values in ascending order.
+	 */
+	public Iterator<E> inOrder() {
+		return new NodeIterator(leftmost((BinaryNode) root)) {
+			@Override
+			BinaryNode following(BinaryNode node) {
+				return successor(node);
+			}
+		};
+	}
+	
+	/**
+	 * @return an iterator over the values visiting each node before its left
+	 * and then its right subtree.
+	 */
+	public Iterator<E> preOrder() {
+		return new NodeIterator((BinaryNode) root) {
+			@Override
+			BinaryNode following(BinaryNode node) {
+				if (node.left != null) {
+					return node.left;
+				} else if (node.right != null) {
+					return node.right;
+				}
+				
+				// climb until there is a right subtree not visited yet
+				BinaryNode parent = (BinaryNode) node.parent;
+				
+				while (parent != null && (parent.right == node || parent.right == null)) {
+					node = parent;
+					parent = (BinaryNode) node.parent;
+				}
+				
+				return parent == null ? null : parent.right;
+			}
+		};
+	}
+	
+	/**
+	 * @return an iterator over the values visiting each node after its left
+	 * and then its right subtree.
+	 */
+	public Iterator<E> postOrder() {
+		return new NodeIterator(firstPostOrder((BinaryNode) root)) {
+			@Override
+			BinaryNode following(BinaryNode node) {
+				BinaryNode parent = (BinaryNode) node.parent;
+				
+				if (parent != null && parent.left == node && parent.right != null) {
+					return firstPostOrder(parent.right);
+				}
+				
+				return parent;
+			}
+		};
+	}
+	
+	/**
+	 * @return an iterator over the values level by level from the root, each
+	 * level from left to right.
+	 */
+	public Iterator<E> levelOrder() {
+		ArrayDeque<BinaryNode> queue = new ArrayDeque<>();
+		
+		if (root != null) {
+			queue.add((BinaryNode) root);
+		}
+		
+		return new Iterator<E>() {
+			@Override
+			public boolean hasNext() {
+				return !queue.isEmpty();
+			}
+			
+			@Override
+			public E next() {
+				BinaryNode node = queue.poll();
+				
+				if (node == null) {
+					throw new NoSuchElementException();
+				}
+				
+				if (node.left != null) {
+					queue.add(node.left);
+				}
+				
+				if (node.right != null) {
+					queue.add(node.right);
+				}
+				
+				return node.value;
+			}
+		};
 	}
 	
 	/**
-	 * Recursively searches for leaves in a node.
+	 * Performs an action on every value in a range, in ascending order. Takes
+	 * <code>O(h + k)</code> time for a tree of height <code>h</code> and
+	 * <code>k</code> values in the range.
 	 *
-	 * @param node the current node.
-	 * @return the number of leaves in the current node.
+	 * @param lo the lowest value of the range, inclusive.
+	 * @param hi the end of the range, exclusive.
+	 * @param action the action.
 	 */
-	private int leafCount0(BinaryNode node) {
+	public void forEachInRange(E lo, E hi, Consumer<? super E> action) {
+		if (lo == null || hi == null || action == null) {
+			throw new NullPointerException();
+		}
+		
+		for (BinaryNode node = ceiling(lo); node != null && node.value.compareTo(hi) < 0; node = successor(node)) {
+			action.accept(node.value);
+		}
+	}
+	
+	/**
+	 * @return a spliterator over the values in ascending order, which splits
+	 * the tree at the roots of its subtrees and knows the exact size of each
+	 * part.
+	 */
+	@Override
+	public Spliterator<E> spliterator() {
+		return new NodeSpliterator(leftmost((BinaryNode) root), null, (BinaryNode) root, size());
+	}
+	
+	/**
+	 * @param value a value.
+	 * @return the first node in order whose value is not less than the given
+	 * one; null if there is none.
+	 */
+	private BinaryNode ceiling(E value) {
+		BinaryNode node = (BinaryNode) root;
+		BinaryNode ceiling = null;
+		
+		while (node != null) {
+			if (value.compareTo(node.value) <= 0) {
+				ceiling = node;
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+		
+		return ceiling;
+	}
+	
+	/**
+	 * @param node a node; may be null.
+	 * @return the first node of the node's subtree in order; null for null.
+	 */
+	private BinaryNode leftmost(BinaryNode node) {
+		if (node != null) {
+			while (node.left != null) {
+				node = node.left;
+			}
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * @param node a node; may be null.
+	 * @return the first node of the node's subtree in post-order, the leaf
+	 * reached going left whenever possible; null for null.
+	 */
+	private BinaryNode firstPostOrder(BinaryNode node) {
+		if (node != null) {
+			while (!node.isLeaf()) {
+				node = node.left != null ? node.left : node.right;
+			}
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * @param node a node.
+	 * @return the next node in order; null if the node is the last.
+	 */
+	private BinaryNode successor(BinaryNode node) {
+		if (node.right != null) {
+			return leftmost(node.right);
+		}
+		
+		BinaryNode parent = (BinaryNode) node.parent;
+		
+		while (parent != null && parent.right == node) {
+			node = parent;
+			parent = (BinaryNode) node.parent;
+		}
+		
+		return parent;
+	}
+	
+	/**
+	 * @param node a node; null for the end of the tree.
+	 * @return the number of nodes before the node in order.
+	 */
+	private int rankOf(BinaryNode node) {
 		if (node == null) {
-			return 0;
+			return size();
+		}
+		
+		int rank = size(node.left);
+		
+		for (BinaryNode parent = (BinaryNode) node.parent; parent != null; node = parent, parent = (BinaryNode) node.parent) {
+			if (parent.right == node) {
+				rank += size(parent.left) + 1;
+			}
+		}
+		
+		return rank;
+	}
+	
+	/**
+	 * Reduces the values of the tree in order, in parallel on the common
+	 * fork-join pool once the tree is large enough. Each value is mapped, and
+	 * the results are combined in the order of their values, as in
+	 * {@link java.util.stream.Stream#reduce(Object, java.util.function.BiFunction, BinaryOperator)}:
+	 * the combiner must be associative, and combining the identity with any
+	 * result must give that result. The tree must not be modified meanwhile.
+	 *
+	 * @param identity the result for an empty tree.
+	 * @param mapper the function mapping a value to a result.
+	 * @param combiner the function combining the results of two neighboring
+	 * runs of values, in order.
+	 * @param <R> the type of the result.
+	 * @return the combined result of all values.
+	 */
+	public <R> R reduce(R identity, Function<? super E, ? extends R> mapper, BinaryOperator<R> combiner) {
+		return reduceNodes(identity, (node, depth) -> mapper.apply(node.value), combiner);
+	}
+	
+	/**
+	 * Reduces the nodes of the tree in order, like
+	 * {@link #reduce(Object, Function, BinaryOperator)}, mapping each node
+	 * with its depth.
+	 *
+	 * @param identity the result for an empty tree.
+	 * @param mapper the function mapping a node and its depth, 0 at the root,
+	 * to a result.
+	 * @param combiner the function combining the results of two neighboring
+	 * runs of nodes, in order.
+	 * @param <R> the type of the result.
+	 * @return the combined result of all nodes.
+	 */
+	protected final <R> R reduceNodes(R identity, NodeMapper<? super BinaryNode, ? extends R> mapper, BinaryOperator<R> combiner) {
+		if (root == null) {
+			return identity;
 		}
 		
-		return node.isLeaf()
-				? 1
-				: leafCount0(node.left) + leafCount0(node.right);
+		ReduceTask<R> task = new ReduceTask<>((BinaryNode) root, 0, identity, mapper, combiner);
+		
+		return size() <= PARALLEL_THRESHOLD ? task.compute() : ForkJoinPool.commonPool().invoke(task);
 	}
 	
 	@Override
@@ -203,28 +908,23 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 		
 		if (this.size() != bt.size()) {
 			return false;
+		} else if (root == null) {
+			return bt.root == null;
 		}
 		
-		BinaryNode n1 = (BinaryNode) root;
-		BinaryNode n2 = (BinaryNode) bt.root;
+		EqualsTask task = new EqualsTask((BinaryNode) root, (BinaryNode) bt.root);
 		
-		return equals0(n1, n2);
+		return size() <= PARALLEL_THRESHOLD ? task.compute() : ForkJoinPool.commonPool().invoke(task);
 	}
 	
 	/**
-	 * Performs a recursive "deep" equality search on two nodes (each of which
-	 * should belong to separate trees of the same generic argument types). The
-	 * first comparison is if <i>both</i> children of <i>both</i> nodes are
-	 * null, in which case, the nodes themselves are compared. If not, then a
-	 * bitwise XOR operation is performed on the conditions of the left children
-	 * and right children of both nodes being null. If either operation results
-	 * in true, then false is returned (if the right child of n1 is null but the
-	 * right child of n2 isn't, then there's no reliable way to compare them,
-	 * and as such invalidates the equality of the comparing trees). If false,
-	 * then a recursive approach is taken for comparing the children. Starting
-	 * with the right child and then moving towards the left child. If both of
-	 * these comparisons result in true, then the nodes themselves are finally
-	 * compared.
+	 * Performs a "deep" equality search on two nodes (each of which should
+	 * belong to separate trees of the same generic argument types), walking
+	 * both subtrees side by side with an explicit stack in the calling thread.
+	 * Each pair of nodes must be equal and must have children on the same
+	 * sides; if the right child of n1 is null but the right child of n2 isn't,
+	 * then there's no reliable way to compare them, which invalidates the
+	 * equality of the comparing trees.
 	 *
 	 * @param n1 the node from the first comparing tree.
 	 * @param n2 the node from the second comparing tree.
@@ -232,34 +932,37 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 	 * false otherwise.
 	 */
 	private boolean equals0(BinaryNode n1, BinaryNode n2) {
-		boolean eq = n1.equals(n2);
-		
-		// if both children of n1 and n2 are null, then compare n1 and n2
-		if (n1.right == null
-				&& n2.right == null
-				&& n1.left == null
-				&& n2.left == null) {
-			return eq;
-		}
-		
-		// if n1.right == null XOR n2.right == null (same thing with left
-		// child), then return false so if n1.right is null but n2.right isn't,
-		// then we can't make comparisons and must return false (these nodes are
-		// no longer equal, and thus the two trees that n1 and n2 belong to are
-		// no longer equal
-		if ((n1.right == null ^ n2.right == null)
-				|| (n1.left == null ^ n2.left == null)) {
+		ArrayDeque<BinaryNode> stack = new ArrayDeque<>();
+		
+		if (n1 != null && n2 != null) {
+			stack.push(n1);
+			stack.push(n2);
+		} else if (n1 != n2) {
 			return false;
 		}
 		
-		// now if one child is null from one node, then the same-sided child on
-		// the other node is null as well
-		if (n1.right != null && !equals0(n1.right, n2.right)
-				|| n1.left != null && !equals0(n1.left, n2.left)) {
-			return false;
+		while (!stack.isEmpty()) {
+			n2 = stack.pop();
+			n1 = stack.pop();
+			
+			if ((n1.right == null ^ n2.right == null)
+					|| (n1.left == null ^ n2.left == null)
+					|| !n1.equals(n2)) {
+				return false;
+			}
+			
+			if (n1.right != null) {
+				stack.push(n1.right);
+				stack.push(n2.right);
+			}
+			
+			if (n1.left != null) {
+				stack.push(n1.left);
+				stack.push(n2.left);
+			}
 		}
 		
-		return eq;
+		return true;
 	}
 	
 	/**
@@ -283,6 +986,344 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 		return s.toString();
 	}
 	
+	/**
+	 * An iterator that follows the links between nodes to the next one.
+	 */
+	private abstract class NodeIterator implements Iterator<E> {
+		/**
+		 * The next node to visit; null at the end.
+		 */
+		private BinaryNode next;
+		
+		NodeIterator(BinaryNode first) {
+			this.next = first;
+		}
+		
+		/**
+		 * @param node a node.
+		 * @return the node to visit after it; null if it is the last.
+		 */
+		abstract BinaryNode following(BinaryNode node);
+		
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+		
+		@Override
+		public E next() {
+			BinaryNode node = next;
+			
+			if (node == null) {
+				throw new NoSuchElementException();
+			}
+			
+			next = following(node);
+			return node.value;
+		}
+	}
+	
+	/**
+	 * A spliterator over a range of nodes in order. Each split hands the part
+	 * of the range before a subtree root to a new spliterator and keeps the
+	 * rest, so that every subtree ends up traversed by a single spliterator.
+	 * The subtree sizes give the exact size of both parts.
+	 */
+	private final class NodeSpliterator implements Spliterator<E> {
+		/**
+		 * The next node to visit; the start of the range.
+		 */
+		private BinaryNode current;
+		
+		/**
+		 * The node after the end of the range; null for the end of the tree.
+		 */
+		private final BinaryNode fence;
+		
+		/**
+		 * The root of the subtree to split at next. Its whole subtree lies in
+		 * the range, though it may already have been partly visited.
+		 */
+		private BinaryNode split;
+		
+		/**
+		 * The number of nodes left in the range.
+		 */
+		private int remaining;
+		
+		NodeSpliterator(BinaryNode current, BinaryNode fence, BinaryNode split, int remaining) {
+			this.current = current;
+			this.fence = fence;
+			this.split = split;
+			this.remaining = remaining;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if (remaining == 0) {
+				return false;
+			}
+			
+			action.accept(current.value);
+			current = --remaining == 0 ? fence : successor(current);
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			for (; remaining > 0; remaining--) {
+				action.accept(current.value);
+				current = successor(current);
+			}
+		}
+		
+		@Override
+		public Spliterator<E> trySplit() {
+			if (remaining < 2) {
+				return null;
+			}
+			
+			int start = rankOf(current);
+			int end = start + remaining;
+			
+			// the subtree may lie partly before the current node; its right
+			// subtree lies after the root and before the fence
+			int at = split == null ? 0 : rankOf(split);
+			
+			while (split != null) {
+				if (at > start) {
+					BinaryNode prefix = current;
+					BinaryNode root = split;
+					
+					current = root;
+					split = root.right;
+					remaining = end - at;
+					
+					return new NodeSpliterator(prefix, root, root.left, at - start);
+				}
+				
+				split = split.right;
+				
+				if (split != null) {
+					at += size(split.left) + 1;
+				}
+			}
+			
+			return null;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+		
+		@Override
+		public int characteristics() {
+			return ORDERED | SORTED | SIZED | SUBSIZED | NONNULL;
+		}
+		
+		@Override
+		public Comparator<? super E> getComparator() {
+			// sorted by natural order
+			return null;
+		}
+	}
+	
+	/**
+	 * A function of a node and its depth.
+	 *
+	 * @param <N> the type of the node.
+	 * @param <R> the type of the result.
+	 */
+	@FunctionalInterface
+	protected interface NodeMapper<N, R> {
+		/**
+		 * @param node a node.
+		 * @param depth its depth, 0 at the root.
+		 * @return the result.
+		 */
+		R apply(N node, int depth);
+	}
+	
+	/**
+	 * A part of a reduction: the result of a node, or of a subtree being
+	 * reduced by another task.
+	 */
+	private final static class Piece<R> {
+		private final R value;
+		private final ForkJoinTask<R> task;
+		
+		Piece(R value, ForkJoinTask<R> task) {
+			this.value = value;
+			this.task = task;
+		}
+		
+		R get() {
+			return this.task == null ? this.value : this.task.join();
+		}
+	}
+	
+	/**
+	 * Reduces a subtree. The task walks down to the larger child of each
+	 * node and forks a task for the smaller one, until the subtree left is
+	 * small enough to walk in this thread. A forked subtree is at most half
+	 * as large as the one it was split from, so the tasks nest at most
+	 * <code>log n</code> deep, even in a degenerate tree.
+	 */
+	private final class ReduceTask<R> extends RecursiveTask<R> {
+		private final BinaryNode node;
+		private final int depth;
+		private final R identity;
+		private final NodeMapper<? super BinaryNode, ? extends R> mapper;
+		private final BinaryOperator<R> combiner;
+		
+		ReduceTask(BinaryNode node, int depth, R identity, NodeMapper<? super BinaryNode, ? extends R> mapper, BinaryOperator<R> combiner) {
+			this.node = node;
+			this.depth = depth;
+			this.identity = identity;
+			this.mapper = mapper;
+			this.combiner = combiner;
+		}
+		
+		@Override
+		protected R compute() {
+			// the results before and after the subtree still to walk, each in order
+			List<Piece<R>> before = new ArrayList<>();
+			ArrayDeque<Piece<R>> after = new ArrayDeque<>();
+			BinaryNode node = this.node;
+			int depth = this.depth;
+			
+			while (node.size > PARALLEL_THRESHOLD) {
+				boolean leftLarger = size(node.left) >= size(node.right);
+				BinaryNode smaller = leftLarger ? node.right : node.left;
+				Piece<R> middle = new Piece<>(this.mapper.apply(node, depth), null);
+				Piece<R> fork = null;
+				
+				if (smaller != null) {
+					fork = new Piece<>(null, new ReduceTask<>(smaller, depth + 1, this.identity, this.mapper, this.combiner).fork());
+				}
+				
+				if (leftLarger) {
+					if (fork != null) {
+						after.push(fork);
+					}
+					
+					after.push(middle);
+					node = node.left;
+				} else {
+					if (fork != null) {
+						before.add(fork);
+					}
+					
+					before.add(middle);
+					node = node.right;
+				}
+				
+				depth++;
+			}
+			
+			R result = this.identity;
+			
+			for (Piece<R> piece : before) {
+				result = this.combiner.apply(result, piece.get());
+			}
+			
+			result = this.combiner.apply(result, walk(node, depth));
+			
+			for (Piece<R> piece : after) {
+				result = this.combiner.apply(result, piece.get());
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Reduces a subtree in order in this thread, with an explicit stack.
+		 *
+		 * @param node the root of the subtree.
+		 * @param depth its depth.
+		 * @return the result.
+		 */
+		private R walk(BinaryNode node, int depth) {
+			R result = this.identity;
+			
+			// an array of the inner class can't be created generically
+			Object[] nodes = new Object[32];
+			int[] depths = new int[32];
+			int top = 0;
+			
+			while (node != null || top > 0) {
+				for (; node != null; node = node.left, depth++) {
+					if (top == nodes.length) {
+						nodes = Arrays.copyOf(nodes, 2 * top);
+						depths = Arrays.copyOf(depths, 2 * top);
+					}
+					
+					nodes[top] = node;
+					depths[top++] = depth;
+				}
+				
+				node = (BinaryNode) nodes[--top];
+				depth = depths[top];
+				result = this.combiner.apply(result, this.mapper.apply(node, depth));
+				node = node.right;
+				depth++;
+			}
+			
+			return result;
+		}
+	}
+	
+	/**
+	 * Compares two subtrees, forking the smaller pair of children of each pair
+	 * of nodes like {@link ReduceTask}, until the pair left is small enough to
+	 * compare in this thread with {@link #equals0(BinaryNode, BinaryNode)}.
+	 * Subtrees of different sizes differ without being walked.
+	 */
+	private final class EqualsTask extends RecursiveTask<Boolean> {
+		private final BinaryNode n1;
+		private final BinaryNode n2;
+		
+		EqualsTask(BinaryNode n1, BinaryNode n2) {
+			this.n1 = n1;
+			this.n2 = n2;
+		}
+		
+		@Override
+		protected Boolean compute() {
+			List<ForkJoinTask<Boolean>> forks = new ArrayList<>();
+			BinaryNode n1 = this.n1;
+			BinaryNode n2 = this.n2;
+			boolean equal = true;
+			
+			while (n1.size > PARALLEL_THRESHOLD) {
+				if (n1.size != n2.size || size(n1.left) != size(n2.left) || !n1.equals(n2)) {
+					equal = false;
+					break;
+				}
+				
+				boolean leftLarger = size(n1.left) >= size(n1.right);
+				BinaryNode smaller1 = leftLarger ? n1.right : n1.left;
+				BinaryNode smaller2 = leftLarger ? n2.right : n2.left;
+				
+				if (smaller1 != null) {
+					forks.add(new EqualsTask(smaller1, smaller2).fork());
+				}
+				
+				n1 = leftLarger ? n1.left : n1.right;
+				n2 = leftLarger ? n2.left : n2.right;
+			}
+			
+			equal = equal && equals0(n1, n2);
+			
+			for (ForkJoinTask<Boolean> fork : forks) {
+				equal &= fork.join();
+			}
+			
+			return equal;
+		}
+	}
+	
 	protected class BinaryNode extends Node {
 		/**
 		 * Right child.
@@ -294,6 +1335,22 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 		 */
 		protected BinaryNode left;
 		
+		/**
+		 * The number of nodes in this node's subtree, counting itself.
+		 */
+		int size = 1;
+		
+		/**
+		 * The number of leaves in this node's subtree.
+		 */
+		int leaves = 1;
+		
+		/**
+		 * The sum of the depths of the nodes in this node's subtree, relative
+		 * to this node.
+		 */
+		int pathLength;
+		
 		/**
 		 * Constructs a BinaryNode given a parent and value.
 		 *
@@ -312,19 +1369,57 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 			return right == null && left == null;
 		}
 		
+		/**
+		 * Recomputes the aggregates of this node from those of its children.
+		 */
+		final void update() {
+			int size = 1;
+			int leaves = 0;
+			int pathLength = 0;
+			
+			if (left != null) {
+				size += left.size;
+				leaves += left.leaves;
+				pathLength += left.pathLength + left.size;
+			}
+			
+			if (right != null) {
+				size += right.size;
+				leaves += right.leaves;
+				pathLength += right.pathLength + right.size;
+			}
+			
+			this.size = size;
+			this.leaves = leaves == 0 ? 1 : leaves;
+			this.pathLength = pathLength;
+			aggregate();
+		}
+		
+		/**
+		 * Recomputes the aggregates a subclass keeps in its nodes from those
+		 * of the children, whenever the built-in ones are. Does nothing by
+		 * default.
+		 */
+		protected void aggregate() {
+		}
+		
 		/**
 		 * Removes a node from this node's sub-tree.
 		 *
 		 * @param node the node to remove.
+		 * @return the parent of the node that was taken out of the tree; null
+		 * if that was the root.
 		 */
-		protected void remove(BinaryNode node) {
-			if (node.isLeaf()) {
+		protected BinaryNode remove(BinaryNode node) {
+			if (node.right != null && node.left != null) {
+				return doubleRemoval(node);
+			} else if (node.isLeaf()) {
 				leafRemoval(node);
-			} else if (node.right != null && node.left != null) {
-				doubleRemoval(node);
 			} else {
 				singleRemoval(node);
 			}
+			
+			return (BinaryNode) node.parent;
 		}
 		
 		/**
@@ -375,8 +1470,10 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 		 * has two children nodes.
 		 *
 		 * @param node the two-children node to remove.
+		 * @return the parent of the successor, which was taken out of the tree
+		 * in the node's place.
 		 */
-		private void doubleRemoval(BinaryNode node) {
+		private BinaryNode doubleRemoval(BinaryNode node) {
 			BinaryNode minSubRight = node.right;
 			
 			while (minSubRight.left != null) {
@@ -390,6 +1487,8 @@ public class BinaryTree<E extends Comparable<E>> extends Tree<E> {
 			} else {
 				singleRemoval(minSubRight);
 			}
+			
+			return (BinaryNode) minSubRight.parent;
 		}
 		
 		/**
@@ -0,0 +1,164 @@
+package pv3199.util;
+
+import java.util.function.Function;
+
+/**
+ * A cache-line-blocked Bloom filter. The bitset is split into 512-bit blocks (one 64-byte cache line
+ * each); an element picks a single block and sets all of its <code>k</code> bits inside it. Adding or
+ * checking an element therefore touches one cache line instead of <code>k</code>, at the cost of a
+ * slightly higher false-positive rate than a {@link BloomFilter} of the same size, which is made up for
+ * by sizing the bitset a little larger.
+ *
+ * @param <E> the type of elements in this filter.
+ */
+public class BlockedBloomFilter<E> extends MembershipFilter<E> {
+	/**
+	 * log<sub>2</sub> of the number of bits in a block.
+	 */
+	private final static int BLOCK_SHIFT = 9;
+
+	/**
+	 * The number of <code>long</code>s in a block.
+	 */
+	private final static int BLOCK_LONGS = (1 << BLOCK_SHIFT) >>> 6;
+
+	/**
+	 * Factor by which the bitset is enlarged over an unblocked filter to make up for the uneven load
+	 * across blocks.
+	 */
+	private final static double BLOCK_OVERHEAD = 1.2;
+
+	/**
+	 * The bitset, as consecutive blocks.
+	 */
+	private long[] bits;
+
+	/**
+	 * The number of blocks in the bitset.
+	 */
+	private final int blockCount;
+
+	/**
+	 * The number of bits set per element.
+	 */
+	private final int hashCount;
+
+	/**
+	 * Constructs a blocked Bloom filter with the default hashing function.
+	 *
+	 * @param expectedInsertions the number of elements the filter is sized for.
+	 * @param fpp the desired false-positive probability.
+	 * @throws IllegalArgumentException if the insertions are not positive or the probability is not
+	 * strictly between 0 and 1
+	 */
+	public BlockedBloomFilter(int expectedInsertions, double fpp) throws IllegalArgumentException {
+		super();
+
+		checkSizing(expectedInsertions, fpp);
+		this.blockCount = blocksFor(expectedInsertions, fpp);
+		this.hashCount = BloomFilter.optimalHashes(expectedInsertions, BloomFilter.optimalBits(expectedInsertions, fpp));
+		this.bits = new long[this.blockCount * BLOCK_LONGS];
+	}
+
+	/**
+	 * Constructs a blocked Bloom filter with a given hashing function.
+	 *
+	 * @param hashFunction the hashing function for this filter.
+	 * @param expectedInsertions the number of elements the filter is sized for.
+	 * @param fpp the desired false-positive probability.
+	 * @throws IllegalArgumentException if the insertions are not positive or the probability is not
+	 * strictly between 0 and 1
+	 */
+	public BlockedBloomFilter(Function<E, Integer> hashFunction, int expectedInsertions, double fpp) throws IllegalArgumentException {
+		super(hashFunction);
+
+		checkSizing(expectedInsertions, fpp);
+		this.blockCount = blocksFor(expectedInsertions, fpp);
+		this.hashCount = BloomFilter.optimalHashes(expectedInsertions, BloomFilter.optimalBits(expectedInsertions, fpp));
+		this.bits = new long[this.blockCount * BLOCK_LONGS];
+	}
+
+	/**
+	 * Computes the number of blocks for a filter.
+	 *
+	 * @param n the expected insertions.
+	 * @param p the false-positive probability.
+	 * @return the number of blocks.
+	 */
+	private static int blocksFor(int n, double p) {
+		long bits = (long) (BloomFilter.optimalBits(n, p) * BLOCK_OVERHEAD);
+
+		return (int) Math.min(Integer.MAX_VALUE / BLOCK_LONGS, (bits >>> BLOCK_SHIFT) + 1);
+	}
+
+	/**
+	 * @return the number of bits in this filter's bitset.
+	 */
+	public final long bitCount() {
+		return (long) this.blockCount << BLOCK_SHIFT;
+	}
+
+	/**
+	 * @return the number of bits set per element.
+	 */
+	public final int hashCount() {
+		return this.hashCount;
+	}
+
+	@Override
+	public boolean add(E element) {
+		long hash = hash(element);
+		int block = reduce((int) hash, this.blockCount) * BLOCK_LONGS;
+		long h = hash >>> 32;
+
+		// each bit within the block takes 9 bits of the hash; remix once they run out
+		for (int i = 0, avail = 32; i < this.hashCount; i++, avail -= BLOCK_SHIFT, h >>>= BLOCK_SHIFT) {
+			if (avail < BLOCK_SHIFT) {
+				h = mix(hash + i);
+				avail = 64;
+			}
+
+			int bit = (int) h & ((1 << BLOCK_SHIFT) - 1);
+			this.bits[block + (bit >>> 6)] |= 1L << bit;
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean mightContain(E element) {
+		if (element == null) {
+			return false;
+		}
+
+		long hash = hash(element);
+		int block = reduce((int) hash, this.blockCount) * BLOCK_LONGS;
+		long h = hash >>> 32;
+
+		for (int i = 0, avail = 32; i < this.hashCount; i++, avail -= BLOCK_SHIFT, h >>>= BLOCK_SHIFT) {
+			if (avail < BLOCK_SHIFT) {
+				h = mix(hash + i);
+				avail = 64;
+			}
+
+			int bit = (int) h & ((1 << BLOCK_SHIFT) - 1);
+			if ((this.bits[block + (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		java.util.Arrays.fill(this.bits, 0);
+	}
+
+	@Override
+	public BlockedBloomFilter<E> clone() {
+		BlockedBloomFilter<E> bf = (BlockedBloomFilter<E>) super.clone();
+		bf.bits = this.bits.clone();
+		return bf;
+	}
+}
@@ -0,0 +1,149 @@
+package pv3199.util;
+
+import java.util.function.Function;
+
+/**
+ * A standard Bloom filter. Each element sets <code>k</code> bits spread across the whole bitset, picked
+ * by double hashing (<code>h1 + i * h2</code>). The bitset and <code>k</code> are sized from the expected
+ * number of insertions so that the false-positive rate stays at the requested probability until that
+ * many elements have been added. Elements cannot be removed.
+ *
+ * @param <E> the type of elements in this filter.
+ */
+public class BloomFilter<E> extends MembershipFilter<E> {
+	/**
+	 * The bitset.
+	 */
+	private long[] bits;
+
+	/**
+	 * The number of bits in the bitset.
+	 */
+	private final int bitCount;
+
+	/**
+	 * The number of bits set per element.
+	 */
+	private final int hashCount;
+
+	/**
+	 * Constructs a Bloom filter with the default hashing function.
+	 *
+	 * @param expectedInsertions the number of elements the filter is sized for.
+	 * @param fpp the desired false-positive probability.
+	 * @throws IllegalArgumentException if the insertions are not positive or the probability is not
+	 * strictly between 0 and 1
+	 */
+	public BloomFilter(int expectedInsertions, double fpp) throws IllegalArgumentException {
+		super();
+
+		checkSizing(expectedInsertions, fpp);
+		this.bitCount = optimalBits(expectedInsertions, fpp);
+		this.hashCount = optimalHashes(expectedInsertions, this.bitCount);
+		this.bits = new long[(this.bitCount + 63) >>> 6];
+	}
+
+	/**
+	 * Constructs a Bloom filter with a given hashing function.
+	 *
+	 * @param hashFunction the hashing function for this filter.
+	 * @param expectedInsertions the number of elements the filter is sized for.
+	 * @param fpp the desired false-positive probability.
+	 * @throws IllegalArgumentException if the insertions are not positive or the probability is not
+	 * strictly between 0 and 1
+	 */
+	public BloomFilter(Function<E, Integer> hashFunction, int expectedInsertions, double fpp) throws IllegalArgumentException {
+		super(hashFunction);
+
+		checkSizing(expectedInsertions, fpp);
+		this.bitCount = optimalBits(expectedInsertions, fpp);
+		this.hashCount = optimalHashes(expectedInsertions, this.bitCount);
+		this.bits = new long[(this.bitCount + 63) >>> 6];
+	}
+
+	/**
+	 * Computes the bitset size, <code>-n ln(p) / ln(2)<sup>2</sup></code>, that gives a false-positive
+	 * probability of <code>p</code> after <code>n</code> insertions.
+	 *
+	 * @param n the expected insertions.
+	 * @param p the false-positive probability.
+	 * @return the number of bits, capped below 2<sup>31</sup>.
+	 */
+	static int optimalBits(int n, double p) {
+		double bits = -n * Math.log(p) / (Math.log(2) * Math.log(2));
+
+		return (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, Math.ceil(bits)));
+	}
+
+	/**
+	 * Computes the number of bits per element, <code>(m / n) ln(2)</code>, that minimizes the false-positive
+	 * probability of a bitset of <code>m</code> bits after <code>n</code> insertions.
+	 *
+	 * @param n the expected insertions.
+	 * @param m the number of bits.
+	 * @return the number of bits set per element.
+	 */
+	static int optimalHashes(int n, int m) {
+		return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+	}
+
+	/**
+	 * @return the number of bits in this filter's bitset.
+	 */
+	public final int bitCount() {
+		return this.bitCount;
+	}
+
+	/**
+	 * @return the number of bits set per element.
+	 */
+	public final int hashCount() {
+		return this.hashCount;
+	}
+
+	@Override
+	public boolean add(E element) {
+		long hash = hash(element);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < this.hashCount; i++) {
+			int bit = reduce(h1 + i * h2, this.bitCount);
+			this.bits[bit >>> 6] |= 1L << bit;
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean mightContain(E element) {
+		if (element == null) {
+			return false;
+		}
+
+		long hash = hash(element);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < this.hashCount; i++) {
+			int bit = reduce(h1 + i * h2, this.bitCount);
+			if ((this.bits[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		java.util.Arrays.fill(this.bits, 0);
+	}
+
+	@Override
+	public BloomFilter<E> clone() {
+		BloomFilter<E> bf = (BloomFilter<E>) super.clone();
+		bf.bits = this.bits.clone();
+		return bf;
+	}
+}
@@ -0,0 +1,424 @@
+package pv3199.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded key-value cache. Entries are looked up through a {@link Hashtable} and, once the cache holds
+ * more than its maximum size, evicted as chosen by a pluggable {@link EvictionPolicy}.
+ * <p>
+ * Entries can be given a time to live, either a default for the whole cache or one per entry. Expired
+ * entries are dropped lazily, when they are next looked up, and until then count towards the size of the
+ * cache like any other entry.
+ * <p>
+ * A cache can be given a loader that produces the value of a missing key. Loads are single-flight:
+ * concurrent lookups of the same missing key wait for one call to the loader rather than each calling it.
+ * The loader runs outside of the cache's lock, so lookups of other keys are not blocked by it. A put,
+ * invalidation or clear during a load cancels it: the loaded value is still returned to the waiting lookups
+ * but is not cached over the newer state. Every other operation is synchronized on the cache.
+ *
+ * @param <K> the type of keys in the cache.
+ * @param <V> the type of values in the cache.
+ */
+public class Cache<K, V> {
+	/**
+	 * The entries, looked up by key.
+	 */
+	private Hashtable<Entry<K, V>> table;
+
+	/**
+	 * The maximum number of entries.
+	 */
+	private final int maximumSize;
+
+	/**
+	 * The eviction policy.
+	 */
+	private final EvictionPolicy<K> policy;
+
+	/**
+	 * The loader of missing values, or null if there is none.
+	 */
+	private final Function<K, V> loader;
+
+	/**
+	 * Loads in progress, by key. A load whose key is removed from here has been cancelled.
+	 */
+	private final Map<K, CompletableFuture<V>> loading = new HashMap<>();
+
+	/**
+	 * The default time to live of new entries in nanoseconds; 0 if they never expire.
+	 */
+	private long timeToLive;
+
+	/**
+	 * The source of the current time in nanoseconds. Replaceable for testing.
+	 */
+	LongSupplier ticker = System::nanoTime;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+	private long loads;
+	private long loadFailures;
+
+	/**
+	 * Constructs a cache without a loader.
+	 *
+	 * @param maximumSize the maximum number of entries.
+	 * @param policy the eviction policy; must not be used by another cache.
+	 * @throws IllegalArgumentException if the maximum size is not positive
+	 */
+	public Cache(int maximumSize, EvictionPolicy<K> policy) throws IllegalArgumentException {
+		this(maximumSize, policy, null);
+	}
+
+	/**
+	 * Constructs a cache with a loader for missing values.
+	 *
+	 * @param maximumSize the maximum number of entries.
+	 * @param policy the eviction policy; must not be used by another cache.
+	 * @param loader the function producing the value of a missing key; it may return null to cache nothing.
+	 * @throws IllegalArgumentException if the maximum size is not positive
+	 */
+	public Cache(int maximumSize, EvictionPolicy<K> policy, Function<K, V> loader) throws IllegalArgumentException {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("maximum size must be positive");
+		} else if (policy == null) {
+			throw new NullPointerException();
+		}
+
+		this.maximumSize = maximumSize;
+		this.policy = policy;
+		this.loader = loader;
+		this.table = new Hashtable<>(Math.min(maximumSize + 1, 1 << 16));
+
+		policy.init(maximumSize);
+	}
+
+	/**
+	 * Sets the default time to live of entries put into the cache from now on.
+	 *
+	 * @param duration the time to live; 0 for entries that never expire.
+	 * @param unit the unit of the duration.
+	 * @throws IllegalArgumentException if the duration is negative
+	 */
+	public synchronized void setTimeToLive(long duration, TimeUnit unit) throws IllegalArgumentException {
+		if (duration < 0) {
+			throw new IllegalArgumentException("negative time to live");
+		}
+
+		this.timeToLive = unit.toNanos(duration);
+	}
+
+	/**
+	 * Gets the live value of a key without loading it.
+	 *
+	 * @param key the key.
+	 * @return the value; null if the key has no live value.
+	 */
+	public synchronized V getIfPresent(K key) {
+		Entry<K, V> e = lookup(key);
+
+		return e == null ? null : e.value;
+	}
+
+	/**
+	 * Gets the live value of a key, loading it with the cache's loader if it is missing. If the key is
+	 * already being loaded by another thread, waits for that load instead. If the load is cancelled by a put,
+	 * invalidation or clear, the loaded value is returned but not cached.
+	 *
+	 * @param key the key.
+	 * @return the value; null if the key has no live value and there is no loader, or the loader returned null.
+	 * @throws RuntimeException if the loader threw it
+	 */
+	public V get(K key) {
+		CompletableFuture<V> load;
+		boolean owner = false;
+
+		synchronized (this) {
+			Entry<K, V> e = lookup(key);
+
+			if (e != null) {
+				return e.value;
+			} else if (this.loader == null) {
+				return null;
+			}
+
+			load = this.loading.get(key);
+
+			if (load == null) {
+				load = new CompletableFuture<>();
+				this.loading.put(key, load);
+				owner = true;
+			}
+		}
+
+		if (!owner) {
+			try {
+				return load.join();
+			} catch (CompletionException ex) {
+				throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+			}
+		}
+
+		V value;
+
+		try {
+			value = this.loader.apply(key);
+		} catch (RuntimeException | Error ex) {
+			synchronized (this) {
+				this.loading.remove(key, load);
+				this.loadFailures++;
+			}
+
+			load.completeExceptionally(ex);
+			throw ex;
+		}
+
+		synchronized (this) {
+			this.loads++;
+
+			// a put, invalidation or clear during the load removed it, and its value is now stale
+			if (this.loading.remove(key, load) && value != null) {
+				put0(key, value, this.timeToLive);
+			}
+		}
+
+		load.complete(value);
+		return value;
+	}
+
+	/**
+	 * Puts a value into the cache with the default time to live, replacing any existing value.
+	 *
+	 * @param key the key.
+	 * @param value the value.
+	 */
+	public synchronized void put(K key, V value) {
+		put0(key, value, this.timeToLive);
+	}
+
+	/**
+	 * Puts a value into the cache with its own time to live, replacing any existing value.
+	 *
+	 * @param key the key.
+	 * @param value the value.
+	 * @param duration the time to live; 0 for an entry that never expires.
+	 * @param unit the unit of the duration.
+	 * @throws IllegalArgumentException if the duration is negative
+	 */
+	public synchronized void put(K key, V value, long duration, TimeUnit unit) throws IllegalArgumentException {
+		if (duration < 0) {
+			throw new IllegalArgumentException("negative time to live");
+		}
+
+		put0(key, value, unit.toNanos(duration));
+	}
+
+	/**
+	 * Removes the value of a key.
+	 *
+	 * @param key the key.
+	 * @return true if the key had a value, expired or not.
+	 */
+	public synchronized boolean invalidate(K key) {
+		this.loading.remove(key);
+
+		Entry<K, V> e = this.table.get(new Entry<>(key));
+
+		if (e == null) {
+			return false;
+		}
+
+		remove(e);
+		return true;
+	}
+
+	/**
+	 * Removes every entry and cancels loads in progress. Counters are kept.
+	 */
+	public synchronized void clear() {
+		this.loading.clear();
+		this.table = new Hashtable<>(Math.min(this.maximumSize + 1, 1 << 16));
+		this.policy.clear();
+	}
+
+	/**
+	 * @return the number of entries, including expired entries that have not been dropped yet.
+	 */
+	public synchronized int size() {
+		return this.table.size();
+	}
+
+	/**
+	 * @return the maximum number of entries.
+	 */
+	public final int maximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * @return a snapshot of the cache's counters.
+	 */
+	public synchronized CacheStats stats() {
+		return new CacheStats(this.hits, this.misses, this.evictions, this.expirations, this.loads, this.loadFailures);
+	}
+
+	/**
+	 * Looks up the live entry of a key, dropping it if it expired, and counts the hit or miss.
+	 *
+	 * @param key the key.
+	 * @return the live entry; null if there is none.
+	 */
+	private Entry<K, V> lookup(K key) {
+		Entry<K, V> e = this.table.get(new Entry<>(key));
+
+		if (e != null && e.expiresAt != 0 && this.ticker.getAsLong() - e.expiresAt >= 0) {
+			remove(e);
+			this.expirations++;
+			e = null;
+		}
+
+		if (e == null) {
+			this.misses++;
+			this.policy.onMiss(key);
+		} else {
+			this.hits++;
+			this.policy.onAccess(e);
+		}
+
+		return e;
+	}
+
+	/**
+	 * Puts a value into the cache, evicting entries if it grows past its maximum size. Cancels a load of the
+	 * key in progress.
+	 *
+	 * @param key the key.
+	 * @param value the value.
+	 * @param timeToLive the time to live in nanoseconds; 0 for an entry that never expires.
+	 */
+	private void put0(K key, V value, long timeToLive) {
+		if (key == null || value == null) {
+			throw new NullPointerException();
+		}
+
+		this.loading.remove(key);
+
+		Entry<K, V> e = new Entry<>(key);
+		Entry<K, V> old = this.table.get(e);
+
+		if (old != null) {
+			remove(old);
+		}
+
+		e.value = value;
+		e.expiresAt = timeToLive == 0 ? 0 : expiry(timeToLive);
+
+		this.table.add(e);
+		this.policy.onInsert(e);
+
+		while (this.table.size() > this.maximumSize) {
+			remove((Entry<K, V>) this.policy.victim(this.maximumSize));
+			this.evictions++;
+		}
+	}
+
+	/**
+	 * @param timeToLive a time to live in nanoseconds.
+	 * @return the time at which an entry put now expires; never 0.
+	 */
+	private long expiry(long timeToLive) {
+		long at = this.ticker.getAsLong() + timeToLive;
+
+		return at == 0 ? 1 : at;
+	}
+
+	/**
+	 * Removes an entry from the table and the policy.
+	 *
+	 * @param e the entry.
+	 */
+	private void remove(Entry<K, V> e) {
+		this.table.remove(e);
+		this.policy.onRemove(e);
+	}
+
+	/**
+	 * A key-value entry of a cache. Entries are equal when their keys are equal, which lets the cache look
+	 * them up by key in its {@link Hashtable}. The package-private fields are links and state used by the
+	 * built-in {@link EvictionPolicy eviction policies}, so they need no separate lookup structure.
+	 *
+	 * @param <K> the type of the key.
+	 * @param <V> the type of the value.
+	 */
+	public final static class Entry<K, V> {
+		private final K key;
+		private V value;
+
+		/**
+		 * The time at which this entry expires; 0 if it never does.
+		 */
+		private long expiresAt;
+
+		/**
+		 * Links of the intrusive {@link EntryList} holding this entry.
+		 */
+		Entry<?, ?> prev;
+		Entry<?, ?> next;
+
+		/**
+		 * The policy-specific segment holding this entry.
+		 */
+		int segment;
+
+		/**
+		 * Other policy-specific state.
+		 */
+		Object policyData;
+
+		Entry(K key) {
+			if (key == null) {
+				throw new NullPointerException();
+			}
+
+			this.key = key;
+		}
+
+		/**
+		 * @return the key of this entry.
+		 */
+		public K getKey() {
+			return this.key;
+		}
+
+		/**
+		 * @return the value of this entry.
+		 */
+		public V getValue() {
+			return this.value;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Entry && this.key.equals(((Entry<?, ?>) obj).key);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package pv3199.util;
+
+/**
+ * An immutable snapshot of the counters of a {@link Cache}, taken with {@link Cache#stats()}.
+ */
+public final class CacheStats {
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long expirations;
+	private final long loads;
+	private final long loadFailures;
+
+	CacheStats(long hits, long misses, long evictions, long expirations, long loads, long loadFailures) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.expirations = expirations;
+		this.loads = loads;
+		this.loadFailures = loadFailures;
+	}
+
+	/**
+	 * @return the number of lookups that found a live value.
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * @return the number of lookups that found no value or an expired one.
+	 */
+	public long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * @return the fraction of lookups that were hits; 1 if there were no lookups.
+	 */
+	public double getHitRate() {
+		long lookups = this.hits + this.misses;
+
+		return lookups == 0 ? 1 : (double) this.hits / lookups;
+	}
+
+	/**
+	 * @return the number of entries evicted to stay within the maximum size.
+	 */
+	public long getEvictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * @return the number of entries dropped because their time to live had passed.
+	 */
+	public long getExpirations() {
+		return this.expirations;
+	}
+
+	/**
+	 * @return the number of values successfully produced by the loader.
+	 */
+	public long getLoads() {
+		return this.loads;
+	}
+
+	/**
+	 * @return the number of times the loader threw an exception.
+	 */
+	public long getLoadFailures() {
+		return this.loadFailures;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[hits=%d],[misses=%d],[hitRate=%.4f],[evictions=%d],[expirations=%d],[loads=%d],[loadFailures=%d]",
+				this.hits, this.misses, getHitRate(), this.evictions, this.expirations, this.loads, this.loadFailures);
+	}
+}
@@ -0,0 +1,224 @@
+package pv3199.util;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe priority queue. It is either <i>strict</i>, a single {@link MinHeap} behind one lock, or
+ * <i>relaxed</i>, a MultiQueue of several locked heaps:
+ * <ul>
+ *     <li>adding an element adds it to a random heap whose lock is free;</li>
+ *     <li>popping samples two random heaps and pops the lower of their two roots.</li>
+ * </ul>
+ * Threads rarely wait for each other in a relaxed queue, so it scales with the number of threads, but a pop
+ * only returns the lowest element of the queue with some probability. With <code>q</code> heaps, the rank of
+ * a popped element among all queued elements is <code>O(q)</code> on average. Use a strict queue when the
+ * exact order matters more than throughput.
+ * <p>
+ * In a relaxed queue, {@link #pop()} returns null only after finding every heap empty, which can race with
+ * concurrent adds; {@link #peek()} and {@link #size()} are likewise only snapshots.
+ *
+ * @param <E> the type of elements in this queue.
+ */
+public class ConcurrentPriorityQueue<E> implements PriorityHeap<E> {
+	/**
+	 * The heaps, each behind its own lock.
+	 */
+	private final Lane<E>[] lanes;
+
+	/**
+	 * The ordering of this queue; the lowest element is popped first.
+	 */
+	private final Comparator<E> comparator;
+
+	/**
+	 * The number of queued elements.
+	 */
+	private final LongAdder size = new LongAdder();
+
+	/**
+	 * Constructs a relaxed queue ordered by the elements' natural ordering, with two heaps per processor.
+	 */
+	public ConcurrentPriorityQueue() {
+		this(Heap.naturalOrder(), 2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a queue ordered by a comparator.
+	 *
+	 * @param comparator the ordering of the queue.
+	 * @param queues the number of heaps; 1 for a strict queue, more for a relaxed queue.
+	 * @throws IllegalArgumentException if the number of heaps is not positive
+	 */
+	public ConcurrentPriorityQueue(Comparator<E> comparator, int queues) throws IllegalArgumentException {
+		if (queues <= 0) {
+			throw new IllegalArgumentException("non-positive number of queues");
+		} else if (comparator == null) {
+			throw new NullPointerException();
+		}
+
+		this.comparator = comparator;
+		this.lanes = new Lane[queues];
+
+		for (int i = 0; i < queues; i++) {
+			this.lanes[i] = new Lane<>(comparator);
+		}
+	}
+
+	@Override
+	public void add(E e) {
+		if (e == null) {
+			throw new NullPointerException("nulls not allowed");
+		}
+
+		Lane<E> lane = lockRandom();
+
+		try {
+			lane.heap.add(e);
+			lane.top = lane.heap.peek();
+		} finally {
+			lane.lock.unlock();
+		}
+
+		this.size.increment();
+	}
+
+	@Override
+	public E peek() {
+		E best = null;
+
+		for (Lane<E> lane : this.lanes) {
+			E top = lane.top;
+
+			if (top != null && (best == null || this.comparator.compare(top, best) < 0)) {
+				best = top;
+			}
+		}
+
+		return best;
+	}
+
+	@Override
+	public E pop() {
+		if (this.lanes.length > 1) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+
+			// a few sampling attempts before falling back to a scan for any non-empty heap
+			for (int attempt = 0; attempt < 4; attempt++) {
+				Lane<E> a = this.lanes[random.nextInt(this.lanes.length)];
+				Lane<E> b = this.lanes[random.nextInt(this.lanes.length)];
+				E ta = a.top;
+				E tb = b.top;
+
+				if (ta == null && tb == null) {
+					continue;
+				}
+
+				Lane<E> lane = ta == null || tb != null && this.comparator.compare(tb, ta) < 0 ? b : a;
+
+				if (lane.lock.tryLock()) {
+					E e = popLocked(lane);
+
+					if (e != null) {
+						return e;
+					}
+				}
+			}
+		}
+
+		for (Lane<E> lane : this.lanes) {
+			if (lane.top != null) {
+				lane.lock.lock();
+
+				E e = popLocked(lane);
+
+				if (e != null) {
+					return e;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Pops the root of a heap whose lock is held, and releases the lock.
+	 *
+	 * @param lane the heap.
+	 * @return the popped element; null if the heap was emptied by another thread in the meantime.
+	 */
+	private E popLocked(Lane<E> lane) {
+		E e;
+
+		try {
+			e = lane.heap.pop();
+			lane.top = lane.heap.peek();
+		} finally {
+			lane.lock.unlock();
+		}
+
+		if (e != null) {
+			this.size.decrement();
+		}
+
+		return e;
+	}
+
+	/**
+	 * Locks a random heap, preferring heaps whose lock is free.
+	 *
+	 * @return the locked heap.
+	 */
+	private Lane<E> lockRandom() {
+		if (this.lanes.length == 1) {
+			this.lanes[0].lock.lock();
+			return this.lanes[0];
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		while (true) {
+			Lane<E> lane = this.lanes[random.nextInt(this.lanes.length)];
+
+			if (lane.lock.tryLock()) {
+				return lane;
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, this.size.sum());
+	}
+
+	/**
+	 * @return true if this queue has a single heap, so that every pop returns the lowest element.
+	 */
+	public final boolean isStrict() {
+		return this.lanes.length == 1;
+	}
+
+	/**
+	 * @return the number of heaps.
+	 */
+	public final int queues() {
+		return this.lanes.length;
+	}
+
+	/**
+	 * A heap with its lock. The root is cached in a volatile field so that sampling does not lock.
+	 *
+	 * @param <E> the type of elements in the heap.
+	 */
+	private final static class Lane<E> {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final MinHeap<E> heap;
+		private volatile E top;
+
+		Lane(Comparator<E> comparator) {
+			this.heap = new MinHeap<>(comparator);
+		}
+	}
+}
@@ -0,0 +1,774 @@
+package pv3199.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe ordered set, kept as an AVL tree whose reads take no locks. Reads follow the optimistic
+ * scheme of Bronson et al.'s concurrent AVL tree: every node has a version, which changes whenever the range
+ * of values its subtree covers shrinks, as when a rotation moves it down, and is marked when the node is
+ * unlinked. A search reads a node's version before following one of its links and checks it again after, and
+ * retries from the last node still valid when it changed. Searches never wait on a writer, except briefly on
+ * a node a rotation is moving.
+ * <p>
+ * Writers take one lock, so they run one at a time, but never block readers. A removed value whose node has
+ * two children stays in the tree as a routing node, marked absent, until rotations or removals below leave
+ * it with fewer children; then it is unlinked. Adding the value again marks it present.
+ * <p>
+ * {@link #iterator() Iteration} and {@link #forEachInRange(Comparable, Comparable, Consumer) range scans} are
+ * weakly consistent: they find each next value with a fresh search for the least value above the last one, so
+ * they never fail under concurrent changes, and see the values that were present when they passed, not a
+ * snapshot. The metrics and {@link #equals(Object)} hold the writer lock, and count routing nodes too.
+ *
+ * @param <E> a comparable data type
+ */
+public class ConcurrentTree<E extends Comparable<E>> extends Tree<E> implements Iterable<E> {
+	/**
+	 * Version bits: the node was unlinked, for good, or a rotation is shrinking its range. The rest of the
+	 * version counts the changes.
+	 */
+	private final static long UNLINKED = 1;
+	private final static long SHRINKING = 2;
+	private final static long CHANGE = 4;
+
+	/**
+	 * Results of a search: not found, found, or retry from the parent.
+	 */
+	private final static int ABSENT = 0;
+	private final static int PRESENT = 1;
+	private final static int RETRY = 2;
+
+	/**
+	 * The number of times a reader spins on a node being rotated before yielding.
+	 */
+	private final static int SPINS = 100;
+
+	/**
+	 * A node holding the root as its right child, so that the root can be replaced like any other child. It
+	 * has no value and is never rotated or unlinked.
+	 */
+	private final ConcurrentNode holder = new ConcurrentNode(null, null);
+
+	/**
+	 * A node returned by searches to tell the caller to retry.
+	 */
+	private final ConcurrentNode retry = new ConcurrentNode(null, null);
+
+	/**
+	 * The lock of the writers.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * The number of values present; written only under the lock.
+	 */
+	private volatile int size;
+
+	/**
+	 * Constructs an empty tree.
+	 */
+	public ConcurrentTree() {
+	}
+
+	/**
+	 * Adds a value to the tree if it is not in it yet.
+	 *
+	 * @param value the value.
+	 */
+	@Override
+	public void add(E value) {
+		insert(value);
+	}
+
+	/**
+	 * Adds a value to the tree if it is not in it yet.
+	 *
+	 * @param value the value.
+	 * @return true if the value was added; false if it was already in the tree.
+	 */
+	public boolean insert(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+
+		this.lock.lock();
+
+		try {
+			ConcurrentNode parent = this.holder;
+			ConcurrentNode node = this.holder.right;
+			int c = 1;
+
+			while (node != null) {
+				c = value.compareTo(node.value);
+
+				if (c == 0) {
+					if (node.present) {
+						return false;
+					}
+
+					node.present = true;
+					this.size++;
+					return true;
+				}
+
+				parent = node;
+				node = c < 0 ? node.left : node.right;
+			}
+
+			// the node is complete before the volatile write that links it makes it visible to readers
+			node = new ConcurrentNode(parent, value);
+
+			if (c < 0) {
+				parent.left = node;
+			} else {
+				parent.right = node;
+			}
+
+			this.size++;
+			fixUp(parent);
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if the tree has a given value, without locking.
+	 *
+	 * @param value the value.
+	 * @return true if the value is in the tree; false otherwise.
+	 */
+	@Override
+	public boolean contains(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+
+		for (; ; ) {
+			ConcurrentNode root = this.holder.right;
+
+			if (root == null) {
+				return false;
+			}
+
+			long version = root.version;
+
+			if ((version & (UNLINKED | SHRINKING)) != 0) {
+				awaitChange(root, version);
+			} else if (root == this.holder.right) {
+				int result = attemptGet(value, root, version);
+
+				if (result != RETRY) {
+					return result == PRESENT;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches the subtree of a node, which was valid for the value at the given version.
+	 *
+	 * @param value the value.
+	 * @param node the node.
+	 * @param version the version of the node when it was reached.
+	 * @return {@link #PRESENT} or {@link #ABSENT}; {@link #RETRY} if the node changed, and the search must
+	 * continue from its parent.
+	 */
+	private int attemptGet(E value, ConcurrentNode node, long version) {
+		for (; ; ) {
+			int c = value.compareTo(node.value);
+
+			if (c == 0) {
+				return node.present ? PRESENT : ABSENT;
+			}
+
+			ConcurrentNode child = c < 0 ? node.left : node.right;
+
+			if (child == null) {
+				return node.version != version ? RETRY : ABSENT;
+			}
+
+			long childVersion = child.version;
+
+			if ((childVersion & (UNLINKED | SHRINKING)) != 0) {
+				awaitChange(child, childVersion);
+			} else if (node.version == version && child == (c < 0 ? node.left : node.right)) {
+				// the child was the right one for the value, and still is; a retry from it comes back here
+				int result = attemptGet(value, child, childVersion);
+
+				if (result != RETRY) {
+					return result;
+				}
+			}
+
+			if (node.version != version) {
+				return RETRY;
+			}
+		}
+	}
+
+	/**
+	 * Finds the least present value above another, without locking.
+	 *
+	 * @param value the value; null for the least value of the tree.
+	 * @param inclusive true to accept the value itself.
+	 * @return the node of the least present value, or null if there is none.
+	 */
+	private ConcurrentNode higher(E value, boolean inclusive) {
+		for (; ; ) {
+			ConcurrentNode root = this.holder.right;
+
+			if (root == null) {
+				return null;
+			}
+
+			long version = root.version;
+
+			if ((version & (UNLINKED | SHRINKING)) != 0) {
+				awaitChange(root, version);
+			} else if (root == this.holder.right) {
+				ConcurrentNode result = attemptHigher(value, inclusive, root, version, null);
+
+				if (result == null || result != this.retry && result.present) {
+					return result;
+				} else if (result != this.retry) {
+					// a routing node; the values of its right subtree are above it
+					value = result.value;
+					inclusive = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches the subtree of a node for the least value above another, like
+	 * {@link #attemptGet(Comparable, ConcurrentNode, long)}. The node found may be a routing node.
+	 *
+	 * @param best the node of the least value above the value seen on the way to the node; null if none.
+	 * @return the node of the least value; {@link #retry} if the node changed.
+	 */
+	private ConcurrentNode attemptHigher(E value, boolean inclusive, ConcurrentNode node, long version, ConcurrentNode best) {
+		for (; ; ) {
+			int c = value == null ? -1 : value.compareTo(node.value);
+
+			if (c == 0 && inclusive) {
+				return node;
+			}
+
+			boolean left = c < 0;
+			ConcurrentNode bestBelow = left ? node : best;
+			ConcurrentNode child = left ? node.left : node.right;
+
+			if (child == null) {
+				return node.version != version ? this.retry : bestBelow;
+			}
+
+			long childVersion = child.version;
+
+			if ((childVersion & (UNLINKED | SHRINKING)) != 0) {
+				awaitChange(child, childVersion);
+			} else if (node.version == version && child == (left ? node.left : node.right)) {
+				ConcurrentNode result = attemptHigher(value, inclusive, child, childVersion, bestBelow);
+
+				if (result != this.retry) {
+					return result;
+				}
+			}
+
+			if (node.version != version) {
+				return this.retry;
+			}
+		}
+	}
+
+	/**
+	 * Waits until a rotation moving a node is done. An unlinked node never changes again, so there is
+	 * nothing to wait for.
+	 *
+	 * @param node the node.
+	 * @param version the version of the node that was read.
+	 */
+	private void awaitChange(ConcurrentNode node, long version) {
+		if ((version & SHRINKING) == 0) {
+			return;
+		}
+
+		for (int spins = 0; node.version == version; spins++) {
+			if (spins >= SPINS) {
+				Thread.yield();
+			}
+		}
+	}
+
+	/**
+	 * Removes a value from the tree.
+	 *
+	 * @param value the value.
+	 * @return true if the value was removed; false if it is not in the tree.
+	 */
+	@Override
+	public boolean remove(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+
+		this.lock.lock();
+
+		try {
+			ConcurrentNode node = this.holder.right;
+
+			while (node != null) {
+				int c = value.compareTo(node.value);
+
+				if (c == 0) {
+					break;
+				}
+
+				node = c < 0 ? node.left : node.right;
+			}
+
+			if (node == null || !node.present) {
+				return false;
+			}
+
+			// absent from here on, for every reader; the node itself goes once it has fewer than two children
+			node.present = false;
+			this.size--;
+
+			if (node.left == null || node.right == null) {
+				ConcurrentNode parent = (ConcurrentNode) node.parent;
+
+				unlink(node);
+				fixUp(parent);
+			}
+
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Walks up from a node whose subtree changed, unlinking routing nodes left with fewer than two children,
+	 * updating heights and rotating unbalanced nodes. Stops early at a node whose height did not change.
+	 *
+	 * @param node the node.
+	 */
+	private void fixUp(ConcurrentNode node) {
+		boolean moved = false;
+
+		while (node != this.holder) {
+			ConcurrentNode parent = (ConcurrentNode) node.parent;
+
+			if (!node.present && (node.left == null || node.right == null)) {
+				unlink(node);
+				node = parent;
+				moved = false;
+				continue;
+			}
+
+			int left = height(node.left);
+			int right = height(node.right);
+
+			if (left - right > 1) {
+				node = rebalanceRight(node);
+				moved = true;
+				continue;
+			} else if (right - left > 1) {
+				node = rebalanceLeft(node);
+				moved = true;
+				continue;
+			}
+
+			int height = 1 + Math.max(left, right);
+
+			// the new root of a rotated subtree must be checked by its parent, whatever its height
+			if (height == node.height && !moved) {
+				return;
+			}
+
+			node.height = height;
+			node = parent;
+			moved = false;
+		}
+	}
+
+	/**
+	 * Rebalances a node whose left subtree is two levels higher than its right one.
+	 *
+	 * @param node the node.
+	 * @return the new root of its subtree.
+	 */
+	private ConcurrentNode rebalanceRight(ConcurrentNode node) {
+		ConcurrentNode left = node.left;
+
+		if (height(left.left) < height(left.right)) {
+			ConcurrentNode pivot = rotateLeft(left);
+
+			settle(left);
+			pivot.height = 1 + Math.max(height(pivot.left), height(pivot.right));
+		}
+
+		ConcurrentNode top = rotateRight(node);
+
+		settle(node);
+		return top;
+	}
+
+	/**
+	 * Rebalances a node whose right subtree is two levels higher than its left one.
+	 *
+	 * @param node the node.
+	 * @return the new root of its subtree.
+	 */
+	private ConcurrentNode rebalanceLeft(ConcurrentNode node) {
+		ConcurrentNode right = node.right;
+
+		if (height(right.right) < height(right.left)) {
+			ConcurrentNode pivot = rotateRight(right);
+
+			settle(right);
+			pivot.height = 1 + Math.max(height(pivot.left), height(pivot.right));
+		}
+
+		ConcurrentNode top = rotateLeft(node);
+
+		settle(node);
+		return top;
+	}
+
+	/**
+	 * Unlinks a node a rotation moved down if it is a routing node left with fewer than two children, or
+	 * updates its height otherwise.
+	 *
+	 * @param node the node.
+	 */
+	private void settle(ConcurrentNode node) {
+		if (!node.present && (node.left == null || node.right == null)) {
+			unlink(node);
+		} else {
+			node.height = 1 + Math.max(height(node.left), height(node.right));
+		}
+	}
+
+	/**
+	 * Rotates a node's left child up into its place. The node's range shrinks, so readers on it are sent
+	 * back until the rotation is done; every link is set before the child becomes reachable in its new place.
+	 *
+	 * @param node the node.
+	 * @return the child, now the root of the subtree.
+	 */
+	private ConcurrentNode rotateRight(ConcurrentNode node) {
+		ConcurrentNode parent = (ConcurrentNode) node.parent;
+		ConcurrentNode left = node.left;
+		ConcurrentNode middle = left.right;
+		long version = node.version;
+
+		node.version = version | SHRINKING;
+
+		node.left = middle;
+
+		if (middle != null) {
+			middle.parent = node;
+		}
+
+		left.right = node;
+		node.parent = left;
+		replaceChild(parent, node, left);
+
+		node.version = version + CHANGE;
+		return left;
+	}
+
+	/**
+	 * Rotates a node's right child up into its place, like {@link #rotateRight(ConcurrentNode)}.
+	 *
+	 * @param node the node.
+	 * @return the child, now the root of the subtree.
+	 */
+	private ConcurrentNode rotateLeft(ConcurrentNode node) {
+		ConcurrentNode parent = (ConcurrentNode) node.parent;
+		ConcurrentNode right = node.right;
+		ConcurrentNode middle = right.left;
+		long version = node.version;
+
+		node.version = version | SHRINKING;
+
+		node.right = middle;
+
+		if (middle != null) {
+			middle.parent = node;
+		}
+
+		right.left = node;
+		node.parent = right;
+		replaceChild(parent, node, right);
+
+		node.version = version + CHANGE;
+		return right;
+	}
+
+	/**
+	 * Replaces a node with fewer than two children by its child, and marks it unlinked.
+	 *
+	 * @param node the node.
+	 */
+	private void unlink(ConcurrentNode node) {
+		ConcurrentNode child = node.left != null ? node.left : node.right;
+
+		replaceChild((ConcurrentNode) node.parent, node, child);
+		node.version = UNLINKED;
+	}
+
+	/**
+	 * Replaces a child of a node.
+	 *
+	 * @param parent the node.
+	 * @param child the child.
+	 * @param replacement the node taking its place, or null.
+	 */
+	private void replaceChild(ConcurrentNode parent, ConcurrentNode child, ConcurrentNode replacement) {
+		if (replacement != null) {
+			replacement.parent = parent;
+		}
+
+		if (parent.left == child) {
+			parent.left = replacement;
+		} else {
+			parent.right = replacement;
+		}
+	}
+
+	private int height(ConcurrentNode node) {
+		return node == null ? 0 : node.height;
+	}
+
+	/**
+	 * @return a weakly consistent iterator over the values in ascending order.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private ConcurrentNode next = higher(null, false);
+
+			@Override
+			public boolean hasNext() {
+				return this.next != null;
+			}
+
+			@Override
+			public E next() {
+				if (this.next == null) {
+					throw new NoSuchElementException();
+				}
+
+				E value = this.next.value;
+
+				this.next = higher(value, false);
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * Performs an action on every value in a range, in ascending order, without locking. The scan is weakly
+	 * consistent, like the {@link #iterator() iterator}.
+	 *
+	 * @param lo the lowest value of the range, inclusive.
+	 * @param hi the end of the range, exclusive.
+	 * @param action the action.
+	 */
+	public void forEachInRange(E lo, E hi, Consumer<? super E> action) {
+		if (lo == null || hi == null) {
+			throw new NullPointerException();
+		}
+
+		for (ConcurrentNode node = higher(lo, true); node != null && node.value.compareTo(hi) < 0;
+				node = higher(node.value, false)) {
+			action.accept(node.value);
+		}
+	}
+
+	/**
+	 * @return the number of values present.
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the height of the tree, counting routing nodes; 0 if it is empty.
+	 */
+	public int height() {
+		this.lock.lock();
+
+		try {
+			return height(this.holder.right);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int internalPathLength() {
+		return metrics()[0];
+	}
+
+	@Override
+	public int internalNodes() {
+		return metrics()[1];
+	}
+
+	@Override
+	public int leafCount() {
+		return metrics()[2];
+	}
+
+	/**
+	 * Walks the tree under the lock.
+	 *
+	 * @return the internal path length, the number of internal nodes and the number of leaves.
+	 */
+	private int[] metrics() {
+		this.lock.lock();
+
+		try {
+			int[] metrics = new int[3];
+			ArrayDeque<ConcurrentNode> nodes = new ArrayDeque<>();
+			ArrayDeque<Integer> depths = new ArrayDeque<>();
+
+			if (this.holder.right != null) {
+				nodes.push(this.holder.right);
+				depths.push(0);
+			}
+
+			while (!nodes.isEmpty()) {
+				ConcurrentNode node = nodes.pop();
+				int depth = depths.pop();
+
+				metrics[0] += depth;
+
+				if (node.left == null && node.right == null) {
+					metrics[2]++;
+					continue;
+				}
+
+				metrics[1]++;
+
+				if (node.left != null) {
+					nodes.push(node.left);
+					depths.push(depth + 1);
+				}
+
+				if (node.right != null) {
+					nodes.push(node.right);
+					depths.push(depth + 1);
+				}
+			}
+
+			return metrics;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if both trees have the same nodes, present or routing, in the same shape. Each tree is read
+	 * under its own lock in turn, so two trees changing at the same time may compare either way.
+	 *
+	 * @return true if the trees are deeply equal; false otherwise.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof ConcurrentTree && shape().equals(((ConcurrentTree<?>) obj).shape());
+	}
+
+	/**
+	 * @return the nodes in pre-order, each as its value and whether it is present, with null for a missing
+	 * child.
+	 */
+	private List<Object> shape() {
+		this.lock.lock();
+
+		try {
+			List<Object> shape = new ArrayList<>();
+			ArrayDeque<ConcurrentNode> nodes = new ArrayDeque<>();
+
+			nodes.push(this.holder.right == null ? this.retry : this.holder.right);
+
+			while (!nodes.isEmpty()) {
+				ConcurrentNode node = nodes.pop();
+
+				if (node == this.retry) {
+					shape.add(null);
+					continue;
+				}
+
+				shape.add(node.value);
+				shape.add(node.present);
+				nodes.push(node.right == null ? this.retry : node.right);
+				nodes.push(node.left == null ? this.retry : node.left);
+			}
+
+			return shape;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return shape().hashCode();
+	}
+
+	/**
+	 * @return the values in ascending order.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("[");
+
+		for (E value : this) {
+			if (s.length() > 1) {
+				s.append(", ");
+			}
+
+			s.append(value);
+		}
+
+		return s.append(']').toString();
+	}
+
+	private final class ConcurrentNode extends Node {
+		/**
+		 * The children; read without locking, so volatile.
+		 */
+		volatile ConcurrentNode left;
+		volatile ConcurrentNode right;
+
+		/**
+		 * False for a routing node, whose value was removed.
+		 */
+		volatile boolean present = true;
+
+		/**
+		 * The version, read by searches to validate the links they followed.
+		 */
+		volatile long version;
+
+		/**
+		 * The height of the subtree; read and written only under the lock.
+		 */
+		int height = 1;
+
+		ConcurrentNode(ConcurrentNode parent, E value) {
+			super(parent, value);
+		}
+	}
+}
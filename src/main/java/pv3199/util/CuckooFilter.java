@@ -0,0 +1,394 @@
+package pv3199.util;
+
+import java.util.function.Function;
+
+/**
+ * A cuckoo filter, which supports removing elements. Each element is reduced to a short fingerprint
+ * stored in one of two candidate buckets of 4 fingerprints each; the second bucket is derived from the
+ * first and the fingerprint alone, so fingerprints can be moved between their two buckets to make room
+ * ("cuckoo" eviction) without knowing the original element. Fingerprints are packed back to back in a
+ * <code>long[]</code>, with the fingerprint width chosen from the requested false-positive probability.
+ * <p>
+ * Only remove elements that were added: removing an element that was never added may remove the
+ * fingerprint of a different element that shares it.
+ *
+ * @param <E> the type of elements in this filter.
+ */
+public class CuckooFilter<E> extends MembershipFilter<E> {
+	/**
+	 * The number of fingerprints per bucket.
+	 */
+	private final static int BUCKET_SIZE = 4;
+
+	/**
+	 * The fraction of fingerprint slots that can be reliably filled before insertions start failing.
+	 */
+	private final static double MAX_LOAD = .95;
+
+	/**
+	 * The number of evictions attempted before an insertion gives up.
+	 */
+	private final static int MAX_KICKS = 500;
+
+	/**
+	 * The packed fingerprints. A fingerprint of 0 marks an empty slot.
+	 */
+	private long[] slots;
+
+	/**
+	 * The number of buckets. Always a power of 2.
+	 */
+	private final int bucketCount;
+
+	/**
+	 * The width of a fingerprint, in bits.
+	 */
+	private final int fingerprintBits;
+
+	/**
+	 * The number of fingerprints stored, including the victim.
+	 */
+	private int count;
+
+	/**
+	 * A fingerprint that was evicted and could not be placed, or 0 if there is none. While there is a
+	 * victim, the filter is full and further insertions fail.
+	 */
+	private int victim;
+
+	/**
+	 * One of the two buckets of the {@link #victim}.
+	 */
+	private int victimBucket;
+
+	/**
+	 * State of the xorshift generator used to pick eviction slots.
+	 */
+	private int random = 0x9E3779B9;
+
+	/**
+	 * Constructs a cuckoo filter with the default hashing function.
+	 *
+	 * @param expectedInsertions the number of elements the filter is sized for.
+	 * @param fpp the desired false-positive probability.
+	 * @throws IllegalArgumentException if the insertions are not positive or the probability is not
+	 * strictly between 0 and 1
+	 */
+	public CuckooFilter(int expectedInsertions, double fpp) throws IllegalArgumentException {
+		super();
+
+		checkSizing(expectedInsertions, fpp);
+		this.bucketCount = bucketsFor(expectedInsertions);
+		this.fingerprintBits = fingerprintBitsFor(fpp);
+		this.slots = new long[slotLongs(this.bucketCount, this.fingerprintBits)];
+	}
+
+	/**
+	 * Constructs a cuckoo filter with a given hashing function.
+	 *
+	 * @param hashFunction the hashing function for this filter.
+	 * @param expectedInsertions the number of elements the filter is sized for.
+	 * @param fpp the desired false-positive probability.
+	 * @throws IllegalArgumentException if the insertions are not positive or the probability is not
+	 * strictly between 0 and 1
+	 */
+	public CuckooFilter(Function<E, Integer> hashFunction, int expectedInsertions, double fpp) throws IllegalArgumentException {
+		super(hashFunction);
+
+		checkSizing(expectedInsertions, fpp);
+		this.bucketCount = bucketsFor(expectedInsertions);
+		this.fingerprintBits = fingerprintBitsFor(fpp);
+		this.slots = new long[slotLongs(this.bucketCount, this.fingerprintBits)];
+	}
+
+	/**
+	 * Computes the number of buckets needed to hold a number of fingerprints below {@link #MAX_LOAD}.
+	 *
+	 * @param n the expected insertions.
+	 * @return a power of 2 number of buckets.
+	 */
+	private static int bucketsFor(int n) {
+		long buckets = (long) Math.ceil(n / (BUCKET_SIZE * MAX_LOAD));
+
+		return (int) Math.min(1 << 30, Math.max(2, Long.highestOneBit(buckets - 1) << 1));
+	}
+
+	/**
+	 * Computes the fingerprint width giving a false-positive probability of about <code>p</code>. A
+	 * lookup compares against up to 8 fingerprints, so <code>log<sub>2</sub>(8 / p)</code> bits are needed.
+	 *
+	 * @param p the false-positive probability.
+	 * @return the fingerprint width, between 4 and 32 bits.
+	 */
+	private static int fingerprintBitsFor(double p) {
+		int bits = (int) Math.ceil(Math.log(2 * BUCKET_SIZE / p) / Math.log(2));
+
+		return Math.max(4, Math.min(32, bits));
+	}
+
+	/**
+	 * @param buckets the number of buckets.
+	 * @param fingerprintBits the fingerprint width.
+	 * @return the number of <code>long</code>s needed to pack every fingerprint slot.
+	 */
+	private static int slotLongs(int buckets, int fingerprintBits) {
+		long bits = (long) buckets * BUCKET_SIZE * fingerprintBits;
+
+		if (bits > (long) Integer.MAX_VALUE * 64) {
+			throw new IllegalArgumentException("filter too large");
+		}
+
+		return (int) ((bits + 63) >>> 6);
+	}
+
+	/**
+	 * @return the number of fingerprints in this filter.
+	 */
+	public final int size() {
+		return this.count;
+	}
+
+	/**
+	 * @return the width of a fingerprint, in bits.
+	 */
+	public final int fingerprintBits() {
+		return this.fingerprintBits;
+	}
+
+	/**
+	 * Records an element in this filter. Fails once the filter is full, which becomes likely past the
+	 * expected number of insertions.
+	 *
+	 * @param element the non-null element to add.
+	 * @return false if the filter is full; true otherwise.
+	 */
+	@Override
+	public boolean add(E element) {
+		long hash = hash(element);
+
+		if (this.victim != 0) {
+			return false;
+		}
+
+		int fp = fingerprint(hash);
+		int bucket = (int) hash & (this.bucketCount - 1);
+
+		if (insert(bucket, fp) || insert(altBucket(bucket, fp), fp)) {
+			this.count++;
+			return true;
+		}
+
+		// both buckets are full; evict fingerprints along alternating buckets until one finds room
+		for (int kick = 0; kick < MAX_KICKS; kick++) {
+			int slot = bucket * BUCKET_SIZE + (nextRandom() & (BUCKET_SIZE - 1));
+			int evicted = getSlot(slot);
+			setSlot(slot, fp);
+			fp = evicted;
+			bucket = altBucket(bucket, fp);
+
+			if (insert(bucket, fp)) {
+				this.count++;
+				return true;
+			}
+		}
+
+		// the element itself was placed; keep the last evicted fingerprint aside so it is not lost
+		this.victim = fp;
+		this.victimBucket = bucket;
+		this.count++;
+		return true;
+	}
+
+	@Override
+	public boolean mightContain(E element) {
+		if (element == null) {
+			return false;
+		}
+
+		long hash = hash(element);
+		int fp = fingerprint(hash);
+		int b1 = (int) hash & (this.bucketCount - 1);
+		int b2 = altBucket(b1, fp);
+
+		if (this.victim == fp && (this.victimBucket == b1 || this.victimBucket == b2)) {
+			return true;
+		}
+
+		return find(b1, fp) >= 0 || find(b2, fp) >= 0;
+	}
+
+	/**
+	 * Removes an element from this filter. The element must have been added; otherwise another element
+	 * with the same fingerprint may be removed instead.
+	 *
+	 * @param element the element to remove.
+	 * @return true if a matching fingerprint was removed.
+	 */
+	public boolean remove(E element) {
+		if (element == null) {
+			return false;
+		}
+
+		long hash = hash(element);
+		int fp = fingerprint(hash);
+		int b1 = (int) hash & (this.bucketCount - 1);
+		int b2 = altBucket(b1, fp);
+
+		if (this.victim == fp && (this.victimBucket == b1 || this.victimBucket == b2)) {
+			this.victim = 0;
+			this.count--;
+			return true;
+		}
+
+		int slot = find(b1, fp);
+		if (slot < 0) {
+			slot = find(b2, fp);
+		}
+
+		if (slot < 0) {
+			return false;
+		}
+
+		setSlot(slot, 0);
+		this.count--;
+
+		// a slot just opened up; try to place the victim again
+		if (this.victim != 0) {
+			int v = this.victim;
+			int vb = this.victimBucket;
+
+			if (insert(vb, v) || insert(altBucket(vb, v), v)) {
+				this.victim = 0;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		java.util.Arrays.fill(this.slots, 0);
+		this.count = 0;
+		this.victim = 0;
+	}
+
+	@Override
+	public CuckooFilter<E> clone() {
+		CuckooFilter<E> cf = (CuckooFilter<E>) super.clone();
+		cf.slots = this.slots.clone();
+		return cf;
+	}
+
+	/**
+	 * Derives a non-zero fingerprint from the upper bits of a hash.
+	 *
+	 * @param hash the element's hash.
+	 * @return the fingerprint.
+	 */
+	private int fingerprint(long hash) {
+		int fp = (int) (hash >>> (64 - this.fingerprintBits));
+
+		return fp != 0 ? fp : 1;
+	}
+
+	/**
+	 * Gets the other candidate bucket of a fingerprint. Applying this twice returns the original bucket.
+	 *
+	 * @param bucket one of the fingerprint's buckets.
+	 * @param fp the fingerprint.
+	 * @return the fingerprint's other bucket.
+	 */
+	private int altBucket(int bucket, int fp) {
+		return (bucket ^ (int) mix(fp)) & (this.bucketCount - 1);
+	}
+
+	/**
+	 * Places a fingerprint in an empty slot of a bucket.
+	 *
+	 * @param bucket the bucket.
+	 * @param fp the fingerprint.
+	 * @return true if the bucket had an empty slot.
+	 */
+	private boolean insert(int bucket, int fp) {
+		int base = bucket * BUCKET_SIZE;
+
+		for (int i = 0; i < BUCKET_SIZE; i++) {
+			if (getSlot(base + i) == 0) {
+				setSlot(base + i, fp);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Finds a fingerprint in a bucket.
+	 *
+	 * @param bucket the bucket.
+	 * @param fp the fingerprint.
+	 * @return the slot holding the fingerprint, or -1 if the bucket does not hold it.
+	 */
+	private int find(int bucket, int fp) {
+		int base = bucket * BUCKET_SIZE;
+
+		for (int i = 0; i < BUCKET_SIZE; i++) {
+			if (getSlot(base + i) == fp) {
+				return base + i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Reads a packed fingerprint slot, which may straddle two <code>long</code>s.
+	 *
+	 * @param slot the slot.
+	 * @return the fingerprint in the slot; 0 if it is empty.
+	 */
+	private int getSlot(int slot) {
+		long bit = (long) slot * this.fingerprintBits;
+		int word = (int) (bit >>> 6);
+		int shift = (int) bit & 63;
+		long mask = (1L << this.fingerprintBits) - 1;
+
+		long value = this.slots[word] >>> shift;
+		if (shift + this.fingerprintBits > 64) {
+			value |= this.slots[word + 1] << (64 - shift);
+		}
+
+		return (int) (value & mask);
+	}
+
+	/**
+	 * Writes a packed fingerprint slot, which may straddle two <code>long</code>s.
+	 *
+	 * @param slot the slot.
+	 * @param fp the fingerprint; 0 to empty the slot.
+	 */
+	private void setSlot(int slot, int fp) {
+		long bit = (long) slot * this.fingerprintBits;
+		int word = (int) (bit >>> 6);
+		int shift = (int) bit & 63;
+		long mask = (1L << this.fingerprintBits) - 1;
+		long value = fp & mask;
+
+		this.slots[word] = (this.slots[word] & ~(mask << shift)) | (value << shift);
+		if (shift + this.fingerprintBits > 64) {
+			int spill = 64 - shift;
+			this.slots[word + 1] = (this.slots[word + 1] & ~(mask >>> spill)) | (value >>> spill);
+		}
+	}
+
+	/**
+	 * @return the next value of a xorshift generator.
+	 */
+	private int nextRandom() {
+		int x = this.random;
+		x ^= x << 13;
+		x ^= x >>> 17;
+		x ^= x << 5;
+		return this.random = x;
+	}
+}
@@ -0,0 +1,186 @@
+package pv3199.util;
+
+import java.util.Comparator;
+
+/**
+ * A heap in an array where every node has up to <code>d</code> children rather than 2. The heap is
+ * <code>log<sub>2</sub> d</code> times shallower than a binary heap, so adding an element compares it with
+ * fewer ancestors, and a node's children sit next to each other in the array, so finding the lowest child
+ * when popping reads fewer cache lines. Popping compares more children per level; arities of 4 or 8 tend
+ * to pay off for large heaps.
+ * <p>
+ * The element that compares lowest by the heap's comparator is at the root.
+ *
+ * @param <E> the type of elements in this heap.
+ */
+public class DaryHeap<E> implements PriorityHeap<E> {
+	/**
+	 * The default capacity.
+	 */
+	private final static int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The number of children per node.
+	 */
+	private final int arity;
+
+	/**
+	 * The ordering of this heap; the lowest element is at the root.
+	 */
+	private final Comparator<E> comparator;
+
+	/**
+	 * The elements in heap order. The children of the element at <code>i</code> are at
+	 * <code>d * i + 1</code> through <code>d * i + d</code>.
+	 */
+	private Object[] data;
+
+	/**
+	 * The number of elements.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty heap ordered by the elements' natural ordering.
+	 *
+	 * @param arity the number of children per node.
+	 * @throws IllegalArgumentException if the arity is less than 2
+	 */
+	public DaryHeap(int arity) throws IllegalArgumentException {
+		this(arity, Heap.naturalOrder());
+	}
+
+	/**
+	 * Constructs an empty heap ordered by a comparator.
+	 *
+	 * @param arity the number of children per node.
+	 * @param comparator the ordering of the heap.
+	 * @throws IllegalArgumentException if the arity is less than 2
+	 */
+	public DaryHeap(int arity, Comparator<E> comparator) throws IllegalArgumentException {
+		this(arity, comparator, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty heap ordered by a comparator.
+	 *
+	 * @param arity the number of children per node.
+	 * @param comparator the ordering of the heap.
+	 * @param initialCapacity the initial capacity.
+	 * @throws IllegalArgumentException if the arity is less than 2 or the capacity is not positive
+	 */
+	public DaryHeap(int arity, Comparator<E> comparator, int initialCapacity) throws IllegalArgumentException {
+		if (arity < 2) {
+			throw new IllegalArgumentException("arity less than 2");
+		} else if (initialCapacity <= 0) {
+			throw new IllegalArgumentException("non-positive capacity");
+		} else if (comparator == null) {
+			throw new NullPointerException();
+		}
+
+		this.arity = arity;
+		this.comparator = comparator;
+		this.data = new Object[initialCapacity];
+	}
+
+	@Override
+	public void add(E e) {
+		if (e == null) {
+			throw new NullPointerException("nulls not allowed");
+		}
+
+		if (this.size == this.data.length) {
+			this.data = java.util.Arrays.copyOf(this.data, this.data.length * 2);
+		}
+
+		int i = this.size++;
+
+		while (i > 0) {
+			int parent = (i - 1) / this.arity;
+			E p = (E) this.data[parent];
+
+			if (this.comparator.compare(e, p) >= 0) {
+				break;
+			}
+
+			this.data[i] = p;
+			i = parent;
+		}
+
+		this.data[i] = e;
+	}
+
+	@Override
+	public E peek() {
+		return (E) this.data[0];
+	}
+
+	@Override
+	public E pop() {
+		if (this.size == 0) {
+			return null;
+		}
+
+		E top = (E) this.data[0];
+		E e = (E) this.data[--this.size];
+
+		this.data[this.size] = null;
+
+		if (this.size > 0) {
+			siftDown(e);
+		}
+
+		return top;
+	}
+
+	/**
+	 * Moves an element down from the root until none of its children is less than it.
+	 *
+	 * @param e the element.
+	 */
+	private void siftDown(E e) {
+		int i = 0;
+
+		while (true) {
+			int first = this.arity * i + 1;
+
+			if (first >= this.size) {
+				break;
+			}
+
+			int end = Math.min(first + this.arity, this.size);
+			int child = first;
+			E c = (E) this.data[first];
+
+			for (int j = first + 1; j < end; j++) {
+				E o = (E) this.data[j];
+
+				if (this.comparator.compare(o, c) < 0) {
+					child = j;
+					c = o;
+				}
+			}
+
+			if (this.comparator.compare(e, c) <= 0) {
+				break;
+			}
+
+			this.data[i] = c;
+			i = child;
+		}
+
+		this.data[i] = e;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the number of children per node.
+	 */
+	public final int arity() {
+		return this.arity;
+	}
+}
@@ -0,0 +1,84 @@
+package pv3199.util;
+
+/**
+ * An intrusive, doubly linked list of {@link Cache.Entry cache entries}, most recently added first. The
+ * links live in the entries themselves, so an entry can be in at most one list at a time and moving it
+ * costs no allocation.
+ */
+class EntryList {
+	/**
+	 * The most recently added entry.
+	 */
+	Cache.Entry<?, ?> head;
+
+	/**
+	 * The least recently added entry.
+	 */
+	Cache.Entry<?, ?> tail;
+
+	/**
+	 * The number of entries in this list.
+	 */
+	int size;
+
+	/**
+	 * Adds an entry to the front of this list.
+	 *
+	 * @param e an entry that is in no list.
+	 */
+	void addFirst(Cache.Entry<?, ?> e) {
+		e.prev = null;
+		e.next = this.head;
+
+		if (this.head != null) {
+			this.head.prev = e;
+		} else {
+			this.tail = e;
+		}
+
+		this.head = e;
+		this.size++;
+	}
+
+	/**
+	 * Unlinks an entry from this list.
+	 *
+	 * @param e an entry in this list.
+	 */
+	void remove(Cache.Entry<?, ?> e) {
+		if (e.prev != null) {
+			e.prev.next = e.next;
+		} else {
+			this.head = e.next;
+		}
+
+		if (e.next != null) {
+			e.next.prev = e.prev;
+		} else {
+			this.tail = e.prev;
+		}
+
+		e.prev = e.next = null;
+		this.size--;
+	}
+
+	/**
+	 * Moves an entry to the front of this list.
+	 *
+	 * @param e an entry in this list.
+	 */
+	void moveToFront(Cache.Entry<?, ?> e) {
+		if (this.head != e) {
+			remove(e);
+			addFirst(e);
+		}
+	}
+
+	/**
+	 * Empties this list.
+	 */
+	void clear() {
+		this.head = this.tail = null;
+		this.size = 0;
+	}
+}
@@ -0,0 +1,96 @@
+package pv3199.util;
+
+/**
+ * Decides which entry a {@link Cache} evicts once it holds more than its maximum size. A policy is told
+ * about every entry that is inserted, accessed and removed, and is asked for a victim whenever the cache
+ * is over its maximum size. Built-in policies are available through {@link #lru()}, {@link #lfu()} and
+ * {@link #windowTinyLfu()}; a policy instance must only be used by a single cache.
+ *
+ * @param <K> the type of keys in the cache.
+ */
+public abstract class EvictionPolicy<K> {
+	/**
+	 * Called once by the cache using this policy, before any entry is reported.
+	 *
+	 * @param maximumSize the maximum size of the cache.
+	 */
+	protected void init(int maximumSize) {
+	}
+
+	/**
+	 * Called after an entry is inserted into the cache, including when a loaded value is inserted.
+	 *
+	 * @param e the new entry.
+	 */
+	protected abstract void onInsert(Cache.Entry<K, ?> e);
+
+	/**
+	 * Called when a lookup finds a live entry.
+	 *
+	 * @param e the accessed entry.
+	 */
+	protected abstract void onAccess(Cache.Entry<K, ?> e);
+
+	/**
+	 * Called when a lookup finds no live entry for a key, before any value for it is loaded.
+	 *
+	 * @param key the key that was looked up.
+	 */
+	protected void onMiss(K key) {
+	}
+
+	/**
+	 * Called after an entry is removed from the cache for any reason, including eviction.
+	 *
+	 * @param e the removed entry.
+	 */
+	protected abstract void onRemove(Cache.Entry<K, ?> e);
+
+	/**
+	 * Picks the entry to evict. Only called while the cache holds more entries than its maximum size.
+	 * The cache removes the returned entry and then reports it through {@link #onRemove(Cache.Entry)}.
+	 *
+	 * @param maximumSize the maximum size of the cache.
+	 * @return an entry of the cache.
+	 */
+	protected abstract Cache.Entry<K, ?> victim(int maximumSize);
+
+	/**
+	 * Called when the cache is cleared. Entries are not reported individually.
+	 */
+	protected abstract void clear();
+
+	/**
+	 * Evicts the least recently used entry.
+	 *
+	 * @param <K> the type of keys in the cache.
+	 * @return a new least-recently-used policy.
+	 */
+	public static <K> EvictionPolicy<K> lru() {
+		return new LruPolicy<>();
+	}
+
+	/**
+	 * Evicts the least frequently used entry, breaking ties by recency. Frequencies are counted from the
+	 * entry's insertion, so a formerly popular entry is forgotten once it is evicted.
+	 *
+	 * @param <K> the type of keys in the cache.
+	 * @return a new least-frequently-used policy.
+	 */
+	public static <K> EvictionPolicy<K> lfu() {
+		return new LfuPolicy<>();
+	}
+
+	/**
+	 * W-TinyLFU: new entries enter a small LRU window, and an entry leaving the window is only admitted to
+	 * the main space if a count-min sketch of recent accesses estimates it is used more often than the
+	 * entry it would replace. This keeps hit rates high on skewed workloads while staying resistant to
+	 * scans of one-off keys.
+	 *
+	 * @param <K> the type of keys in the cache.
+	 * @return a new W-TinyLFU policy.
+	 */
+	public static <K> EvictionPolicy<K> windowTinyLfu() {
+		return new WindowTinyLfuPolicy<>();
+	}
+}
@@ -0,0 +1,55 @@
+package pv3199.util;
+
+/**
+ * Index arithmetic of the Eytzinger layout shared by {@link IntSearchArray}, {@link LongSearchArray} and
+ * {@link DoubleSearchArray}. The layout stores the <code>n</code> values of a sorted array breadth-first in
+ * the slots <code>1</code> to <code>n</code> of another: the children of slot <code>k</code> are
+ * <code>2k</code> and <code>2k + 1</code>, and the last level is filled from the left.
+ */
+final class Eytzinger {
+	private Eytzinger() {
+	}
+
+	/**
+	 * Maps a slot of the layout to the index in sorted order of the value it holds, in constant time. In
+	 * a perfect tree of the same height, the in-order index of a slot follows from its depth and offset;
+	 * the leaves missing from the last level, which all come after the present ones, are then discounted.
+	 *
+	 * @param k a slot, from 1 to n.
+	 * @param n the number of values.
+	 * @return the index of the slot's value in sorted order.
+	 */
+	static int sortedIndex(int k, int n) {
+		int height = 32 - Integer.numberOfLeadingZeros(n);
+		int depth = 32 - Integer.numberOfLeadingZeros(k);
+		long inorder = ((2L * (k - (1L << depth - 1)) + 1) << height - depth) - 1;
+		long leaves = n - (1L << height - 1) + 1;
+
+		return (int) (inorder - Math.max(0, (inorder + 1) / 2 - leaves));
+	}
+
+	/**
+	 * Finishes a lower bound search. The search goes left from every slot whose value is not less than the
+	 * key and right otherwise, until it falls off the tree; the answer is then the slot where it last went
+	 * left, found by dropping the trailing right turns and the final left turn.
+	 *
+	 * @param k the slot past the bottom of the tree the search ended at.
+	 * @return the slot of the least value not less than the key; 0 if there is none.
+	 */
+	static int lastLeftTurn(int k) {
+		return k >>> Integer.numberOfTrailingZeros(~k) + 1;
+	}
+
+	/**
+	 * Checks the length of the sorted input.
+	 *
+	 * @param length the number of values.
+	 * @throws IllegalArgumentException if there are too many values for the layout
+	 */
+	static void checkLength(int length) throws IllegalArgumentException {
+		// a search steps to 2k + 1 for some k <= length, which must not overflow
+		if (length >= 1 << 30) {
+			throw new IllegalArgumentException("too many values");
+		}
+	}
+}
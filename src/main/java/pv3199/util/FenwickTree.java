@@ -0,0 +1,139 @@
+package pv3199.util;
+
+/**
+ * A Fenwick tree, or binary indexed tree, over an array of <code>long</code> values: it adds to a value and
+ * sums a range of values in <code>O(log n)</code> time, where a plain array takes <code>O(1)</code> to
+ * update but <code>O(n)</code> to sum. Slot <code>i</code> of the tree, counted from 1, holds the sum of the
+ * <code>i &amp; -i</code> values that end at index <code>i - 1</code>; a prefix sum adds up the slots found
+ * by clearing the lowest set bit of the index, and an update adds to the slots found by adding it.
+ * <p>
+ * Indices are counted from 0, and ranges include their start and exclude their end.
+ *
+ * @see SegmentTree
+ */
+public class FenwickTree {
+	/**
+	 * The partial sums, from index 1; index 0 is unused.
+	 */
+	private final long[] tree;
+
+	/**
+	 * Constructs a FenwickTree of zeros.
+	 *
+	 * @param size the number of values.
+	 * @throws IllegalArgumentException if the size is negative
+	 */
+	public FenwickTree(int size) throws IllegalArgumentException {
+		if (size < 0) {
+			throw new IllegalArgumentException("negative size");
+		}
+
+		this.tree = new long[size + 1];
+	}
+
+	/**
+	 * Constructs a FenwickTree of the values of an array in <code>O(n)</code>, adding each slot into the
+	 * next slot that covers it.
+	 *
+	 * @param values the values; the array is not modified.
+	 */
+	public FenwickTree(long[] values) {
+		this.tree = new long[values.length + 1];
+		System.arraycopy(values, 0, this.tree, 1, values.length);
+
+		for (int i = 1; i < this.tree.length; i++) {
+			int parent = i + (i & -i);
+
+			if (parent < this.tree.length) {
+				this.tree[parent] += this.tree[i];
+			}
+		}
+	}
+
+	/**
+	 * @return the number of values.
+	 */
+	public int size() {
+		return this.tree.length - 1;
+	}
+
+	/**
+	 * Adds to a value.
+	 *
+	 * @param index the index of the value.
+	 * @param delta the amount to add.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+	 */
+	public void add(int index, long delta) throws IndexOutOfBoundsException {
+		checkIndex(index);
+
+		for (int i = index + 1; i < this.tree.length; i += i & -i) {
+			this.tree[i] += delta;
+		}
+	}
+
+	/**
+	 * Sets a value.
+	 *
+	 * @param index the index of the value.
+	 * @param value the new value.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+	 */
+	public void set(int index, long value) throws IndexOutOfBoundsException {
+		add(index, value - get(index));
+	}
+
+	/**
+	 * @param index the index of a value.
+	 * @return the value.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+	 */
+	public long get(int index) throws IndexOutOfBoundsException {
+		checkIndex(index);
+
+		return sum(index, index + 1);
+	}
+
+	/**
+	 * @param end the end of the prefix, exclusive.
+	 * @return the sum of the values before the end.
+	 * @throws IndexOutOfBoundsException if the end is negative or greater than the size
+	 */
+	public long prefixSum(int end) throws IndexOutOfBoundsException {
+		if (end < 0 || end > size()) {
+			throw new IndexOutOfBoundsException("end: " + end + ", size: " + size());
+		}
+
+		long sum = 0;
+
+		for (int i = end; i > 0; i -= i & -i) {
+			sum += this.tree[i];
+		}
+
+		return sum;
+	}
+
+	/**
+	 * @param from the start of the range, inclusive.
+	 * @param to the end of the range, exclusive.
+	 * @return the sum of the values in the range.
+	 * @throws IndexOutOfBoundsException if the range is not within the values, or ends before it starts
+	 */
+	public long sum(int from, int to) throws IndexOutOfBoundsException {
+		if (from > to) {
+			throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+		}
+
+		return prefixSum(to) - prefixSum(from);
+	}
+
+	/**
+	 * @param index an index.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+	 */
+	private void checkIndex(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package pv3199.util;
+
+/**
+ * A count-min sketch of 4-bit counters estimating how often keys were seen recently. Each key maps to
+ * one counter in each of 4 rows and its frequency is the minimum of those counters, so estimates can only
+ * be too high (when keys collide), never too low. Counters are packed 16 to a <code>long</code> and all
+ * halved once the number of recorded accesses reaches a sample size, so old popularity fades.
+ */
+final class FrequencySketch {
+	/**
+	 * Seeds that derive each row's counter from a key's hash.
+	 */
+	private final static long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	/**
+	 * Mask that clears the bit shifted into each counter when all counters are halved.
+	 */
+	private final static long RESET_MASK = 0x7777777777777777L;
+
+	/**
+	 * The packed counters of all rows.
+	 */
+	private final long[] table;
+
+	/**
+	 * The number of accesses after which all counters are halved.
+	 */
+	private final int sampleSize;
+
+	/**
+	 * The number of accesses recorded since counters were last halved.
+	 */
+	private int additions;
+
+	/**
+	 * Constructs a sketch for a cache of a given maximum size.
+	 *
+	 * @param maximumSize the maximum size of the cache.
+	 */
+	FrequencySketch(int maximumSize) {
+		// one long, so 16 counters, per entry keeps collisions rare enough for estimates to be useful
+		int longs = Integer.highestOneBit(Math.max(2, Math.min(1 << 26, maximumSize)) - 1) << 1;
+
+		this.table = new long[longs];
+		this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * Math.max(1, maximumSize));
+	}
+
+	/**
+	 * Estimates how often a key was seen recently.
+	 *
+	 * @param hash the key's hash.
+	 * @return the estimated frequency, at most 15.
+	 */
+	int frequency(int hash) {
+		int min = 15;
+
+		for (int row = 0; row < SEEDS.length; row++) {
+			int i = counterOf(hash, row);
+			min = Math.min(min, (int) (this.table[i >>> 4] >>> ((i & 15) << 2)) & 15);
+		}
+
+		return min;
+	}
+
+	/**
+	 * Records an access of a key.
+	 *
+	 * @param hash the key's hash.
+	 */
+	void increment(int hash) {
+		boolean added = false;
+
+		for (int row = 0; row < SEEDS.length; row++) {
+			int i = counterOf(hash, row);
+			int shift = (i & 15) << 2;
+
+			if (((this.table[i >>> 4] >>> shift) & 15) != 15) {
+				this.table[i >>> 4] += 1L << shift;
+				added = true;
+			}
+		}
+
+		if (added && ++this.additions == this.sampleSize) {
+			reset();
+		}
+	}
+
+	/**
+	 * Halves every counter.
+	 */
+	private void reset() {
+		for (int i = 0; i < this.table.length; i++) {
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+
+		this.additions >>>= 1;
+	}
+
+	/**
+	 * Clears every counter.
+	 */
+	void clear() {
+		java.util.Arrays.fill(this.table, 0);
+		this.additions = 0;
+	}
+
+	/**
+	 * Gets the counter a key maps to in a row.
+	 *
+	 * @param hash the key's hash.
+	 * @param row the row.
+	 * @return the counter's position among all counters.
+	 */
+	private int counterOf(int hash, int row) {
+		long h = (hash + SEEDS[row]) * SEEDS[row];
+		h += h >>> 32;
+
+		return (int) h & ((this.table.length << 4) - 1);
+	}
+}
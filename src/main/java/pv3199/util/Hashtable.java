@@ -1,13 +1,42 @@
 package pv3199.util;
 
-import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.NoSuchElementException;
-import java.util.Set;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Function;
-
-public class Hashtable<E> {
+import java.util.stream.IntStream;
+
+/**
+ * A hash table with a compact, insertion-ordered layout. Elements are stored densely in an
+ * {@link #entries} array in the order they were added, while a separate, sparse {@link #index} array of
+ * <code>int</code> slots maps hashes to positions in that array. Iteration therefore only touches live
+ * elements (in insertion order), and cloning is a copy of a few arrays.
+ * <p>
+ * Each element's hash is cached in a {@link #hashes} array parallel to the entries, so the hashing function
+ * is called once per added element and never again when the table is resized, and probing only calls
+ * {@link Object#equals(Object) equals} on elements whose cached hash matches.
+ * <p>
+ * Removing an element leaves a hole in the entries array and marks its index slot as deleted. Holes are
+ * compacted away the next time the entries array fills up, and the index is rebuilt in place whenever live
+ * and deleted slots together pass three quarters of it, so probing always finds an empty slot to stop at.
+ * <p>
+ * By default, growing the table rebuilds the whole index at once. With {@link #setIncrementalResize(boolean)
+ * incremental resizing} enabled, growing only copies the entries array and allocates a new index; the old
+ * index is kept alongside it and a bounded number of its slots are migrated on every operation, so no
+ * single operation has to rehash every element. Compacting away holes still rebuilds the index at once.
+ * <p>
+ * Lookup and resize statistics can be collected with {@link #setStatsEnabled(boolean)} and read through
+ * {@link #stats()} or a {@link #registerStatsMBean(String) JMX MBean}. While disabled, collecting them costs
+ * a single null check per operation.
+ * <p>
+ * Large tables can be built from an array in parallel with {@link #build(Object[], Function, ForkJoinPool)},
+ * and visited in parallel with {@link #parallelForEach(Consumer, ForkJoinPool)}.
+ *
+ * @param <E> the type of elements in this table.
+ */
+public class Hashtable<E> implements Cloneable {
 	/**
 	 * Default hashing function, calls the underlying object's {@link Object#hashCode() hashCode()}
 	 * function.
@@ -19,20 +48,86 @@ public class Hashtable<E> {
 	 */
 	private final static int DEFAULT_TABLE_SIZE = 10;
 
+	/**
+	 * Index slot that has never held an entry. Probing stops at these slots.
+	 */
+	private final static int EMPTY = -1;
+
+	/**
+	 * Index slot whose entry was removed. Probing continues past these slots.
+	 */
+	private final static int DELETED = -2;
+
+	/**
+	 * The number of {@link #oldIndex} slots migrated per operation while incrementally resizing. The old
+	 * index is at most 3 times as long as the old entries array, and at least that many elements must be
+	 * added before the new entries array fills up, so migration always finishes before the next resize.
+	 */
+	private final static int MIGRATION_BATCH = 4;
+
+	/**
+	 * The minimum number of index slots in each region filled by a task of a {@link #load parallel build}.
+	 */
+	private final static int MIN_REGION_SLOTS = 1 << 12;
+
 	/**
 	 * The number of items in this table.
 	 */
 	private int count;
 
+	/**
+	 * The number of positions used in {@link #entries}, including holes left by removals.
+	 */
+	private int used;
+
+	/**
+	 * The number of {@link #DELETED} slots in {@link #index}. Reusing entry positions keeps {@link #used}
+	 * from reaching the capacity under add and remove churn, so the index is rebuilt on this count instead.
+	 */
+	private int tombstones;
+
 	/**
 	 * The hashing function.
 	 */
 	private Function<Object, Integer> hashFunction;
 
 	/**
-	 * The table table
+	 * The elements in insertion order. Positions at or past {@link #used}, and holes left by removals,
+	 * are null.
 	 */
-	private Object[] table;
+	private Object[] entries;
+
+	/**
+	 * The spread hash of each element in {@link #entries}, at the same position.
+	 */
+	private int[] hashes;
+
+	/**
+	 * The hash index. Each slot is either {@link #EMPTY}, {@link #DELETED}, or a position in
+	 * {@link #entries}. Its length is always a power of 2 greater than the length of the entries array.
+	 */
+	private int[] index;
+
+	/**
+	 * Whether resizing migrates the index incrementally.
+	 */
+	private boolean incremental;
+
+	/**
+	 * The index being migrated into {@link #index} during an incremental resize; otherwise null.
+	 * Migrated slots are marked {@link #DELETED} so that probing past them still works.
+	 */
+	private int[] oldIndex;
+
+	/**
+	 * The next {@link #oldIndex} slot to migrate.
+	 */
+	private int migrated;
+
+	/**
+	 * The statistics counters, or null if statistics are disabled.
+	 */
+	private StatsCounters stats;
 
 	/**
 	 * Constructs a hashtable with the {@link #DEFAULT_HASH_FUNCTION default hashing function}.
@@ -51,12 +146,7 @@ public class Hashtable<E> {
 	 * @throws IllegalArgumentException if the initial size is not positive
 	 */
 	public Hashtable(int initSize) throws IllegalArgumentException {
-		if (initSize == 0) {
-			throw new IllegalArgumentException("initial table capacity must be positive");
-		}
-		
-		this.hashFunction = DEFAULT_HASH_FUNCTION;
-		table = new Object[(int) (Math.log(initSize) / Math.log(2))];
+		this((Function<E, Integer>) (Function<?, Integer>) DEFAULT_HASH_FUNCTION, initSize);
 	}
 
 	/**
@@ -82,12 +172,30 @@ public class Hashtable<E> {
 	 * @throws IllegalArgumentException if the initial size is not positive
 	 */
 	public Hashtable(Function<E, Integer> hashFunction, int initSize) throws IllegalArgumentException {
-		if (initSize == 0) {
+		if (initSize <= 0) {
 			throw new IllegalArgumentException("initial table capacity must be positive");
 		}
-		
+
 		this.hashFunction = (Function<Object, Integer>) hashFunction;
-		table = new Object[(int) (Math.log(initSize) / Math.log(2))];
+		this.entries = new Object[initSize];
+		this.hashes = new int[initSize];
+		this.index = newIndex(initSize);
+	}
+
+	/**
+	 * Creates an empty index for an entries array of a given length. The index is kept at least
+	 * half again as long as the entries array so that probe sequences stay short.
+	 *
+	 * @param capacity the length of the entries array.
+	 * @return an index filled with {@link #EMPTY} slots.
+	 */
+	private static int[] newIndex(int capacity) {
+		int slots = Integer.highestOneBit(Math.max(2, capacity + (capacity >> 1)) - 1) << 1;
+		int[] index = new int[slots];
+
+		java.util.Arrays.fill(index, EMPTY);
+
+		return index;
 	}
 
 	/**
@@ -98,84 +206,342 @@ public class Hashtable<E> {
 	public void add(E element) {
 		if (element == null) {
 			throw new NullPointerException();
-		} else if (this.count == this.table.length) {
-			resizeTable();
 		}
 
-		hash(element, this.table, this.hashFunction);
+		migrate();
+
+		if (this.used == this.entries.length) {
+			long start = this.stats != null ? System.nanoTime() : 0;
+
+			if (this.count <= this.used / 2) {
+				rehash();
+			} else {
+				resizeTable();
+			}
+
+			if (this.stats != null) {
+				this.stats.resizes++;
+				this.stats.resizeNanos += System.nanoTime() - start;
+			}
+		}
+
+		int hash = spread(this.hashFunction.apply(element));
+
+		// keep EMPTY slots in the index for probing to stop at
+		if (4 * (this.count + this.tombstones + 1) > 3 * this.index.length) {
+			rehash();
+		}
+
+		int slot = insertionSlot(this.index, hash);
+
+		if (this.index[slot] == DELETED) {
+			this.tombstones--;
+		}
+
+		this.index[slot] = this.used;
+		this.hashes[this.used] = hash;
+		this.entries[this.used++] = element;
 		this.count++;
 	}
 
 	/**
-	 * Hashes an object into a table given a hashing function.
+	 * Builds a hashtable from an array of elements in parallel on the common {@link ForkJoinPool}.
 	 *
-	 * @param o the object to hash.
-	 * @param table the hash table.
-	 * @param hashFunction the hashing function.
+	 * @param elements the non-null elements, added in order.
+	 * @param hashFunction the hashing function for the table.
+	 * @param <E> the type of elements in the table.
+	 * @return a table holding every element.
+	 * @see #build(Object[], Function, ForkJoinPool)
 	 */
-	private static void hash(Object o, Object[] table, Function<Object, Integer> hashFunction) {
-		int hash = hashFunction.apply(o);
-		int index = Math.abs(hash) % table.length;
+	public static <E> Hashtable<E> build(E[] elements, Function<E, Integer> hashFunction) {
+		return build(elements, hashFunction, ForkJoinPool.commonPool());
+	}
 
-		if (table[index] != null) {
-			// handle collision with quadratic probing
-			handleCollision(o, table, index);
-		} else {
-			table[index] = o;
-		}
+	/**
+	 * Builds a hashtable from an array of elements in parallel. The table is sized for the whole array up
+	 * front, so it never resizes while it is built, and the result is the same as adding the elements one
+	 * by one in order to a table of that size, apart from the index slots chosen for colliding elements.
+	 * <p>
+	 * Hashes are computed in parallel. The index is then split into regions by the high bits of the slot
+	 * each element hashes to, and each region is filled by its own task without locking, since no other
+	 * task writes to it. The few elements whose probe sequence leaves their region are inserted afterwards
+	 * on the calling thread.
+	 *
+	 * @param elements the non-null elements, added in order.
+	 * @param hashFunction the hashing function for the table; it must be safe to call from multiple threads.
+	 * @param pool the pool to run the build on.
+	 * @param <E> the type of elements in the table.
+	 * @return a table holding every element.
+	 */
+	public static <E> Hashtable<E> build(E[] elements, Function<E, Integer> hashFunction, ForkJoinPool pool) {
+		Hashtable<E> table = new Hashtable<>(hashFunction, Math.max(1, elements.length));
+
+		table.load(elements, false, pool);
+
+		return table;
 	}
 
 	/**
-	 * Handles hashing collisions for a table by quadratically probing the table. This can loop forever
-	 * if the table is already full.
+	 * Fills this empty table, sized for at least the given elements, in parallel. Elements are inserted
+	 * at their position in the array, so positions of skipped duplicates are left as holes.
 	 *
-	 * @param o the object to hash.
-	 * @param table the hash table.
-	 * @param originalIndex the index that the object was to be hashed to.
-	 */
-	private static void handleCollision(Object o, Object[] table, int originalIndex) {
-		for (int x = 1; ; x++) {
-			int i = (int) (originalIndex + quadProbe(x)) % table.length;
-			if (table[i] == null) {
-				table[i] = o;
-				break;
+	 * @param elements the non-null elements.
+	 * @param unique true to skip elements equal to an earlier element.
+	 * @param pool the pool to run the tasks on.
+	 */
+	final void load(E[] elements, boolean unique, ForkJoinPool pool) {
+		int n = elements.length;
+		Object[] entries = this.entries;
+		int[] hashes = this.hashes;
+		int[] index = this.index;
+		Function<Object, Integer> hashFunction = this.hashFunction;
+
+		run(pool, () -> IntStream.range(0, n).parallel().forEach(i -> {
+			E element = elements[i];
+
+			if (element == null) {
+				throw new NullPointerException();
+			}
+
+			hashes[i] = spread(hashFunction.apply(element));
+			entries[i] = element;
+		}));
+
+		int mask = index.length - 1;
+		int regions = Math.max(1, Math.min(Integer.highestOneBit(pool.getParallelism()) * 8, index.length / MIN_REGION_SLOTS));
+		int shift = Integer.numberOfTrailingZeros(index.length) - Integer.numberOfTrailingZeros(regions);
+
+		// counting sort of the positions by region; stable, so each region sees its elements in order
+		int[] start = new int[regions + 1];
+		int[] order = new int[n];
+
+		for (int i = 0; i < n; i++) {
+			start[((hashes[i] & mask) >>> shift) + 1]++;
+		}
+
+		for (int r = 0; r < regions; r++) {
+			start[r + 1] += start[r];
+		}
+
+		int[] next = java.util.Arrays.copyOf(start, regions);
+
+		for (int i = 0; i < n; i++) {
+			order[next[(hashes[i] & mask) >>> shift]++] = i;
+		}
+
+		// each region moves the elements it could not place to the front of its slice of the order
+		int[] deferred = new int[regions];
+		int[] skipped = new int[regions];
+
+		run(pool, () -> IntStream.range(0, regions).parallel().forEach(r -> {
+			int lo = r << shift;
+			int hi = lo + (1 << shift);
+			int d = start[r];
+
+			for (int k = start[r]; k < start[r + 1]; k++) {
+				int e = order[k];
+				int hash = hashes[e];
+
+				for (int i = hash & mask, x = 1; ; i = (i + x++) & mask) {
+					if (i < lo || i >= hi) {
+						order[d++] = e;
+						break;
+					}
+
+					int o = index[i];
+
+					if (o == EMPTY) {
+						index[i] = e;
+						break;
+					} else if (unique && hashes[o] == hash && entries[o].equals(entries[e])) {
+						entries[e] = null;
+						skipped[r]++;
+						break;
+					}
+				}
+			}
+
+			deferred[r] = d - start[r];
+		}));
+
+		int count = n;
+
+		for (int r = 0; r < regions; r++) {
+			count -= skipped[r];
+
+			for (int k = start[r]; k < start[r] + deferred[r]; k++) {
+				int e = order[k];
+
+				if (unique && slotOf(index, (E) entries[e], hashes[e]) != -1) {
+					entries[e] = null;
+					count--;
+				} else {
+					index[insertionSlot(index, hashes[e])] = e;
+				}
 			}
 		}
+
+		this.used = n;
+		this.count = count;
 	}
 
-	private static int quadProbe(int i) {
-		return (int) (.5 * i + .5 * i * i);
+	/**
+	 * Runs a task on a pool and waits for it. Parallel streams started by the task run on the same pool.
+	 *
+	 * @param pool the pool.
+	 * @param task the task.
+	 */
+	static void run(ForkJoinPool pool, Runnable task) {
+		pool.submit(task).join();
+	}
+
+	/**
+	 * Spreads the higher bits of a hash into the lower bits, since the index only uses the lower bits.
+	 *
+	 * @param hash the hash returned by the hashing function.
+	 * @return the spread hash.
+	 */
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Finds the first index slot that can accept a new entry, probing triangularly (1, 3, 6, 10, ...
+	 * slots past the home slot). Because the index length is a power of 2, this visits every slot.
+	 *
+	 * @param index the index to probe.
+	 * @param hash the spread hash of the new entry.
+	 * @return an {@link #EMPTY} or {@link #DELETED} slot.
+	 */
+	private static int insertionSlot(int[] index, int hash) {
+		int mask = index.length - 1;
+
+		for (int i = hash & mask, x = 1; ; i = (i + x++) & mask) {
+			if (index[i] < 0) {
+				return i;
+			}
+		}
 	}
 
 	/**
-	 * Resizes the table and rehashes all non-null references in the previous table into the new table.
-	 * The table will be double the previous size. Should only be called when {@link #count} equals
-	 * {@link #table table.length}
+	 * Resizes the table to double its capacity, compacting all elements into a new entries array and
+	 * rebuilding the index. Should only be called when {@link #used} equals {@link #entries entries.length}.
 	 */
 	private void resizeTable() {
-		Object[] newTable = new Object[this.table.length * 2];
-		for (Object o : this.table) {
-			if (o == null) {
-				continue;
+		if (!this.incremental) {
+			rebuild(this.entries.length * 2);
+			return;
+		}
+
+		finishMigration();
+
+		// entry positions are kept as-is so that the old index stays valid while it is migrated
+		this.entries = java.util.Arrays.copyOf(this.entries, this.entries.length * 2);
+		this.hashes = java.util.Arrays.copyOf(this.hashes, this.hashes.length * 2);
+		this.oldIndex = this.index;
+		this.index = newIndex(this.entries.length);
+		this.tombstones = 0;
+		this.migrated = 0;
+	}
+
+	/**
+	 * Migrates up to {@link #MIGRATION_BATCH} slots of the {@link #oldIndex old index} into the current
+	 * index, if an incremental resize is in progress.
+	 */
+	private void migrate() {
+		if (this.oldIndex == null) {
+			return;
+		}
+
+		int end = Math.min(this.migrated + MIGRATION_BATCH, this.oldIndex.length);
+
+		for (int i = this.migrated; i < end; i++) {
+			int e = this.oldIndex[i];
+
+			if (e >= 0) {
+				int slot = insertionSlot(this.index, this.hashes[e]);
+
+				if (this.index[slot] == DELETED) {
+					this.tombstones--;
+				}
+
+				this.index[slot] = e;
+				this.oldIndex[i] = DELETED;
 			}
+		}
+
+		this.migrated = end;
 
-			hash(o, newTable, this.hashFunction);
+		if (end == this.oldIndex.length) {
+			this.oldIndex = null;
 		}
-		this.table = newTable;
 	}
-	
+
 	/**
-	 * Resizes the size of the hash table array and rehashes all elements into the new bigger table.
+	 * Migrates every remaining slot of the {@link #oldIndex old index}, if an incremental resize is in
+	 * progress.
+	 */
+	private void finishMigration() {
+		while (this.oldIndex != null) {
+			migrate();
+		}
+	}
+
+	/**
+	 * Enables or disables incremental resizing. Disabling it finishes any resize in progress.
+	 *
+	 * @param incremental true to migrate the index incrementally when the table grows.
+	 */
+	public final void setIncrementalResize(boolean incremental) {
+		this.incremental = incremental;
+
+		if (!incremental) {
+			finishMigration();
+		}
+	}
+
+	/**
+	 * @return true if this table migrates its index incrementally when it grows.
+	 */
+	public final boolean isIncrementalResize() {
+		return this.incremental;
+	}
+
+	/**
+	 * Compacts all elements into a new entries array of the same capacity, dropping the holes left by
+	 * removals, and rebuilds the index.
 	 */
 	private void rehash() {
-		Object[] newTable = new Object[this.table.length];
-		for (Object o : this.table) {
-			if (o == null) {
-				continue;
+		rebuild(this.entries.length);
+	}
+
+	/**
+	 * Compacts all elements into a new entries array and rebuilds the index for it from the cached hashes.
+	 *
+	 * @param capacity the length of the new entries array; at least {@link #count}.
+	 */
+	private void rebuild(int capacity) {
+		Object[] newEntries = new Object[capacity];
+		int[] newHashes = new int[capacity];
+		int n = 0;
+
+		for (int i = 0; i < this.used; i++) {
+			if (this.entries[i] != null) {
+				newHashes[n] = this.hashes[i];
+				newEntries[n++] = this.entries[i];
 			}
-			hash(o, newTable, this.hashFunction);
 		}
-		this.table = newTable;
+
+		this.entries = newEntries;
+		this.hashes = newHashes;
+		this.used = n;
+		this.index = newIndex(capacity);
+		this.tombstones = 0;
+		this.oldIndex = null;
+
+		for (int i = 0; i < n; i++) {
+			this.index[insertionSlot(this.index, newHashes[i])] = i;
+		}
 	}
 
 	/**
@@ -189,7 +555,21 @@ public class Hashtable<E> {
 	}
 
 	/**
-	 * Gets the index of an element in the hash table.
+	 * Gets the element in this table that is equal to a given element. This is useful when elements are
+	 * looked up by only part of their state, such as a key.
+	 *
+	 * @param element the element to look for.
+	 * @return the equal element stored in this table; null if there is none.
+	 */
+	public final E get(E element) {
+		int e = indexOf(element);
+
+		return e == -1 ? null : (E) this.entries[e];
+	}
+
+	/**
+	 * Gets the index of an element in the hash table, which is its position in insertion order
+	 * (counting elements that have since been removed).
 	 *
 	 * @param element the element to look for.
 	 * @return -1 if the element was not found; otherwise a non-negative index
@@ -199,37 +579,110 @@ public class Hashtable<E> {
 			return -1;
 		}
 
-		Set<Integer> checked = new LinkedHashSet<>();
-		int hash = this.hashFunction.apply(element);
-		int index = Math.abs(hash) % this.table.length;
+		migrate();
 
-		for (int x = 0; checked.size() < this.table.length; x++) {
-			int i = (index + quadProbe(x)) % this.table.length;
-			checked.add(i);
+		if (this.stats != null) {
+			this.stats.probes = 0;
+		}
 
-			if (this.table[i] != null && this.table[i].equals(element)) {
-				return i;
+		int hash = spread(this.hashFunction.apply(element));
+		int slot = slotOf(this.index, element, hash);
+		int e = -1;
+
+		if (slot != -1) {
+			e = this.index[slot];
+		} else if (this.oldIndex != null && (slot = slotOf(this.oldIndex, element, hash)) != -1) {
+			e = this.oldIndex[slot];
+		}
+
+		if (this.stats != null) {
+			this.stats.record(e != -1);
+		}
+
+		return e;
+	}
+
+	/**
+	 * Gets the slot of an index that refers to an element. Probing stops at an {@link #EMPTY} slot, or
+	 * after visiting every slot once.
+	 *
+	 * @param index the index to probe.
+	 * @param element the element to look for.
+	 * @param hash the spread hash of the element.
+	 * @return -1 if the element was not found; otherwise the element's slot in the index
+	 */
+	private int slotOf(int[] index, E element, int hash) {
+		int mask = index.length - 1;
+		int x = 1;
+
+		for (int i = hash & mask; x <= index.length; i = (i + x++) & mask) {
+			int e = index[i];
+
+			if (e == EMPTY || e != DELETED && this.hashes[e] == hash && this.entries[e].equals(element)) {
+				if (this.stats != null) {
+					this.stats.probes += x;
+				}
+
+				return e == EMPTY ? -1 : i;
 			}
 		}
 
+		if (this.stats != null) {
+			this.stats.probes += index.length;
+		}
+
 		return -1;
 	}
 
 	/**
-	 * Removes an element from the hashtable if it exists. Table is rehashed to account for
-	 * hash collisions.
+	 * Removes an element from the hashtable if it exists. The element's index slot is marked as
+	 * deleted so that probing continues past it.
 	 *
 	 * @param element the element to remove.
 	 * @return true if the element was removed
 	 */
 	public final boolean remove(E element) {
-		int index = indexOf(element);
-		if (index == -1) {
+		if (element == null) {
 			return false;
 		}
 
-		this.table[index] = null;
+		migrate();
+
+		if (this.stats != null) {
+			this.stats.probes = 0;
+		}
+
+		int hash = spread(this.hashFunction.apply(element));
+		int[] index = this.index;
+		int slot = slotOf(index, element, hash);
+
+		if (slot == -1 && this.oldIndex != null) {
+			index = this.oldIndex;
+			slot = slotOf(index, element, hash);
+		}
+
+		if (this.stats != null) {
+			this.stats.record(slot != -1);
+		}
+
+		if (slot == -1) {
+			return false;
+		}
+
+		int e = index[slot];
+		index[slot] = DELETED;
+		this.entries[e] = null;
+
+		if (index == this.index) {
+			this.tombstones++;
+		}
 		this.count--;
+
+		// removing the most recent element leaves no hole behind
+		if (e == this.used - 1) {
+			this.used--;
+		}
+
 		return true;
 	}
 
@@ -247,18 +700,31 @@ public class Hashtable<E> {
 	 * @return a clone of this hash table.
 	 */
 	@Override
-	public final Hashtable<E> clone() {
-		Hashtable<E> ht = new Hashtable<>(1);
-		ht.table = this.table.clone();
-		return ht;
+	public Hashtable<E> clone() {
+		try {
+			Hashtable<E> ht = (Hashtable<E>) super.clone();
+			ht.entries = this.entries.clone();
+			ht.hashes = this.hashes.clone();
+			ht.index = this.index.clone();
+			if (this.oldIndex != null) {
+				ht.oldIndex = this.oldIndex.clone();
+			}
+			if (this.stats != null) {
+				ht.stats = new StatsCounters();
+			}
+			return ht;
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
 	}
 
 	/**
-	 * Iterates over each non-null element in the hash table, applying a consumer operation on each.
+	 * Iterates over each element in the hash table in insertion order, applying a consumer operation on each.
 	 * @param action the consumer operation.
 	 */
 	public final void forEach(Consumer<E> action) {
-		for (Object o : this.table) {
+		for (int i = 0; i < this.used; i++) {
+			Object o = this.entries[i];
 			if (o == null) {
 				continue;
 			}
@@ -267,11 +733,217 @@ public class Hashtable<E> {
 		}
 	}
 
+	/**
+	 * Applies a consumer operation on each element in the hash table in parallel on the common
+	 * {@link ForkJoinPool}.
+	 *
+	 * @param action the consumer operation; it must be safe to call from multiple threads.
+	 * @see #parallelForEach(Consumer, ForkJoinPool)
+	 */
+	public final void parallelForEach(Consumer<E> action) {
+		parallelForEach(action, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Applies a consumer operation on each element in the hash table in parallel. The entries array is
+	 * split into ranges that are visited by separate tasks, in no particular order. The table must not be
+	 * modified until this returns.
+	 *
+	 * @param action the consumer operation; it must be safe to call from multiple threads.
+	 * @param pool the pool to run the tasks on.
+	 */
+	public final void parallelForEach(Consumer<E> action, ForkJoinPool pool) {
+		Object[] entries = this.entries;
+
+		run(pool, () -> IntStream.range(0, this.used).parallel().forEach(i -> {
+			Object o = entries[i];
+
+			if (o != null) {
+				action.accept((E) o);
+			}
+		}));
+	}
+
+	/**
+	 * @return an array of the elements in the hash table, in insertion order.
+	 */
 	public final E[] data() {
-		E[] data = (E[]) new Object[this.table.length];
+		E[] data = (E[]) new Object[this.count];
 
-		System.arraycopy(this.table, 0, data, 0, data.length);
+		if (this.count == this.used) {
+			System.arraycopy(this.entries, 0, data, 0, this.count);
+		} else {
+			int n = 0;
+			for (int i = 0; i < this.used; i++) {
+				if (this.entries[i] != null) {
+					data[n++] = (E) this.entries[i];
+				}
+			}
+		}
 
 		return data;
 	}
+
+	/**
+	 * Enables or disables collecting lookup and resize statistics. Enabling resets the counters;
+	 * disabling discards them.
+	 *
+	 * @param enabled true to collect statistics.
+	 */
+	public final void setStatsEnabled(boolean enabled) {
+		this.stats = enabled ? new StatsCounters() : null;
+	}
+
+	/**
+	 * @return true if this table collects lookup and resize statistics.
+	 */
+	public final boolean isStatsEnabled() {
+		return this.stats != null;
+	}
+
+	/**
+	 * Takes a snapshot of this table's statistics. Lookup and resize counters are zero unless
+	 * {@link #setStatsEnabled(boolean) stats are enabled}.
+	 *
+	 * @return a snapshot of this table's statistics.
+	 */
+	public final HashtableStats stats() {
+		StatsCounters c = this.stats != null ? this.stats : new StatsCounters();
+
+		return new HashtableStats(this.count, this.index.length, this.tombstones, c.hits, c.hitProbes, c.maxHitProbe,
+				c.misses, c.missProbes, c.maxMissProbe, c.resizes, c.resizeNanos, c.histogram.clone());
+	}
+
+	/**
+	 * Enables statistics and registers an MBean exposing them with the platform MBean server. Every
+	 * attribute read through JMX takes a fresh {@link #stats() snapshot}.
+	 *
+	 * @param name the object name to register the MBean under, such as
+	 *             <code>pv3199.util:type=Hashtable,name=sessions</code>.
+	 * @return the registered object name.
+	 * @throws JMException if the name is malformed or already registered
+	 */
+	public final ObjectName registerStatsMBean(String name) throws JMException {
+		if (this.stats == null) {
+			setStatsEnabled(true);
+		}
+
+		ObjectName objectName = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new StatsMBean(this), objectName);
+		return objectName;
+	}
+
+	/**
+	 * Running lookup and resize counters of a table.
+	 */
+	private static final class StatsCounters {
+		/**
+		 * Slots probed by the lookup in progress, possibly across both indexes.
+		 */
+		int probes;
+		long hits;
+		long hitProbes;
+		int maxHitProbe;
+		long misses;
+		long missProbes;
+		int maxMissProbe;
+		long resizes;
+		long resizeNanos;
+		final long[] histogram = new long[HashtableStats.HISTOGRAM_BUCKETS];
+
+		/**
+		 * Records the lookup in progress.
+		 *
+		 * @param hit true if the lookup found its element.
+		 */
+		void record(boolean hit) {
+			if (hit) {
+				this.hits++;
+				this.hitProbes += this.probes;
+				this.maxHitProbe = Math.max(this.maxHitProbe, this.probes);
+			} else {
+				this.misses++;
+				this.missProbes += this.probes;
+				this.maxMissProbe = Math.max(this.maxMissProbe, this.probes);
+			}
+
+			this.histogram[HashtableStats.bucketOf(this.probes)]++;
+		}
+	}
+
+	/**
+	 * MBean exposing live statistics of a table.
+	 */
+	private static final class StatsMBean implements HashtableStatsMXBean {
+		private final Hashtable<?> table;
+
+		StatsMBean(Hashtable<?> table) {
+			this.table = table;
+		}
+
+		@Override
+		public int getSize() {
+			return this.table.stats().getSize();
+		}
+
+		@Override
+		public int getIndexCapacity() {
+			return this.table.stats().getIndexCapacity();
+		}
+
+		@Override
+		public double getLoadFactor() {
+			return this.table.stats().getLoadFactor();
+		}
+
+		@Override
+		public int getTombstones() {
+			return this.table.stats().getTombstones();
+		}
+
+		@Override
+		public long getHits() {
+			return this.table.stats().getHits();
+		}
+
+		@Override
+		public long getMisses() {
+			return this.table.stats().getMisses();
+		}
+
+		@Override
+		public double getAverageHitProbe() {
+			return this.table.stats().getAverageHitProbe();
+		}
+
+		@Override
+		public int getMaxHitProbe() {
+			return this.table.stats().getMaxHitProbe();
+		}
+
+		@Override
+		public double getAverageMissProbe() {
+			return this.table.stats().getAverageMissProbe();
+		}
+
+		@Override
+		public int getMaxMissProbe() {
+			return this.table.stats().getMaxMissProbe();
+		}
+
+		@Override
+		public long getResizeCount() {
+			return this.table.stats().getResizeCount();
+		}
+
+		@Override
+		public long getResizeTimeNanos() {
+			return this.table.stats().getResizeTimeNanos();
+		}
+
+		@Override
+		public long[] getProbeHistogram() {
+			return this.table.stats().getProbeHistogram();
+		}
+	}
 }
@@ -0,0 +1,139 @@
+package pv3199.util;
+
+/**
+ * An immutable snapshot of the statistics of a {@link Hashtable}, taken with {@link Hashtable#stats()}.
+ * Structural statistics (size, capacity, load factor and tombstones) are always available; lookup and
+ * resize counters are only collected while {@link Hashtable#setStatsEnabled(boolean) stats are enabled}
+ * and are zero otherwise.
+ * <p>
+ * A well-behaved hashing function keeps the average probe lengths close to 1. Long probes at a moderate
+ * load factor indicate that the hashing function clusters its values.
+ */
+public final class HashtableStats implements HashtableStatsMXBean {
+	/**
+	 * The number of buckets in the probe-length histogram.
+	 */
+	final static int HISTOGRAM_BUCKETS = 32;
+
+	private final int size;
+	private final int indexCapacity;
+	private final int tombstones;
+	private final long hits;
+	private final long hitProbes;
+	private final int maxHitProbe;
+	private final long misses;
+	private final long missProbes;
+	private final int maxMissProbe;
+	private final long resizeCount;
+	private final long resizeTimeNanos;
+	private final long[] probeHistogram;
+
+	HashtableStats(int size, int indexCapacity, int tombstones, long hits, long hitProbes, int maxHitProbe,
+			long misses, long missProbes, int maxMissProbe, long resizeCount, long resizeTimeNanos, long[] probeHistogram) {
+		this.size = size;
+		this.indexCapacity = indexCapacity;
+		this.tombstones = tombstones;
+		this.hits = hits;
+		this.hitProbes = hitProbes;
+		this.maxHitProbe = maxHitProbe;
+		this.misses = misses;
+		this.missProbes = missProbes;
+		this.maxMissProbe = maxMissProbe;
+		this.resizeCount = resizeCount;
+		this.resizeTimeNanos = resizeTimeNanos;
+		this.probeHistogram = probeHistogram;
+	}
+
+	/**
+	 * Gets the histogram bucket of a probe length. Bucket <code>i</code> counts lookups that probed
+	 * between 2<sup>i</sup> and 2<sup>i + 1</sup> - 1 slots.
+	 *
+	 * @param probes the number of slots probed; positive.
+	 * @return the histogram bucket.
+	 */
+	static int bucketOf(int probes) {
+		return 31 - Integer.numberOfLeadingZeros(probes);
+	}
+
+	@Override
+	public int getSize() {
+		return this.size;
+	}
+
+	@Override
+	public int getIndexCapacity() {
+		return this.indexCapacity;
+	}
+
+	@Override
+	public double getLoadFactor() {
+		return (double) this.size / this.indexCapacity;
+	}
+
+	@Override
+	public int getTombstones() {
+		return this.tombstones;
+	}
+
+	@Override
+	public long getHits() {
+		return this.hits;
+	}
+
+	@Override
+	public long getMisses() {
+		return this.misses;
+	}
+
+	@Override
+	public double getAverageHitProbe() {
+		return this.hits == 0 ? 0 : (double) this.hitProbes / this.hits;
+	}
+
+	@Override
+	public int getMaxHitProbe() {
+		return this.maxHitProbe;
+	}
+
+	@Override
+	public double getAverageMissProbe() {
+		return this.misses == 0 ? 0 : (double) this.missProbes / this.misses;
+	}
+
+	@Override
+	public int getMaxMissProbe() {
+		return this.maxMissProbe;
+	}
+
+	@Override
+	public long getResizeCount() {
+		return this.resizeCount;
+	}
+
+	@Override
+	public long getResizeTimeNanos() {
+		return this.resizeTimeNanos;
+	}
+
+	/**
+	 * Gets the probe-length histogram of every lookup, hit or miss. Bucket <code>i</code> counts lookups
+	 * that probed between 2<sup>i</sup> and 2<sup>i + 1</sup> - 1 slots, so bucket 0 counts lookups that
+	 * probed a single slot.
+	 *
+	 * @return a copy of the histogram.
+	 */
+	@Override
+	public long[] getProbeHistogram() {
+		return this.probeHistogram.clone();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[size=%d],[indexCapacity=%d],[loadFactor=%.3f],[tombstones=%d],"
+						+ "[hits=%d],[avgHitProbe=%.2f],[maxHitProbe=%d],[misses=%d],[avgMissProbe=%.2f],[maxMissProbe=%d],"
+						+ "[resizes=%d],[resizeTime=%.3fms]",
+				this.size, this.indexCapacity, getLoadFactor(), this.tombstones,
+				this.hits, getAverageHitProbe(), this.maxHitProbe, this.misses, getAverageMissProbe(), this.maxMissProbe,
+				this.resizeCount, this.resizeTimeNanos / 1e6);
+	}
+}
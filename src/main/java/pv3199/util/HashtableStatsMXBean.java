@@ -0,0 +1,85 @@
+package pv3199.util;
+
+/**
+ * Management interface exposing the statistics of a {@link Hashtable} over JMX. Every attribute is read
+ * from a fresh {@link HashtableStats} snapshot. Register one with {@link Hashtable#registerStatsMBean(String)}.
+ */
+public interface HashtableStatsMXBean {
+	/**
+	 * @return the number of elements in the table.
+	 * @see HashtableStats#getSize()
+	 */
+	int getSize();
+
+	/**
+	 * @return the number of slots in the table's hash index.
+	 * @see HashtableStats#getIndexCapacity()
+	 */
+	int getIndexCapacity();
+
+	/**
+	 * @return the fraction of index slots referring to an element.
+	 * @see HashtableStats#getLoadFactor()
+	 */
+	double getLoadFactor();
+
+	/**
+	 * @return the number of index slots marked as deleted.
+	 * @see HashtableStats#getTombstones()
+	 */
+	int getTombstones();
+
+	/**
+	 * @return the number of lookups that found their element.
+	 * @see HashtableStats#getHits()
+	 */
+	long getHits();
+
+	/**
+	 * @return the number of lookups that did not find their element.
+	 * @see HashtableStats#getMisses()
+	 */
+	long getMisses();
+
+	/**
+	 * @return the average number of slots probed by a hit.
+	 * @see HashtableStats#getAverageHitProbe()
+	 */
+	double getAverageHitProbe();
+
+	/**
+	 * @return the most slots probed by a single hit.
+	 * @see HashtableStats#getMaxHitProbe()
+	 */
+	int getMaxHitProbe();
+
+	/**
+	 * @return the average number of slots probed by a miss.
+	 * @see HashtableStats#getAverageMissProbe()
+	 */
+	double getAverageMissProbe();
+
+	/**
+	 * @return the most slots probed by a single miss.
+	 * @see HashtableStats#getMaxMissProbe()
+	 */
+	int getMaxMissProbe();
+
+	/**
+	 * @return the number of times the table was resized or compacted.
+	 * @see HashtableStats#getResizeCount()
+	 */
+	long getResizeCount();
+
+	/**
+	 * @return the total time spent resizing or compacting, in nanoseconds.
+	 * @see HashtableStats#getResizeTimeNanos()
+	 */
+	long getResizeTimeNanos();
+
+	/**
+	 * @return the probe-length histogram.
+	 * @see HashtableStats#getProbeHistogram()
+	 */
+	long[] getProbeHistogram();
+}
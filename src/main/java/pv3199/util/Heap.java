@@ -3,11 +3,23 @@ package pv3199.util;
 import java.util.Comparator;
 
 /**
- * An abstract heap data structure.
- * @param <E>
+ * A binary heap. The element that compares lowest by the heap's {@link #comparator} is at the root, so
+ * {@link #peek()} runs in <code>O(1)</code> while {@link #add(Object)} and {@link #pop()} sift a single
+ * element up or down the array in <code>O(log n)</code>. See {@link MinHeap} and {@link MaxHeap}, and
+ * {@link PriorityHeap} for other heap engines.
+ *
+ * @param <E> the type of elements in this heap.
  */
-public abstract class Heap<E extends Comparable<E>> extends HeapImpl<E> {
-	protected Comparator<E> comparator = Comparable::compareTo;
+public abstract class Heap<E> extends HeapImpl<E> implements PriorityHeap<E> {
+	/**
+	 * Compares elements by their {@link Comparable natural ordering}.
+	 */
+	private final static Comparator<Object> NATURAL_ORDER = (a, b) -> ((Comparable<Object>) a).compareTo(b);
+
+	/**
+	 * The ordering of this heap; the lowest element is at the root.
+	 */
+	protected Comparator<E> comparator = naturalOrder();
 
 	public Heap() {
 		super();
@@ -29,7 +41,147 @@ public abstract class Heap<E extends Comparable<E>> extends HeapImpl<E> {
 		this.comparator = comparator;
 	}
 
-	public abstract E peek();
+	/**
+	 * Constructs a heap of the elements of an array in <code>O(n)</code>, by sifting down every node
+	 * that has children, from the last one to the root.
+	 *
+	 * @param comparator the ordering of the heap.
+	 * @param elements the non-null elements.
+	 */
+	protected Heap(Comparator<E> comparator, E[] elements) {
+		super(Math.max(1, elements.length));
+
+		if (comparator == null) {
+			throw new NullPointerException();
+		}
+
+		this.comparator = comparator;
+
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] == null) {
+				throw new NullPointerException("nulls not allowed");
+			}
+
+			set(i, elements[i]);
+		}
+
+		for (int i = elements.length / 2 - 1; i >= 0; i--) {
+			siftDown(i, get(i));
+		}
+	}
+
+	/**
+	 * @param <E> the type of elements compared.
+	 * @return a comparator by natural ordering; elements that are not {@link Comparable} cause a
+	 * {@link ClassCastException}.
+	 */
+	static <E> Comparator<E> naturalOrder() {
+		return (Comparator<E>) NATURAL_ORDER;
+	}
+
+	/**
+	 * Adds an element to the heap.
+	 *
+	 * @param e the element to add.
+	 */
+	@Override
+	public void add(E e) {
+		if (e == null) {
+			throw new NullPointerException("nulls not allowed");
+		}
+
+		if (size() == this.data.length) {
+			grow();
+		}
+
+		siftUp(size(), e);
+	}
+
+	/**
+	 * @return the root element of the heap, which compares lowest; null if the heap is empty.
+	 */
+	@Override
+	public E peek() {
+		return size() == 0 ? null : get(0);
+	}
+
+	/**
+	 * Removes the root element of the heap, which compares lowest.
+	 *
+	 * @return the removed element; null if the heap is empty.
+	 */
+	@Override
+	public E pop() {
+		int n = size();
 
-	public abstract E pop();
-}
\ No newline at end of file
+		if (n == 0) {
+			return null;
+		}
+
+		E top = get(0);
+		E e = get(n - 1);
+
+		set(n - 1, null);
+
+		if (n > 1) {
+			siftDown(0, e);
+		}
+
+		return top;
+	}
+
+	/**
+	 * Moves an element up from an index until its parent is not greater than it. The index is either
+	 * empty or holds a copy of another element.
+	 *
+	 * @param i the index to start at.
+	 * @param e the element.
+	 */
+	private void siftUp(int i, E e) {
+		while (i > 0) {
+			int parent = refParent(i);
+			E p = get(parent);
+
+			if (this.comparator.compare(e, p) >= 0) {
+				break;
+			}
+
+			set(i, p);
+			i = parent;
+		}
+
+		set(i, e);
+	}
+
+	/**
+	 * Moves an element down from an index until neither child is less than it. The index holds either the
+	 * element itself or a copy of another element.
+	 *
+	 * @param i the index to start at.
+	 * @param e the element.
+	 */
+	private void siftDown(int i, E e) {
+		int n = size();
+		int half = n >>> 1;
+
+		// only nodes before half have children
+		while (i < half) {
+			int child = refLeft(i);
+			E c = get(child);
+			int right = child + 1;
+
+			if (right < n && this.comparator.compare(get(right), c) < 0) {
+				c = get(child = right);
+			}
+
+			if (this.comparator.compare(e, c) <= 0) {
+				break;
+			}
+
+			set(i, c);
+			i = child;
+		}
+
+		set(i, e);
+	}
+}
@@ -10,17 +10,27 @@ package pv3199.util;
  */
 abstract class HeapImpl<E> {
 	/**
-	 * The default capacity is actually 7. The constructor computes the size as 2 to the power of
-	 * (log base 2 of desired capacity) less 1. In this scenario, the log is 3, the exponential is 8,
-	 * and less 1 is 7.
+	 * The default capacity.
 	 */
-	private final static int DEFAULT_CAPACITY = 8;
+	private final static int DEFAULT_CAPACITY = 7;
 
 	/**
 	 * The array data.
  	 */
 	protected Object[] data;
 
+	/**
+	 * The number of non-null elements in {@link #data}.
+	 */
+	private int count;
+
+	/**
+	 * An index of {@link #data} with no non-null element past it; -1 if there is none. Clearing elements
+	 * does not lower it, {@link #height()} does, so that clearing many elements does not scan the array
+	 * each time.
+	 */
+	private int last = -1;
+
 	/**
 	 * Constructs a HeapImpl with a capacity of 7.
 	 */
@@ -31,43 +41,36 @@ abstract class HeapImpl<E> {
 	/**
 	 * Constructs a HeapImpl that <i>fits</i> the initial capacity. Note that this capacity is NOT guaranteed.
 	 * This is because the size of the array must be <code>2<sup>n</sup> - 1</code> for n as any positive integer.
-	 * In order to achieve this, the log base 2 of the capacity must be taken. 2 is raised to the power of this
-	 * logarithm and then 1 is taken away from it. This results in values starting from 1, 3, 7, 15, 31, etc.
+	 * The capacity is therefore rounded up to the next such size: 1, 3, 7, 15, 31, etc.
 	 *
 	 * @param initialCapacity the <i>desired</i> initial capacity.
-	 * @throws IllegalArgumentException if the capacity is negative.
+	 * @throws IllegalArgumentException if the capacity is not positive.
 	 */
 	protected HeapImpl(int initialCapacity) throws IllegalArgumentException {
 		if (initialCapacity <= 0) {
 			throw new IllegalArgumentException("non-positive capacity");
 		}
 
-		int log2 = (int) (Math.log(initialCapacity) / Math.log(2));
-		int size = (int) Math.pow(2, log2) - 1;
-
-		this.data = new Object[size];
+		this.data = new Object[capacityFor(initialCapacity)];
 	}
 
 	/**
-	 * Gets the size of this heap.
+	 * Gets the smallest array size of the form <code>2<sup>n</sup> - 1</code> that fits a capacity.
 	 *
-	 * @return the size of this heap.
+	 * @param capacity the capacity; positive.
+	 * @return the array size.
 	 */
-	public int size() {
-		return size0(0);
+	static int capacityFor(int capacity) {
+		return capacity >= 1 << 30 ? Integer.MAX_VALUE : (Integer.highestOneBit(capacity) << 1) - 1;
 	}
 
 	/**
-	 * Gets the size of this node.
-	 * @param i the node index.
-	 * @return the size of the node.
+	 * Gets the size of this heap.
+	 *
+	 * @return the size of this heap.
 	 */
-	private int size0(int i) {
-		if (!exists(i)) {
-			return 0;
-		} else {
-			return 1 + size0(refLeft(i)) + size0(refRight(i));
-		}
+	public int size() {
+		return this.count;
 	}
 
 	/**
@@ -84,6 +87,18 @@ abstract class HeapImpl<E> {
 		this.data = newData;
 	}
 
+	/**
+	 * Replaces the underlying array with an empty one, removing every element. This should only be called
+	 * when appropriate and necessary by subclasses.
+	 *
+	 * @param capacity the length of the new array; of the form <code>2<sup>n</sup> - 1</code>.
+	 */
+	protected final void reset(int capacity) {
+		this.data = new Object[capacity];
+		this.count = 0;
+		this.last = -1;
+	}
+
 	/**
 	 * Shrinks the underlying array. This should only be called when appropriate and necessary
 	 * by subclasses. The array can only be shrunk if the heap's height is greater than 1. The
@@ -108,27 +123,18 @@ abstract class HeapImpl<E> {
 	}
 
 	/**
-	 * Gets the height of this heap.
+	 * Gets the height of this heap. Every node's parent exists, so the height is the depth of the
+	 * highest occupied index.
 	 *
 	 * @return the height of the heap.
 	 */
 	public int height() {
-		return height0(0);
-	}
-
-	/**
-	 * Gets the height of this node.
-	 *
-	 * @param i the node index.
-	 * @return the height of the node.
-	 */
-	private int height0(int i) {
-		if (!exists(i)) {
-			return 0;
-		} else {
-			return 1 + Math.max(height0(refLeft(i)), height0(refRight(i)));
+		while (this.last >= 0 && this.data[this.last] == null) {
+			this.last--;
 		}
- 	}
+
+		return this.last < 0 ? 0 : 32 - Integer.numberOfLeadingZeros(this.last + 1);
+	}
 
 	/**
 	 * Gets the element data at the index.
@@ -172,13 +178,28 @@ abstract class HeapImpl<E> {
 	}
 
 	/**
-	 * Sets the index of the array.
+	 * Sets the index of the array. Subclasses must write through this method so that the size and height
+	 * stay up to date.
 	 *
 	 * @param i the index.
-	 * @param e the element data.
+	 * @param e the element data; null to clear the index.
 	 */
 	protected final void set(int i, E e) {
+		Object old = this.data[i];
+
 		this.data[i] = e;
+
+		if (old == null) {
+			if (e != null) {
+				this.count++;
+
+				if (i > this.last) {
+					this.last = i;
+				}
+			}
+		} else if (e == null) {
+			this.count--;
+		}
 	}
 
 	/**
@@ -188,7 +209,7 @@ abstract class HeapImpl<E> {
 	 * @return the parent index of the node.
 	 */
 	protected final int refParent(int i) {
-		return (int) Math.floor((i - 1) / 2d);
+		return (i - 1) >> 1;
 	}
 
 	/**
@@ -0,0 +1,324 @@
+package pv3199.util;
+
+import java.util.Comparator;
+
+/**
+ * A priority queue of integer handles, each with a priority that can be changed while it is queued. Handles
+ * are the integers from 0 up to the capacity of the queue, such as vertex numbers in a graph, so the queue
+ * can keep the heap position of every handle in an <code>int</code> array instead of searching the heap or
+ * hashing elements. This makes {@link #contains(int)} <code>O(1)</code>, and {@link #decreaseKey(int, Object)},
+ * {@link #increaseKey(int, Object)} and {@link #remove(int)} <code>O(log n)</code>.
+ * <p>
+ * The handle whose priority compares lowest is at the root.
+ *
+ * @param <P> the type of priorities.
+ */
+public class IndexedPriorityQueue<P> {
+	/**
+	 * The handles in heap order.
+	 */
+	private final int[] heap;
+
+	/**
+	 * The position of each handle in {@link #heap}; -1 if the handle is not queued.
+	 */
+	private final int[] position;
+
+	/**
+	 * The priority of each handle, by handle.
+	 */
+	private final Object[] priorities;
+
+	/**
+	 * The ordering of priorities.
+	 */
+	private final Comparator<P> comparator;
+
+	/**
+	 * The number of queued handles.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty queue ordered by the natural ordering of the priorities.
+	 *
+	 * @param capacity the number of handles; handles range from 0 to capacity - 1.
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public IndexedPriorityQueue(int capacity) throws IllegalArgumentException {
+		this(capacity, Heap.naturalOrder());
+	}
+
+	/**
+	 * Constructs an empty queue ordered by a comparator.
+	 *
+	 * @param capacity the number of handles; handles range from 0 to capacity - 1.
+	 * @param comparator the ordering of priorities.
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public IndexedPriorityQueue(int capacity, Comparator<P> comparator) throws IllegalArgumentException {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("negative capacity");
+		} else if (comparator == null) {
+			throw new NullPointerException();
+		}
+
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		this.priorities = new Object[capacity];
+		this.comparator = comparator;
+
+		java.util.Arrays.fill(this.position, -1);
+	}
+
+	/**
+	 * Queues a handle.
+	 *
+	 * @param handle the handle.
+	 * @param priority the priority of the handle.
+	 * @throws IllegalArgumentException if the handle is out of range or already queued
+	 */
+	public void add(int handle, P priority) throws IllegalArgumentException {
+		if (contains(handle)) {
+			throw new IllegalArgumentException("handle already queued");
+		} else if (priority == null) {
+			throw new NullPointerException();
+		}
+
+		this.priorities[handle] = priority;
+		siftUp(this.size++, handle);
+	}
+
+	/**
+	 * Checks if a handle is queued.
+	 *
+	 * @param handle the handle.
+	 * @return true if the handle is queued.
+	 * @throws IllegalArgumentException if the handle is out of range
+	 */
+	public final boolean contains(int handle) throws IllegalArgumentException {
+		checkHandle(handle);
+
+		return this.position[handle] != -1;
+	}
+
+	/**
+	 * Gets the priority of a queued handle.
+	 *
+	 * @param handle the handle.
+	 * @return the priority of the handle; null if it is not queued.
+	 * @throws IllegalArgumentException if the handle is out of range
+	 */
+	public final P priorityOf(int handle) throws IllegalArgumentException {
+		return contains(handle) ? (P) this.priorities[handle] : null;
+	}
+
+	/**
+	 * @return the handle with the lowest priority; -1 if the queue is empty.
+	 */
+	public final int peek() {
+		return this.size == 0 ? -1 : this.heap[0];
+	}
+
+	/**
+	 * Removes the handle with the lowest priority.
+	 *
+	 * @return the removed handle; -1 if the queue is empty.
+	 */
+	public int pop() {
+		if (this.size == 0) {
+			return -1;
+		}
+
+		int handle = this.heap[0];
+
+		removeAt(0);
+
+		return handle;
+	}
+
+	/**
+	 * Lowers the priority of a queued handle.
+	 *
+	 * @param handle the handle.
+	 * @param priority the new priority; not greater than the current one.
+	 * @throws IllegalArgumentException if the handle is out of range or not queued, or the priority is greater
+	 */
+	public void decreaseKey(int handle, P priority) throws IllegalArgumentException {
+		if (this.comparator.compare(priority, checkQueued(handle)) > 0) {
+			throw new IllegalArgumentException("priority is greater than the current one");
+		}
+
+		this.priorities[handle] = priority;
+		siftUp(this.position[handle], handle);
+	}
+
+	/**
+	 * Raises the priority of a queued handle.
+	 *
+	 * @param handle the handle.
+	 * @param priority the new priority; not less than the current one.
+	 * @throws IllegalArgumentException if the handle is out of range or not queued, or the priority is less
+	 */
+	public void increaseKey(int handle, P priority) throws IllegalArgumentException {
+		if (this.comparator.compare(priority, checkQueued(handle)) < 0) {
+			throw new IllegalArgumentException("priority is less than the current one");
+		}
+
+		this.priorities[handle] = priority;
+		siftDown(this.position[handle], handle);
+	}
+
+	/**
+	 * Removes a handle from the queue.
+	 *
+	 * @param handle the handle.
+	 * @return true if the handle was queued.
+	 * @throws IllegalArgumentException if the handle is out of range
+	 */
+	public boolean remove(int handle) throws IllegalArgumentException {
+		if (!contains(handle)) {
+			return false;
+		}
+
+		removeAt(this.position[handle]);
+
+		return true;
+	}
+
+	/**
+	 * Removes every handle from the queue.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.position[this.heap[i]] = -1;
+			this.priorities[this.heap[i]] = null;
+		}
+
+		this.size = 0;
+	}
+
+	/**
+	 * @return the number of queued handles.
+	 */
+	public final int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the number of handles; handles range from 0 to capacity - 1.
+	 */
+	public final int capacity() {
+		return this.heap.length;
+	}
+
+	/**
+	 * @param handle a handle.
+	 * @throws IllegalArgumentException if the handle is out of range
+	 */
+	private void checkHandle(int handle) throws IllegalArgumentException {
+		if (handle < 0 || handle >= this.heap.length) {
+			throw new IllegalArgumentException("handle out of range: " + handle);
+		}
+	}
+
+	/**
+	 * @param handle a handle.
+	 * @return the priority of the handle.
+	 * @throws IllegalArgumentException if the handle is out of range or not queued
+	 */
+	private P checkQueued(int handle) throws IllegalArgumentException {
+		if (!contains(handle)) {
+			throw new IllegalArgumentException("handle not queued: " + handle);
+		}
+
+		return (P) this.priorities[handle];
+	}
+
+	/**
+	 * Removes the handle at a heap position, filling the position with the last handle.
+	 *
+	 * @param i the position.
+	 */
+	private void removeAt(int i) {
+		int handle = this.heap[i];
+		int last = this.heap[--this.size];
+
+		this.position[handle] = -1;
+		this.priorities[handle] = null;
+
+		if (i == this.size) {
+			return;
+		}
+
+		// the last handle may belong either above or below the position
+		siftDown(i, last);
+
+		if (this.heap[i] == last) {
+			siftUp(i, last);
+		}
+	}
+
+	/**
+	 * @param a a handle.
+	 * @param b another handle.
+	 * @return true if the priority of a is less than that of b.
+	 */
+	private boolean less(int a, int b) {
+		return this.comparator.compare((P) this.priorities[a], (P) this.priorities[b]) < 0;
+	}
+
+	/**
+	 * Moves a handle up from a position until its parent's priority is not greater.
+	 *
+	 * @param i the position to start at.
+	 * @param handle the handle.
+	 */
+	private void siftUp(int i, int handle) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int p = this.heap[parent];
+
+			if (!less(handle, p)) {
+				break;
+			}
+
+			this.heap[i] = p;
+			this.position[p] = i;
+			i = parent;
+		}
+
+		this.heap[i] = handle;
+		this.position[handle] = i;
+	}
+
+	/**
+	 * Moves a handle down from a position until neither child's priority is less.
+	 *
+	 * @param i the position to start at.
+	 * @param handle the handle.
+	 */
+	private void siftDown(int i, int handle) {
+		int half = this.size >>> 1;
+
+		while (i < half) {
+			int child = 2 * i + 1;
+			int c = this.heap[child];
+
+			if (child + 1 < this.size && less(this.heap[child + 1], c)) {
+				c = this.heap[++child];
+			}
+
+			if (!less(c, handle)) {
+				break;
+			}
+
+			this.heap[i] = c;
+			this.position[c] = i;
+			i = child;
+		}
+
+		this.heap[i] = handle;
+		this.position[handle] = i;
+	}
+}
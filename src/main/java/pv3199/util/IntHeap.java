@@ -0,0 +1,163 @@
+package pv3199.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of <code>int</code> values stored directly in an <code>int</code> array, without
+ * boxing. The lowest value is at the root.
+ */
+public class IntHeap {
+	/**
+	 * The default capacity.
+	 */
+	private final static int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The values in heap order.
+	 */
+	private int[] data;
+
+	/**
+	 * The number of values.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty heap.
+	 */
+	public IntHeap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty heap.
+	 *
+	 * @param initialCapacity the initial capacity.
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public IntHeap(int initialCapacity) throws IllegalArgumentException {
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException("non-positive capacity");
+		}
+
+		this.data = new int[initialCapacity];
+	}
+
+	/**
+	 * Constructs a heap of the values of an array in <code>O(n)</code>.
+	 *
+	 * @param values the values; the array is copied.
+	 */
+	public IntHeap(int[] values) {
+		this.data = java.util.Arrays.copyOf(values, Math.max(1, values.length));
+		this.size = values.length;
+
+		for (int i = this.size / 2 - 1; i >= 0; i--) {
+			siftDown(i, this.data[i]);
+		}
+	}
+
+	/**
+	 * Adds a value to the heap.
+	 *
+	 * @param value the value.
+	 */
+	public void add(int value) {
+		if (this.size == this.data.length) {
+			this.data = java.util.Arrays.copyOf(this.data, this.data.length * 2);
+		}
+
+		int i = this.size++;
+
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int p = this.data[parent];
+
+			if (value >= p) {
+				break;
+			}
+
+			this.data[i] = p;
+			i = parent;
+		}
+
+		this.data[i] = value;
+	}
+
+	/**
+	 * @return the lowest value.
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public int peek() throws NoSuchElementException {
+		if (this.size == 0) {
+			throw new NoSuchElementException();
+		}
+
+		return this.data[0];
+	}
+
+	/**
+	 * Removes the lowest value.
+	 *
+	 * @return the removed value.
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public int pop() throws NoSuchElementException {
+		int top = peek();
+
+		if (--this.size > 0) {
+			siftDown(0, this.data[this.size]);
+		}
+
+		return top;
+	}
+
+	/**
+	 * Removes every value.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * @return the number of values.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return true if the heap is empty.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Moves a value down from a position until neither child is less than it.
+	 *
+	 * @param i the position.
+	 * @param value the value.
+	 */
+	private void siftDown(int i, int value) {
+		int half = this.size >>> 1;
+
+		while (i < half) {
+			int child = 2 * i + 1;
+			int c = this.data[child];
+
+			if (child + 1 < this.size && this.data[child + 1] < c) {
+				c = this.data[++child];
+			}
+
+			if (value <= c) {
+				break;
+			}
+
+			this.data[i] = c;
+			i = child;
+		}
+
+		this.data[i] = value;
+	}
+}
@@ -0,0 +1,109 @@
+package pv3199.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of <code>int</code> values laid out for searching. The values of a sorted array are
+ * stored breadth-first, as in {@link BinaryArray} but without its gaps (the Eytzinger layout), so that the
+ * first levels of every search share a few cache lines, the next slot to visit is computed rather than
+ * branched to, and the slots a few levels further down are loaded ahead of time. Searches of large arrays
+ * run up to twice as fast as a binary search of the sorted array.
+ * <p>
+ * The layout is built in <code>O(n)</code> and holds no more than the values. Duplicates are kept.
+ *
+ * @see LongSearchArray
+ * @see DoubleSearchArray
+ */
+public final class IntSearchArray {
+	/**
+	 * The values in slots 1 to n; slot 0 is unused.
+	 */
+	private final int[] data;
+
+	/**
+	 * Constructs a search array of the values of a sorted array.
+	 *
+	 * @param sorted the values in ascending order; the array is not modified.
+	 * @throws IllegalArgumentException if the values are not sorted, or there are 2<sup>30</sup> or more
+	 */
+	public IntSearchArray(int[] sorted) throws IllegalArgumentException {
+		Eytzinger.checkLength(sorted.length);
+
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i - 1] > sorted[i]) {
+				throw new IllegalArgumentException("values not sorted");
+			}
+		}
+
+		int n = sorted.length;
+		this.data = new int[n + 1];
+
+		for (int k = 1; k <= n; k++) {
+			this.data[k] = sorted[Eytzinger.sortedIndex(k, n)];
+		}
+	}
+
+	/**
+	 * @param key a value.
+	 * @return true if the value is in the array.
+	 */
+	public boolean contains(int key) {
+		int k = search(key);
+
+		return k != 0 && this.data[k] == key;
+	}
+
+	/**
+	 * @param key a value.
+	 * @return the least value not less than the key.
+	 * @throws NoSuchElementException if every value is less than the key
+	 */
+	public int lowerBound(int key) throws NoSuchElementException {
+		int k = search(key);
+
+		if (k == 0) {
+			throw new NoSuchElementException();
+		}
+
+		return this.data[k];
+	}
+
+	/**
+	 * @param key a value.
+	 * @return the number of values less than the key, which is also the index the key would have if it
+	 * was inserted into the sorted array before any equal values.
+	 */
+	public int rank(int key) {
+		int k = search(key);
+
+		return k == 0 ? size() : Eytzinger.sortedIndex(k, size());
+	}
+
+	/**
+	 * @return the number of values.
+	 */
+	public int size() {
+		return this.data.length - 1;
+	}
+
+	/**
+	 * @param key a value.
+	 * @return the slot of the least value not less than the key; 0 if there is none.
+	 */
+	private int search(int key) {
+		int[] data = this.data;
+		int n = data.length - 1;
+		int k = 1;
+		int touched = 0;
+
+		while (k <= n) {
+			// load the cache line of the slot 4 levels down, which holds most of its 16 descendants there,
+			// so that it is on its way while the levels in between are searched
+			touched += data[Math.min(k, n >>> 4) << 4];
+			k = 2 * k + (data[k] < key ? 1 : 0);
+		}
+
+		// k is never negative; the test only keeps the loads from being optimized away
+		return k < 0 && touched == key ? -1 : Eytzinger.lastLeftTurn(k);
+	}
+}
@@ -0,0 +1,225 @@
+package pv3199.util;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * An {@link AvlTree} of closed intervals, ordered by their starts and then their ends, whose nodes also keep
+ * the greatest end in their subtree. A search for the intervals that overlap a range, or contain a point,
+ * skips every subtree whose greatest end is before the range, and stops at the first interval starting
+ * after it, so it finds <code>k</code> intervals in <code>O((k + 1) log n)</code> time instead of scanning
+ * them all. The same interval can be added more than once.
+ *
+ * @param <E> the type of the bounds of the intervals
+ */
+public class IntervalTree<E extends Comparable<E>> extends AvlTree<IntervalTree.Interval<E>> {
+	/**
+	 * Constructs an empty IntervalTree.
+	 */
+	public IntervalTree() {
+		super();
+	}
+
+	/**
+	 * Adds an interval.
+	 *
+	 * @param start the lower bound, inclusive.
+	 * @param end the upper bound, inclusive.
+	 * @throws IllegalArgumentException if the end is less than the start
+	 */
+	public void add(E start, E end) throws IllegalArgumentException {
+		add(new Interval<>(start, end));
+	}
+
+	/**
+	 * Removes an interval, once, if it is in the tree.
+	 *
+	 * @param start the lower bound.
+	 * @param end the upper bound.
+	 * @return true if the interval was removed; false otherwise.
+	 * @throws IllegalArgumentException if the end is less than the start
+	 */
+	public boolean remove(E start, E end) throws IllegalArgumentException {
+		return remove(new Interval<>(start, end));
+	}
+
+	@Override
+	protected BinaryNode newNode(BinaryNode parent, Interval<E> value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+
+		return new IntervalNode(parent, value);
+	}
+
+	/**
+	 * Performs an action on every interval that contains a point, in order.
+	 *
+	 * @param point the point.
+	 * @param action the action.
+	 */
+	public void forEachContaining(E point, Consumer<? super Interval<E>> action) {
+		forEachOverlapping(point, point, action);
+	}
+
+	/**
+	 * Performs an action on every interval that shares at least one point with a range, in order.
+	 *
+	 * @param lo the lower bound of the range, inclusive.
+	 * @param hi the upper bound of the range, inclusive.
+	 * @param action the action.
+	 * @throws IllegalArgumentException if the upper bound is less than the lower
+	 */
+	public void forEachOverlapping(E lo, E hi, Consumer<? super Interval<E>> action) throws IllegalArgumentException {
+		if (lo == null || hi == null || action == null) {
+			throw new NullPointerException();
+		} else if (hi.compareTo(lo) < 0) {
+			throw new IllegalArgumentException("upper bound less than lower bound");
+		}
+
+		ArrayDeque<Object> stack = new ArrayDeque<>();
+		IntervalNode node = (IntervalNode) root;
+
+		while (true) {
+			// a subtree whose intervals all end before the range holds none of them
+			for (; node != null && node.maxEnd.compareTo(lo) >= 0; node = (IntervalNode) node.left) {
+				stack.push(node);
+			}
+
+			if (stack.isEmpty()) {
+				return;
+			}
+
+			node = (IntervalNode) stack.pop();
+
+			// every interval from here on starts after the range
+			if (node.value.start.compareTo(hi) > 0) {
+				return;
+			}
+
+			if (node.value.end.compareTo(lo) >= 0) {
+				action.accept(node.value);
+			}
+
+			node = (IntervalNode) node.right;
+		}
+	}
+
+	/**
+	 * A closed interval of comparable bounds, ordered by its start and then its end.
+	 *
+	 * @param <E> the type of the bounds
+	 */
+	public final static class Interval<E extends Comparable<E>> implements Comparable<Interval<E>>, java.io.Serializable {
+		/**
+		 * The lower bound, inclusive.
+		 */
+		private final E start;
+
+		/**
+		 * The upper bound, inclusive.
+		 */
+		private final E end;
+
+		/**
+		 * Constructs an Interval.
+		 *
+		 * @param start the lower bound, inclusive.
+		 * @param end the upper bound, inclusive.
+		 * @throws IllegalArgumentException if the end is less than the start
+		 */
+		public Interval(E start, E end) throws IllegalArgumentException {
+			if (start == null || end == null) {
+				throw new NullPointerException();
+			} else if (end.compareTo(start) < 0) {
+				throw new IllegalArgumentException("end less than start");
+			}
+
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * @return the lower bound, inclusive.
+		 */
+		public E start() {
+			return this.start;
+		}
+
+		/**
+		 * @return the upper bound, inclusive.
+		 */
+		public E end() {
+			return this.end;
+		}
+
+		/**
+		 * @param point a point.
+		 * @return true if the point is in this interval.
+		 */
+		public boolean contains(E point) {
+			return this.start.compareTo(point) <= 0 && point.compareTo(this.end) <= 0;
+		}
+
+		@Override
+		public int compareTo(Interval<E> other) {
+			int compare = this.start.compareTo(other.start);
+
+			return compare != 0 ? compare : this.end.compareTo(other.end);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Interval)) {
+				return false;
+			}
+
+			Interval<?> other = (Interval<?>) obj;
+
+			return this.start.equals(other.start) && this.end.equals(other.end);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.start.hashCode() + this.end.hashCode();
+		}
+
+		/**
+		 * @return the bounds, as in <code>[1, 5]</code>.
+		 */
+		@Override
+		public String toString() {
+			return "[" + this.start + ", " + this.end + "]";
+		}
+	}
+
+	/**
+	 * A node that knows the greatest end of the intervals in its subtree.
+	 */
+	private final class IntervalNode extends AvlNode {
+		/**
+		 * The greatest end in the subtree of this node.
+		 */
+		private E maxEnd;
+
+		IntervalNode(BinaryNode parent, Interval<E> value) {
+			super(parent, value);
+			this.maxEnd = value.end;
+		}
+
+		@Override
+		protected void aggregate() {
+			E maxEnd = this.value.end;
+
+			if (this.left != null && ((IntervalNode) this.left).maxEnd.compareTo(maxEnd) > 0) {
+				maxEnd = ((IntervalNode) this.left).maxEnd;
+			}
+
+			if (this.right != null && ((IntervalNode) this.right).maxEnd.compareTo(maxEnd) > 0) {
+				maxEnd = ((IntervalNode) this.right).maxEnd;
+			}
+
+			this.maxEnd = maxEnd;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package pv3199.util;
+
+/**
+ * Least-frequently-used eviction in constant time. Entries with equal access counts share a frequency
+ * bucket, and buckets are kept in a list ordered by count, so an access moves its entry to the next
+ * bucket and the victim is the least recent entry of the first bucket.
+ *
+ * @param <K> the type of keys in the cache.
+ */
+final class LfuPolicy<K> extends EvictionPolicy<K> {
+	/**
+	 * The entries accessed a given number of times, most recently used first.
+	 */
+	private final static class Bucket extends EntryList {
+		final long frequency;
+		Bucket prevBucket;
+		Bucket nextBucket;
+
+		Bucket(long frequency) {
+			this.frequency = frequency;
+		}
+	}
+
+	/**
+	 * The bucket with the lowest frequency.
+	 */
+	private Bucket first;
+
+	/**
+	 * The most recently inserted entry, which is never the victim so that new entries get a chance to be
+	 * accessed again.
+	 */
+	private Cache.Entry<K, ?> newest;
+
+	@Override
+	protected void onInsert(Cache.Entry<K, ?> e) {
+		Bucket b = this.first;
+
+		if (b == null || b.frequency != 1) {
+			b = new Bucket(1);
+			link(null, b);
+		}
+
+		b.addFirst(e);
+		e.policyData = b;
+		this.newest = e;
+	}
+
+	@Override
+	protected void onAccess(Cache.Entry<K, ?> e) {
+		Bucket b = (Bucket) e.policyData;
+		Bucket next = b.nextBucket;
+
+		if (next == null || next.frequency != b.frequency + 1) {
+			next = new Bucket(b.frequency + 1);
+			link(b, next);
+		}
+
+		b.remove(e);
+		next.addFirst(e);
+		e.policyData = next;
+
+		if (b.size == 0) {
+			unlink(b);
+		}
+	}
+
+	@Override
+	protected void onRemove(Cache.Entry<K, ?> e) {
+		Bucket b = (Bucket) e.policyData;
+
+		b.remove(e);
+		e.policyData = null;
+
+		if (this.newest == e) {
+			this.newest = null;
+		}
+
+		if (b.size == 0) {
+			unlink(b);
+		}
+	}
+
+	@Override
+	protected Cache.Entry<K, ?> victim(int maximumSize) {
+		Cache.Entry<?, ?> victim = this.first.tail;
+
+		if (victim == this.newest) {
+			victim = victim.prev != null ? victim.prev : this.first.nextBucket.tail;
+		}
+
+		return (Cache.Entry<K, ?>) victim;
+	}
+
+	@Override
+	protected void clear() {
+		this.first = null;
+		this.newest = null;
+	}
+
+	/**
+	 * Links a bucket after another.
+	 *
+	 * @param prev the bucket to link after; null to link at the front.
+	 * @param b the bucket to link.
+	 */
+	private void link(Bucket prev, Bucket b) {
+		b.prevBucket = prev;
+		b.nextBucket = prev == null ? this.first : prev.nextBucket;
+
+		if (b.nextBucket != null) {
+			b.nextBucket.prevBucket = b;
+		}
+
+		if (prev == null) {
+			this.first = b;
+		} else {
+			prev.nextBucket = b;
+		}
+	}
+
+	/**
+	 * Unlinks an empty bucket.
+	 *
+	 * @param b the bucket to unlink.
+	 */
+	private void unlink(Bucket b) {
+		if (b.prevBucket != null) {
+			b.prevBucket.nextBucket = b.nextBucket;
+		} else {
+			this.first = b.nextBucket;
+		}
+
+		if (b.nextBucket != null) {
+			b.nextBucket.prevBucket = b.prevBucket;
+		}
+	}
+}
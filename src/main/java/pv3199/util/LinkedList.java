@@ -1,5 +1,7 @@
 package pv3199.util;
 
+import java.util.function.Consumer;
+
 /**
  * Elements are stored in a double linked list structure. Provides methods
  * defined in the {@link DataStructure} interface.
@@ -137,6 +139,18 @@ public class LinkedList<E> implements DataStructure<E> {
 		return true;
 	}
 	
+	/**
+	 * Performs an action on each element in order, following the links rather than looking up each index.
+	 *
+	 * @param action the consumer operation to apply to each element.
+	 */
+	@Override
+	public void forEach(Consumer<E> action) {
+		for (Link dl = head; dl != null; dl = dl.next) {
+			action.accept(dl.value);
+		}
+	}
+	
 	@Override
 	public int indexOf(E element) {
 		Link dl = head;
@@ -0,0 +1,242 @@
+package pv3199.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of <code>(long id, double score)</code> pairs stored in parallel <code>long</code> and
+ * <code>double</code> arrays, without an object per pair. Pairs are ordered by score, and pairs with equal
+ * scores by descending id, so that of two tied pairs the one with the lower id ranks higher. The lowest pair
+ * is at the root.
+ */
+public class LongDoubleHeap {
+	/**
+	 * The default capacity.
+	 */
+	private final static int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The ids in heap order.
+	 */
+	private long[] ids;
+
+	/**
+	 * The scores in heap order, parallel to {@link #ids}.
+	 */
+	private double[] scores;
+
+	/**
+	 * The number of pairs.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty heap.
+	 */
+	public LongDoubleHeap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty heap.
+	 *
+	 * @param initialCapacity the initial capacity.
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public LongDoubleHeap(int initialCapacity) throws IllegalArgumentException {
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException("non-positive capacity");
+		}
+
+		this.ids = new long[initialCapacity];
+		this.scores = new double[initialCapacity];
+	}
+
+	/**
+	 * Compares two pairs.
+	 *
+	 * @param id the id of the first pair.
+	 * @param score the score of the first pair.
+	 * @param otherId the id of the second pair.
+	 * @param otherScore the score of the second pair.
+	 * @return a negative number, zero or a positive number if the first pair is lower than, equal to or
+	 * greater than the second.
+	 */
+	static int compare(long id, double score, long otherId, double otherScore) {
+		int c = Double.compare(score, otherScore);
+
+		return c != 0 ? c : Long.compare(otherId, id);
+	}
+
+	/**
+	 * Adds a pair to the heap.
+	 *
+	 * @param id the id.
+	 * @param score the score.
+	 * @throws IllegalArgumentException if the score is NaN
+	 */
+	public void add(long id, double score) throws IllegalArgumentException {
+		if (Double.isNaN(score)) {
+			throw new IllegalArgumentException("NaN score");
+		}
+
+		if (this.size == this.ids.length) {
+			this.ids = java.util.Arrays.copyOf(this.ids, this.size * 2);
+			this.scores = java.util.Arrays.copyOf(this.scores, this.size * 2);
+		}
+
+		int i = this.size++;
+
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+
+			if (compare(id, score, this.ids[parent], this.scores[parent]) >= 0) {
+				break;
+			}
+
+			this.ids[i] = this.ids[parent];
+			this.scores[i] = this.scores[parent];
+			i = parent;
+		}
+
+		this.ids[i] = id;
+		this.scores[i] = score;
+	}
+
+	/**
+	 * @return the id of the lowest pair.
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public long peekId() throws NoSuchElementException {
+		checkNotEmpty();
+
+		return this.ids[0];
+	}
+
+	/**
+	 * @return the score of the lowest pair.
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public double peekScore() throws NoSuchElementException {
+		checkNotEmpty();
+
+		return this.scores[0];
+	}
+
+	/**
+	 * Removes the lowest pair. Read its score with {@link #peekScore()} first if it is needed.
+	 *
+	 * @return the id of the removed pair.
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	public long pop() throws NoSuchElementException {
+		long top = peekId();
+
+		if (--this.size > 0) {
+			siftDown(this.ids[this.size], this.scores[this.size]);
+		}
+
+		return top;
+	}
+
+	/**
+	 * Replaces the lowest pair with another in a single sift, which is cheaper than a {@link #pop()}
+	 * followed by an {@link #add(long, double)}.
+	 *
+	 * @param id the id of the new pair.
+	 * @param score the score of the new pair.
+	 * @return the id of the replaced pair.
+	 * @throws NoSuchElementException if the heap is empty
+	 * @throws IllegalArgumentException if the score is NaN
+	 */
+	public long replaceTop(long id, double score) throws NoSuchElementException, IllegalArgumentException {
+		if (Double.isNaN(score)) {
+			throw new IllegalArgumentException("NaN score");
+		}
+
+		long top = peekId();
+
+		siftDown(id, score);
+
+		return top;
+	}
+
+	/**
+	 * Removes every pair.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * @return the number of pairs.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return true if the heap is empty.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Gets the id at a position of the heap's array, for visiting every pair in no particular order.
+	 *
+	 * @param i the position; less than {@link #size()}.
+	 * @return the id at the position.
+	 */
+	long idAt(int i) {
+		return this.ids[i];
+	}
+
+	/**
+	 * Gets the score at a position of the heap's array, for visiting every pair in no particular order.
+	 *
+	 * @param i the position; less than {@link #size()}.
+	 * @return the score at the position.
+	 */
+	double scoreAt(int i) {
+		return this.scores[i];
+	}
+
+	/**
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	private void checkNotEmpty() throws NoSuchElementException {
+		if (this.size == 0) {
+			throw new NoSuchElementException();
+		}
+	}
+
+	/**
+	 * Moves a pair down from the root until neither child is lower than it.
+	 *
+	 * @param id the id of the pair.
+	 * @param score the score of the pair.
+	 */
+	private void siftDown(long id, double score) {
+		int i = 0;
+		int half = this.size >>> 1;
+
+		while (i < half) {
+			int child = 2 * i + 1;
+
+			if (child + 1 < this.size && compare(this.ids[child + 1], this.scores[child + 1], this.ids[child], this.scores[child]) < 0) {
+				child++;
+			}
+
+			if (compare(id, score, this.ids[child], this.scores[child]) <= 0) {
+				break;
+			}
+
+			this.ids[i] = this.ids[child];
+			this.scores[i] = this.scores[child];
+			i = child;
+		}
+
+		this.ids[i] = id;
+		this.scores[i] = score;
+	}
+}
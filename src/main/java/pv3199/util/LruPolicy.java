@@ -0,0 +1,38 @@
+package pv3199.util;
+
+/**
+ * Least-recently-used eviction over an intrusive list of the cache's entries.
+ *
+ * @param <K> the type of keys in the cache.
+ */
+final class LruPolicy<K> extends EvictionPolicy<K> {
+	/**
+	 * Entries, most recently used first.
+	 */
+	private final EntryList list = new EntryList();
+
+	@Override
+	protected void onInsert(Cache.Entry<K, ?> e) {
+		this.list.addFirst(e);
+	}
+
+	@Override
+	protected void onAccess(Cache.Entry<K, ?> e) {
+		this.list.moveToFront(e);
+	}
+
+	@Override
+	protected void onRemove(Cache.Entry<K, ?> e) {
+		this.list.remove(e);
+	}
+
+	@Override
+	protected Cache.Entry<K, ?> victim(int maximumSize) {
+		return (Cache.Entry<K, ?>) this.list.tail;
+	}
+
+	@Override
+	protected void clear() {
+		this.list.clear();
+	}
+}
@@ -0,0 +1,66 @@
+package pv3199.util;
+
+import java.util.Comparator;
+
+/**
+ * A binary heap whose root is its largest element.
+ *
+ * @param <E> the type of elements in this heap.
+ */
+public class MaxHeap<E> extends Heap<E> {
+	/**
+	 * Constructs an empty heap ordered by the elements' natural ordering, largest first.
+	 */
+	public MaxHeap() {
+		super(Heap.<E>naturalOrder().reversed());
+	}
+
+	/**
+	 * Constructs an empty heap ordered by the elements' natural ordering, largest first.
+	 *
+	 * @param initialCapacity the <i>desired</i> initial capacity.
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public MaxHeap(int initialCapacity) throws IllegalArgumentException {
+		super(Heap.<E>naturalOrder().reversed(), initialCapacity);
+	}
+
+	/**
+	 * Constructs an empty heap ordered by a comparator, largest first.
+	 *
+	 * @param comparator the ordering of the heap.
+	 */
+	public MaxHeap(Comparator<E> comparator) {
+		super(comparator.reversed());
+	}
+
+	/**
+	 * Constructs an empty heap ordered by a comparator, largest first.
+	 *
+	 * @param comparator the ordering of the heap.
+	 * @param initialCapacity the <i>desired</i> initial capacity.
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public MaxHeap(Comparator<E> comparator, int initialCapacity) throws IllegalArgumentException {
+		super(comparator.reversed(), initialCapacity);
+	}
+
+	/**
+	 * Constructs a heap of the elements of an array, ordered by their natural ordering, largest first, in <code>O(n)</code>.
+	 *
+	 * @param elements the non-null elements.
+	 */
+	public MaxHeap(E[] elements) {
+		super(Heap.<E>naturalOrder().reversed(), elements);
+	}
+
+	/**
+	 * Constructs a heap of the elements of an array, ordered by a comparator, largest first, in <code>O(n)</code>.
+	 *
+	 * @param comparator the ordering of the heap.
+	 * @param elements the non-null elements.
+	 */
+	public MaxHeap(Comparator<E> comparator, E[] elements) {
+		super(comparator.reversed(), elements);
+	}
+}
@@ -0,0 +1,138 @@
+package pv3199.util;
+
+import java.util.function.Function;
+
+/**
+ * An approximate set that answers whether an element <i>might</i> have been added to it. A filter never
+ * reports an added element as absent, but may report an element that was never added as present with a
+ * probability bounded by its configured false-positive rate. In exchange, filters only keep a few bits per
+ * element in packed <code>long[]</code> bitsets, regardless of the size of the elements themselves.
+ * <p>
+ * Elements are hashed with a hashing function just like a {@link Hashtable}, and the resulting 32-bit hash
+ * is mixed into the 64 bits a filter draws its positions from. Distinct elements with equal hashes are
+ * therefore indistinguishable to a filter.
+ *
+ * @param <E> the type of elements in this filter.
+ */
+public abstract class MembershipFilter<E> implements Cloneable {
+	/**
+	 * Default hashing function, calls the underlying object's {@link Object#hashCode() hashCode()}
+	 * function.
+	 */
+	private final static Function<Object, Integer> DEFAULT_HASH_FUNCTION = Object::hashCode;
+
+	/**
+	 * The hashing function.
+	 */
+	private final Function<Object, Integer> hashFunction;
+
+	/**
+	 * Constructs a filter with the {@link #DEFAULT_HASH_FUNCTION default hashing function}.
+	 */
+	protected MembershipFilter() {
+		this.hashFunction = DEFAULT_HASH_FUNCTION;
+	}
+
+	/**
+	 * Constructs a filter with a given hashing function. Two elements that are considered equal must
+	 * return the same hash.
+	 *
+	 * @param hashFunction the hashing function for this filter.
+	 */
+	protected MembershipFilter(Function<E, Integer> hashFunction) {
+		if (hashFunction == null) {
+			throw new NullPointerException();
+		}
+
+		this.hashFunction = (Function<Object, Integer>) hashFunction;
+	}
+
+	/**
+	 * Validates the sizing parameters shared by all filters.
+	 *
+	 * @param expectedInsertions the number of elements the filter is sized for.
+	 * @param fpp the desired false-positive probability.
+	 * @throws IllegalArgumentException if the insertions are not positive or the probability is not
+	 * strictly between 0 and 1
+	 */
+	static void checkSizing(int expectedInsertions, double fpp) throws IllegalArgumentException {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("expected insertions must be positive");
+		} else if (!(fpp > 0 && fpp < 1)) {
+			throw new IllegalArgumentException("false-positive probability must be between 0 and 1");
+		}
+	}
+
+	/**
+	 * Records an element in this filter.
+	 *
+	 * @param element the non-null element to add.
+	 * @return false if the filter is too full to record the element; true otherwise.
+	 */
+	public abstract boolean add(E element);
+
+	/**
+	 * Checks if an element might have been added to this filter.
+	 *
+	 * @param element the element to check for.
+	 * @return false if the element was definitely never added; true if it probably was.
+	 */
+	public abstract boolean mightContain(E element);
+
+	/**
+	 * Removes every element from this filter.
+	 */
+	public abstract void clear();
+
+	/**
+	 * @return a copy of this filter that shares no state with it.
+	 */
+	@Override
+	public MembershipFilter<E> clone() {
+		try {
+			return (MembershipFilter<E>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError(e);
+		}
+	}
+
+	/**
+	 * Hashes a non-null element into 64 well-mixed bits.
+	 *
+	 * @param element the element.
+	 * @return the element's 64-bit hash.
+	 */
+	protected final long hash(E element) {
+		if (element == null) {
+			throw new NullPointerException();
+		}
+
+		return mix(this.hashFunction.apply(element));
+	}
+
+	/**
+	 * Finalization step of MurmurHash3's 64-bit hash, spreading every input bit across the output.
+	 *
+	 * @param h the value to mix.
+	 * @return the mixed value.
+	 */
+	static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Maps 32 bits onto the range <code>[0, n)</code> with a multiply and shift rather than a division.
+	 *
+	 * @param bits the bits to map.
+	 * @param n the size of the range; less than 2<sup>31</sup>.
+	 * @return a value in <code>[0, n)</code>.
+	 */
+	static int reduce(int bits, int n) {
+		return (int) (((bits & 0xFFFFFFFFL) * n) >>> 32);
+	}
+}
@@ -0,0 +1,66 @@
+package pv3199.util;
+
+import java.util.Comparator;
+
+/**
+ * A binary heap whose root is its smallest element.
+ *
+ * @param <E> the type of elements in this heap.
+ */
+public class MinHeap<E> extends Heap<E> {
+	/**
+	 * Constructs an empty heap ordered by the elements' natural ordering.
+	 */
+	public MinHeap() {
+		super();
+	}
+
+	/**
+	 * Constructs an empty heap ordered by the elements' natural ordering.
+	 *
+	 * @param initialCapacity the <i>desired</i> initial capacity.
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public MinHeap(int initialCapacity) throws IllegalArgumentException {
+		super(initialCapacity);
+	}
+
+	/**
+	 * Constructs an empty heap ordered by a comparator.
+	 *
+	 * @param comparator the ordering of the heap.
+	 */
+	public MinHeap(Comparator<E> comparator) {
+		super(comparator);
+	}
+
+	/**
+	 * Constructs an empty heap ordered by a comparator.
+	 *
+	 * @param comparator the ordering of the heap.
+	 * @param initialCapacity the <i>desired</i> initial capacity.
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public MinHeap(Comparator<E> comparator, int initialCapacity) throws IllegalArgumentException {
+		super(comparator, initialCapacity);
+	}
+
+	/**
+	 * Constructs a heap of the elements of an array, ordered by their natural ordering, in <code>O(n)</code>.
+	 *
+	 * @param elements the non-null elements.
+	 */
+	public MinHeap(E[] elements) {
+		super(naturalOrder(), elements);
+	}
+
+	/**
+	 * Constructs a heap of the elements of an array, ordered by a comparator, in <code>O(n)</code>.
+	 *
+	 * @param comparator the ordering of the heap.
+	 * @param elements the non-null elements.
+	 */
+	public MinHeap(Comparator<E> comparator, E[] elements) {
+		super(comparator, elements);
+	}
+}
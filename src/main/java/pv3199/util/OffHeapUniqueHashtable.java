@@ -0,0 +1,665 @@
+package pv3199.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An off-heap variant of {@link UniqueHashtable} for keys of a fixed byte width, such as 64-bit ids.
+ * Slots are stored outside of the Java heap in chunked {@link ByteBuffer direct buffers}, so a table
+ * holding hundreds of millions of keys is a handful of buffers rather than an object per key. Each slot
+ * is one state byte followed by the key's bytes. Collisions are resolved with linear probing and removals
+ * use backward-shift deletion, so the table never accumulates tombstones.
+ * <p>
+ * A table can be {@link #snapshot(File) snapshotted} to a file and later {@link #open(File) reopened}
+ * by memory-mapping that file, in which case no keys are rehashed. Mapped tables are copy-on-write:
+ * changes made after reopening are not written back to the file until it is snapshotted again.
+ */
+public class OffHeapUniqueHashtable {
+	/**
+	 * Magic number written at the start of every snapshot file.
+	 */
+	private final static int MAGIC = 0x50564854;
+
+	/**
+	 * Snapshot file format version.
+	 */
+	private final static int VERSION = 1;
+
+	/**
+	 * Size of the snapshot file header, in bytes.
+	 */
+	private final static int HEADER_SIZE = 32;
+
+	/**
+	 * Maximum size of a single chunk, in bytes.
+	 */
+	private final static int MAX_CHUNK_BYTES = 1 << 30;
+
+	/**
+	 * Default table capacity.
+	 */
+	private final static long DEFAULT_TABLE_SIZE = 16;
+
+	/**
+	 * State byte of an empty slot.
+	 */
+	private final static byte EMPTY = 0;
+
+	/**
+	 * State byte of an occupied slot.
+	 */
+	private final static byte OCCUPIED = 1;
+
+	/**
+	 * The width of every key, in bytes.
+	 */
+	private final int keyWidth;
+
+	/**
+	 * The width of every slot, in bytes (the state byte plus the key).
+	 */
+	private final int slotWidth;
+
+	/**
+	 * log<sub>2</sub> of the number of slots held by a full chunk.
+	 */
+	private final int chunkShift;
+
+	/**
+	 * The number of keys in this table.
+	 */
+	private long count;
+
+	/**
+	 * The number of slots in this table. Always a power of 2.
+	 */
+	private long capacity;
+
+	/**
+	 * The slot chunks.
+	 */
+	private ByteBuffer[] chunks;
+
+	/**
+	 * Constructs an off-heap table for keys of the given width with a default initial capacity.
+	 *
+	 * @param keyWidth the width of every key, in bytes.
+	 * @throws IllegalArgumentException if the key width is not positive
+	 */
+	public OffHeapUniqueHashtable(int keyWidth) throws IllegalArgumentException {
+		this(keyWidth, DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * Constructs an off-heap table for keys of the given width, presized to hold at least
+	 * <code>initSize</code> keys without resizing.
+	 *
+	 * @param keyWidth the width of every key, in bytes.
+	 * @param initSize the number of keys the table should hold before its first resize.
+	 * @throws IllegalArgumentException if the key width or the initial size is not positive
+	 */
+	public OffHeapUniqueHashtable(int keyWidth, long initSize) throws IllegalArgumentException {
+		this(keyWidth, tableSizeFor(initSize), null);
+
+		this.chunks = allocate(this.capacity);
+	}
+
+	/**
+	 * Constructs an off-heap table without allocating its chunks.
+	 *
+	 * @param keyWidth the width of every key, in bytes.
+	 * @param capacity the number of slots; must be a power of 2.
+	 * @param chunks the slot chunks, may be null.
+	 * @throws IllegalArgumentException if the key width is not positive
+	 */
+	private OffHeapUniqueHashtable(int keyWidth, long capacity, ByteBuffer[] chunks) throws IllegalArgumentException {
+		if (keyWidth <= 0 || keyWidth >= MAX_CHUNK_BYTES) {
+			throw new IllegalArgumentException("key width must be positive");
+		}
+
+		this.keyWidth = keyWidth;
+		this.slotWidth = keyWidth + 1;
+		this.chunkShift = 31 - Integer.numberOfLeadingZeros(MAX_CHUNK_BYTES / this.slotWidth);
+		this.capacity = capacity;
+		this.chunks = chunks;
+	}
+
+	/**
+	 * Computes the number of slots needed to hold a number of keys below the load factor of 3/4.
+	 *
+	 * @param size the number of keys.
+	 * @return a power of 2 number of slots.
+	 * @throws IllegalArgumentException if the size is not positive
+	 */
+	private static long tableSizeFor(long size) throws IllegalArgumentException {
+		if (size <= 0) {
+			throw new IllegalArgumentException("initial table capacity must be positive");
+		}
+
+		long slots = size + size / 3 + 1;
+
+		return Math.max(DEFAULT_TABLE_SIZE, Long.highestOneBit(slots - 1) << 1);
+	}
+
+	/**
+	 * Allocates zeroed direct chunks for a number of slots.
+	 *
+	 * @param capacity the number of slots.
+	 * @return the slot chunks.
+	 */
+	private ByteBuffer[] allocate(long capacity) {
+		long perChunk = 1L << this.chunkShift;
+		int n = (int) ((capacity + perChunk - 1) >>> this.chunkShift);
+		ByteBuffer[] chunks = new ByteBuffer[n];
+
+		for (int i = 0; i < n; i++) {
+			long slots = Math.min(perChunk, capacity - i * perChunk);
+			chunks[i] = ByteBuffer.allocateDirect((int) (slots * this.slotWidth));
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * @return the width of every key in this table, in bytes.
+	 */
+	public final int keyWidth() {
+		return this.keyWidth;
+	}
+
+	/**
+	 * @return the number of keys in this table.
+	 */
+	public final long size() {
+		return this.count;
+	}
+
+	/**
+	 * @return the number of slots in this table.
+	 */
+	public final long capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Adds a key to the table if it is not already present.
+	 *
+	 * @param key the key to add.
+	 * @return true if the key was added; false if it was already present.
+	 * @throws IllegalArgumentException if the key is not {@link #keyWidth()} bytes wide
+	 */
+	public boolean add(byte[] key) throws IllegalArgumentException {
+		checkKey(key);
+
+		long slot = find(key, hash(key));
+		if (slot >= 0) {
+			return false;
+		}
+
+		if (this.count + 1 > this.capacity - (this.capacity >>> 2)) {
+			resizeTable();
+			slot = find(key, hash(key));
+		}
+
+		insert(~slot, key);
+		this.count++;
+		return true;
+	}
+
+	/**
+	 * Adds an 8-byte key to the table if it is not already present. The key is stored big-endian, so
+	 * this is equivalent to adding the key's 8 big-endian bytes.
+	 *
+	 * @param key the key to add.
+	 * @return true if the key was added; false if it was already present.
+	 * @throws IllegalArgumentException if this table's keys are not 8 bytes wide
+	 */
+	public boolean add(long key) throws IllegalArgumentException {
+		checkLongKey();
+
+		long slot = find(key);
+		if (slot >= 0) {
+			return false;
+		}
+
+		if (this.count + 1 > this.capacity - (this.capacity >>> 2)) {
+			resizeTable();
+			slot = find(key);
+		}
+
+		long s = ~slot;
+		ByteBuffer chunk = chunkOf(s);
+		int off = offsetOf(s);
+		chunk.put(off, OCCUPIED);
+		chunk.putLong(off + 1, key);
+		this.count++;
+		return true;
+	}
+
+	/**
+	 * Checks if this table has a key.
+	 *
+	 * @param key the key to look for.
+	 * @return true if the key was found.
+	 * @throws IllegalArgumentException if the key is not {@link #keyWidth()} bytes wide
+	 */
+	public final boolean contains(byte[] key) throws IllegalArgumentException {
+		checkKey(key);
+
+		return find(key, hash(key)) >= 0;
+	}
+
+	/**
+	 * Checks if this table has an 8-byte key.
+	 *
+	 * @param key the key to look for.
+	 * @return true if the key was found.
+	 * @throws IllegalArgumentException if this table's keys are not 8 bytes wide
+	 */
+	public final boolean contains(long key) throws IllegalArgumentException {
+		checkLongKey();
+
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Removes a key from the table if it exists.
+	 *
+	 * @param key the key to remove.
+	 * @return true if the key was removed.
+	 * @throws IllegalArgumentException if the key is not {@link #keyWidth()} bytes wide
+	 */
+	public final boolean remove(byte[] key) throws IllegalArgumentException {
+		checkKey(key);
+
+		long slot = find(key, hash(key));
+		if (slot < 0) {
+			return false;
+		}
+
+		delete(slot);
+		return true;
+	}
+
+	/**
+	 * Removes an 8-byte key from the table if it exists.
+	 *
+	 * @param key the key to remove.
+	 * @return true if the key was removed.
+	 * @throws IllegalArgumentException if this table's keys are not 8 bytes wide
+	 */
+	public final boolean remove(long key) throws IllegalArgumentException {
+		checkLongKey();
+
+		long slot = find(key);
+		if (slot < 0) {
+			return false;
+		}
+
+		delete(slot);
+		return true;
+	}
+
+	/**
+	 * Writes this table to a file. The file can later be reopened with {@link #open(File)} without
+	 * rehashing any keys. An existing file is replaced atomically: the table is written to a temporary file
+	 * in the same directory, which is then moved over it, so a failed write leaves the old file intact and
+	 * a table reopened from the file can be snapshotted back to it.
+	 *
+	 * @param file the file to write to.
+	 * @throws IOException if the file could not be written
+	 */
+	public void snapshot(File file) throws IOException {
+		Path target = file.getAbsoluteFile().toPath();
+		Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+		try {
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, this.keyWidth);
+				header.putLong(16, this.capacity).putLong(24, this.count);
+				writeFully(channel, header);
+
+				// chunks are only ever accessed absolutely, so a duplicate spans the whole chunk
+				for (ByteBuffer chunk : this.chunks) {
+					writeFully(channel, chunk.duplicate());
+				}
+
+				channel.force(true);
+			}
+
+			// chunks mapped from the old file keep its pages alive after it is replaced
+			Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+	}
+
+	/**
+	 * Reopens a table previously written with {@link #snapshot(File)} by memory-mapping its slots. Keys
+	 * are not rehashed, so reopening is proportional to the number of chunks rather than the number of
+	 * keys. The mapping is private: changes to the returned table are not written back to the file.
+	 *
+	 * @param file the snapshot file.
+	 * @return the reopened table.
+	 * @throws IOException if the file could not be read or is not a snapshot
+	 */
+	public static OffHeapUniqueHashtable open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("truncated snapshot header");
+				}
+			}
+
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				throw new IOException("not a hashtable snapshot: " + file);
+			}
+
+			int keyWidth = header.getInt(8);
+			long capacity = header.getLong(16);
+			long count = header.getLong(24);
+
+			if (keyWidth <= 0 || capacity <= 0 || Long.bitCount(capacity) != 1 || count < 0 || count > capacity) {
+				throw new IOException("corrupt snapshot header: " + file);
+			}
+
+			OffHeapUniqueHashtable ht = new OffHeapUniqueHashtable(keyWidth, capacity, null);
+			if (channel.size() != HEADER_SIZE + capacity * ht.slotWidth) {
+				throw new IOException("truncated snapshot: " + file);
+			}
+
+			long perChunk = 1L << ht.chunkShift;
+			int n = (int) ((capacity + perChunk - 1) >>> ht.chunkShift);
+			ht.chunks = new ByteBuffer[n];
+
+			for (int i = 0; i < n; i++) {
+				long slots = Math.min(perChunk, capacity - i * perChunk);
+				long position = HEADER_SIZE + i * perChunk * ht.slotWidth;
+				ht.chunks[i] = channel.map(FileChannel.MapMode.PRIVATE, position, slots * ht.slotWidth);
+			}
+
+			ht.count = count;
+			return ht;
+		}
+	}
+
+	/**
+	 * Writes a buffer to a channel until it has no bytes remaining.
+	 *
+	 * @param channel the channel.
+	 * @param buffer the buffer.
+	 * @throws IOException if the write fails
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Doubles the table and reinserts every key into the new chunks.
+	 */
+	private void resizeTable() {
+		ByteBuffer[] oldChunks = this.chunks;
+		long oldCapacity = this.capacity;
+
+		this.capacity = oldCapacity << 1;
+		this.chunks = allocate(this.capacity);
+
+		byte[] key = new byte[this.keyWidth];
+		long mask = this.capacity - 1;
+		int perChunkMask = (1 << this.chunkShift) - 1;
+
+		for (long s = 0; s < oldCapacity; s++) {
+			ByteBuffer chunk = oldChunks[(int) (s >>> this.chunkShift)];
+			int off = (int) (s & perChunkMask) * this.slotWidth;
+
+			if (chunk.get(off) == EMPTY) {
+				continue;
+			}
+
+			long hash = this.keyWidth == 8 ? mix(chunk.getLong(off + 1)) : hash(chunk, off + 1);
+			long i = hash & mask;
+			while (chunkOf(i).get(offsetOf(i)) != EMPTY) {
+				i = (i + 1) & mask;
+			}
+
+			for (int b = 0; b < this.keyWidth; b++) {
+				key[b] = chunk.get(off + 1 + b);
+			}
+			insert(i, key);
+		}
+	}
+
+	/**
+	 * Looks for a key in the table.
+	 *
+	 * @param key the key.
+	 * @param hash the key's hash.
+	 * @return the key's slot if found; otherwise the one's complement of the first empty slot probed
+	 */
+	private long find(byte[] key, long hash) {
+		long mask = this.capacity - 1;
+
+		for (long i = hash & mask; ; i = (i + 1) & mask) {
+			ByteBuffer chunk = chunkOf(i);
+			int off = offsetOf(i);
+
+			if (chunk.get(off) == EMPTY) {
+				return ~i;
+			} else if (keyEquals(chunk, off + 1, key)) {
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * Looks for an 8-byte key in the table.
+	 *
+	 * @param key the key.
+	 * @return the key's slot if found; otherwise the one's complement of the first empty slot probed
+	 */
+	private long find(long key) {
+		long mask = this.capacity - 1;
+
+		for (long i = mix(key) & mask; ; i = (i + 1) & mask) {
+			ByteBuffer chunk = chunkOf(i);
+			int off = offsetOf(i);
+
+			if (chunk.get(off) == EMPTY) {
+				return ~i;
+			} else if (chunk.getLong(off + 1) == key) {
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * Writes a key into an empty slot.
+	 *
+	 * @param slot the slot.
+	 * @param key the key.
+	 */
+	private void insert(long slot, byte[] key) {
+		ByteBuffer chunk = chunkOf(slot);
+		int off = offsetOf(slot);
+
+		chunk.put(off, OCCUPIED);
+		for (int b = 0; b < key.length; b++) {
+			chunk.put(off + 1 + b, key[b]);
+		}
+	}
+
+	/**
+	 * Empties an occupied slot and shifts back any keys whose probe sequence passed through it, so
+	 * lookups never stop early at the freed slot.
+	 *
+	 * @param slot the slot to empty.
+	 */
+	private void delete(long slot) {
+		long mask = this.capacity - 1;
+		long hole = slot;
+
+		for (long i = (slot + 1) & mask; ; i = (i + 1) & mask) {
+			ByteBuffer chunk = chunkOf(i);
+			int off = offsetOf(i);
+
+			if (chunk.get(off) == EMPTY) {
+				break;
+			}
+
+			long home = (this.keyWidth == 8 ? mix(chunk.getLong(off + 1)) : hash(chunk, off + 1)) & mask;
+
+			// the key at i may fill the hole only if its home slot is not cyclically within (hole, i]
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				copySlot(i, hole);
+				hole = i;
+			}
+		}
+
+		chunkOf(hole).put(offsetOf(hole), EMPTY);
+		this.count--;
+	}
+
+	/**
+	 * Copies the contents of one slot into another.
+	 *
+	 * @param from the source slot.
+	 * @param to the destination slot.
+	 */
+	private void copySlot(long from, long to) {
+		ByteBuffer src = chunkOf(from);
+		ByteBuffer dst = chunkOf(to);
+		int srcOff = offsetOf(from);
+		int dstOff = offsetOf(to);
+
+		for (int b = 0; b < this.slotWidth; b++) {
+			dst.put(dstOff + b, src.get(srcOff + b));
+		}
+	}
+
+	/**
+	 * Gets the chunk holding a slot.
+	 *
+	 * @param slot the slot.
+	 * @return the chunk holding the slot.
+	 */
+	private ByteBuffer chunkOf(long slot) {
+		return this.chunks[(int) (slot >>> this.chunkShift)];
+	}
+
+	/**
+	 * Gets the byte offset of a slot within its chunk.
+	 *
+	 * @param slot the slot.
+	 * @return the byte offset of the slot within its chunk.
+	 */
+	private int offsetOf(long slot) {
+		return (int) (slot & ((1 << this.chunkShift) - 1)) * this.slotWidth;
+	}
+
+	/**
+	 * Compares a stored key against a key.
+	 *
+	 * @param chunk the chunk holding the stored key.
+	 * @param off the byte offset of the stored key.
+	 * @param key the key to compare against.
+	 * @return true if the keys are equal.
+	 */
+	private static boolean keyEquals(ByteBuffer chunk, int off, byte[] key) {
+		for (int b = 0; b < key.length; b++) {
+			if (chunk.get(off + b) != key[b]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Hashes a key by mixing in its bytes 8 at a time, big-endian, with the last word zero-padded.
+	 * For 8-byte keys this equals {@link #mix(long) mix} of the key read as a long.
+	 *
+	 * @param key the key.
+	 * @return the key's hash.
+	 */
+	private static long hash(byte[] key) {
+		long h = 0;
+
+		for (int i = 0; i < key.length; i += 8) {
+			long w = 0;
+			for (int b = 0; b < 8; b++) {
+				w = (w << 8) | (i + b < key.length ? key[i + b] & 0xFF : 0);
+			}
+			h = mix(h ^ w);
+		}
+
+		return h;
+	}
+
+	/**
+	 * Hashes a stored key the same way as {@link #hash(byte[])}.
+	 *
+	 * @param chunk the chunk holding the stored key.
+	 * @param off the byte offset of the stored key.
+	 * @return the key's hash.
+	 */
+	private long hash(ByteBuffer chunk, int off) {
+		long h = 0;
+
+		for (int i = 0; i < this.keyWidth; i += 8) {
+			long w = 0;
+			for (int b = 0; b < 8; b++) {
+				w = (w << 8) | (i + b < this.keyWidth ? chunk.get(off + i + b) & 0xFF : 0);
+			}
+			h = mix(h ^ w);
+		}
+
+		return h;
+	}
+
+	/**
+	 * Finalization step of MurmurHash3's 64-bit hash, spreading every input bit across the output.
+	 *
+	 * @param h the value to mix.
+	 * @return the mixed value.
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * @param key the key to check.
+	 * @throws IllegalArgumentException if the key is not {@link #keyWidth()} bytes wide
+	 */
+	private void checkKey(byte[] key) throws IllegalArgumentException {
+		if (key == null) {
+			throw new NullPointerException();
+		} else if (key.length != this.keyWidth) {
+			throw new IllegalArgumentException("key must be " + this.keyWidth + " bytes wide");
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if this table's keys are not 8 bytes wide
+	 */
+	private void checkLongKey() throws IllegalArgumentException {
+		if (this.keyWidth != 8) {
+			throw new IllegalArgumentException("long keys require a key width of 8");
+		}
+	}
+}
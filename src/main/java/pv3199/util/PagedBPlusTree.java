@@ -0,0 +1,1505 @@
+package pv3199.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * A B+tree of <code>long</code> values stored in fixed-size pages of a file, for ordered indexes that
+ * outgrow memory and must survive restarts. The file is memory-mapped in segments as they are first used,
+ * so {@link #open(File) opening} a tree reads two header pages and nothing else, however large the file.
+ * Decoded pages are kept in a small cache with clock eviction. Duplicate values are kept.
+ * <p>
+ * Updates are copy-on-write: a page reachable from the last committed root is never written over. The
+ * first change to such a page in a transaction copies it to a free page, and the copy's parent is changed
+ * in turn, up to the root. {@link #commit()} forces the new pages to disk and then writes the new root to
+ * whichever of the two header pages holds the older one, with a checksum and a generation number. Opening
+ * a file picks the newest valid header, so a crash at any point leaves the tree as of the last commit, and
+ * {@link #rollback()} returns to it. Pages left unreachable by a commit are reused after it.
+ * <p>
+ * Because a copied leaf gets a new page number, leaves are not linked to each other as in
+ * {@link BPlusTree}; scans instead keep the path from the root. The metrics of {@link Tree} count pages.
+ * Trees are not thread safe, and a file must not be open in two trees that both change it.
+ */
+public class PagedBPlusTree extends Tree<Long> implements Iterable<Long>, Closeable {
+	/**
+	 * The page size of trees created without one, in bytes.
+	 */
+	public final static int DEFAULT_PAGE_SIZE = 4096;
+
+	/**
+	 * The number of pages cached by trees opened without a cache size.
+	 */
+	public final static int DEFAULT_CACHE_PAGES = 1024;
+
+	/**
+	 * Magic number at the start of both header pages.
+	 */
+	private final static int MAGIC = 0x50564250;
+
+	/**
+	 * File format version.
+	 */
+	private final static int VERSION = 1;
+
+	/**
+	 * The size of a mapped segment of the file, in bytes.
+	 */
+	private final static int SEGMENT_BYTES = 1 << 24;
+
+	/**
+	 * The most levels a tree can have; far more than a file can hold.
+	 */
+	private final static int MAX_LEVELS = 32;
+
+	/**
+	 * Page number of no page.
+	 */
+	private final static long NONE = -1;
+
+	/**
+	 * Page types, in the first byte of each page.
+	 */
+	private final static byte LEAF = 1;
+	private final static byte INTERNAL = 2;
+	private final static byte FREE_LIST = 3;
+
+	/**
+	 * Offsets of the fields of a header page.
+	 */
+	private final static int HEADER_MAGIC = 0;
+	private final static int HEADER_VERSION = 4;
+	private final static int HEADER_PAGE_SIZE = 8;
+	private final static int HEADER_HEIGHT = 12;
+	private final static int HEADER_GENERATION = 16;
+	private final static int HEADER_ROOT = 24;
+	private final static int HEADER_PAGES = 32;
+	private final static int HEADER_SIZE = 40;
+	private final static int HEADER_FREE_LIST = 48;
+	private final static int HEADER_LEVELS = 56;
+	private final static int HEADER_CHECKSUM = HEADER_LEVELS + 4 * MAX_LEVELS;
+
+	/**
+	 * The offset of the first entry of a page; the entry count is at offset 4 and a free list page links to
+	 * the next at offset 8.
+	 */
+	private final static int PAGE_ENTRIES = 16;
+
+	private final FileChannel channel;
+	private final int pageSize;
+
+	/**
+	 * The most values of a leaf and separators of an internal page.
+	 */
+	private final int leafCapacity;
+	private final int internalCapacity;
+
+	/**
+	 * The mapped segments of the file, mapped when first used, and those written since the last commit.
+	 */
+	private MappedByteBuffer[] segments = new MappedByteBuffer[16];
+	private final BitSet written = new BitSet();
+
+	/**
+	 * The current state of the tree. {@link #committed} holds it as of the last commit.
+	 */
+	private State state;
+	private State committed;
+
+	/**
+	 * Pages free to use now, and pages left unreachable by this transaction, which are still reachable from
+	 * the committed root and become free with the next commit.
+	 */
+	private LongList free;
+	private final LongList released = new LongList();
+
+	/**
+	 * The pages holding the committed free list; free after the next commit.
+	 */
+	private LongList freeListPages = new LongList();
+
+	/**
+	 * The pages allocated in this transaction, which may be written in place.
+	 */
+	private final HashSet<Long> fresh = new HashSet<>();
+
+	private final PageCache cache;
+	private boolean closed;
+
+	/**
+	 * Constructs a tree on an open file.
+	 *
+	 * @param channel the file.
+	 * @param pageSize the page size.
+	 * @param cachePages the number of pages to cache.
+	 */
+	private PagedBPlusTree(FileChannel channel, int pageSize, int cachePages) {
+		this.channel = channel;
+		this.pageSize = pageSize;
+		this.leafCapacity = (pageSize - PAGE_ENTRIES) / 8;
+		this.internalCapacity = (pageSize - PAGE_ENTRIES - 8) / 16;
+		this.cache = new PageCache(cachePages);
+	}
+
+	/**
+	 * Creates an empty tree in a file with the default page size and cache size. An existing file is
+	 * overwritten.
+	 *
+	 * @param file the file.
+	 * @return the tree.
+	 * @throws IOException if the file could not be written
+	 */
+	public static PagedBPlusTree create(File file) throws IOException {
+		return create(file, DEFAULT_PAGE_SIZE, DEFAULT_CACHE_PAGES);
+	}
+
+	/**
+	 * Creates an empty tree in a file. An existing file is overwritten.
+	 *
+	 * @param file the file.
+	 * @param pageSize the page size in bytes; a power of 2 from 256 to 65536.
+	 * @param cachePages the number of pages to cache.
+	 * @return the tree.
+	 * @throws IllegalArgumentException if the page size or cache size is invalid
+	 * @throws IOException if the file could not be written
+	 */
+	public static PagedBPlusTree create(File file, int pageSize, int cachePages) throws IllegalArgumentException, IOException {
+		if (pageSize < 256 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+			throw new IllegalArgumentException("page size not a power of 2 from 256 to 65536");
+		} else if (cachePages <= 0) {
+			throw new IllegalArgumentException("cache size must be positive");
+		}
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		PagedBPlusTree tree = new PagedBPlusTree(channel, pageSize, cachePages);
+
+		// pages 0 and 1 are the headers
+		tree.state = new State();
+		tree.state.pages = 2;
+		tree.committed = tree.state.copy();
+		tree.free = new LongList();
+
+		// write both headers, so that neither holds garbage
+		tree.commit();
+		tree.commit();
+
+		return tree;
+	}
+
+	/**
+	 * Opens a tree with the default cache size.
+	 *
+	 * @param file the file of the tree.
+	 * @return the tree, as of its last commit.
+	 * @throws IOException if the file could not be read or holds no valid tree
+	 */
+	public static PagedBPlusTree open(File file) throws IOException {
+		return open(file, DEFAULT_CACHE_PAGES);
+	}
+
+	/**
+	 * Opens a tree. Only the headers and the list of free pages are read.
+	 *
+	 * @param file the file of the tree.
+	 * @param cachePages the number of pages to cache.
+	 * @return the tree, as of its last commit.
+	 * @throws IllegalArgumentException if the cache size is not positive
+	 * @throws IOException if the file could not be read or holds no valid tree
+	 */
+	public static PagedBPlusTree open(File file, int cachePages) throws IllegalArgumentException, IOException {
+		if (cachePages <= 0) {
+			throw new IllegalArgumentException("cache size must be positive");
+		}
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			// the first header is at offset 0 and the second one page further, so the page size of a damaged
+			// first header is found by trying every page size; a header only counts if its checksum holds
+			State newest = null;
+			int pageSize = 0;
+
+			for (int offset = 0; offset <= 65536; offset = offset == 0 ? 256 : 2 * offset) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_CHECKSUM + 8);
+
+				while (header.hasRemaining() && channel.read(header, offset + header.position()) > 0) {
+				}
+
+				State read = readHeader(header);
+				int pageSizeOf = header.getInt(HEADER_PAGE_SIZE);
+
+				if (read != null && (offset == 0 || offset == pageSizeOf)
+						&& (newest == null || read.generation > newest.generation)) {
+					newest = read;
+					pageSize = pageSizeOf;
+				}
+			}
+
+			if (newest == null) {
+				throw new IOException("not a paged tree: " + file);
+			}
+
+			PagedBPlusTree tree = new PagedBPlusTree(channel, pageSize, cachePages);
+
+			tree.state = newest;
+			tree.committed = newest.copy();
+			tree.free = tree.readFreeList(newest.freeList, tree.freeListPages);
+
+			return tree;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads a header.
+	 *
+	 * @param header the bytes of the header.
+	 * @return the state it holds; null if it is not a valid header.
+	 */
+	private static State readHeader(ByteBuffer header) {
+		CRC32 crc = new CRC32();
+
+		crc.update(header.array(), 0, HEADER_CHECKSUM);
+
+		int pageSize = header.getInt(HEADER_PAGE_SIZE);
+
+		if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_VERSION) != VERSION
+				|| header.getLong(HEADER_CHECKSUM) != crc.getValue()
+				|| pageSize < 256 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+			return null;
+		}
+
+		State state = new State();
+
+		state.generation = header.getLong(HEADER_GENERATION);
+		state.root = header.getLong(HEADER_ROOT);
+		state.pages = header.getLong(HEADER_PAGES);
+		state.size = header.getLong(HEADER_SIZE);
+		state.freeList = header.getLong(HEADER_FREE_LIST);
+		state.height = header.getInt(HEADER_HEIGHT);
+
+		for (int level = 0; level < MAX_LEVELS; level++) {
+			state.levels[level] = header.getInt(HEADER_LEVELS + 4 * level);
+		}
+
+		return state;
+	}
+
+	/**
+	 * Reads a list of free pages.
+	 *
+	 * @param head the first page of the list.
+	 * @param pages the list to add the pages holding the list to; null if they are not needed.
+	 * @return the free pages.
+	 */
+	private LongList readFreeList(long head, LongList pages) {
+		LongList free = new LongList();
+
+		for (long id = head; id != NONE; ) {
+			MappedByteBuffer segment = segment(id);
+			int offset = offset(id);
+			int count = segment.getInt(offset + 4);
+
+			for (int i = 0; i < count; i++) {
+				free.push(segment.getLong(offset + PAGE_ENTRIES + 8 * i));
+			}
+
+			if (pages != null) {
+				pages.push(id);
+			}
+
+			id = segment.getLong(offset + 8);
+		}
+
+		return free;
+	}
+
+	/**
+	 * Makes every change since the last commit durable. The pages written in this transaction and a new list
+	 * of free pages are forced to disk first, and only then the header pointing at them, so that a crash
+	 * leaves either the old or the new tree.
+	 *
+	 * @throws IOException if the file could not be written
+	 */
+	public void commit() throws IOException {
+		checkOpen();
+
+		LongList free = new LongList();
+		LongList listPages = new LongList();
+
+		try {
+			this.cache.flush();
+
+			// the new free list goes into pages free now, which the committed tree doesn't reach; the pages
+			// released in this transaction and those of the old list are reachable from the old header until
+			// the new one is written, and only become free with it
+			int perPage = (this.pageSize - PAGE_ENTRIES) / 8;
+			int later = this.released.size + this.freeListPages.size;
+
+			free.addAll(this.free);
+
+			while ((long) listPages.size * perPage < free.size + later) {
+				listPages.push(free.size > 0 ? free.pop() : this.state.pages++);
+			}
+
+			free.addAll(this.released);
+			free.addAll(this.freeListPages);
+
+			long next = NONE;
+
+			for (int p = listPages.size - 1; p >= 0; p--) {
+				long id = listPages.get(p);
+				int start = p * perPage;
+				int end = Math.min(free.size, start + perPage);
+				MappedByteBuffer segment = segment(id);
+				int offset = offset(id);
+
+				segment.put(offset, FREE_LIST);
+				segment.putInt(offset + 4, end - start);
+				segment.putLong(offset + 8, next);
+
+				for (int i = start; i < end; i++) {
+					segment.putLong(offset + PAGE_ENTRIES + 8 * (i - start), free.get(i));
+				}
+
+				this.written.set(segmentOf(id));
+				next = id;
+			}
+
+			this.state.freeList = next;
+			force();
+
+			this.state.generation++;
+			writeHeader((int) (this.state.generation & 1));
+			force();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		this.committed = this.state.copy();
+		this.free = free;
+		this.freeListPages = listPages;
+		this.released.clear();
+		this.fresh.clear();
+	}
+
+	/**
+	 * Discards every change since the last commit.
+	 */
+	public void rollback() {
+		checkOpen();
+
+		this.cache.clear();
+		this.state = this.committed.copy();
+		this.free = readFreeList(this.state.freeList, null);
+		this.released.clear();
+		this.fresh.clear();
+	}
+
+	/**
+	 * Commits the changes since the last commit, if there are any, and closes the file.
+	 *
+	 * @throws IOException if the changes could not be committed or the file could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		try {
+			if (!this.fresh.isEmpty() || this.released.size > 0) {
+				commit();
+			}
+		} finally {
+			this.closed = true;
+			this.segments = null;
+			this.channel.close();
+		}
+	}
+
+	/**
+	 * Writes the current state into a header page and forces it to disk.
+	 *
+	 * @param h the header page, 0 or 1.
+	 */
+	private void writeHeader(int h) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_CHECKSUM + 8);
+
+		header.putInt(HEADER_MAGIC, MAGIC);
+		header.putInt(HEADER_VERSION, VERSION);
+		header.putInt(HEADER_PAGE_SIZE, this.pageSize);
+		header.putInt(HEADER_HEIGHT, this.state.height);
+		header.putLong(HEADER_GENERATION, this.state.generation);
+		header.putLong(HEADER_ROOT, this.state.root);
+		header.putLong(HEADER_PAGES, this.state.pages);
+		header.putLong(HEADER_SIZE, this.state.size);
+		header.putLong(HEADER_FREE_LIST, this.state.freeList);
+
+		for (int level = 0; level < MAX_LEVELS; level++) {
+			header.putInt(HEADER_LEVELS + 4 * level, this.state.levels[level]);
+		}
+
+		CRC32 crc = new CRC32();
+
+		crc.update(header.array(), 0, HEADER_CHECKSUM);
+		header.putLong(HEADER_CHECKSUM, crc.getValue());
+
+		MappedByteBuffer segment = segment(h);
+
+		for (int i = 0; i < header.capacity(); i++) {
+			segment.put(offset(h) + i, header.get(i));
+		}
+
+		this.written.set(0);
+	}
+
+	/**
+	 * Forces the segments written since the last call to disk.
+	 */
+	private void force() {
+		for (int s = this.written.nextSetBit(0); s >= 0; s = this.written.nextSetBit(s + 1)) {
+			this.segments[s].force();
+		}
+
+		this.written.clear();
+	}
+
+	/**
+	 * Adds a value to the tree.
+	 *
+	 * @param value the value.
+	 */
+	@Override
+	public void add(Long value) {
+		add(value.longValue());
+	}
+
+	/**
+	 * Adds a value to the tree.
+	 *
+	 * @param value the value.
+	 */
+	public void add(long value) {
+		checkOpen();
+
+		State s = this.state;
+
+		s.size++;
+
+		if (s.root == NONE) {
+			Page leaf = newPage(true);
+
+			leaf.keys[leaf.count++] = value;
+			s.root = leaf.id;
+			s.levels[0] = 1;
+			s.height = 1;
+			this.cache.trim();
+			return;
+		}
+
+		// go right of equal separators and values, so a duplicate goes after the others
+		Page[] path = new Page[s.height];
+		int[] index = new int[s.height];
+		Page page = page(s.root);
+
+		for (int d = 0; ; d++) {
+			path[d] = page;
+			index[d] = upperBound(page, value);
+
+			if (page.leaf) {
+				break;
+			}
+
+			page = page(page.children[index[d]]);
+		}
+
+		makeWritable(path, index, s.height);
+
+		Page leaf = path[s.height - 1];
+		int i = index[s.height - 1];
+
+		System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.count - i);
+		leaf.keys[i] = value;
+
+		if (++leaf.count > this.leafCapacity) {
+			split(path, index);
+		}
+
+		this.cache.trim();
+	}
+
+	/**
+	 * Splits the overfull leaf at the end of a path and carries the split up through every page of the path
+	 * that overflows in turn.
+	 *
+	 * @param path the writable pages from the root to the leaf.
+	 * @param index the child taken from each page.
+	 */
+	private void split(Page[] path, int[] index) {
+		State s = this.state;
+
+		for (int d = s.height - 1; ; d--) {
+			Page page = path[d];
+			Page right = newPage(page.leaf);
+			long separator;
+
+			if (page.leaf) {
+				int mid = (page.count + 1) / 2;
+
+				right.count = page.count - mid;
+				System.arraycopy(page.keys, mid, right.keys, 0, right.count);
+				page.count = mid;
+				separator = right.keys[0];
+			} else {
+				// the middle separator moves up
+				int keep = (page.count + 2) / 2;
+
+				separator = page.keys[keep - 1];
+				right.count = page.count - keep;
+				System.arraycopy(page.keys, keep, right.keys, 0, right.count);
+				System.arraycopy(page.children, keep, right.children, 0, right.count + 1);
+				page.count = keep - 1;
+			}
+
+			s.levels[s.height - 1 - d]++;
+
+			if (d == 0) {
+				Page root = newPage(false);
+
+				root.keys[0] = separator;
+				root.children[0] = page.id;
+				root.children[1] = right.id;
+				root.count = 1;
+				s.root = root.id;
+				s.levels[s.height++] = 1;
+				return;
+			}
+
+			Page parent = path[d - 1];
+			int i = index[d - 1];
+
+			System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.count - i);
+			System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+			parent.keys[i] = separator;
+			parent.children[i + 1] = right.id;
+
+			if (++parent.count <= this.internalCapacity) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public boolean contains(Long value) {
+		return contains(value.longValue());
+	}
+
+	/**
+	 * Checks if the tree has a given value.
+	 *
+	 * @param value the value.
+	 * @return true if the value is found in the tree; false otherwise.
+	 */
+	public boolean contains(long value) {
+		checkOpen();
+
+		Cursor cursor = new Cursor(value);
+		boolean found = cursor.valid && cursor.value() == value;
+
+		this.cache.trim();
+		return found;
+	}
+
+	@Override
+	public boolean remove(Long value) {
+		return remove(value.longValue());
+	}
+
+	/**
+	 * Removes one occurrence of a value from the tree.
+	 *
+	 * @param value the value.
+	 * @return true if the value was removed; false if it is not in the tree.
+	 */
+	public boolean remove(long value) {
+		checkOpen();
+
+		Cursor cursor = new Cursor(value);
+
+		if (!cursor.valid || cursor.value() != value) {
+			this.cache.trim();
+			return false;
+		}
+
+		State s = this.state;
+		Page[] path = cursor.path;
+		int[] index = cursor.index;
+
+		makeWritable(path, index, s.height);
+
+		Page leaf = path[s.height - 1];
+		int i = index[s.height - 1];
+
+		System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.count - i - 1);
+		leaf.count--;
+		s.size--;
+
+		if (s.height == 1) {
+			if (leaf.count == 0) {
+				release(leaf);
+				s.root = NONE;
+				s.levels[0] = 0;
+				s.height = 0;
+			}
+		} else if (leaf.count < (this.leafCapacity + 1) / 2) {
+			refill(path, index);
+		}
+
+		this.cache.trim();
+		return true;
+	}
+
+	/**
+	 * Refills the pages of a path holding one fewer entry than they must, bottom up, by taking one from a
+	 * sibling or merging with it. The tree loses a level when the root is left with a single child.
+	 *
+	 * @param path the writable pages from the root to a leaf.
+	 * @param index the child taken from each page.
+	 */
+	private void refill(Page[] path, int[] index) {
+		State s = this.state;
+
+		for (int d = s.height - 1; d > 0; d--) {
+			Page page = path[d];
+			int min = page.leaf ? (this.leafCapacity + 1) / 2 : (this.internalCapacity + 1) / 2;
+
+			if (page.count >= min) {
+				return;
+			}
+
+			Page parent = path[d - 1];
+			int i = index[d - 1];
+			Page left = i > 0 ? page(parent.children[i - 1]) : null;
+			Page right = i < parent.count ? page(parent.children[i + 1]) : null;
+
+			if (left != null && left.count > min) {
+				borrowLeft(parent, i, writableChild(parent, i - 1, left), page);
+				return;
+			} else if (right != null && right.count > min) {
+				borrowRight(parent, i, page, writableChild(parent, i + 1, right));
+				return;
+			} else if (left != null) {
+				merge(parent, i - 1, writableChild(parent, i - 1, left), page);
+			} else {
+				merge(parent, i, page, writableChild(parent, i + 1, right));
+			}
+
+			s.levels[s.height - 1 - d]--;
+		}
+
+		Page root = path[0];
+
+		if (!root.leaf && root.count == 0) {
+			s.root = root.children[0];
+			release(root);
+			s.levels[--s.height] = 0;
+		}
+	}
+
+	/**
+	 * Moves the last entry of a page's left sibling into the page.
+	 */
+	private void borrowLeft(Page parent, int i, Page left, Page page) {
+		System.arraycopy(page.keys, 0, page.keys, 1, page.count);
+
+		if (page.leaf) {
+			page.keys[0] = left.keys[left.count - 1];
+			parent.keys[i - 1] = page.keys[0];
+		} else {
+			System.arraycopy(page.children, 0, page.children, 1, page.count + 1);
+			page.keys[0] = parent.keys[i - 1];
+			page.children[0] = left.children[left.count];
+			parent.keys[i - 1] = left.keys[left.count - 1];
+		}
+
+		left.count--;
+		page.count++;
+	}
+
+	/**
+	 * Moves the first entry of a page's right sibling into the page.
+	 */
+	private void borrowRight(Page parent, int i, Page page, Page right) {
+		if (page.leaf) {
+			page.keys[page.count] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+			parent.keys[i] = right.keys[0];
+		} else {
+			page.keys[page.count] = parent.keys[i];
+			page.children[page.count + 1] = right.children[0];
+			parent.keys[i] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+			System.arraycopy(right.children, 1, right.children, 0, right.count);
+		}
+
+		right.count--;
+		page.count++;
+	}
+
+	/**
+	 * Merges two neighboring children of a page into the left one, removing the separator between them and
+	 * releasing the right one.
+	 */
+	private void merge(Page parent, int i, Page left, Page right) {
+		if (left.leaf) {
+			System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+			left.count += right.count;
+		} else {
+			left.keys[left.count] = parent.keys[i];
+			System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+			System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+			left.count += right.count + 1;
+		}
+
+		System.arraycopy(parent.keys, i + 1, parent.keys, i, parent.count - i - 1);
+		System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.count - i - 1);
+		parent.count--;
+		release(right);
+	}
+
+	/**
+	 * Makes the pages of a path writable from the root down, pointing each parent at its child's copy.
+	 *
+	 * @param path the pages from the root.
+	 * @param index the child taken from each page.
+	 * @param length the length of the path.
+	 */
+	private void makeWritable(Page[] path, int[] index, int length) {
+		for (int d = 0; d < length; d++) {
+			Page page = writable(path[d]);
+
+			if (d == 0) {
+				this.state.root = page.id;
+			} else {
+				path[d - 1].children[index[d - 1]] = page.id;
+			}
+
+			path[d] = page;
+		}
+	}
+
+	/**
+	 * Makes a child of a writable page writable.
+	 *
+	 * @param parent the page.
+	 * @param i the index of the child.
+	 * @param child the child.
+	 * @return the writable child.
+	 */
+	private Page writableChild(Page parent, int i, Page child) {
+		Page page = writable(child);
+
+		parent.children[i] = page.id;
+		return page;
+	}
+
+	/**
+	 * Makes a page writable. A page allocated in this transaction already is; any other is copied to a new
+	 * page and released.
+	 *
+	 * @param page the page.
+	 * @return the page or its copy, marked dirty.
+	 */
+	private Page writable(Page page) {
+		if (!this.fresh.contains(page.id)) {
+			Page copy = new Page(allocate(), page.leaf);
+
+			copy.count = page.count;
+			System.arraycopy(page.keys, 0, copy.keys, 0, page.count);
+
+			if (!page.leaf) {
+				System.arraycopy(page.children, 0, copy.children, 0, page.count + 1);
+			}
+
+			release(page);
+			page = copy;
+		}
+
+		// a dirty page is never evicted, so changes to it can't be lost
+		page.dirty = true;
+		this.cache.put(page);
+		return page;
+	}
+
+	/**
+	 * @param leaf true for a leaf, false for an internal page.
+	 * @return a new empty writable page.
+	 */
+	private Page newPage(boolean leaf) {
+		Page page = new Page(allocate(), leaf);
+
+		page.dirty = true;
+		this.cache.put(page);
+		return page;
+	}
+
+	/**
+	 * @return the number of a free page, now part of this transaction.
+	 */
+	private long allocate() {
+		long id = this.free.size > 0 ? this.free.pop() : this.state.pages++;
+
+		this.fresh.add(id);
+		return id;
+	}
+
+	/**
+	 * Drops a page from the tree. A page of this transaction is free again at once; any other stays intact
+	 * until the next commit, since the committed tree may still reach it.
+	 *
+	 * @param page the page.
+	 */
+	private void release(Page page) {
+		this.cache.remove(page);
+
+		if (this.fresh.remove(page.id)) {
+			this.free.push(page.id);
+		} else {
+			this.released.push(page.id);
+		}
+	}
+
+	/**
+	 * @param id a page number.
+	 * @return the page, from the cache or read from the file.
+	 */
+	private Page page(long id) {
+		Page page = this.cache.get(id);
+
+		if (page == null) {
+			MappedByteBuffer segment = segment(id);
+			int offset = offset(id);
+
+			page = new Page(id, segment.get(offset) == LEAF);
+			page.count = segment.getInt(offset + 4);
+			offset += PAGE_ENTRIES;
+
+			for (int i = 0; i < page.count; i++) {
+				page.keys[i] = segment.getLong(offset + 8 * i);
+			}
+
+			if (!page.leaf) {
+				offset += 8 * this.internalCapacity;
+
+				for (int i = 0; i <= page.count; i++) {
+					page.children[i] = segment.getLong(offset + 8 * i);
+				}
+			}
+
+			this.cache.put(page);
+		}
+
+		return page;
+	}
+
+	/**
+	 * Writes a page to the file.
+	 *
+	 * @param page the page.
+	 */
+	private void store(Page page) {
+		MappedByteBuffer segment = segment(page.id);
+		int offset = offset(page.id);
+
+		segment.put(offset, page.leaf ? LEAF : INTERNAL);
+		segment.putInt(offset + 4, page.count);
+		offset += PAGE_ENTRIES;
+
+		for (int i = 0; i < page.count; i++) {
+			segment.putLong(offset + 8 * i, page.keys[i]);
+		}
+
+		if (!page.leaf) {
+			offset += 8 * this.internalCapacity;
+
+			for (int i = 0; i <= page.count; i++) {
+				segment.putLong(offset + 8 * i, page.children[i]);
+			}
+		}
+
+		this.written.set(segmentOf(page.id));
+	}
+
+	/**
+	 * @param id a page number.
+	 * @return the mapped segment holding the page, mapped and the file grown if needed.
+	 */
+	private MappedByteBuffer segment(long id) {
+		int s = segmentOf(id);
+
+		if (s >= this.segments.length) {
+			this.segments = Arrays.copyOf(this.segments, Math.max(s + 1, 2 * this.segments.length));
+		}
+
+		if (this.segments[s] == null) {
+			try {
+				this.segments[s] = this.channel.map(FileChannel.MapMode.READ_WRITE, (long) s * SEGMENT_BYTES, SEGMENT_BYTES);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		return this.segments[s];
+	}
+
+	private int segmentOf(long id) {
+		return (int) (id * this.pageSize / SEGMENT_BYTES);
+	}
+
+	private int offset(long id) {
+		return (int) (id * this.pageSize % SEGMENT_BYTES);
+	}
+
+	/**
+	 * @param page a page.
+	 * @param value a value.
+	 * @return the index of the first key of the page not less than the value; the count if there is none.
+	 */
+	private static int lowerBound(Page page, long value) {
+		int lo = 0;
+		int hi = page.count;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (page.keys[mid] < value) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * @param page a page.
+	 * @param value a value.
+	 * @return the index of the first key of the page greater than the value; the count if there is none.
+	 */
+	private static int upperBound(Page page, long value) {
+		int lo = 0;
+		int hi = page.count;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (page.keys[mid] <= value) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	private void checkOpen() {
+		if (this.closed) {
+			throw new IllegalStateException("tree closed");
+		}
+	}
+
+	/**
+	 * @return an iterator over the values in ascending order.
+	 */
+	@Override
+	public PrimitiveIterator.OfLong iterator() {
+		checkOpen();
+
+		Cursor cursor = new Cursor(Long.MIN_VALUE);
+
+		return new PrimitiveIterator.OfLong() {
+			@Override
+			public boolean hasNext() {
+				return cursor.valid;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!cursor.valid) {
+					throw new NoSuchElementException();
+				}
+
+				long value = cursor.value();
+
+				cursor.advance();
+				cache.trim();
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * Performs an action on every value in a range, in ascending order.
+	 *
+	 * @param lo the lowest value of the range, inclusive.
+	 * @param hi the end of the range, exclusive.
+	 * @param action the action.
+	 */
+	public void forEachInRange(long lo, long hi, LongConsumer action) {
+		checkOpen();
+
+		for (Cursor cursor = new Cursor(lo); cursor.valid && cursor.value() < hi; cursor.advance()) {
+			action.accept(cursor.value());
+			this.cache.trim();
+		}
+	}
+
+	/**
+	 * @return the number of values, or {@link Integer#MAX_VALUE} if there are more.
+	 */
+	@Override
+	public int size() {
+		return (int) Math.min(Integer.MAX_VALUE, this.state.size);
+	}
+
+	/**
+	 * @return the number of values.
+	 */
+	public long count() {
+		return this.state.size;
+	}
+
+	/**
+	 * @return the number of levels of pages; 0 if the tree is empty.
+	 */
+	public int height() {
+		return this.state.height;
+	}
+
+	/**
+	 * @return the page size in bytes.
+	 */
+	public int pageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * @return the number of pages in the file, free or not.
+	 */
+	public long pages() {
+		return this.state.pages;
+	}
+
+	/**
+	 * @return the sum of the depths of all pages of the tree, the root being at depth 0.
+	 */
+	@Override
+	public int internalPathLength() {
+		int length = 0;
+
+		for (int level = 0; level < this.state.height; level++) {
+			length += this.state.levels[level] * (this.state.height - 1 - level);
+		}
+
+		return length;
+	}
+
+	@Override
+	public int internalNodes() {
+		int count = 0;
+
+		for (int level = 1; level < this.state.height; level++) {
+			count += this.state.levels[level];
+		}
+
+		return count;
+	}
+
+	@Override
+	public int leafCount() {
+		return this.state.levels[0];
+	}
+
+	/**
+	 * Checks if both trees have the same values laid out in pages the same way; the page numbers may differ.
+	 *
+	 * @return true if the trees are deeply equal; false otherwise.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof PagedBPlusTree)) {
+			return false;
+		}
+
+		PagedBPlusTree other = (PagedBPlusTree) obj;
+
+		if (this.state.size != other.state.size || this.state.height != other.state.height) {
+			return false;
+		}
+
+		ArrayDeque<Long> stack = new ArrayDeque<>();
+
+		if (this.state.root != NONE) {
+			stack.push(this.state.root);
+			stack.push(other.state.root);
+		}
+
+		while (!stack.isEmpty()) {
+			Page p2 = other.page(stack.pop());
+			Page p1 = page(stack.pop());
+
+			if (p1.leaf != p2.leaf || p1.count != p2.count) {
+				return false;
+			}
+
+			for (int i = 0; i < p1.count; i++) {
+				if (p1.keys[i] != p2.keys[i]) {
+					return false;
+				}
+			}
+
+			if (!p1.leaf) {
+				for (int i = 0; i <= p1.count; i++) {
+					stack.push(p1.children[i]);
+					stack.push(p2.children[i]);
+				}
+			}
+
+			this.cache.trim();
+			other.cache.trim();
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return the page size, size, height, internal path length, and number of internal pages and leaves.
+	 */
+	@Override
+	public String toString() {
+		return String.format("[pageSize=%d],[size=%d],[height=%d],[internalPathLength=%d],[internalNodes=%d],[leaves=%d]",
+				this.pageSize, this.state.size, this.state.height, internalPathLength(), internalNodes(), leafCount());
+	}
+
+	/**
+	 * The state of a tree, as it is recorded in a header.
+	 */
+	private final static class State {
+		long generation;
+		long root = NONE;
+		long pages;
+		long size;
+		long freeList = NONE;
+		int height;
+
+		/**
+		 * The number of pages on each level, counted up from the leaves.
+		 */
+		int[] levels = new int[MAX_LEVELS];
+
+		State copy() {
+			State copy = new State();
+
+			copy.generation = this.generation;
+			copy.root = this.root;
+			copy.pages = this.pages;
+			copy.size = this.size;
+			copy.freeList = this.freeList;
+			copy.height = this.height;
+			copy.levels = this.levels.clone();
+
+			return copy;
+		}
+	}
+
+	/**
+	 * A decoded page, with room for one more entry than a full page holds.
+	 */
+	private final class Page {
+		final long id;
+		final boolean leaf;
+		int count;
+		final long[] keys;
+
+		/**
+		 * The page numbers of the children; null for a leaf.
+		 */
+		final long[] children;
+
+		/**
+		 * True if the page was changed since it was last written.
+		 */
+		boolean dirty;
+
+		/**
+		 * The clock bit, set when the page is used and cleared as the clock hand passes.
+		 */
+		boolean referenced;
+
+		/**
+		 * The position of the page on the clock.
+		 */
+		int slot;
+
+		Page(long id, boolean leaf) {
+			this.id = id;
+			this.leaf = leaf;
+			this.keys = new long[(leaf ? leafCapacity : internalCapacity) + 1];
+			this.children = leaf ? null : new long[internalCapacity + 2];
+		}
+	}
+
+	/**
+	 * A position in the tree: the pages from the root to a leaf, the child taken from each, and the index
+	 * of a value in the leaf.
+	 */
+	private final class Cursor {
+		final Page[] path;
+		final int[] index;
+
+		/**
+		 * False once the cursor moved past the last value.
+		 */
+		boolean valid;
+
+		/**
+		 * Positions a cursor at the first value not less than a given one.
+		 *
+		 * @param value the value.
+		 */
+		Cursor(long value) {
+			int height = state.height;
+
+			this.path = new Page[height];
+			this.index = new int[height];
+
+			if (height == 0) {
+				return;
+			}
+
+			Page page = page(state.root);
+
+			for (int d = 0; ; d++) {
+				this.path[d] = page;
+				this.index[d] = lowerBound(page, value);
+
+				if (page.leaf) {
+					break;
+				}
+
+				page = page(page.children[this.index[d]]);
+			}
+
+			this.valid = true;
+
+			if (this.index[height - 1] == page.count) {
+				// every value of the leaf is less; the first one not less starts the next leaf
+				nextLeaf();
+			}
+		}
+
+		long value() {
+			return this.path[this.path.length - 1].keys[this.index[this.path.length - 1]];
+		}
+
+		/**
+		 * Moves to the next value.
+		 */
+		void advance() {
+			int leaf = this.path.length - 1;
+
+			if (++this.index[leaf] == this.path[leaf].count) {
+				nextLeaf();
+			}
+		}
+
+		/**
+		 * Moves to the first value of the next leaf, climbing to the lowest page with a child to the right.
+		 */
+		private void nextLeaf() {
+			int d = this.path.length - 2;
+
+			while (d >= 0 && this.index[d] == this.path[d].count) {
+				d--;
+			}
+
+			if (d < 0) {
+				this.valid = false;
+				return;
+			}
+
+			this.index[d]++;
+
+			for (d++; d < this.path.length; d++) {
+				this.path[d] = page(this.path[d - 1].children[this.index[d - 1]]);
+				this.index[d] = 0;
+			}
+		}
+	}
+
+	/**
+	 * The cache of decoded pages. When it holds more pages than its capacity after an operation, the dirty
+	 * pages are written out, and then clean pages are evicted with the clock algorithm: the hand sweeps the
+	 * pages, evicting the first one not used since the hand last passed it.
+	 */
+	private final class PageCache {
+		private final int capacity;
+		private final HashMap<Long, Page> pages = new HashMap<>();
+		private Page[] clock = new Page[16];
+		private int count;
+		private int hand;
+
+		PageCache(int capacity) {
+			this.capacity = capacity;
+		}
+
+		Page get(long id) {
+			Page page = this.pages.get(id);
+
+			if (page != null) {
+				page.referenced = true;
+			}
+
+			return page;
+		}
+
+		/**
+		 * Adds a page, replacing any other copy of it.
+		 */
+		void put(Page page) {
+			page.referenced = true;
+
+			Page old = this.pages.put(page.id, page);
+
+			if (old == page) {
+				return;
+			} else if (old != null) {
+				page.slot = old.slot;
+				this.clock[page.slot] = page;
+				return;
+			}
+
+			if (this.count == this.clock.length) {
+				this.clock = Arrays.copyOf(this.clock, 2 * this.count);
+			}
+
+			page.slot = this.count;
+			this.clock[this.count++] = page;
+		}
+
+		void remove(Page page) {
+			if (this.pages.get(page.id) != page) {
+				return;
+			}
+
+			this.pages.remove(page.id);
+
+			Page last = this.clock[--this.count];
+
+			last.slot = page.slot;
+			this.clock[page.slot] = last;
+			this.clock[this.count] = null;
+		}
+
+		/**
+		 * Writes every dirty page to the file.
+		 */
+		void flush() {
+			for (int i = 0; i < this.count; i++) {
+				Page page = this.clock[i];
+
+				if (page.dirty) {
+					store(page);
+					page.dirty = false;
+				}
+			}
+		}
+
+		/**
+		 * Evicts pages until the cache is within its capacity.
+		 */
+		void trim() {
+			if (this.count <= this.capacity) {
+				return;
+			}
+
+			flush();
+
+			while (this.count > this.capacity) {
+				if (this.hand >= this.count) {
+					this.hand = 0;
+				}
+
+				Page page = this.clock[this.hand];
+
+				if (page.referenced) {
+					page.referenced = false;
+					this.hand++;
+				} else {
+					remove(page);
+				}
+			}
+		}
+
+		void clear() {
+			this.pages.clear();
+			Arrays.fill(this.clock, 0, this.count, null);
+			this.count = 0;
+			this.hand = 0;
+		}
+	}
+
+	/**
+	 * A growable list of page numbers.
+	 */
+	private final static class LongList {
+		long[] values = new long[16];
+		int size;
+
+		void push(long value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, 2 * this.size);
+			}
+
+			this.values[this.size++] = value;
+		}
+
+		long pop() {
+			return this.values[--this.size];
+		}
+
+		long get(int i) {
+			return this.values[i];
+		}
+
+		void addAll(LongList other) {
+			for (int i = 0; i < other.size; i++) {
+				push(other.values[i]);
+			}
+		}
+
+		void clear() {
+			this.size = 0;
+		}
+	}
+}
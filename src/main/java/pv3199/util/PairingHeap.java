@@ -0,0 +1,181 @@
+package pv3199.util;
+
+import java.util.Comparator;
+
+/**
+ * A pairing heap: a tree of linked nodes in which every node is no greater than its children. Adding an
+ * element and {@link #meld(PairingHeap) melding} two heaps only link two roots, in <code>O(1)</code>.
+ * Popping links the root's children in pairs and then the pairs into one tree, in <code>O(log n)</code>
+ * amortized time.
+ * <p>
+ * The element that compares lowest by the heap's comparator is at the root.
+ *
+ * @param <E> the type of elements in this heap.
+ */
+public class PairingHeap<E> implements PriorityHeap<E> {
+	/**
+	 * The ordering of this heap; the lowest element is at the root.
+	 */
+	private final Comparator<E> comparator;
+
+	/**
+	 * The root, or null if the heap is empty.
+	 */
+	private Node<E> root;
+
+	/**
+	 * The number of elements.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty heap ordered by the elements' natural ordering.
+	 */
+	public PairingHeap() {
+		this(Heap.naturalOrder());
+	}
+
+	/**
+	 * Constructs an empty heap ordered by a comparator.
+	 *
+	 * @param comparator the ordering of the heap.
+	 */
+	public PairingHeap(Comparator<E> comparator) {
+		if (comparator == null) {
+			throw new NullPointerException();
+		}
+
+		this.comparator = comparator;
+	}
+
+	@Override
+	public void add(E e) {
+		if (e == null) {
+			throw new NullPointerException("nulls not allowed");
+		}
+
+		this.root = link(this.root, new Node<>(e));
+		this.size++;
+	}
+
+	@Override
+	public E peek() {
+		return this.root == null ? null : this.root.value;
+	}
+
+	@Override
+	public E pop() {
+		if (this.root == null) {
+			return null;
+		}
+
+		E top = this.root.value;
+
+		this.root = mergePairs(this.root.child);
+		this.size--;
+
+		return top;
+	}
+
+	/**
+	 * Moves every element of another heap into this one in <code>O(1)</code>, leaving the other heap empty.
+	 * Both heaps should have the same ordering.
+	 *
+	 * @param other the heap to meld into this one.
+	 * @throws IllegalArgumentException if the other heap is this heap
+	 */
+	public void meld(PairingHeap<E> other) throws IllegalArgumentException {
+		if (other == this) {
+			throw new IllegalArgumentException("cannot meld a heap with itself");
+		}
+
+		this.root = link(this.root, other.root);
+		this.size += other.size;
+
+		other.root = null;
+		other.size = 0;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Links two trees, making the root that compares greater the first child of the other.
+	 *
+	 * @param a a tree, or null.
+	 * @param b another tree, or null.
+	 * @return the root of the linked tree.
+	 */
+	private Node<E> link(Node<E> a, Node<E> b) {
+		if (a == null) {
+			return b;
+		} else if (b == null) {
+			return a;
+		} else if (this.comparator.compare(b.value, a.value) < 0) {
+			Node<E> t = a;
+			a = b;
+			b = t;
+		}
+
+		b.sibling = a.child;
+		a.child = b;
+
+		return a;
+	}
+
+	/**
+	 * Links a list of sibling trees into one: first in pairs from left to right, then the pairs from right
+	 * to left. The pairs are chained through their sibling links so that no recursion is needed.
+	 *
+	 * @param first the first sibling, or null.
+	 * @return the root of the linked tree, or null.
+	 */
+	private Node<E> mergePairs(Node<E> first) {
+		Node<E> pairs = null;
+
+		while (first != null) {
+			Node<E> a = first;
+			Node<E> b = a.sibling;
+
+			first = b == null ? null : b.sibling;
+			a.sibling = null;
+
+			if (b != null) {
+				b.sibling = null;
+				a = link(a, b);
+			}
+
+			a.sibling = pairs;
+			pairs = a;
+		}
+
+		Node<E> result = null;
+
+		while (pairs != null) {
+			Node<E> next = pairs.sibling;
+
+			pairs.sibling = null;
+			result = link(result, pairs);
+			pairs = next;
+		}
+
+		return result;
+	}
+
+	/**
+	 * A node of the heap. Children form a list through their sibling links.
+	 *
+	 * @param <E> the type of the element.
+	 */
+	private final static class Node<E> {
+		private final E value;
+		private Node<E> child;
+		private Node<E> sibling;
+
+		Node(E value) {
+			this.value = value;
+		}
+	}
+}
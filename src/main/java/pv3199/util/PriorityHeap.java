@@ -0,0 +1,50 @@
+package pv3199.util;
+
+/**
+ * The common interface of heaps: priority queues that give access to their lowest element. Implementations
+ * differ in cost and in what they can order:
+ * <ul>
+ *     <li>{@link MinHeap} and {@link MaxHeap}, binary heaps in an array;</li>
+ *     <li>{@link DaryHeap}, an array heap with more children per node, which makes it shallower and keeps
+ *     the children of a node in fewer cache lines;</li>
+ *     <li>{@link PairingHeap}, a heap of linked nodes that can be melded with another in <code>O(1)</code>;</li>
+ *     <li>{@link RadixHeap}, a heap of non-negative integer keys that may never go below the last popped key,
+ *     as in Dijkstra's algorithm.</li>
+ * </ul>
+ *
+ * @param <E> the type of elements in this heap.
+ */
+public interface PriorityHeap<E> {
+	/**
+	 * Adds an element to the heap.
+	 *
+	 * @param e the element to add.
+	 */
+	void add(E e);
+
+	/**
+	 * @return the lowest element of the heap; null if the heap is empty.
+	 */
+	E peek();
+
+	/**
+	 * Removes the lowest element of the heap.
+	 *
+	 * @return the removed element; null if the heap is empty.
+	 */
+	E pop();
+
+	/**
+	 * @return the number of elements in the heap.
+	 */
+	int size();
+
+	/**
+	 * Checks if the heap is empty. Equivalent to {@linkplain PriorityHeap#size() == 0}.
+	 *
+	 * @return true if the heap is empty.
+	 */
+	default boolean isEmpty() {
+		return size() == 0;
+	}
+}
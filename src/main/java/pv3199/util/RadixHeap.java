@@ -0,0 +1,181 @@
+package pv3199.util;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * A radix heap of elements with non-negative integer keys, for monotone workloads such as Dijkstra's
+ * algorithm where no element added is lower than the last element popped. Elements are kept unordered in
+ * 65 buckets by the highest bit in which their key differs from the last popped key. Adding an element is
+ * <code>O(1)</code>. Popping takes from the first bucket if it is not empty; otherwise it redistributes the
+ * lowest non-empty bucket into lower buckets. Each element moves to a lower bucket at most 64 times, so
+ * popping is <code>O(log C)</code> amortized, where <code>C</code> is the range of keys.
+ * <p>
+ * Elements with equal keys are popped in no particular order.
+ *
+ * @param <E> the type of elements in this heap.
+ */
+public class RadixHeap<E> implements PriorityHeap<E> {
+	/**
+	 * The function giving the key of an element.
+	 */
+	private final ToLongFunction<E> key;
+
+	/**
+	 * Bucket 0 holds elements whose key equals {@link #last}; bucket <code>i</code> holds elements whose key
+	 * first differs from it in bit <code>i - 1</code>.
+	 */
+	private final Bucket[] buckets = new Bucket[65];
+
+	/**
+	 * The key of the last popped element, or 0; no element in the heap has a lower key.
+	 */
+	private long last;
+
+	/**
+	 * The number of elements.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty heap.
+	 *
+	 * @param key the function giving the key of an element.
+	 */
+	public RadixHeap(ToLongFunction<E> key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+
+		this.key = key;
+
+		for (int i = 0; i < this.buckets.length; i++) {
+			this.buckets[i] = new Bucket();
+		}
+	}
+
+	/**
+	 * Adds an element to the heap.
+	 *
+	 * @param e the element to add.
+	 * @throws IllegalArgumentException if the element's key is lower than that of the last popped element
+	 */
+	@Override
+	public void add(E e) throws IllegalArgumentException {
+		if (e == null) {
+			throw new NullPointerException("nulls not allowed");
+		}
+
+		long k = this.key.applyAsLong(e);
+
+		if (k < this.last) {
+			throw new IllegalArgumentException("key " + k + " is lower than the last popped key " + this.last);
+		}
+
+		this.buckets[bucketOf(k)].add(k, e);
+		this.size++;
+	}
+
+	@Override
+	public E peek() {
+		if (this.size == 0) {
+			return null;
+		}
+
+		settle();
+
+		return (E) this.buckets[0].values[this.buckets[0].size - 1];
+	}
+
+	@Override
+	public E pop() {
+		if (this.size == 0) {
+			return null;
+		}
+
+		settle();
+		this.size--;
+
+		return (E) this.buckets[0].removeLast();
+	}
+
+	/**
+	 * @return the key of the last popped element, or 0 if none was popped; no element added may have a
+	 * lower key.
+	 */
+	public final long lastKey() {
+		return this.last;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @param k a key no lower than {@link #last}.
+	 * @return the bucket of the key.
+	 */
+	private int bucketOf(long k) {
+		return 64 - Long.numberOfLeadingZeros(k ^ this.last);
+	}
+
+	/**
+	 * Makes bucket 0 non-empty, if it is empty, by raising {@link #last} to the lowest key of the lowest
+	 * non-empty bucket and redistributing that bucket. Every element of the redistributed bucket lands in
+	 * a lower bucket. The heap must not be empty.
+	 */
+	private void settle() {
+		if (this.buckets[0].size > 0) {
+			return;
+		}
+
+		int i = 1;
+
+		while (this.buckets[i].size == 0) {
+			i++;
+		}
+
+		Bucket b = this.buckets[i];
+		long min = Long.MAX_VALUE;
+
+		for (int j = 0; j < b.size; j++) {
+			min = Math.min(min, b.keys[j]);
+		}
+
+		this.last = min;
+
+		for (int j = 0; j < b.size; j++) {
+			this.buckets[bucketOf(b.keys[j])].add(b.keys[j], b.values[j]);
+			b.values[j] = null;
+		}
+
+		b.size = 0;
+	}
+
+	/**
+	 * An unordered list of elements and their keys.
+	 */
+	private final static class Bucket {
+		private long[] keys = new long[4];
+		private Object[] values = new Object[4];
+		private int size;
+
+		void add(long k, Object e) {
+			if (this.size == this.keys.length) {
+				this.keys = java.util.Arrays.copyOf(this.keys, this.size * 2);
+				this.values = java.util.Arrays.copyOf(this.values, this.size * 2);
+			}
+
+			this.keys[this.size] = k;
+			this.values[this.size++] = e;
+		}
+
+		Object removeLast() {
+			Object e = this.values[--this.size];
+
+			this.values[this.size] = null;
+
+			return e;
+		}
+	}
+}
@@ -0,0 +1,1123 @@
+package pv3199.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * An adaptive radix tree (ART, after Leis et al.): a set of keys kept as byte strings, branching on one byte
+ * at each level. A lookup compares each byte of the key once, so it takes <code>O(k)</code> time for a key of
+ * <code>k</code> bytes however many keys there are, where a comparison tree compares shared prefixes again
+ * at every level.
+ * <p>
+ * Each inner node takes the smallest of four layouts that holds its children: up to 4 or 16 children as
+ * sorted arrays of key bytes, searched linearly or by binary search; up to 48 as an index of 256 bytes into
+ * an array of children; and up to 256 as an array indexed directly. Nodes grow into the next layout when
+ * full, and shrink into the previous one at 4, 12 and 40 children, well below its capacity, so that adding
+ * and removing one child does not switch layouts back and forth. A path of nodes with one child each is
+ * compressed into the prefix of the node below, and a key whose suffix is unique is stored in a leaf as high
+ * up as possible, so every inner node branches. A key that ends at an inner node, a prefix of other keys, is
+ * kept in that node.
+ * <p>
+ * Keys are ordered by the unsigned bytes of their encodings, shorter first. For {@link #forStrings()
+ * strings}, encoded as UTF-8, that is the order of their code points; for {@link #forBytes() byte arrays} it
+ * is their unsigned lexicographic order. Besides the operations of {@link Tree}, the tree finds the keys
+ * {@link #forEachWithPrefix(Object, Consumer) with a prefix} and the {@link #longestPrefixOf(Object) longest
+ * key that is a prefix} of another.
+ * <p>
+ * The metrics of {@link Tree} count nodes, not bytes. Every key is in a leaf, so {@link #leafCount()} is the
+ * size, and {@link #internalNodes()} is the number of inner nodes; a leaf kept in an inner node counts as its
+ * child. Both are kept up to date; the height and internal path length take a walk of the tree.
+ *
+ * @param <E> the type of the keys
+ */
+public class RadixTree<E> extends Tree<E> implements Iterable<E> {
+	/**
+	 * Turns keys into the byte strings the tree branches on.
+	 */
+	private final Function<? super E, byte[]> encoder;
+
+	/**
+	 * The number of keys.
+	 */
+	private int size;
+
+	/**
+	 * The number of inner nodes.
+	 */
+	private int inners;
+
+	/**
+	 * Constructs an empty RadixTree over keys encoded by a function. Two keys are the same if their encodings
+	 * are; the encodings of keys in the tree must not change.
+	 *
+	 * @param encoder turns a key into bytes.
+	 */
+	public RadixTree(Function<? super E, byte[]> encoder) {
+		if (encoder == null) {
+			throw new NullPointerException();
+		}
+
+		this.encoder = encoder;
+	}
+
+	/**
+	 * @return an empty RadixTree of strings, encoded as UTF-8.
+	 */
+	public static RadixTree<String> forStrings() {
+		return new RadixTree<>(s -> s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Constructs an empty RadixTree of byte arrays. The arrays are kept, not copied, so they must not be
+	 * modified while in the tree.
+	 *
+	 * @return the tree.
+	 */
+	public static RadixTree<byte[]> forBytes() {
+		return new RadixTree<>(b -> b);
+	}
+
+	/**
+	 * @param value the key.
+	 * @return its bytes.
+	 */
+	private byte[] encode(E value) {
+		if (value == null) {
+			throw new NullPointerException();
+		}
+
+		return this.encoder.apply(value);
+	}
+
+	@Override
+	public void add(E value) {
+		insert(value);
+	}
+
+	/**
+	 * Adds a key to the tree if it is not there already.
+	 *
+	 * @param value the key.
+	 * @return true if the key was added; false if it was already in the tree.
+	 */
+	public boolean insert(E value) {
+		byte[] key = encode(value);
+		Leaf leaf = new Leaf(key, value);
+		RNode node = (RNode) this.root;
+		// the parent of the node and the byte it is under, to replace the node in it
+		Inner parent = null;
+		int b = 0;
+		int depth = 0;
+
+		if (node == null) {
+			this.root = leaf;
+			this.size++;
+			return true;
+		}
+
+		while (true) {
+			if (node.isLeaf()) {
+				Leaf other = (Leaf) node;
+
+				if (Arrays.equals(other.key, key)) {
+					return false;
+				}
+
+				// branch where the two keys part
+				int end = depth + mismatch(other.key, depth, key, depth);
+				Inner inner = new Node4(Arrays.copyOfRange(key, depth, end));
+
+				place(inner, other, end);
+				place(inner, leaf, end);
+				replace(parent, b, inner);
+				this.inners++;
+				break;
+			}
+
+			Inner inner = (Inner) node;
+			int matched = mismatch(inner.prefix, 0, key, depth);
+
+			if (matched < inner.prefix.length) {
+				// the key leaves the prefix of the node: split it where it does
+				Inner split = new Node4(Arrays.copyOf(inner.prefix, matched));
+				int next = inner.prefix[matched] & 0xff;
+
+				inner.prefix = Arrays.copyOfRange(inner.prefix, matched + 1, inner.prefix.length);
+				split.put(next, inner);
+				place(split, leaf, depth + matched);
+				replace(parent, b, split);
+				this.inners++;
+				break;
+			}
+
+			depth += matched;
+
+			if (depth == key.length) {
+				if (inner.terminal != null) {
+					return false;
+				}
+
+				inner.terminal = leaf;
+				break;
+			}
+
+			int next = key[depth] & 0xff;
+			RNode child = inner.find(next);
+
+			if (child == null) {
+				if (inner.isFull()) {
+					Inner grown = inner.grow();
+
+					replace(parent, b, grown);
+					inner = grown;
+				}
+
+				inner.put(next, leaf);
+				break;
+			}
+
+			parent = inner;
+			b = next;
+			node = child;
+			depth++;
+		}
+
+		this.size++;
+		return true;
+	}
+
+	/**
+	 * Puts a leaf in a new inner node, as its child or, if its key ends at the node, its terminal.
+	 *
+	 * @param inner the node.
+	 * @param leaf the leaf.
+	 * @param depth the length of the keys that reach the children of the node.
+	 */
+	private void place(Inner inner, Leaf leaf, int depth) {
+		if (leaf.key.length == depth) {
+			inner.terminal = leaf;
+		} else {
+			inner.put(leaf.key[depth] & 0xff, leaf);
+		}
+	}
+
+	/**
+	 * Replaces a node with another in its parent.
+	 *
+	 * @param parent the parent; null if the node is the root.
+	 * @param b the byte the node is under.
+	 * @param node the new node.
+	 */
+	private void replace(Inner parent, int b, RNode node) {
+		if (parent == null) {
+			this.root = node;
+		} else {
+			parent.put(b, node);
+		}
+	}
+
+	/**
+	 * @param a an array.
+	 * @param from the index to compare <code>a</code> from.
+	 * @param key another array.
+	 * @param depth the index to compare <code>key</code> from.
+	 * @return the number of bytes that are the same in both, from those indices, up to the end of either.
+	 */
+	private static int mismatch(byte[] a, int from, byte[] key, int depth) {
+		int length = Math.min(a.length - from, key.length - depth);
+		int i = 0;
+
+		while (i < length && a[from + i] == key[depth + i]) {
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * @param key an array.
+	 * @param prefix another array.
+	 * @return true if the array starts with the other.
+	 */
+	private static boolean startsWith(byte[] key, byte[] prefix) {
+		return prefix.length <= key.length && mismatch(key, 0, prefix, 0) == prefix.length;
+	}
+
+	/**
+	 * Checks if the tree has a key, comparing each of its bytes once.
+	 *
+	 * @param value the key.
+	 * @return true if the key is in the tree; false otherwise.
+	 */
+	@Override
+	public boolean contains(E value) {
+		byte[] key = encode(value);
+		RNode node = (RNode) this.root;
+		int depth = 0;
+
+		while (node != null) {
+			if (node.isLeaf()) {
+				return Arrays.equals(((Leaf) node).key, key);
+			}
+
+			Inner inner = (Inner) node;
+
+			if (mismatch(inner.prefix, 0, key, depth) < inner.prefix.length) {
+				return false;
+			}
+
+			depth += inner.prefix.length;
+
+			if (depth == key.length) {
+				return inner.terminal != null;
+			}
+
+			node = inner.find(key[depth++] & 0xff);
+		}
+
+		return false;
+	}
+
+	@Override
+	public boolean remove(E value) {
+		byte[] key = encode(value);
+		RNode node = (RNode) this.root;
+		// the parent and grandparent of the node, and the bytes they are under
+		Inner parent = null;
+		Inner grandparent = null;
+		int b = 0;
+		int parentB = 0;
+		int depth = 0;
+
+		while (node != null) {
+			if (node.isLeaf()) {
+				if (!Arrays.equals(((Leaf) node).key, key)) {
+					return false;
+				}
+
+				if (parent == null) {
+					this.root = null;
+				} else {
+					parent.delete(b);
+					compact(parent, grandparent, parentB);
+				}
+
+				this.size--;
+				return true;
+			}
+
+			Inner inner = (Inner) node;
+
+			if (mismatch(inner.prefix, 0, key, depth) < inner.prefix.length) {
+				return false;
+			}
+
+			depth += inner.prefix.length;
+
+			if (depth == key.length) {
+				if (inner.terminal == null) {
+					return false;
+				}
+
+				inner.terminal = null;
+				compact(inner, parent, b);
+				this.size--;
+				return true;
+			}
+
+			grandparent = parent;
+			parentB = b;
+			parent = inner;
+			b = key[depth++] & 0xff;
+			node = inner.find(b);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Restores the shape of an inner node after a removal from it: a node left with only a terminal is
+	 * replaced by it, a node left with one child is merged into it, and a node a quarter full shrinks.
+	 *
+	 * @param inner the node.
+	 * @param parent its parent; null if it is the root.
+	 * @param b the byte it is under.
+	 */
+	private void compact(Inner inner, Inner parent, int b) {
+		if (inner.count == 0) {
+			replace(parent, b, inner.terminal);
+			this.inners--;
+		} else if (inner.count == 1 && inner.terminal == null) {
+			int next = inner.next(0);
+			RNode child = inner.find(next);
+
+			if (!child.isLeaf()) {
+				Inner only = (Inner) child;
+				byte[] prefix = Arrays.copyOf(inner.prefix, inner.prefix.length + 1 + only.prefix.length);
+
+				prefix[inner.prefix.length] = (byte) next;
+				System.arraycopy(only.prefix, 0, prefix, inner.prefix.length + 1, only.prefix.length);
+				only.prefix = prefix;
+			}
+
+			replace(parent, b, child);
+			this.inners--;
+		} else {
+			Inner shrunk = inner.shrink();
+
+			if (shrunk != inner) {
+				replace(parent, b, shrunk);
+			}
+		}
+	}
+
+	/**
+	 * Performs an action on every key that starts with a prefix, in order. Finds the keys in
+	 * <code>O(k)</code> for a prefix of <code>k</code> bytes, and then walks them.
+	 *
+	 * @param prefix the prefix; the empty key matches every key.
+	 * @param action the action.
+	 */
+	public void forEachWithPrefix(E prefix, Consumer<? super E> action) {
+		byte[] key = encode(prefix);
+		RNode node = (RNode) this.root;
+		int depth = 0;
+
+		if (action == null) {
+			throw new NullPointerException();
+		}
+
+		while (node != null) {
+			if (node.isLeaf()) {
+				if (startsWith(((Leaf) node).key, key)) {
+					action.accept(node.value);
+				}
+
+				return;
+			}
+
+			Inner inner = (Inner) node;
+			int matched = mismatch(inner.prefix, 0, key, depth);
+
+			if (depth + matched == key.length) {
+				// the prefix ends within or at the end of the prefix of the node: every key under it matches
+				new Walk(inner).forEachRemaining(action);
+				return;
+			} else if (matched < inner.prefix.length) {
+				return;
+			}
+
+			depth += matched;
+			node = inner.find(key[depth++] & 0xff);
+		}
+	}
+
+	/**
+	 * Finds the longest key in the tree that is a prefix of a key, or the key itself, in <code>O(k)</code> for
+	 * a key of <code>k</code> bytes. Every key that is a prefix of it lies on its path, as the terminal of an
+	 * inner node or the leaf at the end.
+	 *
+	 * @param value the key.
+	 * @return the longest key that is a prefix of it; null if there is none.
+	 */
+	public E longestPrefixOf(E value) {
+		byte[] key = encode(value);
+		RNode node = (RNode) this.root;
+		Leaf longest = null;
+		int depth = 0;
+
+		while (node != null) {
+			if (node.isLeaf()) {
+				if (startsWith(key, ((Leaf) node).key)) {
+					longest = (Leaf) node;
+				}
+
+				break;
+			}
+
+			Inner inner = (Inner) node;
+
+			if (mismatch(inner.prefix, 0, key, depth) < inner.prefix.length) {
+				break;
+			}
+
+			depth += inner.prefix.length;
+
+			if (inner.terminal != null) {
+				longest = inner.terminal;
+			}
+
+			if (depth == key.length) {
+				break;
+			}
+
+			node = inner.find(key[depth++] & 0xff);
+		}
+
+		return longest == null ? null : longest.value;
+	}
+
+	/**
+	 * @return an iterator over the keys in order.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Walk((RNode) this.root);
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the number of levels of nodes, counting leaves kept in inner nodes; 0 if the tree is empty.
+	 */
+	public int height() {
+		int[] height = { 0 };
+
+		forEachNode((node, depth) -> height[0] = Math.max(height[0], depth + 1));
+		return height[0];
+	}
+
+	/**
+	 * @return the sum of the depths of all nodes, the root being at depth 0.
+	 */
+	@Override
+	public int internalPathLength() {
+		int[] length = { 0 };
+
+		forEachNode((node, depth) -> length[0] += depth);
+		return length[0];
+	}
+
+	@Override
+	public int internalNodes() {
+		return this.inners;
+	}
+
+	@Override
+	public int leafCount() {
+		return this.size;
+	}
+
+	/**
+	 * Performs an action on every node with its depth, walking the tree with an explicit stack.
+	 *
+	 * @param action the action.
+	 */
+	private void forEachNode(ObjIntConsumer<RNode> action) {
+		ArrayDeque<Object> nodes = new ArrayDeque<>();
+		ArrayDeque<Integer> depths = new ArrayDeque<>();
+
+		if (this.root != null) {
+			nodes.push(this.root);
+			depths.push(0);
+		}
+
+		while (!nodes.isEmpty()) {
+			RNode node = (RNode) nodes.pop();
+			int depth = depths.pop();
+
+			action.accept(node, depth);
+
+			if (!node.isLeaf()) {
+				Inner inner = (Inner) node;
+
+				if (inner.terminal != null) {
+					nodes.push(inner.terminal);
+					depths.push(depth + 1);
+				}
+
+				for (int b = inner.next(0); b >= 0; b = b == 255 ? -1 : inner.next(b + 1)) {
+					nodes.push(inner.find(b));
+					depths.push(depth + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if both trees have the same keys, laid out in the same nodes of the same layouts.
+	 *
+	 * @return true if the trees are deeply equal; false otherwise.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof RadixTree)) {
+			return false;
+		}
+
+		RadixTree<?> other = (RadixTree<?>) obj;
+
+		if (this.size != other.size || this.inners != other.inners) {
+			return false;
+		}
+
+		ArrayDeque<Object> queue = new ArrayDeque<>();
+
+		if (this.root != null) {
+			queue.add(this.root);
+			queue.add(other.root);
+		}
+
+		while (!queue.isEmpty()) {
+			RNode n1 = (RNode) queue.poll();
+			RadixTree<?>.RNode n2 = (RadixTree<?>.RNode) queue.poll();
+
+			if (n1.isLeaf() || n2.isLeaf()) {
+				if (!n1.isLeaf() || !n2.isLeaf() || !Arrays.equals(((Leaf) n1).key, ((RadixTree<?>.Leaf) n2).key)) {
+					return false;
+				}
+
+				continue;
+			}
+
+			Inner i1 = (Inner) n1;
+			RadixTree<?>.Inner i2 = (RadixTree<?>.Inner) n2;
+
+			if (i1.capacity() != i2.capacity() || i1.count != i2.count || !Arrays.equals(i1.prefix, i2.prefix)
+					|| (i1.terminal == null) != (i2.terminal == null)) {
+				return false;
+			}
+
+			if (i1.terminal != null) {
+				queue.add(i1.terminal);
+				queue.add(i2.terminal);
+			}
+
+			for (int b = i1.next(0); b >= 0; b = b == 255 ? -1 : i1.next(b + 1)) {
+				if (i2.find(b) == null) {
+					return false;
+				}
+
+				queue.add(i1.find(b));
+				queue.add(i2.find(b));
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return the size, height, internal path length, and number of internal nodes and leaves.
+	 */
+	@Override
+	public String toString() {
+		return String.format("[size=%d],[height=%d],[internalPathLength=%d],[internalNodes=%d],[leaves=%d]",
+				this.size, height(), internalPathLength(), internalNodes(), leafCount());
+	}
+
+	/**
+	 * Walks the keys under a node in order: the terminal of an inner node before its children, and the
+	 * children by their bytes, unsigned.
+	 */
+	private final class Walk implements Iterator<E> {
+		/**
+		 * The inner nodes on the path to the next key, and the next byte to look for a child at in each; -1
+		 * if the terminal of the node is still to come.
+		 */
+		private Object[] nodes = new Object[16];
+		private int[] bytes = new int[16];
+		private int top;
+
+		/**
+		 * The next leaf; null when there are no more.
+		 */
+		private Leaf next;
+
+		Walk(RNode node) {
+			if (node == null) {
+				return;
+			} else if (node.isLeaf()) {
+				this.next = (Leaf) node;
+			} else {
+				push((Inner) node);
+				advance();
+			}
+		}
+
+		private void push(Inner inner) {
+			if (this.top == this.nodes.length) {
+				this.nodes = Arrays.copyOf(this.nodes, 2 * this.top);
+				this.bytes = Arrays.copyOf(this.bytes, 2 * this.top);
+			}
+
+			this.nodes[this.top] = inner;
+			this.bytes[this.top++] = -1;
+		}
+
+		/**
+		 * Finds the next leaf.
+		 */
+		private void advance() {
+			this.next = null;
+
+			while (this.top > 0) {
+				Inner inner = (Inner) this.nodes[this.top - 1];
+				int from = this.bytes[this.top - 1];
+
+				if (from == -1) {
+					this.bytes[this.top - 1] = 0;
+
+					if (inner.terminal != null) {
+						this.next = inner.terminal;
+						return;
+					}
+
+					continue;
+				}
+
+				int b = from > 255 ? -1 : inner.next(from);
+
+				if (b < 0) {
+					this.top--;
+					continue;
+				}
+
+				this.bytes[this.top - 1] = b + 1;
+
+				RNode child = inner.find(b);
+
+				if (child.isLeaf()) {
+					this.next = (Leaf) child;
+					return;
+				}
+
+				push((Inner) child);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		@Override
+		public E next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+
+			E value = this.next.value;
+
+			advance();
+			return value;
+		}
+	}
+
+	/**
+	 * A node of the tree.
+	 */
+	private abstract class RNode extends Node {
+		RNode(E value) {
+			super(null, value);
+		}
+
+		/**
+		 * @return true if this node is a leaf.
+		 */
+		abstract boolean isLeaf();
+	}
+
+	/**
+	 * A leaf, holding a key and its bytes.
+	 */
+	private final class Leaf extends RNode {
+		/**
+		 * The bytes of the key.
+		 */
+		final byte[] key;
+
+		Leaf(byte[] key, E value) {
+			super(value);
+			this.key = key;
+		}
+
+		@Override
+		boolean isLeaf() {
+			return true;
+		}
+	}
+
+	/**
+	 * An inner node: the bytes its keys share below its parent, the key that ends there if there is one, and
+	 * at least one child under each of the bytes that follow. The layouts differ in how they find a child by
+	 * its byte.
+	 */
+	private abstract class Inner extends RNode {
+		/**
+		 * The bytes every key under this node has after the byte of this node in its parent.
+		 */
+		byte[] prefix;
+
+		/**
+		 * The leaf whose key ends at this node; null if there is none.
+		 */
+		Leaf terminal;
+
+		/**
+		 * The number of children, not counting the terminal.
+		 */
+		int count;
+
+		Inner(byte[] prefix) {
+			super(null);
+			this.prefix = prefix;
+		}
+
+		@Override
+		boolean isLeaf() {
+			return false;
+		}
+
+		/**
+		 * @return the largest number of children.
+		 */
+		abstract int capacity();
+
+		/**
+		 * @param b a byte, unsigned.
+		 * @return the child under the byte; null if there is none.
+		 */
+		abstract RNode find(int b);
+
+		/**
+		 * @param b a byte, unsigned.
+		 * @return the least byte from it on that has a child; -1 if there is none.
+		 */
+		abstract int next(int b);
+
+		/**
+		 * Puts a child under a byte, replacing the child under it if there is one. There must be room for a
+		 * new one.
+		 *
+		 * @param b the byte, unsigned.
+		 * @param child the child.
+		 */
+		abstract void put(int b, RNode child);
+
+		/**
+		 * Removes the child under a byte, which must be there.
+		 *
+		 * @param b the byte, unsigned.
+		 */
+		abstract void delete(int b);
+
+		/**
+		 * @return a node of the next layout with the children of this one.
+		 */
+		abstract Inner grow();
+
+		/**
+		 * @return a node of the previous layout with the children of this one, if they are few enough;
+		 * otherwise this node.
+		 */
+		abstract Inner shrink();
+
+		final boolean isFull() {
+			return this.count == capacity();
+		}
+
+		/**
+		 * Copies the prefix, terminal and children of this node into another.
+		 *
+		 * @param into the other node, empty.
+		 * @return the other node.
+		 */
+		final Inner copyInto(Inner into) {
+			into.terminal = this.terminal;
+
+			for (int b = next(0); b >= 0; b = b == 255 ? -1 : next(b + 1)) {
+				into.put(b, find(b));
+			}
+
+			return into;
+		}
+	}
+
+	/**
+	 * A node of up to 4 children, with their bytes in a sorted array searched linearly. Also the base of
+	 * {@link Node16}, which only searches differently.
+	 */
+	private class Node4 extends Inner {
+		/**
+		 * The bytes of the children, unsigned and ascending.
+		 */
+		final byte[] keys;
+
+		/**
+		 * The children, in the order of their bytes.
+		 */
+		final RNode[] children;
+
+		Node4(byte[] prefix) {
+			this(prefix, 4);
+		}
+
+		Node4(byte[] prefix, int capacity) {
+			super(prefix);
+			this.keys = new byte[capacity];
+			this.children = (RNode[]) new RadixTree<?>.RNode[capacity];
+		}
+
+		@Override
+		int capacity() {
+			return this.keys.length;
+		}
+
+		/**
+		 * @param b a byte, unsigned.
+		 * @return the index of the byte; or <code>-(insertion point) - 1</code> if it is not there.
+		 */
+		int indexOf(int b) {
+			for (int i = 0; i < this.count; i++) {
+				int key = this.keys[i] & 0xff;
+
+				if (key >= b) {
+					return key == b ? i : -i - 1;
+				}
+			}
+
+			return -this.count - 1;
+		}
+
+		@Override
+		RNode find(int b) {
+			int i = indexOf(b);
+
+			return i < 0 ? null : this.children[i];
+		}
+
+		@Override
+		int next(int b) {
+			int i = indexOf(b);
+
+			if (i < 0) {
+				i = -i - 1;
+			}
+
+			return i == this.count ? -1 : this.keys[i] & 0xff;
+		}
+
+		@Override
+		void put(int b, RNode child) {
+			int i = indexOf(b);
+
+			if (i >= 0) {
+				this.children[i] = child;
+				return;
+			}
+
+			i = -i - 1;
+			System.arraycopy(this.keys, i, this.keys, i + 1, this.count - i);
+			System.arraycopy(this.children, i, this.children, i + 1, this.count - i);
+			this.keys[i] = (byte) b;
+			this.children[i] = child;
+			this.count++;
+		}
+
+		@Override
+		void delete(int b) {
+			int i = indexOf(b);
+
+			this.count--;
+			System.arraycopy(this.keys, i + 1, this.keys, i, this.count - i);
+			System.arraycopy(this.children, i + 1, this.children, i, this.count - i);
+			this.children[this.count] = null;
+		}
+
+		@Override
+		Inner grow() {
+			return copyInto(new Node16(this.prefix));
+		}
+
+		@Override
+		Inner shrink() {
+			return this;
+		}
+	}
+
+	/**
+	 * A node of up to 16 children, with their bytes in a sorted array searched by binary search.
+	 */
+	private final class Node16 extends Node4 {
+		Node16(byte[] prefix) {
+			super(prefix, 16);
+		}
+
+		@Override
+		int indexOf(int b) {
+			int lo = 0;
+			int hi = this.count - 1;
+
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int key = this.keys[mid] & 0xff;
+
+				if (key < b) {
+					lo = mid + 1;
+				} else if (key > b) {
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+
+			return -lo - 1;
+		}
+
+		@Override
+		Inner grow() {
+			return copyInto(new Node48(this.prefix));
+		}
+
+		@Override
+		Inner shrink() {
+			return this.count > 4 ? this : copyInto(new Node4(this.prefix));
+		}
+	}
+
+	/**
+	 * A node of up to 48 children, found through an index of one byte per possible byte.
+	 */
+	private final class Node48 extends Inner {
+		/**
+		 * One more than the slot of the child under each byte; 0 if there is none.
+		 */
+		final byte[] index = new byte[256];
+
+		/**
+		 * The children, in any order.
+		 */
+		final RNode[] children = (RNode[]) new RadixTree<?>.RNode[48];
+
+		Node48(byte[] prefix) {
+			super(prefix);
+		}
+
+		@Override
+		int capacity() {
+			return 48;
+		}
+
+		@Override
+		RNode find(int b) {
+			int slot = this.index[b];
+
+			return slot == 0 ? null : this.children[slot - 1];
+		}
+
+		@Override
+		int next(int b) {
+			for (; b < 256; b++) {
+				if (this.index[b] != 0) {
+					return b;
+				}
+			}
+
+			return -1;
+		}
+
+		@Override
+		void put(int b, RNode child) {
+			int slot = this.index[b];
+
+			if (slot == 0) {
+				while (this.children[slot] != null) {
+					slot++;
+				}
+
+				this.index[b] = (byte) (slot + 1);
+				this.count++;
+			} else {
+				slot--;
+			}
+
+			this.children[slot] = child;
+		}
+
+		@Override
+		void delete(int b) {
+			this.children[this.index[b] - 1] = null;
+			this.index[b] = 0;
+			this.count--;
+		}
+
+		@Override
+		Inner grow() {
+			return copyInto(new Node256(this.prefix));
+		}
+
+		@Override
+		Inner shrink() {
+			return this.count > 12 ? this : copyInto(new Node16(this.prefix));
+		}
+	}
+
+	/**
+	 * A node of up to 256 children, indexed by their bytes.
+	 */
+	private final class Node256 extends Inner {
+		/**
+		 * The children under each byte.
+		 */
+		final RNode[] children = (RNode[]) new RadixTree<?>.RNode[256];
+
+		Node256(byte[] prefix) {
+			super(prefix);
+		}
+
+		@Override
+		int capacity() {
+			return 256;
+		}
+
+		@Override
+		RNode find(int b) {
+			return this.children[b];
+		}
+
+		@Override
+		int next(int b) {
+			for (; b < 256; b++) {
+				if (this.children[b] != null) {
+					return b;
+				}
+			}
+
+			return -1;
+		}
+
+		@Override
+		void put(int b, RNode child) {
+			if (this.children[b] == null) {
+				this.count++;
+			}
+
+			this.children[b] = child;
+		}
+
+		@Override
+		void delete(int b) {
+			this.children[b] = null;
+			this.count--;
+		}
+
+		@Override
+		Inner grow() {
+			throw new IllegalStateException();
+		}
+
+		@Override
+		Inner shrink() {
+			return this.count > 40 ? this : copyInto(new Node48(this.prefix));
+		}
+	}
+}
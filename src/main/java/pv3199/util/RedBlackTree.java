@@ -0,0 +1,218 @@
+package pv3199.util;
+
+/**
+ * A {@link BinaryTree} kept balanced as a red-black tree: every node is red or black, a red node has no
+ * red child, and every path from a node down to a missing child passes as many black nodes. The height of
+ * a tree of <code>n</code> values is therefore at most <code>2 log n</code>.
+ * <p>
+ * Each insertion makes at most two rotations and each removal at most three, which makes updates cheaper
+ * than in an {@link AvlTree} at the price of a somewhat deeper tree.
+ *
+ * @param <E> a comparable data type
+ * @see AvlTree
+ */
+public class RedBlackTree<E extends Comparable<E>> extends BinaryTree<E> {
+	/**
+	 * Constructs an empty RedBlackTree.
+	 */
+	public RedBlackTree() {
+		super();
+	}
+
+	/**
+	 * Constructs a RedBlackTree, initializing its root with a given value.
+	 *
+	 * @param initialRoot value of the root.
+	 */
+	public RedBlackTree(E initialRoot) {
+		super(initialRoot);
+	}
+
+	@Override
+	protected BinaryNode newNode(BinaryNode parent, E value) {
+		return new RedBlackNode(parent, value);
+	}
+
+	@Override
+	protected void inserted(BinaryNode node) {
+		while (node != root && isRed(node.parent)) {
+			BinaryNode parent = (BinaryNode) node.parent;
+			BinaryNode grandparent = (BinaryNode) parent.parent;
+			boolean left = parent == grandparent.left;
+			BinaryNode uncle = left ? grandparent.right : grandparent.left;
+
+			if (isRed(uncle)) {
+				// push the grandparent's blackness down and continue above it
+				setRed(parent, false);
+				setRed(uncle, false);
+				setRed(grandparent, true);
+				node = grandparent;
+				continue;
+			}
+
+			if (node == (left ? parent.right : parent.left)) {
+				// turn the inner grandchild into an outer one
+				node = parent;
+				parent = left ? rotateLeft(node) : rotateRight(node);
+			}
+
+			setRed(parent, false);
+			setRed(grandparent, true);
+
+			if (left) {
+				rotateRight(grandparent);
+			} else {
+				rotateLeft(grandparent);
+			}
+		}
+
+		setRed((BinaryNode) root, false);
+	}
+
+	@Override
+	protected BinaryNode unlink(BinaryNode node) {
+		BinaryNode child;
+		BinaryNode parent;
+		boolean red = isRed(node);
+
+		if (node.left == null || node.right == null) {
+			child = node.left != null ? node.left : node.right;
+			parent = (BinaryNode) node.parent;
+			replace(node, child);
+		} else {
+			// move the successor into the node's place, taking on its color
+			BinaryNode successor = node.right;
+
+			while (successor.left != null) {
+				successor = successor.left;
+			}
+
+			red = isRed(successor);
+			child = successor.right;
+
+			if (successor.parent == node) {
+				parent = successor;
+			} else {
+				parent = (BinaryNode) successor.parent;
+				replace(successor, child);
+				successor.right = node.right;
+				successor.right.parent = successor;
+			}
+
+			replace(node, successor);
+			successor.left = node.left;
+			successor.left.parent = successor;
+			setRed(successor, isRed(node));
+		}
+
+		if (!red) {
+			fixRemoval(child, parent);
+		}
+
+		return parent;
+	}
+
+	/**
+	 * Restores the black heights after a black node was taken out from above a subtree, which is now one
+	 * black node short.
+	 *
+	 * @param node the root of the short subtree; may be null.
+	 * @param parent the parent of the short subtree; null if it is the whole tree.
+	 */
+	private void fixRemoval(BinaryNode node, BinaryNode parent) {
+		while (node != root && !isRed(node)) {
+			boolean left = node == parent.left;
+			BinaryNode sibling = left ? parent.right : parent.left;
+
+			if (isRed(sibling)) {
+				// make the sibling black so one of the cases below applies
+				setRed(sibling, false);
+				setRed(parent, true);
+
+				if (left) {
+					rotateLeft(parent);
+				} else {
+					rotateRight(parent);
+				}
+
+				sibling = left ? parent.right : parent.left;
+			}
+
+			BinaryNode near = left ? sibling.left : sibling.right;
+			BinaryNode far = left ? sibling.right : sibling.left;
+
+			if (!isRed(near) && !isRed(far)) {
+				// shorten the sibling's side too and move the shortage up
+				setRed(sibling, true);
+				node = parent;
+				parent = (BinaryNode) node.parent;
+				continue;
+			}
+
+			if (!isRed(far)) {
+				setRed(near, false);
+				setRed(sibling, true);
+				sibling = left ? rotateRight(sibling) : rotateLeft(sibling);
+				far = left ? sibling.right : sibling.left;
+			}
+
+			setRed(sibling, isRed(parent));
+			setRed(parent, false);
+			setRed(far, false);
+
+			if (left) {
+				rotateLeft(parent);
+			} else {
+				rotateRight(parent);
+			}
+
+			node = (BinaryNode) root;
+		}
+
+		setRed(node, false);
+	}
+
+	/**
+	 * Colors the nodes of a tree of the least height possible: the nodes of the lowest level red, if it is
+	 * not the root's, and all others black. Every path down to a missing child then passes the same number
+	 * of black nodes, since such paths end on the two lowest levels.
+	 */
+	@Override
+	protected void relinked(BinaryNode node, int depth, int height) {
+		setRed(node, depth > 0 && depth == height - 1);
+	}
+
+	/**
+	 * @param node a node; may be null.
+	 * @return true if the node is red; false if it is black or null.
+	 */
+	private boolean isRed(Node node) {
+		return node != null && ((RedBlackNode) node).red;
+	}
+
+	/**
+	 * Colors a node.
+	 *
+	 * @param node the node; nothing is done if it is null.
+	 * @param red true for red, false for black.
+	 */
+	private void setRed(BinaryNode node, boolean red) {
+		if (node != null) {
+			((RedBlackNode) node).red = red;
+		}
+	}
+
+	/**
+	 * A node with a color.
+	 */
+	private final class RedBlackNode extends BinaryNode {
+		/**
+		 * True if the node is red; new nodes are red.
+		 */
+		private boolean red = true;
+
+		RedBlackNode(BinaryNode parent, E value) {
+			super(parent, value);
+		}
+	}
+}
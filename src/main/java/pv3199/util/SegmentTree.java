@@ -0,0 +1,326 @@
+package pv3199.util;
+
+/**
+ * A segment tree over an array of <code>long</code> values, answering sum, minimum and maximum queries over
+ * a range and adding to a range of values, each in <code>O(log n)</code> time. Every node covers a range of
+ * the values and keeps their sum, minimum and maximum; a range is covered by <code>O(log n)</code> nodes.
+ * <p>
+ * Additions to a range are propagated lazily: a node covered by the whole range takes the addition into its
+ * aggregates and keeps it as pending for its children, which receive it only when a later operation goes
+ * below the node.
+ * <p>
+ * The nodes are stored in one array, the root at index 1 and the children of node <code>i</code> at
+ * <code>2i</code> and <code>2i + 1</code>. Indices of values are counted from 0, and ranges include their
+ * start and exclude their end. Sums that overflow wrap around.
+ *
+ * @see FenwickTree
+ */
+public class SegmentTree {
+	/**
+	 * The offsets of the fields of a node: the sum, minimum and maximum of the values under it, and the
+	 * amount still to add to every value under its children, 0 if there is none.
+	 */
+	private final static int SUM = 0;
+	private final static int MIN = 1;
+	private final static int MAX = 2;
+	private final static int PENDING = 3;
+
+	/**
+	 * The number of fields of a node.
+	 */
+	private final static int FIELDS = 4;
+
+	/**
+	 * The number of values.
+	 */
+	private final int size;
+
+	/**
+	 * The fields of the nodes, those of node <code>i</code> from <code>FIELDS * i</code>. Keeping them
+	 * together makes a visit to a node one cache miss rather than one per field.
+	 */
+	private final long[] nodes;
+
+	/**
+	 * Constructs a SegmentTree of zeros.
+	 *
+	 * @param size the number of values.
+	 * @throws IllegalArgumentException if the size is negative
+	 */
+	public SegmentTree(int size) throws IllegalArgumentException {
+		this(new long[checkSize(size)]);
+	}
+
+	/**
+	 * Constructs a SegmentTree of the values of an array in <code>O(n)</code>.
+	 *
+	 * @param values the values; the array is not modified.
+	 */
+	public SegmentTree(long[] values) {
+		this.size = values.length;
+
+		// splitting ranges in half makes the tree no deeper than a perfect one over the next power of two
+		int nodes = 2 * (Integer.highestOneBit(Math.max(1, this.size - 1)) << 1);
+
+		this.nodes = new long[FIELDS * nodes];
+
+		if (this.size > 0) {
+			build(values, 1, 0, this.size);
+		}
+	}
+
+	/**
+	 * @param size a size.
+	 * @return the size.
+	 * @throws IllegalArgumentException if the size is negative
+	 */
+	private static int checkSize(int size) throws IllegalArgumentException {
+		if (size < 0) {
+			throw new IllegalArgumentException("negative size");
+		}
+
+		return size;
+	}
+
+	/**
+	 * Builds the subtree of a node from the values it covers.
+	 *
+	 * @param values the values.
+	 * @param node the node.
+	 * @param lo the start of its range.
+	 * @param hi the end of its range.
+	 */
+	private void build(long[] values, int node, int lo, int hi) {
+		if (hi - lo == 1) {
+			int at = FIELDS * node;
+
+			this.nodes[at + SUM] = this.nodes[at + MIN] = this.nodes[at + MAX] = values[lo];
+			return;
+		}
+
+		int mid = (lo + hi) >>> 1;
+
+		build(values, 2 * node, lo, mid);
+		build(values, 2 * node + 1, mid, hi);
+		pull(node);
+	}
+
+	/**
+	 * @return the number of values.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @param index the index of a value.
+	 * @return the value.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+	 */
+	public long get(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + this.size);
+		}
+
+		return sum(index, index + 1);
+	}
+
+	/**
+	 * Sets a value.
+	 *
+	 * @param index the index of the value.
+	 * @param value the new value.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+	 */
+	public void set(int index, long value) throws IndexOutOfBoundsException {
+		add(index, index + 1, value - get(index));
+	}
+
+	/**
+	 * Adds an amount to every value in a range.
+	 *
+	 * @param from the start of the range, inclusive.
+	 * @param to the end of the range, exclusive.
+	 * @param delta the amount.
+	 * @throws IndexOutOfBoundsException if the range is not within the values, or ends before it starts
+	 */
+	public void add(int from, int to, long delta) throws IndexOutOfBoundsException {
+		checkRange(from, to);
+
+		if (from < to && delta != 0) {
+			add(1, 0, this.size, from, to, delta);
+		}
+	}
+
+	/**
+	 * Adds an amount to the part of a range under a node, which must overlap it.
+	 *
+	 * @param node the node.
+	 * @param lo the start of the range of the node.
+	 * @param hi the end of the range of the node.
+	 * @param from the start of the range to add to.
+	 * @param to the end of the range to add to.
+	 * @param delta the amount.
+	 */
+	private void add(int node, int lo, int hi, int from, int to, long delta) {
+		if (from <= lo && hi <= to) {
+			apply(node, hi - lo, delta);
+			return;
+		}
+
+		int mid = (lo + hi) >>> 1;
+
+		push(node, lo, mid, hi);
+
+		if (from < mid) {
+			add(2 * node, lo, mid, from, to, delta);
+		}
+
+		if (to > mid) {
+			add(2 * node + 1, mid, hi, from, to, delta);
+		}
+
+		pull(node);
+	}
+
+	/**
+	 * @param from the start of the range, inclusive.
+	 * @param to the end of the range, exclusive.
+	 * @return the sum of the values in the range; 0 if it is empty.
+	 * @throws IndexOutOfBoundsException if the range is not within the values, or ends before it starts
+	 */
+	public long sum(int from, int to) throws IndexOutOfBoundsException {
+		checkRange(from, to);
+
+		return from == to ? 0 : query(SUM, 1, 0, this.size, from, to);
+	}
+
+	/**
+	 * @param from the start of the range, inclusive.
+	 * @param to the end of the range, exclusive.
+	 * @return the least value in the range.
+	 * @throws IndexOutOfBoundsException if the range is not within the values, or ends before it starts
+	 * @throws IllegalArgumentException if the range is empty
+	 */
+	public long min(int from, int to) throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkRange(from, to);
+
+		if (from == to) {
+			throw new IllegalArgumentException("empty range");
+		}
+
+		return query(MIN, 1, 0, this.size, from, to);
+	}
+
+	/**
+	 * @param from the start of the range, inclusive.
+	 * @param to the end of the range, exclusive.
+	 * @return the greatest value in the range.
+	 * @throws IndexOutOfBoundsException if the range is not within the values, or ends before it starts
+	 * @throws IllegalArgumentException if the range is empty
+	 */
+	public long max(int from, int to) throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkRange(from, to);
+
+		if (from == to) {
+			throw new IllegalArgumentException("empty range");
+		}
+
+		return query(MAX, 1, 0, this.size, from, to);
+	}
+
+	/**
+	 * Computes an aggregate over the part of a range under a node, which must overlap it.
+	 *
+	 * @param aggregate {@link #SUM}, {@link #MIN} or {@link #MAX}.
+	 * @param node the node.
+	 * @param lo the start of the range of the node.
+	 * @param hi the end of the range of the node.
+	 * @param from the start of the range queried.
+	 * @param to the end of the range queried.
+	 * @return the aggregate.
+	 */
+	private long query(int aggregate, int node, int lo, int hi, int from, int to) {
+		if (from <= lo && hi <= to) {
+			return this.nodes[FIELDS * node + aggregate];
+		}
+
+		int mid = (lo + hi) >>> 1;
+
+		push(node, lo, mid, hi);
+
+		if (to <= mid) {
+			return query(aggregate, 2 * node, lo, mid, from, to);
+		} else if (from >= mid) {
+			return query(aggregate, 2 * node + 1, mid, hi, from, to);
+		}
+
+		long left = query(aggregate, 2 * node, lo, mid, from, to);
+		long right = query(aggregate, 2 * node + 1, mid, hi, from, to);
+
+		return aggregate == SUM ? left + right : aggregate == MIN ? Math.min(left, right) : Math.max(left, right);
+	}
+
+	/**
+	 * Adds an amount to every value under a node, keeping it pending for the children.
+	 *
+	 * @param node the node.
+	 * @param count the number of values under it.
+	 * @param delta the amount.
+	 */
+	private void apply(int node, int count, long delta) {
+		int at = FIELDS * node;
+
+		this.nodes[at + SUM] += delta * count;
+		this.nodes[at + MIN] += delta;
+		this.nodes[at + MAX] += delta;
+
+		if (count > 1) {
+			this.nodes[at + PENDING] += delta;
+		}
+	}
+
+	/**
+	 * Hands the pending addition of a node down to its children.
+	 *
+	 * @param node the node.
+	 * @param lo the start of its range.
+	 * @param mid the start of the range of its right child.
+	 * @param hi the end of its range.
+	 */
+	private void push(int node, int lo, int mid, int hi) {
+		long delta = this.nodes[FIELDS * node + PENDING];
+
+		if (delta != 0) {
+			apply(2 * node, mid - lo, delta);
+			apply(2 * node + 1, hi - mid, delta);
+			this.nodes[FIELDS * node + PENDING] = 0;
+		}
+	}
+
+	/**
+	 * Recomputes the aggregates of a node from those of its children.
+	 *
+	 * @param node the node.
+	 */
+	private void pull(int node) {
+		int at = FIELDS * node;
+		int left = 2 * at;
+		int right = left + FIELDS;
+
+		this.nodes[at + SUM] = this.nodes[left + SUM] + this.nodes[right + SUM];
+		this.nodes[at + MIN] = Math.min(this.nodes[left + MIN], this.nodes[right + MIN]);
+		this.nodes[at + MAX] = Math.max(this.nodes[left + MAX], this.nodes[right + MAX]);
+	}
+
+	/**
+	 * @param from the start of a range, inclusive.
+	 * @param to the end of the range, exclusive.
+	 * @throws IndexOutOfBoundsException if the range is not within the values, or ends before it starts
+	 */
+	private void checkRange(int from, int to) throws IndexOutOfBoundsException {
+		if (from < 0 || to > this.size || from > to) {
+			throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", size: " + this.size);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package pv3199.util;
 
 import java.lang.reflect.Array;
+import java.util.function.Consumer;
 
 public class SortedLinkedList<E> implements DataStructure<E> {
 	private final static int NOT_AVAILABLE = 0b0;
@@ -136,6 +137,19 @@ public class SortedLinkedList<E> implements DataStructure<E> {
 		return getLink(index).value;
 	}
 	
+	/**
+	 * Performs an action on each element in ascending order, following the links rather than looking up each
+	 * index.
+	 *
+	 * @param action the consumer operation to apply to each element.
+	 */
+	@Override
+	public void forEach(Consumer<E> action) {
+		for (Link link = this.start; link != null; link = link.next) {
+			action.accept(link.value);
+		}
+	}
+	
 	/**
 	 * Gets the link at the particular index.
 	 *
@@ -0,0 +1,173 @@
+package pv3199.util;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * A bounded, streaming top-K aggregator of <code>(long id, double score)</code> pairs. It keeps the K
+ * highest pairs seen so far in a {@link LongDoubleHeap} whose root is the lowest of them, so it holds
+ * <code>O(K)</code> memory however many pairs are offered. A pair that does not beat the root is rejected
+ * after a single comparison; one that does replaces the root in <code>O(log K)</code>.
+ * <p>
+ * Pairs are ranked by score, and tied pairs in favour of the lower id, so the result does not depend on the order
+ * in which pairs are offered. Ids are not deduplicated: offering the same id twice ranks two pairs.
+ * <p>
+ * Aggregators are not thread-safe, but partial results from different threads can be {@link #merge(TopK)
+ * merged}; {@link #collector(int, ToLongFunction, ToDoubleFunction)} does this for parallel streams.
+ */
+public class TopK {
+	/**
+	 * The number of pairs to keep.
+	 */
+	private final int k;
+
+	/**
+	 * The kept pairs, lowest at the root.
+	 */
+	private final LongDoubleHeap heap;
+
+	/**
+	 * Constructs an empty aggregator.
+	 *
+	 * @param k the number of pairs to keep.
+	 * @throws IllegalArgumentException if k is not positive
+	 */
+	public TopK(int k) throws IllegalArgumentException {
+		if (k <= 0) {
+			throw new IllegalArgumentException("non-positive k");
+		}
+
+		this.k = k;
+		this.heap = new LongDoubleHeap(Math.min(k, 1 << 10));
+	}
+
+	/**
+	 * Creates a collector that aggregates the top K elements of a stream by score. Parallel streams
+	 * aggregate each part separately and merge the parts.
+	 *
+	 * @param k the number of elements to keep.
+	 * @param id the function giving the id of an element.
+	 * @param score the function giving the score of an element.
+	 * @param <T> the type of elements in the stream.
+	 * @return the collector.
+	 * @throws IllegalArgumentException if k is not positive
+	 */
+	public static <T> Collector<T, TopK, TopK> collector(int k, ToLongFunction<T> id, ToDoubleFunction<T> score) throws IllegalArgumentException {
+		if (k <= 0) {
+			throw new IllegalArgumentException("non-positive k");
+		} else if (id == null || score == null) {
+			throw new NullPointerException();
+		}
+
+		return Collector.of(
+				() -> new TopK(k),
+				(top, e) -> top.offer(id.applyAsLong(e), score.applyAsDouble(e)),
+				TopK::merge,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Offers a pair to the aggregator.
+	 *
+	 * @param id the id.
+	 * @param score the score.
+	 * @return true if the pair is among the top K so far.
+	 * @throws IllegalArgumentException if the score is NaN
+	 */
+	public boolean offer(long id, double score) throws IllegalArgumentException {
+		if (this.heap.size() < this.k) {
+			this.heap.add(id, score);
+			return true;
+		} else if (LongDoubleHeap.compare(id, score, this.heap.peekId(), this.heap.peekScore()) <= 0) {
+			return false;
+		}
+
+		this.heap.replaceTop(id, score);
+		return true;
+	}
+
+	/**
+	 * Offers every pair kept by another aggregator to this one.
+	 *
+	 * @param other the other aggregator.
+	 * @return this aggregator.
+	 */
+	public TopK merge(TopK other) {
+		LongDoubleHeap h = other.heap;
+
+		for (int i = 0; i < h.size(); i++) {
+			offer(h.idAt(i), h.scoreAt(i));
+		}
+
+		return this;
+	}
+
+	/**
+	 * @return the number of pairs to keep.
+	 */
+	public final int k() {
+		return this.k;
+	}
+
+	/**
+	 * @return the number of pairs kept; at most K.
+	 */
+	public int size() {
+		return this.heap.size();
+	}
+
+	/**
+	 * @return the score a pair must beat to be kept, which is the lowest kept score once K pairs are kept;
+	 * negative infinity until then.
+	 */
+	public double threshold() {
+		return this.heap.size() < this.k ? Double.NEGATIVE_INFINITY : this.heap.peekScore();
+	}
+
+	/**
+	 * @return the ids of the kept pairs, highest first.
+	 */
+	public long[] ids() {
+		long[] ids = new long[size()];
+		sorted(ids, null);
+		return ids;
+	}
+
+	/**
+	 * @return the scores of the kept pairs, highest first.
+	 */
+	public double[] scores() {
+		double[] scores = new double[size()];
+		sorted(null, scores);
+		return scores;
+	}
+
+	/**
+	 * Copies the kept pairs, highest first, by draining a copy of the heap.
+	 *
+	 * @param ids the array of ids to fill, or null.
+	 * @param scores the array of scores to fill, or null.
+	 */
+	private void sorted(long[] ids, double[] scores) {
+		int n = this.heap.size();
+		LongDoubleHeap copy = new LongDoubleHeap(Math.max(1, n));
+
+		for (int i = 0; i < n; i++) {
+			copy.add(this.heap.idAt(i), this.heap.scoreAt(i));
+		}
+
+		for (int i = n - 1; i >= 0; i--) {
+			if (scores != null) {
+				scores[i] = copy.peekScore();
+			}
+
+			long id = copy.pop();
+
+			if (ids != null) {
+				ids[i] = id;
+			}
+		}
+	}
+}
@@ -1,8 +1,25 @@
 package pv3199.util;
 
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
+/**
+ * A {@link Hashtable} that ignores elements it already contains.
+ * <p>
+ * A table can optionally be fronted by a {@link MembershipFilter}. Every added element is also recorded
+ * in the filter, and when the filter reports a new element as definitely absent, the table skips the
+ * probe for a duplicate. This pays off when most added elements are new. Removed elements are not removed
+ * from the filter, which only makes it answer "maybe" more often. If the filter becomes too full to
+ * record an element, the table stops using it.
+ *
+ * @param <E> the type of elements in this table.
+ */
 public class UniqueHashtable<E> extends Hashtable<E> {
+	/**
+	 * The filter fronting this table, or null if there is none.
+	 */
+	private MembershipFilter<E> filter;
+
 	public UniqueHashtable() {
 		super();
 	}
@@ -18,12 +35,98 @@ public class UniqueHashtable<E> extends Hashtable<E> {
 	public UniqueHashtable(Function<E, Integer> hashFunction, int initSize) {
 		super(hashFunction, initSize);
 	}
+
+	/**
+	 * Constructs an empty table fronted by a filter. The filter should be empty and sized for the number
+	 * of elements the table is expected to hold.
+	 *
+	 * @param hashFunction the hashing function for this hashtable.
+	 * @param initSize the initial capacity of the table.
+	 * @param filter the filter to record every added element in.
+	 * @throws IllegalArgumentException if the initial size is not positive
+	 */
+	public UniqueHashtable(Function<E, Integer> hashFunction, int initSize, MembershipFilter<E> filter) throws IllegalArgumentException {
+		super(hashFunction, initSize);
+
+		if (filter == null) {
+			throw new NullPointerException();
+		}
+
+		this.filter = filter;
+	}
+
+	/**
+	 * Builds a table of the distinct elements of an array in parallel on the common {@link ForkJoinPool}.
+	 *
+	 * @param elements the non-null elements.
+	 * @param hashFunction the hashing function for the table.
+	 * @param <E> the type of elements in the table.
+	 * @return a table holding the first of each group of equal elements.
+	 * @see #build(Object[], Function, ForkJoinPool)
+	 */
+	public static <E> UniqueHashtable<E> build(E[] elements, Function<E, Integer> hashFunction) {
+		return build(elements, hashFunction, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Builds a table of the distinct elements of an array in parallel, as described in
+	 * {@link Hashtable#build(Object[], Function, ForkJoinPool)}. Equal elements hash to the same region, so
+	 * duplicates are found by the task filling that region. Only the first of each group of equal elements
+	 * is kept, and the positions of the others are left as holes that are compacted away when the table
+	 * next grows.
+	 *
+	 * @param elements the non-null elements.
+	 * @param hashFunction the hashing function for the table; it must be safe to call from multiple threads.
+	 * @param pool the pool to run the build on.
+	 * @param <E> the type of elements in the table.
+	 * @return a table holding the first of each group of equal elements.
+	 */
+	public static <E> UniqueHashtable<E> build(E[] elements, Function<E, Integer> hashFunction, ForkJoinPool pool) {
+		UniqueHashtable<E> table = new UniqueHashtable<>(hashFunction, Math.max(1, elements.length));
+
+		table.load(elements, true, pool);
+
+		return table;
+	}
+
+	/**
+	 * @return the filter fronting this table, or null if there is none.
+	 */
+	public final MembershipFilter<E> filter() {
+		return this.filter;
+	}
 	
 	public void add(E element) {
+		if (this.filter != null && element != null && !this.filter.mightContain(element)) {
+			// definitely new, so there is no duplicate to probe for
+			super.add(element);
+
+			if (!this.filter.add(element)) {
+				this.filter = null;
+			}
+
+			return;
+		}
+
 		if (this.contains(element)) {
 			return;
 		}
 		
 		super.add(element);
+
+		if (this.filter != null && !this.filter.add(element)) {
+			this.filter = null;
+		}
+	}
+
+	@Override
+	public UniqueHashtable<E> clone() {
+		UniqueHashtable<E> ht = (UniqueHashtable<E>) super.clone();
+
+		if (this.filter != null) {
+			ht.filter = this.filter.clone();
+		}
+
+		return ht;
 	}
 }
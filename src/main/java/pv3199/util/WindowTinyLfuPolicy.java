@@ -0,0 +1,162 @@
+package pv3199.util;
+
+/**
+ * W-TinyLFU eviction. New entries enter an LRU window holding 1% of the cache. The rest of the cache is a
+ * segmented LRU: entries admitted from the window start in a probation segment and are promoted to a
+ * protected segment (80% of the main space) when accessed again. When the window overflows, its least
+ * recent entry competes with the least recent probation entry, and whichever a {@link FrequencySketch}
+ * estimates to be used less often is evicted.
+ *
+ * @param <K> the type of keys in the cache.
+ */
+final class WindowTinyLfuPolicy<K> extends EvictionPolicy<K> {
+	private final static int WINDOW = 0;
+	private final static int PROBATION = 1;
+	private final static int PROTECTED = 2;
+
+	private final EntryList window = new EntryList();
+	private final EntryList probation = new EntryList();
+	private final EntryList protectedList = new EntryList();
+
+	/**
+	 * The access frequency sketch, sized from the cache in {@link #init(int)}.
+	 */
+	private FrequencySketch sketch;
+
+	/**
+	 * The maximum size of the cache.
+	 */
+	private int maximumSize;
+
+	@Override
+	protected void init(int maximumSize) {
+		this.maximumSize = maximumSize;
+		this.sketch = new FrequencySketch(maximumSize);
+	}
+
+	@Override
+	protected void onInsert(Cache.Entry<K, ?> e) {
+		record(e.getKey());
+		this.window.addFirst(e);
+		e.segment = WINDOW;
+	}
+
+	@Override
+	protected void onAccess(Cache.Entry<K, ?> e) {
+		record(e.getKey());
+
+		if (e.segment == WINDOW) {
+			this.window.moveToFront(e);
+		} else if (e.segment == PROTECTED) {
+			this.protectedList.moveToFront(e);
+		} else {
+			// a second access while on probation earns a place in the protected segment
+			this.probation.remove(e);
+			this.protectedList.addFirst(e);
+			e.segment = PROTECTED;
+
+			int protectedMax = mainMax() - mainMax() / 5;
+			if (this.protectedList.size > protectedMax) {
+				Cache.Entry<?, ?> demoted = this.protectedList.tail;
+				this.protectedList.remove(demoted);
+				this.probation.addFirst(demoted);
+				demoted.segment = PROBATION;
+			}
+		}
+	}
+
+	@Override
+	protected void onMiss(K key) {
+		record(key);
+	}
+
+	@Override
+	protected void onRemove(Cache.Entry<K, ?> e) {
+		listOf(e).remove(e);
+	}
+
+	@Override
+	protected Cache.Entry<K, ?> victim(int maximumSize) {
+		int windowMax = windowMax();
+		int mainMax = mainMax();
+
+		// move overflowing window entries into probation until the main space overflows
+		while (this.window.size > windowMax) {
+			Cache.Entry<K, ?> candidate = (Cache.Entry<K, ?>) this.window.tail;
+			this.window.remove(candidate);
+
+			Cache.Entry<K, ?> victim = (Cache.Entry<K, ?>) (this.probation.tail != null ? this.probation.tail : this.protectedList.tail);
+
+			this.probation.addFirst(candidate);
+			candidate.segment = PROBATION;
+
+			if (this.probation.size + this.protectedList.size > mainMax) {
+				if (victim == null) {
+					return candidate;
+				}
+
+				return frequency(candidate.getKey()) > frequency(victim.getKey()) ? victim : candidate;
+			}
+		}
+
+		if (this.probation.tail != null) {
+			return (Cache.Entry<K, ?>) this.probation.tail;
+		} else if (this.protectedList.tail != null) {
+			return (Cache.Entry<K, ?>) this.protectedList.tail;
+		}
+
+		return (Cache.Entry<K, ?>) this.window.tail;
+	}
+
+	@Override
+	protected void clear() {
+		this.window.clear();
+		this.probation.clear();
+		this.protectedList.clear();
+
+		if (this.sketch != null) {
+			this.sketch.clear();
+		}
+	}
+
+	/**
+	 * @return the maximum size of the window.
+	 */
+	private int windowMax() {
+		return Math.max(1, this.maximumSize / 100);
+	}
+
+	/**
+	 * @return the maximum size of the probation and protected segments combined.
+	 */
+	private int mainMax() {
+		return this.maximumSize - windowMax();
+	}
+
+	/**
+	 * @param e an entry.
+	 * @return the segment holding the entry.
+	 */
+	private EntryList listOf(Cache.Entry<?, ?> e) {
+		return e.segment == WINDOW ? this.window : e.segment == PROBATION ? this.probation : this.protectedList;
+	}
+
+	/**
+	 * Records an access of a key in the sketch.
+	 *
+	 * @param key the key.
+	 */
+	private void record(K key) {
+		if (this.sketch != null) {
+			this.sketch.increment(key.hashCode());
+		}
+	}
+
+	/**
+	 * @param key a key.
+	 * @return the estimated recent access frequency of the key.
+	 */
+	private int frequency(K key) {
+		return this.sketch.frequency(key.hashCode());
+	}
+}
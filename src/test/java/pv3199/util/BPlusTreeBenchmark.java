@@ -0,0 +1,148 @@
+package pv3199.util;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Compares {@link BPlusTree} at several fan-outs with {@link BinaryTree} and {@link TreeMap} on a million
+ * keys: adding them in random order, looking them up in another random order, and scanning ranges of a
+ * thousand keys. The B+tree is also bulk loaded from the sorted keys.
+ * <p>
+ * Each cell is the best of several rounds after warm-up, in nanoseconds per key. Not run as part of the
+ * test suite; run its {@link #main(String[])} directly.
+ */
+public class BPlusTreeBenchmark {
+	private final static int SIZE = 1_000_000;
+	private final static int SCANS = 1_000;
+	private final static int SCAN_LENGTH = 1_000;
+	private final static int ROUNDS = 5;
+	private final static int[] FAN_OUTS = { 16, 64, 256 };
+
+	/**
+	 * Keeps the JIT from dropping work whose result is unused.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) {
+		Random random = new Random(44);
+		Integer[] sorted = new Integer[SIZE];
+		Integer[] inserts = new Integer[SIZE];
+		Integer[] lookups = new Integer[SIZE];
+		int[] scans = new int[SCANS];
+
+		for (int i = 0; i < SIZE; i++) {
+			sorted[i] = i;
+			inserts[i] = i;
+			lookups[i] = i;
+		}
+
+		shuffle(inserts, random);
+		shuffle(lookups, random);
+
+		for (int i = 0; i < SCANS; i++) {
+			scans[i] = random.nextInt(SIZE - SCAN_LENGTH);
+		}
+
+		System.out.printf("%-14s %10s %10s %10s %10s%n", "structure", "add", "contains", "scan", "bulk load");
+
+		for (int fanOut : FAN_OUTS) {
+			BPlusTree<Integer>[] tree = new BPlusTree[1];
+
+			double add = best(() -> {
+				tree[0] = new BPlusTree<>(fanOut);
+
+				for (Integer key : inserts) {
+					tree[0].add(key);
+				}
+			}, SIZE);
+			double contains = best(() -> {
+				for (Integer key : lookups) {
+					sink += tree[0].contains(key) ? 1 : 0;
+				}
+			}, SIZE);
+			double scan = best(() -> {
+				for (int start : scans) {
+					tree[0].forEachInRange(start, start + SCAN_LENGTH, key -> sink += key);
+				}
+			}, SCANS * SCAN_LENGTH);
+			double load = best(() -> sink += BPlusTree.bulkLoad(sorted, fanOut).size(), SIZE);
+
+			System.out.printf("%-14s %10.1f %10.1f %10.1f %10.1f%n", "b+tree " + fanOut, add, contains, scan, load);
+		}
+
+		BinaryTree<Integer>[] binary = new BinaryTree[1];
+
+		System.out.printf("%-14s %10.1f %10.1f %10.1f %10s%n", "BinaryTree",
+				best(() -> {
+					binary[0] = new BinaryTree<>();
+
+					for (Integer key : inserts) {
+						binary[0].add(key);
+					}
+				}, SIZE),
+				best(() -> {
+					for (Integer key : lookups) {
+						sink += binary[0].contains(key) ? 1 : 0;
+					}
+				}, SIZE),
+				best(() -> {
+					for (int start : scans) {
+						binary[0].forEachInRange(start, start + SCAN_LENGTH, key -> sink += key);
+					}
+				}, SCANS * SCAN_LENGTH),
+				"-");
+
+		TreeMap<Integer, Integer>[] map = new TreeMap[1];
+
+		System.out.printf("%-14s %10.1f %10.1f %10.1f %10s%n", "TreeMap",
+				best(() -> {
+					map[0] = new TreeMap<>();
+
+					for (Integer key : inserts) {
+						map[0].put(key, key);
+					}
+				}, SIZE),
+				best(() -> {
+					for (Integer key : lookups) {
+						sink += map[0].containsKey(key) ? 1 : 0;
+					}
+				}, SIZE),
+				best(() -> {
+					for (int start : scans) {
+						for (Integer key : map[0].subMap(start, start + SCAN_LENGTH).keySet()) {
+							sink += key;
+						}
+					}
+				}, SCANS * SCAN_LENGTH),
+				"-");
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * @return the best time of a run over several rounds, per operation.
+	 */
+	private static double best(Runnable run, int operations) {
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return (double) best / operations;
+	}
+
+	private static void shuffle(Integer[] array, Random random) {
+		for (int i = array.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Integer t = array[i];
+
+			array[i] = array[j];
+			array[j] = t;
+		}
+	}
+}
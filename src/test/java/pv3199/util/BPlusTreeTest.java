@@ -0,0 +1,201 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BPlusTreeTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	@Test
+	public void constructorTest() {
+		assertEquals(0, new BPlusTree<Integer>().size());
+		assertEquals(BPlusTree.DEFAULT_FAN_OUT, new BPlusTree<Integer>().fanOut());
+		assertThrows(IAE, () -> new BPlusTree<Integer>(2));
+		assertThrows(IAE, () -> BPlusTree.bulkLoad(new Integer[]{ 2, 1 }, 4));
+		assertThrows(NullPointerException.class, () -> new BPlusTree<Integer>().add(null));
+	}
+
+	@Test
+	public void metricsTest() {
+		BPlusTree<Integer> tree = BPlusTree.bulkLoad(range(0, 10), 4);
+
+		// leaves of 3, 3, 2 and 2 values under one root
+		assertEquals(10, tree.size());
+		assertEquals(2, tree.height());
+		assertEquals(4, tree.leafCount());
+		assertEquals(1, tree.internalNodes());
+		assertEquals(4, tree.internalPathLength());
+
+		BPlusTree<Integer> empty = new BPlusTree<>(4);
+
+		assertEquals(0, empty.height());
+		assertEquals(0, empty.leafCount());
+		assertEquals(0, empty.internalNodes());
+		assertEquals(0, empty.internalPathLength());
+		assertFalse(empty.contains(1));
+		assertFalse(empty.remove(1));
+		assertFalse(empty.iterator().hasNext());
+	}
+
+	@Test
+	public void randomTest() {
+		for (int fanOut : new int[]{ 3, 4, 5, 8, 64 }) {
+			Random random = new Random(fanOut);
+			BPlusTree<Integer> tree = new BPlusTree<>(fanOut);
+			TreeMap<Integer, Integer> counts = new TreeMap<>();
+
+			for (int step = 0; step < 100_000; step++) {
+				int key = random.nextInt(2_000);
+
+				if (random.nextInt(5) < 3) {
+					tree.add(key);
+					counts.merge(key, 1, Integer::sum);
+				} else {
+					assertEquals(counts.containsKey(key), tree.remove(key));
+					counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+				}
+
+				if (step % 5_000 == 0) {
+					check(tree, counts, fanOut);
+				}
+			}
+
+			check(tree, counts, fanOut);
+
+			while (!counts.isEmpty()) {
+				int key = counts.firstKey();
+
+				assertTrue(tree.remove(key));
+				counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+			}
+
+			assertEquals(0, tree.size());
+			assertEquals(0, tree.height());
+			assertEquals(0, tree.leafCount());
+		}
+	}
+
+	@Test
+	public void bulkLoadTest() {
+		for (int n : new int[]{ 0, 1, 2, 3, 4, 5, 63, 64, 65, 1_000, 100_000 }) {
+			BPlusTree<Integer> loaded = BPlusTree.bulkLoad(range(0, n), 4);
+			BPlusTree<Integer> packed = BPlusTree.bulkLoad(range(0, n), 64);
+
+			assertEquals(n, loaded.size());
+			assertEquals(toList(range(0, n)), toList(loaded));
+			assertEquals(toList(range(0, n)), toList(packed));
+
+			for (int i = 0; i < n; i += 7) {
+				assertTrue(loaded.contains(i));
+			}
+
+			assertFalse(loaded.contains(n));
+
+			// the loaded tree stays valid under updates
+			for (int i = 0; i < n; i += 2) {
+				assertTrue(loaded.remove(i));
+				loaded.add(i);
+				loaded.add(i);
+			}
+
+			assertEquals(n + (n + 1) / 2, loaded.size());
+		}
+
+		assertTrue(BPlusTree.bulkLoad(range(0, 1_000), 8).equals(BPlusTree.bulkLoad(range(0, 1_000), 8)));
+		assertFalse(BPlusTree.bulkLoad(range(0, 1_000), 8).equals(BPlusTree.bulkLoad(range(0, 1_000), 16)));
+		assertFalse(BPlusTree.bulkLoad(range(0, 1_000), 8).equals(BPlusTree.bulkLoad(range(1, 1_001), 8)));
+	}
+
+	@Test
+	public void duplicateTest() {
+		BPlusTree<Integer> tree = new BPlusTree<>(3);
+
+		for (int i = 0; i < 100; i++) {
+			tree.add(i % 3);
+		}
+
+		List<Integer> values = toList(tree);
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i < 34 ? 0 : i < 67 ? 1 : 2, (int) values.get(i));
+		}
+
+		for (int i = 0; i < 33; i++) {
+			assertTrue(tree.remove(1));
+		}
+
+		assertFalse(tree.remove(1));
+		assertTrue(tree.contains(0));
+		assertTrue(tree.contains(2));
+	}
+
+	@Test
+	public void rangeTest() {
+		BPlusTree<Integer> tree = BPlusTree.bulkLoad(range(0, 10_000), 16);
+		List<Integer> values = new ArrayList<>();
+
+		tree.forEachInRange(9_990, 20_000, values::add);
+		assertEquals(toList(range(9_990, 10_000)), values);
+
+		values.clear();
+		tree.forEachInRange(-5, 3, values::add);
+		tree.forEachInRange(5, 5, values::add);
+		assertEquals(toList(range(0, 3)), values);
+	}
+
+	/**
+	 * Checks the values of a tree against counts of each, and the node metrics against their bounds.
+	 */
+	private static void check(BPlusTree<Integer> tree, TreeMap<Integer, Integer> counts, int fanOut) {
+		List<Integer> expected = new ArrayList<>();
+
+		counts.forEach((key, count) -> {
+			for (int i = 0; i < count; i++) {
+				expected.add(key);
+			}
+		});
+
+		assertEquals(expected.size(), tree.size());
+		assertEquals(expected, toList(tree));
+
+		for (int key = -1; key <= 2_000; key += 13) {
+			assertEquals(counts.containsKey(key), tree.contains(key));
+		}
+
+		if (tree.size() > 0) {
+			// every leaf but a lone root leaf is at least half full
+			assertTrue(tree.leafCount() <= Math.max(1, tree.size() / (fanOut / 2)));
+			assertTrue(tree.leafCount() >= (tree.size() + fanOut - 2) / (fanOut - 1));
+			assertEquals(tree.leafCount() > 1, tree.internalNodes() > 0);
+			assertTrue(tree.internalPathLength() >= (tree.height() - 1) * tree.leafCount());
+		}
+	}
+
+	private static Integer[] range(int from, int to) {
+		Integer[] values = new Integer[to - from];
+
+		for (int i = from; i < to; i++) {
+			values[i - from] = i;
+		}
+
+		return values;
+	}
+
+	private static List<Integer> toList(Integer[] values) {
+		return java.util.Arrays.asList(values);
+	}
+
+	private static List<Integer> toList(Iterable<Integer> values) {
+		List<Integer> list = new ArrayList<>();
+
+		values.forEach(list::add);
+
+		return list;
+	}
+}
@@ -0,0 +1,124 @@
+package pv3199.util;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the unbalanced {@link BinaryTree} with {@link AvlTree} and {@link RedBlackTree} on keys in
+ * random order and on mostly sorted keys (sorted, then 1% of them swapped at random). The unbalanced tree
+ * degrades into a list on mostly sorted keys, so it is only run on the smaller size there.
+ * <p>
+ * Each cell is the best of several rounds after warm-up, in nanoseconds per add, lookup and removal of
+ * every key. Not run as part of the test suite; run its {@link #main(String[])} directly.
+ */
+public class BalancedTreeBenchmark {
+	private final static int[] SIZES = { 10_000, 1_000_000 };
+	private final static int UNBALANCED_SORTED_LIMIT = 10_000;
+	private final static int ROUNDS = 5;
+
+	private final static String[] NAMES = { "unbalanced", "avl", "red-black" };
+	private final static Supplier<BinaryTree<Integer>>[] TREES = new Supplier[]{
+			BinaryTree::new,
+			AvlTree::new,
+			RedBlackTree::new
+	};
+
+	public static void main(String[] args) {
+		Integer[] warmUp = new Integer[SIZES[0]];
+
+		for (int i = 0; i < warmUp.length; i++) {
+			warmUp[i] = i * 7919 % warmUp.length;
+		}
+
+		for (Supplier<BinaryTree<Integer>> tree : TREES) {
+			run(tree, warmUp);
+		}
+
+		System.out.printf("%-10s %-10s %-10s %10s %10s %10s%n", "size", "order", "tree", "add", "contains", "remove");
+
+		for (int size : SIZES) {
+			Random random = new Random(size);
+			Integer[] shuffled = new Integer[size];
+			Integer[] mostlySorted = new Integer[size];
+
+			for (int i = 0; i < size; i++) {
+				shuffled[i] = i;
+				mostlySorted[i] = i;
+			}
+
+			for (int i = size - 1; i > 0; i--) {
+				swap(shuffled, i, random.nextInt(i + 1));
+			}
+
+			for (int i = 0; i < size / 100; i++) {
+				swap(mostlySorted, random.nextInt(size), random.nextInt(size));
+			}
+
+			for (int t = 0; t < TREES.length; t++) {
+				run(size, "random", NAMES[t], TREES[t], shuffled);
+			}
+
+			for (int t = 0; t < TREES.length; t++) {
+				if (t == 0 && size > UNBALANCED_SORTED_LIMIT) {
+					continue;
+				}
+
+				run(size, "sorted-ish", NAMES[t], TREES[t], mostlySorted);
+			}
+		}
+	}
+
+	private static void run(int size, String order, String name, Supplier<BinaryTree<Integer>> constructor, Integer[] keys) {
+		long[] times = run(constructor, keys);
+
+		System.out.printf("%-10d %-10s %-10s %10.1f %10.1f %10.1f%n", size, order, name,
+				(double) times[0] / size, (double) times[1] / size, (double) times[2] / size);
+	}
+
+	/**
+	 * @return the best times to add, look up and remove every key.
+	 */
+	private static long[] run(Supplier<BinaryTree<Integer>> constructor, Integer[] keys) {
+		long add = Long.MAX_VALUE;
+		long contains = Long.MAX_VALUE;
+		long remove = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			BinaryTree<Integer> tree = constructor.get();
+			long start = System.nanoTime();
+
+			for (Integer key : keys) {
+				tree.add(key);
+			}
+
+			long added = System.nanoTime();
+
+			for (Integer key : keys) {
+				if (!tree.contains(key)) {
+					throw new AssertionError();
+				}
+			}
+
+			long looked = System.nanoTime();
+
+			for (Integer key : keys) {
+				tree.remove(key);
+			}
+
+			long end = System.nanoTime();
+
+			add = Math.min(add, added - start);
+			contains = Math.min(contains, looked - added);
+			remove = Math.min(remove, end - looked);
+		}
+
+		return new long[]{ add, contains, remove };
+	}
+
+	private static void swap(Integer[] array, int i, int j) {
+		Integer t = array[i];
+
+		array[i] = array[j];
+		array[j] = t;
+	}
+}
@@ -0,0 +1,221 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalancedTreeTest {
+	private final static int SORTED_KEYS = 10_000_000;
+
+	@Test
+	public void avlSortedTest() {
+		sortedTest(new AvlTree<>(), 1.45);
+	}
+
+	@Test
+	public void redBlackSortedTest() {
+		sortedTest(new RedBlackTree<>(), 2);
+	}
+
+	@Test
+	public void avlRandomTest() {
+		randomTest(AvlTree::new, 1.45);
+	}
+
+	@Test
+	public void redBlackRandomTest() {
+		randomTest(RedBlackTree::new, 2);
+	}
+
+	@Test
+	public void avlRebalanceTest() {
+		rebalanceTest(AvlTree::new, 1.45, false);
+	}
+
+	@Test
+	public void avlFromSortedTest() {
+		rebalanceTest(AvlTree::new, 1.45, true);
+	}
+
+	@Test
+	public void redBlackRebalanceTest() {
+		rebalanceTest(RedBlackTree::new, 2, false);
+	}
+
+	@Test
+	public void redBlackFromSortedTest() {
+		rebalanceTest(RedBlackTree::new, 2, true);
+	}
+
+	@Test
+	public void unbalancedTest() {
+		// a degenerate tree is slow but no longer overflows the stack
+		BinaryTree<Integer> bt = new BinaryTree<>();
+		BinaryTree<Integer> bt2 = new BinaryTree<>();
+
+		for (int i = 0; i < 20_000; i++) {
+			bt.add(i);
+			bt2.add(i);
+		}
+
+		assertEquals(20_000, bt.size());
+		assertEquals(20_000, bt.height());
+		assertEquals(1, bt.leafCount());
+		assertTrue(bt.contains(19_999));
+		assertTrue(bt.equals(bt2));
+		assertTrue(bt.remove(0));
+		assertFalse(bt.equals(bt2));
+	}
+
+	@Test
+	public void constructorTest() {
+		assertEquals(1, new AvlTree<>(1).size());
+		assertEquals(1, new RedBlackTree<>(1).height());
+		assertTrue(new AvlTree<Integer>().equals(new AvlTree<Integer>()));
+	}
+
+	/**
+	 * Adds sorted keys, which would degrade an unbalanced tree into a list, and then removes half of them.
+	 */
+	private static void sortedTest(BinaryTree<Integer> tree, double factor) {
+		for (int i = 0; i < SORTED_KEYS; i++) {
+			tree.add(i);
+		}
+
+		assertEquals(SORTED_KEYS, tree.size());
+		assertTrue(tree.height() <= maxHeight(SORTED_KEYS, factor));
+
+		for (int i = 0; i < SORTED_KEYS; i += 1_000) {
+			assertTrue(tree.contains(i));
+		}
+
+		assertFalse(tree.contains(-1));
+		assertFalse(tree.contains(SORTED_KEYS));
+
+		for (int i = 0; i < SORTED_KEYS; i += 2) {
+			assertTrue(tree.remove(i));
+		}
+
+		assertEquals(SORTED_KEYS / 2, tree.size());
+		assertTrue(tree.height() <= maxHeight(SORTED_KEYS / 2, factor));
+		assertFalse(tree.contains(0));
+		assertTrue(tree.contains(1));
+	}
+
+	/**
+	 * Adds and removes random keys, with duplicates, checking the tree against a count of each key.
+	 */
+	private static void randomTest(Supplier<BinaryTree<Integer>> constructor, double factor) {
+		Random random = new Random(41);
+		BinaryTree<Integer> tree = constructor.get();
+		TreeMap<Integer, Integer> counts = new TreeMap<>();
+		int size = 0;
+
+		for (int step = 0; step < 200_000; step++) {
+			int key = random.nextInt(5_000);
+
+			if (random.nextInt(3) > 0) {
+				tree.add(key);
+				counts.merge(key, 1, Integer::sum);
+				size++;
+			} else {
+				boolean present = counts.containsKey(key);
+
+				assertEquals(present, tree.remove(key));
+
+				if (present) {
+					counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+					size--;
+				}
+			}
+
+			if (step % 10_000 == 0) {
+				assertEquals(size, tree.size());
+				assertTrue(tree.height() <= maxHeight(size, factor));
+
+				for (int k = 0; k < 5_000; k++) {
+					assertEquals(counts.containsKey(k), tree.contains(k));
+				}
+			}
+		}
+
+		for (int key : counts.keySet()) {
+			for (int count = counts.get(key); count > 0; count--) {
+				assertTrue(tree.remove(key));
+			}
+
+			assertFalse(tree.remove(key));
+		}
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.height());
+	}
+
+	/**
+	 * Rebalances trees of random keys of every size up to a few hundred, or builds them from the sorted keys,
+	 * and then keeps adding and removing keys, which relies on the heights or colors set along the way.
+	 */
+	private static void rebalanceTest(Supplier<BinaryTree<Integer>> constructor, double factor, boolean fromSorted) {
+		Random random = new Random(47);
+
+		for (int size = 0; size < 300; size++) {
+			BinaryTree<Integer> tree = constructor.get();
+			TreeMap<Integer, Integer> counts = new TreeMap<>();
+
+			for (int i = 0; i < size; i++) {
+				int key = random.nextInt(1_000);
+
+				tree.add(key);
+				counts.merge(key, 1, Integer::sum);
+			}
+
+			if (fromSorted) {
+				List<Integer> sorted = new ArrayList<>();
+
+				counts.forEach((key, count) -> sorted.addAll(Collections.nCopies(count, key)));
+				tree = BinaryTree.fromSorted(sorted, constructor);
+			} else {
+				tree.rebalance();
+			}
+
+			assertEquals(32 - Integer.numberOfLeadingZeros(size), tree.height());
+
+			int live = size;
+
+			for (int step = 0; step < 2_000; step++) {
+				int key = random.nextInt(1_000);
+
+				if (random.nextBoolean()) {
+					tree.add(key);
+					counts.merge(key, 1, Integer::sum);
+					live++;
+				} else if (tree.remove(key)) {
+					counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+					live--;
+				}
+
+				assertTrue(tree.height() <= maxHeight(live, factor));
+			}
+
+			for (int key : counts.keySet()) {
+				assertTrue(tree.contains(key));
+			}
+
+			assertEquals(live, tree.size());
+		}
+	}
+
+	/**
+	 * @return the greatest height allowed for a balanced tree of a size.
+	 */
+	private static int maxHeight(int size, double factor) {
+		return (int) Math.ceil(factor * Math.log(size + 2) / Math.log(2));
+	}
+}
@@ -43,8 +43,9 @@ public class BinaryArrayTest {
 	public void heightTest() {
 		addTest();
 
-		assertEquals(7, binArr.height());
-		assertEquals(7, binArr2.height());
+		// 21 elements fit in a complete tree of height 5; the rebuilds keep them there
+		assertEquals(5, binArr.height());
+		assertEquals(5, binArr2.height());
 	}
 
 	@Test
@@ -81,4 +82,57 @@ public class BinaryArrayTest {
 			assertEquals(values.length - i - 1, binArr2.size());
 		}
 	}
+
+	@Test
+	public void sortedTest() {
+		int n = 100_000;
+
+		for (int i = 0; i < n; i++) {
+			binArr.add(i);
+		}
+
+		// at most one level taller than a complete tree, in an array of O(n) slots
+		assertEquals(n, binArr.size());
+		assertTrue(binArr.height() <= 18);
+		assertTrue(binArr.data.length < 4 * n);
+
+		for (int i = 0; i < n; i++) {
+			assertTrue(binArr.contains(i));
+		}
+
+		for (int i = 0; i < n; i += 3) {
+			assertTrue(binArr.remove(i));
+		}
+
+		for (int i = 0; i < n; i++) {
+			assertEquals(i % 3 != 0, binArr.contains(i));
+		}
+
+		// removing most elements rebuilds the array to fit the rest
+		for (int i = 0; i < n - 10; i++) {
+			binArr.remove(i);
+		}
+
+		// of the last 10, those divisible by 3 were removed already
+		assertEquals(6, binArr.size());
+		assertTrue(binArr.height() <= 4);
+		assertTrue(binArr.data.length < 40);
+	}
+
+	@Test
+	public void duplicateTest() {
+		for (int i = 0; i < 1_000; i++) {
+			binArr.add(i % 10);
+		}
+
+		assertEquals(1_000, binArr.size());
+		assertTrue(binArr.height() <= 11);
+
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(binArr.remove(i % 10));
+		}
+
+		assertEquals(0, binArr.size());
+		assertFalse(binArr.contains(0));
+	}
 }
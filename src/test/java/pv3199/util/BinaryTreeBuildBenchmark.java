@@ -0,0 +1,78 @@
+package pv3199.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares ways of building a balanced tree from a million sorted values: {@link BinaryTree#fromSorted}
+ * from an array and a list, adding them one by one to an {@link AvlTree} and a {@link RedBlackTree}, and
+ * rebalancing a {@link BinaryTree} in place with {@link BinaryTree#rebalance()}.
+ * <p>
+ * Each cell is the best of several rounds after warm-up, in nanoseconds per value. Not run as part of the
+ * test suite; run its {@link #main(String[])} directly.
+ */
+public class BinaryTreeBuildBenchmark {
+	private final static int SIZE = 1_000_000;
+	private final static int ROUNDS = 5;
+
+	/**
+	 * Keeps the JIT from dropping work whose result is unused.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) {
+		Integer[] sorted = new Integer[SIZE];
+
+		for (int i = 0; i < SIZE; i++) {
+			sorted[i] = i;
+		}
+
+		List<Integer> list = Arrays.asList(sorted);
+
+		System.out.printf("%-24s %10.1f%n", "fromSorted(array)", best(() -> sink += BinaryTree.fromSorted(sorted).size()));
+		System.out.printf("%-24s %10.1f%n", "fromSorted(list)", best(() -> sink += BinaryTree.fromSorted(list).size()));
+		System.out.printf("%-24s %10.1f%n", "AvlTree.add", best(() -> {
+			AvlTree<Integer> tree = new AvlTree<>();
+
+			for (Integer value : sorted) {
+				tree.add(value);
+			}
+
+			sink += tree.size();
+		}));
+		System.out.printf("%-24s %10.1f%n", "RedBlackTree.add", best(() -> {
+			RedBlackTree<Integer> tree = new RedBlackTree<>();
+
+			for (Integer value : sorted) {
+				tree.add(value);
+			}
+
+			sink += tree.size();
+		}));
+
+		// rebalancing flattens the whole tree whatever its shape; a degenerate tree of this size would take
+		// too long to build by adding values one by one
+		BinaryTree<Integer> tree = BinaryTree.fromSorted(sorted);
+
+		System.out.printf("%-24s %10.1f%n", "rebalance", best(tree::rebalance));
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * @return the best time of a run over several rounds, per value.
+	 */
+	private static double best(Runnable run) {
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return (double) best / SIZE;
+	}
+}
@@ -0,0 +1,69 @@
+package pv3199.util;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares whole-tree computations over a random {@link BinaryTree} of four million values, walked
+ * sequentially and split into fork-join tasks: {@link BinaryTree#reduce} summing the values, against a plain
+ * loop over the iterator, {@link BinaryTree#height()}, and {@link BinaryTree#equals(Object)} of two trees of
+ * the same shape. The parallel figures depend on the size of the common pool, which is printed first.
+ * <p>
+ * Each cell is the best of several rounds after warm-up, in nanoseconds per value. Not run as part of the
+ * test suite; run its {@link #main(String[])} directly.
+ */
+public class BinaryTreeParallelBenchmark {
+	private final static int SIZE = 4_000_000;
+	private final static int ROUNDS = 5;
+
+	/**
+	 * Keeps the JIT from dropping work whose result is unused.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) {
+		Random random = new Random(48);
+		BinaryTree<Integer> tree = new BinaryTree<>();
+		BinaryTree<Integer> copy = new BinaryTree<>();
+
+		for (int i = 0; i < SIZE; i++) {
+			int value = random.nextInt();
+
+			tree.add(value);
+			copy.add(value);
+		}
+
+		System.out.printf("parallelism=%d%n", ForkJoinPool.commonPool().getParallelism());
+		System.out.printf("%-24s %10.1f%n", "iterator sum", best(() -> {
+			long sum = 0;
+
+			for (Integer value : tree) {
+				sum += value;
+			}
+
+			sink += sum;
+		}));
+		System.out.printf("%-24s %10.1f%n", "reduce sum", best(() -> sink += tree.reduce(0L, Integer::longValue, Long::sum)));
+		System.out.printf("%-24s %10.1f%n", "height", best(() -> sink += tree.height()));
+		System.out.printf("%-24s %10.1f%n", "equals", best(() -> sink += tree.equals(copy) ? 1 : 0));
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * @return the best time of a run over several rounds, per value.
+	 */
+	private static double best(Runnable run) {
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return (double) best / SIZE;
+	}
+}
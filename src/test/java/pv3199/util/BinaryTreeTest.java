@@ -2,6 +2,17 @@ package pv3199.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class BinaryTreeTest {
@@ -82,4 +93,388 @@ public class BinaryTreeTest {
 		
 		assertFalse(bt.equals(btString));
 	}
+	
+	@Test
+	public void metricsTest() {
+		metricsTest(BinaryTree::new);
+		metricsTest(AvlTree::new);
+		metricsTest(RedBlackTree::new);
+	}
+	
+	@Test
+	public void rankSelectTest() {
+		BinaryTree<Integer> bt = new RedBlackTree<>();
+		
+		bt.add(10, 3, 5, 15, 12, 7, 5);
+		
+		int[] sorted = { 3, 5, 5, 7, 10, 12, 15 };
+		
+		for (int i = 0; i < sorted.length; i++) {
+			assertEquals(sorted[i], (int) bt.select(i));
+		}
+		
+		assertEquals(0, bt.rank(3));
+		assertEquals(1, bt.rank(5));
+		assertEquals(3, bt.rank(6));
+		assertEquals(7, bt.rank(100));
+		assertThrows(IndexOutOfBoundsException.class, () -> bt.select(7));
+		assertThrows(IndexOutOfBoundsException.class, () -> bt.select(-1));
+	}
+	
+	@Test
+	public void traversalTest() {
+		BinaryTree<Integer> bt = new BinaryTree<>();
+		
+		bt.add(10, 3, 5, 15, 12, 7, 1, 20);
+		
+		assertEquals(java.util.Arrays.asList(1, 3, 5, 7, 10, 12, 15, 20), toList(bt.inOrder()));
+		assertEquals(java.util.Arrays.asList(10, 3, 1, 5, 7, 15, 12, 20), toList(bt.preOrder()));
+		assertEquals(java.util.Arrays.asList(1, 7, 5, 3, 12, 20, 15, 10), toList(bt.postOrder()));
+		assertEquals(java.util.Arrays.asList(10, 3, 15, 1, 5, 12, 20, 7), toList(bt.levelOrder()));
+		assertEquals(toList(bt.inOrder()), toList(bt.iterator()));
+		
+		BinaryTree<Integer> empty = new BinaryTree<>();
+		
+		for (Iterator<Integer> it : java.util.Arrays.asList(empty.inOrder(), empty.preOrder(), empty.postOrder(), empty.levelOrder())) {
+			assertFalse(it.hasNext());
+			assertThrows(NoSuchElementException.class, it::next);
+		}
+	}
+	
+	@Test
+	public void rangeTest() {
+		BinaryTree<Integer> bt = new AvlTree<>();
+		
+		for (int i = 0; i < 1_000; i += 2) {
+			bt.add(i);
+		}
+		
+		List<Integer> range = new ArrayList<>();
+		
+		bt.forEachInRange(11, 21, range::add);
+		assertEquals(java.util.Arrays.asList(12, 14, 16, 18, 20), range);
+		
+		range.clear();
+		bt.forEachInRange(990, 5_000, range::add);
+		assertEquals(java.util.Arrays.asList(990, 992, 994, 996, 998), range);
+		
+		range.clear();
+		bt.forEachInRange(20, 20, range::add);
+		bt.forEachInRange(5_000, 6_000, range::add);
+		assertTrue(range.isEmpty());
+	}
+	
+	@Test
+	public void spliteratorTest() {
+		BinaryTree<Integer> bt = new RedBlackTree<>();
+		List<Integer> values = new ArrayList<>();
+		
+		for (int i = 0; i < 100_000; i++) {
+			bt.add(i * 7 % 100_000);
+			values.add(i);
+		}
+		
+		assertEquals(values, StreamSupport.stream(bt.spliterator(), true).collect(Collectors.toList()));
+		assertEquals(4_999_950_000L, StreamSupport.stream(bt.spliterator(), true).mapToLong(Integer::longValue).sum());
+		
+		// split repeatedly, part way through, and check that the parts cover the tree in order
+		Spliterator<Integer> spliterator = bt.spliterator();
+		List<Integer> seen = new ArrayList<>();
+		
+		spliterator.tryAdvance(seen::add);
+		splitAll(spliterator, seen);
+		
+		assertEquals(values, seen);
+	}
+	
+	@Test
+	public void deepTraversalTest() {
+		// a degenerate tree is traversed without recursion
+		BinaryTree<Integer> bt = new BinaryTree<>();
+		
+		for (int i = 0; i < 20_000; i++) {
+			bt.add(i);
+		}
+		
+		int[] count = new int[1];
+		
+		for (Iterator<Integer> it : java.util.Arrays.asList(bt.inOrder(), bt.preOrder(), bt.postOrder(), bt.levelOrder())) {
+			count[0] = 0;
+			it.forEachRemaining(v -> count[0]++);
+			assertEquals(20_000, count[0]);
+		}
+		
+		count[0] = 0;
+		bt.forEachInRange(0, 10_000, v -> count[0]++);
+		assertEquals(10_000, count[0]);
+		assertEquals(20_000, StreamSupport.stream(bt.spliterator(), true).count());
+	}
+	
+	/**
+	 * Splits a spliterator as far as it goes, checking the exact sizes, and collects the values of the
+	 * parts in order.
+	 */
+	private static void splitAll(Spliterator<Integer> spliterator, List<Integer> seen) {
+		long size = spliterator.estimateSize();
+		Spliterator<Integer> prefix = spliterator.trySplit();
+		
+		if (prefix == null) {
+			spliterator.forEachRemaining(seen::add);
+			return;
+		}
+		
+		assertTrue(prefix.estimateSize() > 0);
+		assertTrue(spliterator.estimateSize() > 0);
+		assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+		
+		splitAll(prefix, seen);
+		splitAll(spliterator, seen);
+	}
+	
+	private static List<Integer> toList(Iterator<Integer> it) {
+		List<Integer> list = new ArrayList<>();
+		
+		it.forEachRemaining(list::add);
+		
+		return list;
+	}
+	
+	@Test
+	public void fromSortedTest() {
+		for (int n = 0; n <= 130; n++) {
+			Integer[] sorted = new Integer[n];
+			
+			for (int i = 0; i < n; i++) {
+				sorted[i] = i / 3;
+			}
+			
+			List<Integer> expected = java.util.Arrays.asList(sorted);
+			
+			checkBalanced(BinaryTree.fromSorted(sorted), expected);
+			checkBalanced(BinaryTree.fromSorted(expected), expected);
+			checkBalanced(BinaryTree.fromSorted(new LinkedList<>(sorted)), expected);
+		}
+		
+		assertThrows(IllegalArgumentException.class, () -> BinaryTree.fromSorted(new Integer[]{ 1, 3, 2 }));
+		assertThrows(NullPointerException.class, () -> BinaryTree.fromSorted(new Integer[]{ 1, null }));
+		assertThrows(NullPointerException.class, () -> BinaryTree.fromSorted(new Integer[]{ null }));
+		assertThrows(NullPointerException.class, () -> BinaryTree.fromSorted(java.util.Arrays.asList(null, 1)));
+		
+		// the tree works as any other afterwards
+		BinaryTree<Integer> bt = BinaryTree.fromSorted(new Integer[]{ 2, 4, 6 });
+		
+		bt.add(5);
+		assertTrue(bt.remove(4));
+		assertEquals(java.util.Arrays.asList(2, 5, 6), toList(bt.iterator()));
+	}
+	
+	@Test
+	public void rebalanceTest() {
+		BinaryTree<Integer> bt = new BinaryTree<>();
+		List<Integer> values = new ArrayList<>();
+		
+		bt.rebalance();
+		assertEquals(0, bt.size());
+		
+		// a degenerate chain folds into a tree of the least height
+		for (int i = 0; i < 1_000; i++) {
+			bt.add(i);
+			values.add(i);
+		}
+		
+		bt.rebalance();
+		checkBalanced(bt, values);
+		
+		Random random = new Random(47);
+		
+		for (int round = 0; round < 50; round++) {
+			for (int step = 0; step < 100; step++) {
+				int v = random.nextInt(300);
+				
+				if (random.nextBoolean()) {
+					bt.add(v);
+					values.add(v);
+				} else if (bt.remove(v)) {
+					values.remove((Integer) v);
+				}
+			}
+			
+			Collections.sort(values);
+			bt.rebalance();
+			checkBalanced(bt, values);
+		}
+	}
+	
+	@Test
+	public void reduceTest() {
+		BinaryTree<Integer> empty = new BinaryTree<>();
+		
+		assertEquals(7, (int) empty.reduce(7, v -> v, Integer::sum));
+		
+		// large enough to be split into several tasks
+		Integer[] sorted = new Integer[100_000];
+		long sum = 0;
+		
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = i * 7 % 1_000;
+		}
+		
+		java.util.Arrays.sort(sorted);
+		
+		for (Integer value : sorted) {
+			sum += value;
+		}
+		
+		BinaryTree<Integer> bt = BinaryTree.fromSorted(sorted);
+		
+		assertEquals(sum, (long) bt.reduce(0L, Integer::longValue, Long::sum));
+		assertEquals(17, bt.height());
+		
+		// the combiner need not commute; the pieces are combined in order. Each piece is the first and last
+		// value of a run and whether the run is sorted, which joining two runs out of order would break
+		int[] run = bt.reduce(null, v -> new int[]{ v, v, 1 }, (r1, r2) -> r1 == null ? r2 : r2 == null ? r1
+				: new int[]{ r1[0], r2[1], r1[2] & r2[2] & (r1[1] <= r2[0] ? 1 : 0) });
+		
+		assertArrayEquals(new int[]{ 0, 999, 1 }, run);
+		
+		// a degenerate chain is split too, and its height is its size
+		BinaryTree<Integer> chain = new BinaryTree<>();
+		
+		for (int i = 0; i < 10_000; i++) {
+			chain.add(i);
+		}
+		
+		assertEquals(10_000, chain.height());
+		assertEquals(9_999L * 10_000 / 2, (long) chain.reduce(0L, Integer::longValue, Long::sum));
+		assertEquals(9_999, (int) chain.reduce(-1, v -> v,
+				(v1, v2) -> v1 == -1 ? v2 : v2 == -1 ? v1 : v1 < v2 ? v2 : -2));
+	}
+	
+	@Test
+	public void parallelEqualsTest() {
+		Random random = new Random(48);
+		BinaryTree<Integer> bt1 = new BinaryTree<>();
+		BinaryTree<Integer> bt2 = new BinaryTree<>();
+		
+		for (int i = 0; i < 50_000; i++) {
+			int v = random.nextInt();
+			
+			bt1.add(v);
+			bt2.add(v);
+		}
+		
+		assertEquals(bt1, bt2);
+		
+		// the same values in another shape
+		BinaryTree<Integer> shape = new BinaryTree<>();
+		List<Integer> values = toList(bt1.inOrder());
+		
+		Collections.shuffle(values, random);
+		values.forEach(shape::add);
+		assertNotEquals(bt1, shape);
+		
+		shape.rebalance();
+		bt2.rebalance();
+		assertEquals(shape, bt2);
+		
+		// a single differing value deep in the tree
+		Integer last = bt2.select(bt2.size() - 1);
+		
+		bt2.remove(last);
+		bt2.add(last + 1);
+		assertNotEquals(shape, bt2);
+	}
+	
+	/**
+	 * Checks that a tree holds the values of a sorted list, has the least height possible, and keeps correct
+	 * metrics and parent links.
+	 */
+	private static void checkBalanced(BinaryTree<Integer> bt, List<Integer> values) {
+		int[] expected = traverse(bt);
+		
+		assertEquals(values.size(), bt.size());
+		assertEquals(32 - Integer.numberOfLeadingZeros(values.size()), bt.height());
+		assertEquals(expected[0], bt.size());
+		assertEquals(expected[1], bt.leafCount());
+		assertEquals(expected[2], bt.internalPathLength());
+		
+		// in-order and post-order iteration follow the parent links
+		assertEquals(values, toList(bt.inOrder()));
+		assertEquals(values.size(), toList(bt.postOrder()).size());
+		
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(values.get(i), bt.select(i));
+			assertTrue(bt.contains(values.get(i)));
+		}
+	}
+	
+	/**
+	 * Adds and removes random values, checking the maintained metrics against a traversal of the tree and
+	 * rank and select against a sorted list.
+	 */
+	private static void metricsTest(Supplier<BinaryTree<Integer>> constructor) {
+		Random random = new Random(42);
+		BinaryTree<Integer> bt = constructor.get();
+		List<Integer> values = new ArrayList<>();
+		
+		for (int step = 0; step < 3_000; step++) {
+			int v = random.nextInt(500);
+			
+			if (random.nextInt(3) > 0) {
+				bt.add(v);
+				values.add(v);
+			} else if (bt.remove(v)) {
+				values.remove((Integer) v);
+			}
+			
+			if (step % 100 == 0) {
+				int[] expected = traverse(bt);
+				
+				assertEquals(values.size(), bt.size());
+				assertEquals(expected[0], bt.size());
+				assertEquals(expected[1], bt.leafCount());
+				assertEquals(expected[2], bt.internalPathLength());
+				assertEquals(expected[0] - expected[1], bt.internalNodes());
+				
+				Collections.sort(values);
+				
+				for (int i = 0; i < values.size(); i++) {
+					assertEquals(values.get(i), bt.select(i));
+					assertEquals(values.indexOf(values.get(i)), bt.rank(values.get(i)));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the size, leaf count and internal path length of a tree, found by walking it.
+	 */
+	private static int[] traverse(BinaryTree<Integer> bt) {
+		int[] metrics = new int[3];
+		List<BinaryTree<Integer>.BinaryNode> nodes = new ArrayList<>();
+		List<Integer> depths = new ArrayList<>();
+		
+		if (bt.root != null) {
+			nodes.add((BinaryTree<Integer>.BinaryNode) bt.root);
+			depths.add(0);
+		}
+		
+		while (!nodes.isEmpty()) {
+			BinaryTree<Integer>.BinaryNode node = nodes.remove(nodes.size() - 1);
+			int depth = depths.remove(depths.size() - 1);
+			
+			metrics[0]++;
+			metrics[1] += node.isLeaf() ? 1 : 0;
+			metrics[2] += depth;
+			
+			for (BinaryTree<Integer>.BinaryNode child : java.util.Arrays.asList(node.left, node.right)) {
+				if (child != null) {
+					nodes.add(child);
+					depths.add(depth + 1);
+				}
+			}
+		}
+		
+		return metrics;
+	}
 }
@@ -0,0 +1,62 @@
+package pv3199.util;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the hit ratio of each built-in {@link EvictionPolicy} on a Zipf-distributed key stream mixed
+ * with scans of one-off keys. Not run as part of the test suite; run its {@link #main(String[])} directly.
+ */
+public class CacheHitRatioBenchmark {
+	private final static int KEYS = 1_000_000;
+	private final static int CACHE_SIZE = 10_000;
+	private final static int ACCESSES = 5_000_000;
+	private final static double SKEW = .9;
+
+	public static void main(String[] args) {
+		int[] trace = trace(new Random(42));
+
+		run("lru", EvictionPolicy::lru, trace);
+		run("lfu", EvictionPolicy::lfu, trace);
+		run("w-tinylfu", EvictionPolicy::windowTinyLfu, trace);
+	}
+
+	private static void run(String name, Supplier<EvictionPolicy<Integer>> policy, int[] trace) {
+		Cache<Integer, Integer> cache = new Cache<>(CACHE_SIZE, policy.get(), key -> key);
+		long start = System.nanoTime();
+
+		for (int key : trace) {
+			cache.get(key);
+		}
+
+		System.out.printf("%-10s hitRate=%.4f time=%.1fms%n", name, cache.stats().getHitRate(), (System.nanoTime() - start) / 1e6);
+	}
+
+	/**
+	 * Builds a trace of Zipf-distributed keys, with every tenth block of accesses replaced by a scan of
+	 * keys that are never seen again.
+	 */
+	private static int[] trace(Random random) {
+		double[] cdf = new double[KEYS];
+		double sum = 0;
+
+		for (int i = 0; i < KEYS; i++) {
+			sum += 1 / Math.pow(i + 1, SKEW);
+			cdf[i] = sum;
+		}
+
+		int[] trace = new int[ACCESSES];
+		int scanKey = KEYS;
+
+		for (int i = 0; i < ACCESSES; i++) {
+			if ((i / 50_000) % 10 == 9) {
+				trace[i] = scanKey++;
+			} else {
+				int k = java.util.Arrays.binarySearch(cdf, random.nextDouble() * sum);
+				trace[i] = k < 0 ? -k - 1 : k;
+			}
+		}
+
+		return trace;
+	}
+}
@@ -0,0 +1,273 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheTest {
+	@Test
+	public void constructorTest() {
+		assertThrows(IllegalArgumentException.class, () -> new Cache<>(0, EvictionPolicy.lru()));
+		assertThrows(NullPointerException.class, () -> new Cache<>(1, null));
+	}
+
+	@Test
+	public void lruTest() {
+		Cache<Integer, String> cache = new Cache<>(3, EvictionPolicy.lru());
+
+		cache.put(1, "a");
+		cache.put(2, "b");
+		cache.put(3, "c");
+		assertEquals("a", cache.getIfPresent(1));
+
+		// 2 is now the least recently used
+		cache.put(4, "d");
+
+		assertNull(cache.getIfPresent(2));
+		assertEquals("a", cache.getIfPresent(1));
+		assertEquals("c", cache.getIfPresent(3));
+		assertEquals("d", cache.getIfPresent(4));
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.stats().getEvictions());
+
+		cache.put(3, "C");
+		assertEquals("C", cache.getIfPresent(3));
+		assertEquals(3, cache.size());
+
+		assertTrue(cache.invalidate(3));
+		assertFalse(cache.invalidate(3));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void churnTest() {
+		assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+			Cache<Integer, Integer> cache = new Cache<>(100, EvictionPolicy.lru());
+
+			// the table under the cache must not fill its index with tombstones
+			for (int i = 0; i < 100_000; i++) {
+				cache.put(i, i);
+				assertTrue(cache.invalidate(i));
+			}
+
+			assertEquals(0, cache.size());
+			assertNull(cache.getIfPresent(12_345));
+
+			// eviction churn removes an entry on every put once the cache is full
+			for (int i = 0; i < 100_000; i++) {
+				cache.put(i, i);
+			}
+
+			assertEquals(100, cache.size());
+			assertEquals(99_999, (int) cache.getIfPresent(99_999));
+			assertNull(cache.getIfPresent(0));
+		});
+	}
+
+	@Test
+	public void lfuTest() {
+		Cache<Integer, String> cache = new Cache<>(3, EvictionPolicy.lfu());
+
+		cache.put(1, "a");
+		cache.put(2, "b");
+		cache.put(3, "c");
+
+		for (int i = 0; i < 3; i++) {
+			cache.getIfPresent(1);
+			cache.getIfPresent(3);
+		}
+
+		// 2 is the least frequently used; the new entry is never evicted on arrival
+		cache.put(4, "d");
+		assertNull(cache.getIfPresent(2));
+
+		cache.put(5, "e");
+		assertNull(cache.getIfPresent(4));
+		assertEquals("a", cache.getIfPresent(1));
+		assertEquals("c", cache.getIfPresent(3));
+		assertEquals("e", cache.getIfPresent(5));
+	}
+
+	@Test
+	public void windowTinyLfuTest() {
+		Cache<Integer, Integer> cache = new Cache<>(100, EvictionPolicy.windowTinyLfu());
+
+		// build up a popular working set
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 90; i++) {
+				if (cache.getIfPresent(i) == null) {
+					cache.put(i, i);
+				}
+			}
+		}
+
+		// one-off keys interleaved with the popular keys must not flush them, even though every popular
+		// key is accessed less recently than the cache size (which would defeat LRU)
+		for (int i = 1_000; i < 11_000; i++) {
+			if (cache.getIfPresent(i) == null) {
+				cache.put(i, i);
+			}
+
+			int popular = i % 90;
+			if (cache.getIfPresent(popular) == null) {
+				cache.put(popular, popular);
+			}
+		}
+
+		int retained = 0;
+		for (int i = 0; i < 90; i++) {
+			if (cache.getIfPresent(i) != null) {
+				retained++;
+			}
+		}
+
+		assertTrue(retained >= 80, "retained " + retained);
+		assertEquals(100, cache.size());
+	}
+
+	@Test
+	public void timeToLiveTest() {
+		AtomicLong now = new AtomicLong();
+		Cache<Integer, String> cache = new Cache<>(10, EvictionPolicy.lru());
+		cache.ticker = now::get;
+
+		cache.setTimeToLive(10, TimeUnit.NANOSECONDS);
+		cache.put(1, "a");
+		cache.put(2, "b", 0, TimeUnit.NANOSECONDS);
+		cache.put(3, "c", 100, TimeUnit.NANOSECONDS);
+
+		now.set(9);
+		assertEquals("a", cache.getIfPresent(1));
+
+		now.set(10);
+		assertNull(cache.getIfPresent(1));
+		assertEquals("b", cache.getIfPresent(2));
+		assertEquals("c", cache.getIfPresent(3));
+
+		now.set(1_000);
+		assertNull(cache.getIfPresent(3));
+		assertEquals("b", cache.getIfPresent(2));
+
+		assertEquals(2, cache.stats().getExpirations());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void loaderTest() throws InterruptedException {
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		Cache<Integer, String> cache = new Cache<>(10, EvictionPolicy.lru(), key -> {
+			calls.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			return "v" + key;
+		});
+
+		Thread[] threads = new Thread[8];
+		String[] results = new String[threads.length];
+
+		for (int i = 0; i < threads.length; i++) {
+			int t = i;
+			threads[i] = new Thread(() -> results[t] = cache.get(7));
+			threads[i].start();
+		}
+
+		Thread.sleep(100);
+		release.countDown();
+
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		assertEquals(1, calls.get());
+		for (String r : results) {
+			assertEquals("v7", r);
+		}
+
+		assertEquals("v7", cache.get(7));
+		assertEquals(1, cache.stats().getLoads());
+		assertEquals(1, cache.stats().getHits());
+	}
+
+	@Test
+	public void putDuringLoadTest() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Cache<Integer, String> cache = blockingCache(started, release);
+		String[] result = new String[1];
+		Thread loader = new Thread(() -> result[0] = cache.get(7));
+
+		loader.start();
+		started.await();
+		cache.put(7, "newer");
+		release.countDown();
+		loader.join();
+
+		// the stale loaded value is returned to its caller but not cached over the put
+		assertEquals("v7", result[0]);
+		assertEquals("newer", cache.getIfPresent(7));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void invalidateDuringLoadTest() throws InterruptedException {
+		for (boolean clear : new boolean[]{ false, true }) {
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			Cache<Integer, String> cache = blockingCache(started, release);
+			Thread loader = new Thread(() -> cache.get(7));
+
+			loader.start();
+			started.await();
+
+			if (clear) {
+				cache.clear();
+			} else {
+				assertFalse(cache.invalidate(7));
+			}
+
+			release.countDown();
+			loader.join();
+
+			assertNull(cache.getIfPresent(7));
+			assertEquals(0, cache.size());
+		}
+	}
+
+	@Test
+	public void loaderFailureTest() {
+		Cache<Integer, String> cache = new Cache<>(10, EvictionPolicy.lru(), key -> {
+			throw new IllegalStateException("backend down");
+		});
+
+		assertThrows(IllegalStateException.class, () -> cache.get(1));
+		assertEquals(1, cache.stats().getLoadFailures());
+		assertEquals(0, cache.size());
+		assertNull(cache.getIfPresent(1));
+	}
+
+	/**
+	 * @return a cache whose loader signals that it started and then waits to be released.
+	 */
+	private static Cache<Integer, String> blockingCache(CountDownLatch started, CountDownLatch release) {
+		return new Cache<>(10, EvictionPolicy.lru(), key -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			return "v" + key;
+		});
+	}
+}
@@ -0,0 +1,115 @@
+package pv3199.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of {@link ConcurrentPriorityQueue} across thread counts, strict and relaxed,
+ * against {@link PriorityBlockingQueue}, on a scheduler-like mix where every thread adds an element and pops
+ * one. Also reports the ordering quality of relaxed queues as the average rank of a popped element among the
+ * queued ones (0 for exact order). Not run as part of the test suite; run its {@link #main(String[])}
+ * directly.
+ */
+public class ConcurrentPriorityQueueBenchmark {
+	private final static int[] THREADS = { 1, 2, 4, 8 };
+	private final static int PREFILL = 100_000;
+	private final static int OPERATIONS = 4_000_000;
+	private final static int ROUNDS = 3;
+
+	public static void main(String[] args) throws InterruptedException {
+		System.out.printf("processors=%d%n%-8s %12s %12s %12s%n", Runtime.getRuntime().availableProcessors(),
+				"threads", "strict", "relaxed", "blocking");
+
+		for (int threads : THREADS) {
+			int queues = 2 * threads;
+
+			double s = throughput(threads, () -> new ConcurrentPriorityQueue<>(Long::compare, 1));
+			double r = throughput(threads, () -> new ConcurrentPriorityQueue<>(Long::compare, queues));
+			double b = throughput(threads, () -> {
+				PriorityBlockingQueue<Long> queue = new PriorityBlockingQueue<>();
+
+				return new PriorityHeap<Long>() {
+					@Override
+					public void add(Long e) {
+						queue.add(e);
+					}
+
+					@Override
+					public Long peek() {
+						return queue.peek();
+					}
+
+					@Override
+					public Long pop() {
+						return queue.poll();
+					}
+
+					@Override
+					public int size() {
+						return queue.size();
+					}
+				};
+			});
+
+			System.out.printf("%-8d %10.2fM/s %10.2fM/s %10.2fM/s%n", threads, s, r, b);
+		}
+
+		System.out.printf("%n%-8s %12s%n", "queues", "rank error");
+
+		for (int queues : new int[]{ 1, 2, 4, 8, 16, 32, 64 }) {
+			ConcurrentPriorityQueue<Integer> queue = new ConcurrentPriorityQueue<>(Integer::compare, queues);
+
+			for (int i = 0; i < PREFILL; i++) {
+				queue.add(i);
+			}
+
+			System.out.printf("%-8d %12.2f%n", queues, ConcurrentPriorityQueueTest.rankError(queue, PREFILL));
+		}
+	}
+
+	/**
+	 * @return the best throughput over several rounds, in millions of operations per second.
+	 */
+	private static double throughput(int threads, Supplier<PriorityHeap<Long>> create) throws InterruptedException {
+		double best = 0;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			PriorityHeap<Long> queue = create.get();
+
+			for (long i = 0; i < PREFILL; i++) {
+				queue.add(i * 1_000);
+			}
+
+			CountDownLatch start = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(threads);
+
+			for (int t = 0; t < threads; t++) {
+				new Thread(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+
+					for (int i = 0; i < OPERATIONS / threads / 2; i++) {
+						Long e = queue.pop();
+						queue.add((e == null ? 0 : e) + random.nextInt(1_000_000));
+					}
+
+					done.countDown();
+				}).start();
+			}
+
+			long begin = System.nanoTime();
+			start.countDown();
+			done.await();
+			best = Math.max(best, OPERATIONS / ((System.nanoTime() - begin) / 1e3));
+		}
+
+		return best;
+	}
+}
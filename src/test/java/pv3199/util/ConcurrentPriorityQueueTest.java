@@ -0,0 +1,144 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentPriorityQueueTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	@Test
+	public void constructorTest() {
+		ConcurrentPriorityQueue<Integer> queue = new ConcurrentPriorityQueue<>();
+
+		assertEquals(0, queue.size());
+		assertNull(queue.peek());
+		assertNull(queue.pop());
+		assertFalse(queue.isStrict());
+		assertTrue(new ConcurrentPriorityQueue<>(Integer::compare, 1).isStrict());
+		assertThrows(IAE, () -> new ConcurrentPriorityQueue<>(Integer::compare, 0));
+		assertThrows(NullPointerException.class, () -> queue.add(null));
+	}
+
+	@Test
+	public void strictTest() {
+		ConcurrentPriorityQueue<Integer> queue = new ConcurrentPriorityQueue<>(Comparator.<Integer>reverseOrder(), 1);
+		Random random = new Random(1);
+		Integer[] values = new Integer[1_000];
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt();
+			queue.add(values[i]);
+		}
+
+		java.util.Arrays.sort(values, Comparator.reverseOrder());
+
+		assertEquals(values[0], queue.peek());
+
+		for (Integer v : values) {
+			assertEquals(v, queue.pop());
+		}
+
+		assertNull(queue.pop());
+	}
+
+	@Test
+	public void relaxedTest() {
+		ConcurrentPriorityQueue<Integer> queue = new ConcurrentPriorityQueue<>(Integer::compare, 8);
+
+		for (int i = 0; i < 10_000; i++) {
+			queue.add(i);
+		}
+
+		assertEquals(0, (int) queue.peek());
+
+		// popping in order would give a rank error of 0; sampling two of 8 heaps stays close to it
+		assertTrue(rankError(queue, 10_000) < 16);
+		assertEquals(0, queue.size());
+		assertNull(queue.pop());
+	}
+
+	@Test
+	public void concurrentTest() throws InterruptedException {
+		ConcurrentPriorityQueue<Integer> queue = new ConcurrentPriorityQueue<>(Integer::compare, 8);
+		int threads = 4;
+		int perThread = 20_000;
+		ConcurrentHashMap<Integer, Boolean> popped = new ConcurrentHashMap<>();
+		AtomicInteger duplicates = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(threads);
+
+		for (int t = 0; t < threads; t++) {
+			int base = t * perThread;
+
+			new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					queue.add(base + i);
+
+					if (i % 2 == 1) {
+						for (int j = 0; j < 2; j++) {
+							Integer e = queue.pop();
+
+							if (e != null && popped.put(e, true) != null) {
+								duplicates.incrementAndGet();
+							}
+						}
+					}
+				}
+
+				done.countDown();
+			}).start();
+		}
+
+		done.await();
+
+		for (Integer e; (e = queue.pop()) != null; ) {
+			if (popped.put(e, true) != null) {
+				duplicates.incrementAndGet();
+			}
+		}
+
+		assertEquals(0, duplicates.get());
+		assertEquals(threads * perThread, popped.size());
+		assertEquals(0, queue.size());
+	}
+
+	/**
+	 * Pops every element of a queue of the integers from 0 to n - 1, and measures how far each popped
+	 * element was from the lowest remaining one.
+	 *
+	 * @return the average rank of the popped elements among the remaining ones; 0 for an exact order.
+	 */
+	static double rankError(ConcurrentPriorityQueue<Integer> queue, int n) {
+		// a Fenwick tree of the remaining elements counts how many remaining ones are lower
+		int[] tree = new int[n + 1];
+
+		for (int i = 1; i <= n; i++) {
+			tree[i]++;
+			if (i + (i & -i) <= n) {
+				tree[i + (i & -i)] += tree[i];
+			}
+		}
+
+		long total = 0;
+
+		for (int popped = 0; popped < n; popped++) {
+			int e = queue.pop();
+
+			for (int i = e; i > 0; i -= i & -i) {
+				total += tree[i];
+			}
+
+			for (int i = e + 1; i <= n; i += i & -i) {
+				tree[i]--;
+			}
+		}
+
+		return (double) total / n;
+	}
+}
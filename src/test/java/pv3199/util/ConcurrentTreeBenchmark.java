@@ -0,0 +1,181 @@
+package pv3199.util;
+
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of {@link ConcurrentTree} across thread counts and mixes of reads and writes,
+ * against {@link ConcurrentSkipListSet} and a {@link TreeSet} behind a read-write lock. Every thread looks up
+ * random keys of a prefilled set, and adds or removes one instead with the given probability. Not run as part
+ * of the test suite; run its {@link #main(String[])} directly.
+ */
+public class ConcurrentTreeBenchmark {
+	private final static int[] THREADS = { 1, 2, 4, 8 };
+	private final static int[] WRITE_PERCENTS = { 0, 10, 50 };
+	private final static int KEYS = 1_000_000;
+	private final static int OPERATIONS = 4_000_000;
+	private final static int ROUNDS = 3;
+
+	/**
+	 * The operations on a set, as measured.
+	 */
+	private interface OrderedSet {
+		boolean contains(Integer key);
+
+		void add(Integer key);
+
+		void remove(Integer key);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		System.out.printf("processors=%d%n%-8s %-8s %12s %12s %12s%n", Runtime.getRuntime().availableProcessors(),
+				"writes", "threads", "tree", "skip list", "locked");
+
+		for (int writes : WRITE_PERCENTS) {
+			for (int threads : THREADS) {
+				double tree = throughput(threads, writes, () -> {
+					ConcurrentTree<Integer> set = new ConcurrentTree<>();
+
+					return new OrderedSet() {
+						@Override
+						public boolean contains(Integer key) {
+							return set.contains(key);
+						}
+
+						@Override
+						public void add(Integer key) {
+							set.add(key);
+						}
+
+						@Override
+						public void remove(Integer key) {
+							set.remove(key);
+						}
+					};
+				});
+				double skipList = throughput(threads, writes, () -> {
+					ConcurrentSkipListSet<Integer> set = new ConcurrentSkipListSet<>();
+
+					return new OrderedSet() {
+						@Override
+						public boolean contains(Integer key) {
+							return set.contains(key);
+						}
+
+						@Override
+						public void add(Integer key) {
+							set.add(key);
+						}
+
+						@Override
+						public void remove(Integer key) {
+							set.remove(key);
+						}
+					};
+				});
+				double locked = throughput(threads, writes, () -> {
+					TreeSet<Integer> set = new TreeSet<>();
+					ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+					return new OrderedSet() {
+						@Override
+						public boolean contains(Integer key) {
+							lock.readLock().lock();
+
+							try {
+								return set.contains(key);
+							} finally {
+								lock.readLock().unlock();
+							}
+						}
+
+						@Override
+						public void add(Integer key) {
+							lock.writeLock().lock();
+
+							try {
+								set.add(key);
+							} finally {
+								lock.writeLock().unlock();
+							}
+						}
+
+						@Override
+						public void remove(Integer key) {
+							lock.writeLock().lock();
+
+							try {
+								set.remove(key);
+							} finally {
+								lock.writeLock().unlock();
+							}
+						}
+					};
+				});
+
+				System.out.printf("%-8s %-8d %10.2fM/s %10.2fM/s %10.2fM/s%n", writes + "%", threads, tree, skipList, locked);
+			}
+		}
+	}
+
+	/**
+	 * @return the best throughput over several rounds, in millions of operations per second.
+	 */
+	private static double throughput(int threads, int writePercent, Supplier<OrderedSet> create) throws InterruptedException {
+		double best = 0;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			OrderedSet set = create.get();
+
+			// half the keys are in the set, so that lookups hit and miss alike
+			for (int i = 0; i < KEYS; i += 2) {
+				set.add(i);
+			}
+
+			CountDownLatch start = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(threads);
+
+			for (int t = 0; t < threads; t++) {
+				new Thread(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					long hits = 0;
+
+					for (int i = 0; i < OPERATIONS / threads; i++) {
+						Integer key = random.nextInt(KEYS);
+
+						if (random.nextInt(100) >= writePercent) {
+							hits += set.contains(key) ? 1 : 0;
+						} else if (random.nextBoolean()) {
+							set.add(key);
+						} else {
+							set.remove(key);
+						}
+					}
+
+					if (hits == -1) {
+						System.out.println();
+					}
+
+					done.countDown();
+				}).start();
+			}
+
+			long begin = System.nanoTime();
+			start.countDown();
+			done.await();
+			best = Math.max(best, OPERATIONS / ((System.nanoTime() - begin) / 1e3));
+		}
+
+		return best;
+	}
+}
@@ -0,0 +1,230 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTreeTest {
+	@Test
+	public void emptyTest() {
+		ConcurrentTree<Integer> tree = new ConcurrentTree<>();
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.height());
+		assertFalse(tree.contains(1));
+		assertFalse(tree.remove(1));
+		assertFalse(tree.iterator().hasNext());
+		assertThrows(NullPointerException.class, () -> tree.add(null));
+		assertThrows(NullPointerException.class, () -> tree.contains(null));
+		assertEquals(new ConcurrentTree<Integer>(), tree);
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(46);
+		ConcurrentTree<Integer> tree = new ConcurrentTree<>();
+		TreeSet<Integer> set = new TreeSet<>();
+
+		for (int step = 0; step < 200_000; step++) {
+			int key = random.nextInt(10_000);
+
+			if (random.nextInt(5) < 3) {
+				assertEquals(set.add(key), tree.insert(key));
+			} else {
+				assertEquals(set.remove(key), tree.remove(key));
+			}
+
+			if (step % 20_000 == 0) {
+				check(tree, set);
+			}
+		}
+
+		check(tree, set);
+
+		for (Integer key : set) {
+			assertTrue(tree.remove(key));
+		}
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.height());
+	}
+
+	@Test
+	public void sortedTest() {
+		ConcurrentTree<Integer> tree = new ConcurrentTree<>();
+		TreeSet<Integer> set = new TreeSet<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			tree.add(i);
+			set.add(i);
+		}
+
+		check(tree, set);
+
+		// removing every other value leaves routing nodes, which later rotations and removals unlink
+		for (int i = 0; i < 100_000; i += 2) {
+			tree.remove(i);
+			set.remove(i);
+		}
+
+		check(tree, set);
+		assertTrue(tree.internalNodes() + tree.leafCount() < 100_000);
+	}
+
+	@Test
+	public void rangeTest() {
+		ConcurrentTree<Integer> tree = new ConcurrentTree<>();
+
+		for (int i = 0; i < 100; i += 3) {
+			tree.add(i);
+		}
+
+		tree.remove(9);
+
+		List<Integer> values = new ArrayList<>();
+
+		tree.forEachInRange(5, 19, values::add);
+		assertEquals(Arrays.asList(6, 12, 15, 18), values);
+
+		values.clear();
+		tree.forEachInRange(6, 7, values::add);
+		assertEquals(Arrays.asList(6), values);
+
+		values.clear();
+		tree.forEachInRange(100, 200, values::add);
+		assertTrue(values.isEmpty());
+	}
+
+	@Test
+	public void concurrentTest() throws InterruptedException {
+		ConcurrentTree<Integer> tree = new ConcurrentTree<>();
+		int writers = 4;
+		int readers = 4;
+		int perWriter = 50_000;
+
+		// even values stay in the tree throughout; writers churn odd values around them
+		for (int i = 0; i < writers * perWriter; i += 2) {
+			tree.add(i);
+		}
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicInteger misses = new AtomicInteger();
+		AtomicInteger disorder = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(writers);
+		List<Thread> threads = new ArrayList<>();
+
+		for (int t = 0; t < writers; t++) {
+			int base = t * perWriter;
+
+			threads.add(new Thread(() -> {
+				Random random = new Random(base);
+
+				for (int round = 0; round < 4; round++) {
+					for (int i = 1; i < perWriter; i += 2) {
+						tree.add(base + i);
+					}
+
+					for (int i = 1; i < perWriter; i += 2) {
+						if (random.nextBoolean()) {
+							tree.remove(base + i);
+						}
+					}
+				}
+
+				for (int i = 1; i < perWriter; i += 2) {
+					tree.add(base + i);
+				}
+
+				done.countDown();
+			}));
+		}
+
+		for (int t = 0; t < readers; t++) {
+			int seed = t;
+
+			threads.add(new Thread(() -> {
+				Random random = new Random(-seed);
+
+				while (running.get()) {
+					for (int i = 0; i < 1_000; i++) {
+						if (!tree.contains(2 * random.nextInt(writers * perWriter / 2))) {
+							misses.incrementAndGet();
+						}
+					}
+
+					int start = 2 * random.nextInt(writers * perWriter / 2 - 100);
+					int[] last = { -1 };
+					int[] evens = { 0 };
+
+					tree.forEachInRange(start, start + 100, value -> {
+						if (value <= last[0]) {
+							disorder.incrementAndGet();
+						}
+
+						last[0] = value;
+						evens[0] += value % 2 == 0 ? 1 : 0;
+					});
+
+					if (evens[0] != 50) {
+						misses.incrementAndGet();
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+
+		done.await();
+		running.set(false);
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, misses.get());
+		assertEquals(0, disorder.get());
+
+		TreeSet<Integer> set = new TreeSet<>();
+
+		for (int i = 0; i < writers * perWriter; i++) {
+			set.add(i);
+		}
+
+		check(tree, set);
+	}
+
+	/**
+	 * Checks that a tree holds the values of a set, in order, and is balanced.
+	 */
+	private static void check(ConcurrentTree<Integer> tree, TreeSet<Integer> set) {
+		assertEquals(set.size(), tree.size());
+
+		Iterator<Integer> iterator = tree.iterator();
+
+		for (Integer value : set) {
+			assertEquals(value, iterator.next());
+			assertTrue(tree.contains(value));
+			assertFalse(tree.contains(-value - 1));
+		}
+
+		assertFalse(iterator.hasNext());
+
+		// an AVL tree of n nodes is less than 1.45 log2(n + 2) high
+		int nodes = tree.internalNodes() + tree.leafCount();
+
+		assertTrue(nodes >= set.size());
+		assertTrue(tree.height() < 1.45 * Math.log(nodes + 2) / Math.log(2), tree.height() + " high for " + nodes);
+	}
+}
@@ -0,0 +1,138 @@
+package pv3199.util;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Runs Dijkstra's shortest paths over a large random {@link DirectedGraph}, comparing an
+ * {@link IndexedPriorityQueue} that lowers priorities in place with a {@link PriorityQueue} that queues a
+ * new entry for every improved distance and skips stale ones. Edge weights are derived from the vertex
+ * pair, since the graph itself is unweighted. Not run as part of the test suite; run its
+ * {@link #main(String[])} directly.
+ */
+public class DijkstraBenchmark {
+	private final static int VERTICES = 20_000;
+	private final static int LINKS = 6;
+	private final static int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int vertices = args.length > 0 ? Integer.parseInt(args[0]) : VERTICES;
+		Random random = new Random(1);
+		DirectedGraph<Integer> graph = new DirectedGraph<>();
+
+		for (int v = 0; v < vertices; v++) {
+			Integer[] links = new Integer[LINKS];
+
+			for (int i = 0; i < LINKS; i++) {
+				links[i] = random.nextInt(vertices);
+			}
+
+			graph.add(v, links);
+		}
+
+		// snapshot the graph's links as vertex numbers
+		List<Graph<Integer>.Vertex> list = graph.vertices;
+		IdentityHashMap<Graph<Integer>.Vertex, Integer> number = new IdentityHashMap<>();
+
+		for (int i = 0; i < list.size(); i++) {
+			number.put(list.get(i), i);
+		}
+
+		int[][] adjacency = new int[list.size()][];
+		double[][] weights = new double[list.size()][];
+
+		for (int i = 0; i < list.size(); i++) {
+			List<Graph<Integer>.Vertex> links = list.get(i).links;
+			adjacency[i] = new int[links.size()];
+			weights[i] = new double[links.size()];
+
+			for (int j = 0; j < links.size(); j++) {
+				adjacency[i][j] = number.get(links.get(j));
+				weights[i][j] = 1 + Math.floorMod(i * 31 + adjacency[i][j] * 17, 100);
+			}
+		}
+
+		long bestIndexed = Long.MAX_VALUE;
+		long bestLazy = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			double[] indexed = indexed(adjacency, weights, 0);
+			bestIndexed = Math.min(bestIndexed, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			double[] lazy = lazy(adjacency, weights, 0);
+			bestLazy = Math.min(bestLazy, System.nanoTime() - start);
+
+			if (!java.util.Arrays.equals(indexed, lazy)) {
+				throw new AssertionError();
+			}
+		}
+
+		System.out.printf("vertices=%d edges=%d indexed=%.1fms lazy=%.1fms%n",
+				adjacency.length, adjacency.length * LINKS, bestIndexed / 1e6, bestLazy / 1e6);
+	}
+
+	private static double[] indexed(int[][] adjacency, double[][] weights, int source) {
+		double[] distance = new double[adjacency.length];
+		IndexedPriorityQueue<Double> queue = new IndexedPriorityQueue<>(adjacency.length);
+
+		java.util.Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		distance[source] = 0;
+		queue.add(source, 0d);
+
+		while (queue.size() > 0) {
+			int u = queue.pop();
+
+			for (int j = 0; j < adjacency[u].length; j++) {
+				int v = adjacency[u][j];
+				double d = distance[u] + weights[u][j];
+
+				if (d < distance[v]) {
+					boolean queued = distance[v] != Double.POSITIVE_INFINITY;
+					distance[v] = d;
+
+					if (queued) {
+						queue.decreaseKey(v, d);
+					} else {
+						queue.add(v, d);
+					}
+				}
+			}
+		}
+
+		return distance;
+	}
+
+	private static double[] lazy(int[][] adjacency, double[][] weights, int source) {
+		double[] distance = new double[adjacency.length];
+		PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+
+		java.util.Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		distance[source] = 0;
+		queue.add(new double[]{ 0, source });
+
+		while (!queue.isEmpty()) {
+			double[] top = queue.poll();
+			int u = (int) top[1];
+
+			if (top[0] > distance[u]) {
+				continue;
+			}
+
+			for (int j = 0; j < adjacency[u].length; j++) {
+				int v = adjacency[u][j];
+				double d = distance[u] + weights[u][j];
+
+				if (d < distance[v]) {
+					distance[v] = d;
+					queue.add(new double[]{ d, v });
+				}
+			}
+		}
+
+		return distance;
+	}
+}
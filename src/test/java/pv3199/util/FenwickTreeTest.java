@@ -0,0 +1,82 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FenwickTreeTest {
+	private final static Class<? extends Throwable> IOOBE = IndexOutOfBoundsException.class;
+
+	@Test
+	public void constructorTest() {
+		assertEquals(0, new FenwickTree(0).size());
+		assertEquals(0, new FenwickTree(0).prefixSum(0));
+		assertThrows(IllegalArgumentException.class, () -> new FenwickTree(-1));
+
+		long[] values = { 3, -1, 4, 1, -5, 9, 2, 6 };
+		FenwickTree tree = new FenwickTree(values);
+
+		assertEquals(values.length, tree.size());
+
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(values[i], tree.get(i));
+		}
+
+		assertEquals(19, tree.sum(0, 8));
+		assertEquals(-1, tree.sum(1, 5));
+		assertEquals(0, tree.sum(3, 3));
+	}
+
+	@Test
+	public void boundsTest() {
+		FenwickTree tree = new FenwickTree(5);
+
+		assertThrows(IOOBE, () -> tree.add(5, 1));
+		assertThrows(IOOBE, () -> tree.add(-1, 1));
+		assertThrows(IOOBE, () -> tree.get(5));
+		assertThrows(IOOBE, () -> tree.prefixSum(6));
+		assertThrows(IOOBE, () -> tree.sum(3, 2));
+		assertThrows(IOOBE, () -> tree.sum(-1, 2));
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(50);
+
+		for (int size : new int[]{ 1, 2, 7, 64, 1_000 }) {
+			long[] values = new long[size];
+
+			for (int i = 0; i < size; i++) {
+				values[i] = random.nextInt(2_000) - 1_000;
+			}
+
+			FenwickTree tree = new FenwickTree(values.clone());
+
+			for (int step = 0; step < 5_000; step++) {
+				int i = random.nextInt(size);
+
+				if (random.nextBoolean()) {
+					long delta = random.nextInt(2_000) - 1_000;
+
+					tree.add(i, delta);
+					values[i] += delta;
+				} else {
+					values[i] = random.nextLong();
+					tree.set(i, values[i]);
+				}
+
+				int from = random.nextInt(size + 1);
+				int to = from + random.nextInt(size + 1 - from);
+				long sum = 0;
+
+				for (int j = from; j < to; j++) {
+					sum += values[j];
+				}
+
+				assertEquals(sum, tree.sum(from, to));
+			}
+		}
+	}
+}
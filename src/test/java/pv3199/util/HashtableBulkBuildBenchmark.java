@@ -0,0 +1,64 @@
+package pv3199.util;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares building a {@link UniqueHashtable} from an array through {@link UniqueHashtable#add(Object) add}
+ * with {@link UniqueHashtable#build(Object[], java.util.function.Function, ForkJoinPool) a parallel build},
+ * and times {@link Hashtable#forEach} against {@link Hashtable#parallelForEach}. Not run as part of the
+ * test suite; run its {@link #main(String[])} directly.
+ */
+public class HashtableBulkBuildBenchmark {
+	private final static int ELEMENTS = 5_000_000;
+	private final static int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : ELEMENTS;
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		String[] keys = new String[elements];
+
+		for (int i = 0; i < elements; i++) {
+			// one in ten keys is a duplicate
+			keys[i] = "key-" + (i % (elements - elements / 10));
+		}
+
+		long bestAdd = Long.MAX_VALUE;
+		long bestBuild = Long.MAX_VALUE;
+		long bestForEach = Long.MAX_VALUE;
+		long bestParallelForEach = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			UniqueHashtable<String> added = new UniqueHashtable<>(String::hashCode);
+			for (String k : keys) {
+				added.add(k);
+			}
+			bestAdd = Math.min(bestAdd, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			UniqueHashtable<String> built = UniqueHashtable.build(keys, String::hashCode, pool);
+			bestBuild = Math.min(bestBuild, System.nanoTime() - start);
+
+			if (added.size() != built.size()) {
+				throw new AssertionError();
+			}
+
+			long[] sum = new long[1];
+			start = System.nanoTime();
+			built.forEach(k -> sum[0] += k.length());
+			bestForEach = Math.min(bestForEach, System.nanoTime() - start);
+
+			java.util.concurrent.atomic.LongAdder parallelSum = new java.util.concurrent.atomic.LongAdder();
+			start = System.nanoTime();
+			built.parallelForEach(k -> parallelSum.add(k.length()), pool);
+			bestParallelForEach = Math.min(bestParallelForEach, System.nanoTime() - start);
+
+			if (sum[0] != parallelSum.sum()) {
+				throw new AssertionError();
+			}
+		}
+
+		System.out.printf("elements=%d parallelism=%d add=%.1fms build=%.1fms forEach=%.1fms parallelForEach=%.1fms%n",
+				elements, pool.getParallelism(), bestAdd / 1e6, bestBuild / 1e6, bestForEach / 1e6, bestParallelForEach / 1e6);
+	}
+}
@@ -0,0 +1,94 @@
+package pv3199.util;
+
+import java.util.function.Function;
+
+/**
+ * Measures {@link Hashtable} build (including every resize) and lookup time with an expensive,
+ * composite-key hashing function. Not run as part of the test suite; run its {@link #main(String[])}
+ * directly.
+ */
+public class HashtableHashCacheBenchmark {
+	private final static int ELEMENTS = 1_000_000;
+	private final static int ROUNDS = 5;
+
+	/**
+	 * A composite key hashed field by field, standing in for an expensive user-supplied hash.
+	 */
+	private final static class Key {
+		final String tenant;
+		final long id;
+		final int[] path;
+
+		Key(String tenant, long id, int[] path) {
+			this.tenant = tenant;
+			this.id = id;
+			this.path = path;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key k = (Key) obj;
+			return this.id == k.id && this.tenant.equals(k.tenant) && java.util.Arrays.equals(this.path, k.path);
+		}
+	}
+
+	private final static Function<Key, Integer> HASH = k -> {
+		int h = 17;
+		for (int i = 0; i < k.tenant.length(); i++) {
+			h = h * 31 + k.tenant.charAt(i);
+		}
+		h = h * 31 + Long.hashCode(k.id);
+		for (int p : k.path) {
+			h = h * 31 + p;
+		}
+		return h;
+	};
+
+	public static void main(String[] args) {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : ELEMENTS;
+		Key[] keys = new Key[elements];
+		Key[] misses = new Key[elements];
+
+		for (int i = 0; i < elements; i++) {
+			int[] path = { i % 7, i % 11, i % 13, i % 17, i % 19, i % 23, i % 29, i % 31 };
+			keys[i] = new Key("tenant-" + (i % 100) + "-with-a-long-shared-prefix", i, path);
+			misses[i] = new Key("tenant-" + (i % 100) + "-with-a-long-shared-prefix", -i - 1, path);
+		}
+
+		long bestBuild = Long.MAX_VALUE;
+		long bestHit = Long.MAX_VALUE;
+		long bestMiss = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			Hashtable<Key> table = new Hashtable<>(HASH);
+			for (Key k : keys) {
+				table.add(k);
+			}
+			bestBuild = Math.min(bestBuild, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (Key k : keys) {
+				if (!table.contains(k)) {
+					throw new AssertionError();
+				}
+			}
+			bestHit = Math.min(bestHit, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (Key k : misses) {
+				if (table.contains(k)) {
+					throw new AssertionError();
+				}
+			}
+			bestMiss = Math.min(bestMiss, System.nanoTime() - start);
+		}
+
+		System.out.printf("elements=%d build=%.1fms hits=%.1fms misses=%.1fms%n",
+				elements, bestBuild / 1e6, bestHit / 1e6, bestMiss / 1e6);
+	}
+}
@@ -0,0 +1,57 @@
+package pv3199.util;
+
+/**
+ * Reports the per-operation latency of {@link Hashtable#add(Object)} while a table grows, with and
+ * without incremental resizing. Not run as part of the test suite; run its {@link #main(String[])}
+ * directly.
+ */
+public class HashtableResizeBenchmark {
+	private final static int ELEMENTS = 8_000_000;
+	private final static int WARMUP_ROUNDS = 3;
+
+	public static void main(String[] args) {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : ELEMENTS;
+		Integer[] values = new Integer[elements];
+
+		for (int i = 0; i < elements; i++) {
+			values[i] = i * 31;
+		}
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			run(values, false);
+			run(values, true);
+		}
+
+		report("stop-the-world", run(values, false));
+		report("incremental", run(values, true));
+	}
+
+	private static long[] run(Integer[] values, boolean incremental) {
+		Hashtable<Integer> table = new Hashtable<>();
+		table.setIncrementalResize(incremental);
+
+		long[] latencies = new long[values.length];
+
+		for (int i = 0; i < values.length; i++) {
+			long start = System.nanoTime();
+			table.add(values[i]);
+			latencies[i] = System.nanoTime() - start;
+		}
+
+		return latencies;
+	}
+
+	private static void report(String name, long[] latencies) {
+		long total = 0;
+		for (long l : latencies) {
+			total += l;
+		}
+
+		long[] sorted = latencies.clone();
+		java.util.Arrays.sort(sorted);
+
+		System.out.printf("%-15s adds=%d total=%.1fms p50=%dns p99=%dns p99.99=%dns max=%.3fms%n", name,
+				sorted.length, total / 1e6, sorted[sorted.length / 2], sorted[(int) (sorted.length * .99)],
+				sorted[(int) (sorted.length * .9999)], sorted[sorted.length - 1] / 1e6);
+	}
+}
@@ -3,6 +3,11 @@ package pv3199.util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class HashtableTest {
@@ -14,7 +19,7 @@ public class HashtableTest {
 
 	@BeforeEach
 	public void resetTable() {
-		expectedTable = new Integer[]{ 211, 65, 97, 83, -132, 932, 78, 31 };
+		expectedTable = new Integer[]{ -132, 65, 83, 932, 78, 31, 97, 211 };
 		table = new Hashtable<>(4);
 	}
 
@@ -60,10 +65,264 @@ public class HashtableTest {
 			assertFalse(table.remove(rem));
 
 			int index = Arrays.indexOf(expectedTable, rem)[0];
-			expectedTable[index] = null;
+			Integer[] remaining = new Integer[expectedTable.length - 1];
+			System.arraycopy(expectedTable, 0, remaining, 0, index);
+			System.arraycopy(expectedTable, index + 1, remaining, index, remaining.length - index);
+			expectedTable = remaining;
 
 			assertArrayEquals(expectedTable, table.data());
-			assertEquals(expectedTable.length - i - 1, table.size());
+			assertEquals(values.length - i - 1, table.size());
+		}
+	}
+
+	@Test
+	public void reinsertTest() {
+		addTest();
+
+		// removals leave holes that are compacted once the entries fill up again
+		for (int round = 0; round < 50; round++) {
+			for (int i : values) {
+				assertTrue(table.remove(i));
+			}
+			for (int i : values) {
+				table.add(i);
+			}
+		}
+
+		assertArrayEquals(expectedTable, table.data());
+		assertEquals(values.length, table.size());
+	}
+
+	@Test
+	public void forEachTest() {
+		addTest();
+		table.remove(83);
+
+		java.util.List<Integer> seen = new java.util.ArrayList<>();
+		table.forEach((Integer i) -> seen.add(i));
+
+		assertArrayEquals(new Integer[]{ -132, 65, 932, 78, 31, 97, 211 }, seen.toArray());
+	}
+
+	@Test
+	public void churnTest() {
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			Hashtable<Integer> churned = new Hashtable<>();
+
+			// removing the last element reuses its position, so the entries array never fills up
+			for (int i = 0; i < 100; i++) {
+				churned.add(i);
+				churned.remove(i);
+			}
+
+			assertFalse(churned.contains(12_345));
+			assertTrue(churned.stats().getTombstones() < churned.stats().getIndexCapacity());
+
+			for (boolean incremental : new boolean[]{ false, true }) {
+				churned.setIncrementalResize(incremental);
+
+				for (int i = 0; i < 100_000; i++) {
+					churned.add(i);
+					assertTrue(churned.contains(i));
+					assertTrue(churned.remove(i));
+					assertFalse(churned.contains(i));
+					assertFalse(churned.remove(i));
+				}
+			}
+
+			assertEquals(0, churned.size());
+		});
+	}
+
+	@Test
+	public void hashCallsTest() {
+		for (boolean incremental : new boolean[]{ false, true }) {
+			AtomicLong calls = new AtomicLong();
+			Hashtable<Integer> counted = new Hashtable<>(i -> {
+				calls.incrementAndGet();
+				return i;
+			}, 4);
+
+			counted.setIncrementalResize(incremental);
+			counted.setStatsEnabled(true);
+
+			// resizes reuse the cached hashes, so each add calls the hash function exactly once
+			for (int i = 0; i < 10_000; i++) {
+				counted.add(i);
+				assertEquals(i + 1, calls.get());
+			}
+
+			assertTrue(counted.stats().getResizeCount() >= 10);
+
+			// removing older elements leaves holes and tombstones, which are rehashed away
+			long resizes = counted.stats().getResizeCount();
+
+			for (int i = 10_000; i < 20_000; i++) {
+				long before = calls.get();
+
+				counted.add(i);
+				assertTrue(counted.remove(i - 10_000));
+				assertEquals(before + 2, calls.get());
+			}
+
+			assertTrue(counted.stats().getResizeCount() > resizes);
+			assertEquals(10_000, counted.size());
+		}
+	}
+
+	@Test
+	public void incrementalResizeTest() {
+		table.setIncrementalResize(true);
+
+		for (int i = 0; i < 10_000; i++) {
+			table.add(i);
+
+			// lookups must see elements in both the old and new index mid-resize
+			assertTrue(table.contains(i / 2));
+			assertFalse(table.contains(-i - 1));
+		}
+
+		for (int i = 0; i < 10_000; i += 3) {
+			assertTrue(table.remove(i));
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(i % 3 != 0, table.contains(i));
+		}
+
+		Object[] data = table.data();
+		for (int i = 1; i < data.length; i++) {
+			assertTrue((Integer) data[i - 1] < (Integer) data[i]);
+		}
+
+		table.setIncrementalResize(false);
+		assertEquals(data.length, table.size());
+		assertTrue(table.contains(9_998));
+	}
+
+	@Test
+	public void statsTest() throws Exception {
+		addTest();
+
+		assertFalse(table.isStatsEnabled());
+		assertEquals(0, table.stats().getHits());
+
+		table.setStatsEnabled(true);
+
+		for (int i : values) {
+			assertTrue(table.contains(i));
+		}
+		assertFalse(table.contains(0));
+		table.remove(83);
+
+		HashtableStats stats = table.stats();
+
+		assertEquals(values.length + 1, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(values.length - 1, stats.getSize());
+		assertEquals(1, stats.getTombstones());
+		assertEquals(stats.getHits() + stats.getMisses(), java.util.Arrays.stream(stats.getProbeHistogram()).sum());
+		assertTrue(stats.getAverageHitProbe() >= 1);
+
+		// a hashing function that maps everything to one value shows up as long probes
+		Hashtable<Integer> clustered = new Hashtable<>(i -> 0);
+		clustered.setStatsEnabled(true);
+
+		for (int i = 0; i < 1_000; i++) {
+			clustered.add(i);
+		}
+		for (int i = 0; i < 1_000; i++) {
+			clustered.contains(i);
 		}
+
+		HashtableStats clusteredStats = clustered.stats();
+
+		assertTrue(clusteredStats.getResizeCount() > 0);
+		assertTrue(clusteredStats.getAverageHitProbe() > 100);
+		assertTrue(clusteredStats.getMaxHitProbe() >= 1_000);
+
+		javax.management.ObjectName name = clustered.registerStatsMBean("pv3199.util:type=Hashtable,name=statsTest");
+		try {
+			Object hits = java.lang.management.ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Hits");
+			assertEquals(1_000L, hits);
+		} finally {
+			java.lang.management.ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		}
+	}
+
+	@Test
+	public void cloneTest() {
+		table = new Hashtable<>(i -> i % 3, 4);
+		addTest();
+
+		Hashtable<Integer> clone = table.clone();
+
+		assertEquals(table.size(), clone.size());
+		assertArrayEquals(table.data(), clone.data());
+
+		clone.remove(65);
+		clone.add(0);
+
+		assertTrue(table.contains(65));
+		assertFalse(table.contains(0));
+		assertTrue(clone.contains(0));
+		assertEquals(values.length, clone.size());
+	}
+
+	@Test
+	public void buildTest() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Integer[] elements = new Integer[200_000];
+
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = (i * 7919) % 50_000;
+		}
+
+		// a weak hash function makes probe sequences leave their regions
+		for (Function<Integer, Integer> hash : new Function[]{ (Function<Integer, Integer>) Object::hashCode, (Function<Integer, Integer>) i -> i % 1_000 }) {
+			Hashtable<Integer> all = Hashtable.build(elements, hash, pool);
+			UniqueHashtable<Integer> unique = UniqueHashtable.build(elements, hash, pool);
+
+			assertEquals(elements.length, all.size());
+			assertArrayEquals(elements, all.data());
+			assertEquals(50_000, unique.size());
+
+			Object[] data = unique.data();
+
+			for (int i = 0; i < data.length; i++) {
+				assertEquals(elements[i], data[i]);
+				assertTrue(unique.contains(i));
+			}
+
+			assertFalse(unique.contains(50_000));
+
+			// the table keeps working after the build
+			unique.add(50_000);
+			unique.add(0);
+			assertTrue(unique.remove(1));
+			assertEquals(50_000, unique.size());
+			assertTrue(unique.contains(50_000));
+		}
+
+		assertEquals(0, Hashtable.build(new Integer[0], Object::hashCode).size());
+		assertThrows(NullPointerException.class, () -> Hashtable.build(new Integer[]{ 1, null }, Object::hashCode, pool));
+
+		pool.shutdown();
+	}
+
+	@Test
+	public void parallelForEachTest() {
+		addTest();
+		table.remove(83);
+
+		AtomicLong sum = new AtomicLong();
+		long expected = 0;
+
+		for (int i : values) {
+			expected += i == 83 ? 0 : i;
+		}
+
+		table.parallelForEach(sum::addAndGet);
+		assertEquals(expected, sum.get());
 	}
 }
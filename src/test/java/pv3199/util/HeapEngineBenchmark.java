@@ -0,0 +1,118 @@
+package pv3199.util;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the {@link PriorityHeap} engines across heap sizes and two push/pop mixes:
+ * <ul>
+ *     <li><i>fill-drain</i> adds random keys up to the size and then pops every one;</li>
+ *     <li><i>hold</i> keeps the heap at the size, popping one key and adding a key no lower than it each
+ *     step, as Dijkstra's algorithm does.</li>
+ * </ul>
+ * Each cell is the best of several rounds after warm-up, in nanoseconds per operation. Not run as part of
+ * the test suite; run its {@link #main(String[])} directly.
+ */
+public class HeapEngineBenchmark {
+	private final static int[] SIZES = { 1_000, 100_000, 1_000_000 };
+	private final static int OPERATIONS = 2_000_000;
+	private final static int ROUNDS = 5;
+
+	private final static String[] NAMES = { "binary", "4-ary", "8-ary", "pairing", "radix" };
+	private final static Supplier<PriorityHeap<Long>>[] ENGINES = new Supplier[]{
+			() -> new MinHeap<Long>(),
+			() -> new DaryHeap<Long>(4),
+			() -> new DaryHeap<Long>(8),
+			() -> new PairingHeap<Long>(),
+			() -> new RadixHeap<Long>(Long::longValue)
+	};
+
+	public static void main(String[] args) {
+		System.out.printf("%-10s %-10s", "size", "mix");
+		for (String name : NAMES) {
+			System.out.printf(" %9s", name);
+		}
+		System.out.println();
+
+		for (int size : SIZES) {
+			Long[] keys = new Long[Math.max(size, OPERATIONS)];
+			Random random = new Random(size);
+
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = (long) random.nextInt(1 << 30);
+			}
+
+			print(size, "fill-drain", engine -> fillDrain(engine, keys, size));
+			print(size, "hold", engine -> hold(engine, keys, size));
+		}
+	}
+
+	private static void print(int size, String mix, java.util.function.ToLongFunction<Supplier<PriorityHeap<Long>>> run) {
+		System.out.printf("%-10d %-10s", size, mix);
+
+		for (Supplier<PriorityHeap<Long>> engine : ENGINES) {
+			long best = Long.MAX_VALUE;
+
+			for (int round = 0; round < ROUNDS; round++) {
+				best = Math.min(best, run.applyAsLong(engine));
+			}
+
+			System.out.printf(" %9.1f", (double) best / OPERATIONS);
+		}
+
+		System.out.println();
+	}
+
+	/**
+	 * @return the time of {@link #OPERATIONS} operations, filling and draining the heap as often as needed.
+	 */
+	private static long fillDrain(Supplier<PriorityHeap<Long>> engine, Long[] keys, int size) {
+		PriorityHeap<Long> heap = engine.get();
+		long start = System.nanoTime();
+
+		for (int done = 0; done < OPERATIONS; done += 2 * size) {
+			for (int i = 0; i < size; i++) {
+				heap.add(keys[i]);
+			}
+
+			long previous = -1;
+
+			for (int i = 0; i < size; i++) {
+				long k = heap.pop();
+
+				if (k < previous) {
+					throw new AssertionError();
+				}
+
+				previous = k;
+			}
+
+			if (heap instanceof RadixHeap) {
+				heap = engine.get();
+			}
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * @return the time of {@link #OPERATIONS} operations on a heap held at a size.
+	 */
+	private static long hold(Supplier<PriorityHeap<Long>> engine, Long[] keys, int size) {
+		PriorityHeap<Long> heap = engine.get();
+
+		for (int i = 0; i < size; i++) {
+			heap.add(keys[i]);
+		}
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < OPERATIONS / 2; i++) {
+			long k = heap.pop();
+
+			heap.add(k + (keys[i] & 0xFFFF));
+		}
+
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,100 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeapTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+	private final static Integer[] values = { 10, 5, 18, 2, 7, 11, 19, 1, 3, 6, 8, 16, 20, 0, 4, 9, 13, 17, 12, 14, 15, 5 };
+
+	private MinHeap<Integer> min;
+	private MaxHeap<Integer> max;
+
+	@BeforeEach
+	public void resetHeaps() {
+		min = new MinHeap<>();
+		max = new MaxHeap<>(1);
+	}
+
+	@Test
+	public void constructorTest() {
+		assertEquals(0, min.size());
+		assertEquals(0, min.height());
+		assertNull(min.peek());
+		assertNull(max.pop());
+		assertThrows(IAE, () -> new MinHeap<Integer>(0));
+		assertThrows(NullPointerException.class, () -> new MaxHeap<>(new Integer[]{ 1, null }));
+	}
+
+	@Test
+	public void addTest() {
+		for (int v : values) {
+			min.add(v);
+			max.add(v);
+		}
+
+		assertEquals(values.length, min.size());
+		assertEquals(values.length, max.size());
+		assertEquals(5, min.height());
+		assertEquals(0, (int) min.peek());
+		assertEquals(20, (int) max.peek());
+		assertThrows(NullPointerException.class, () -> min.add(null));
+	}
+
+	@Test
+	public void popTest() {
+		addTest();
+
+		Integer[] sorted = values.clone();
+		java.util.Arrays.sort(sorted);
+
+		for (int i = 0; i < sorted.length; i++) {
+			assertEquals(sorted[i], min.pop());
+			assertEquals(sorted[sorted.length - i - 1], max.pop());
+			assertEquals(sorted.length - i - 1, min.size());
+		}
+
+		assertNull(min.pop());
+		assertEquals(0, max.height());
+	}
+
+	@Test
+	public void heapifyTest() {
+		Random random = new Random(42);
+		Integer[] elements = new Integer[10_000];
+
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = random.nextInt(1_000);
+		}
+
+		MinHeap<Integer> heap = new MinHeap<>(elements);
+		Integer[] sorted = elements.clone();
+		java.util.Arrays.sort(sorted);
+
+		assertEquals(elements.length, heap.size());
+
+		for (Integer e : sorted) {
+			assertEquals(e, heap.pop());
+		}
+	}
+
+	@Test
+	public void comparatorTest() {
+		String[] words = { "pear", "fig", "banana", "kiwi", "apple" };
+		MinHeap<String> shortest = new MinHeap<>(Comparator.comparingInt(String::length), words);
+		MaxHeap<String> longest = new MaxHeap<>(Comparator.comparingInt(String::length));
+
+		for (String w : words) {
+			longest.add(w);
+		}
+
+		assertEquals("fig", shortest.pop());
+		assertEquals("banana", longest.pop());
+		assertEquals(5, longest.pop().length());
+	}
+}
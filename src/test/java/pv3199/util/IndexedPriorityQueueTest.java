@@ -0,0 +1,129 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedPriorityQueueTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	private IndexedPriorityQueue<Integer> queue;
+
+	@BeforeEach
+	public void resetQueue() {
+		queue = new IndexedPriorityQueue<>(10);
+	}
+
+	@Test
+	public void constructorTest() {
+		assertEquals(0, queue.size());
+		assertEquals(10, queue.capacity());
+		assertEquals(-1, queue.peek());
+		assertEquals(-1, queue.pop());
+		assertThrows(IAE, () -> new IndexedPriorityQueue<Integer>(-1));
+	}
+
+	@Test
+	public void addTest() {
+		int[] priorities = { 50, 20, 90, 10, 70, 30 };
+
+		for (int h = 0; h < priorities.length; h++) {
+			queue.add(h, priorities[h]);
+		}
+
+		assertEquals(priorities.length, queue.size());
+		assertEquals(3, queue.peek());
+		assertTrue(queue.contains(5));
+		assertFalse(queue.contains(6));
+		assertEquals(90, (int) queue.priorityOf(2));
+		assertNull(queue.priorityOf(6));
+		assertThrows(IAE, () -> queue.add(0, 1));
+		assertThrows(IAE, () -> queue.add(10, 1));
+		assertThrows(IAE, () -> queue.contains(-1));
+	}
+
+	@Test
+	public void keyTest() {
+		addTest();
+
+		queue.decreaseKey(2, 5);
+		assertEquals(2, queue.peek());
+		queue.increaseKey(2, 100);
+		assertEquals(3, queue.peek());
+		queue.increaseKey(3, 60);
+		assertEquals(1, queue.peek());
+
+		assertThrows(IAE, () -> queue.decreaseKey(2, 200));
+		assertThrows(IAE, () -> queue.increaseKey(2, 0));
+		assertThrows(IAE, () -> queue.decreaseKey(7, 0));
+
+		int[] order = { 1, 5, 0, 3, 4, 2 };
+
+		for (int h : order) {
+			assertEquals(h, queue.pop());
+		}
+
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void removeTest() {
+		addTest();
+
+		assertTrue(queue.remove(3));
+		assertFalse(queue.remove(3));
+		assertTrue(queue.remove(2));
+		assertFalse(queue.contains(3));
+		assertEquals(4, queue.size());
+		assertEquals(1, queue.pop());
+		assertEquals(5, queue.pop());
+
+		queue.clear();
+		assertEquals(0, queue.size());
+		assertFalse(queue.contains(0));
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(7);
+		int n = 1_000;
+		IndexedPriorityQueue<Integer> q = new IndexedPriorityQueue<>(n);
+		Integer[] reference = new Integer[n];
+
+		for (int op = 0; op < 100_000; op++) {
+			int h = random.nextInt(n);
+			int p = random.nextInt(10_000);
+
+			if (reference[h] == null) {
+				q.add(h, p);
+				reference[h] = p;
+			} else if (random.nextInt(4) == 0) {
+				assertTrue(q.remove(h));
+				reference[h] = null;
+			} else if (p < reference[h]) {
+				q.decreaseKey(h, p);
+				reference[h] = p;
+			} else {
+				q.increaseKey(h, p);
+				reference[h] = p;
+			}
+
+			if (op % 100 == 0 && q.size() > 0) {
+				int min = Integer.MAX_VALUE;
+
+				for (Integer r : reference) {
+					if (r != null) {
+						min = Math.min(min, r);
+					}
+				}
+
+				int top = q.pop();
+				assertEquals(min, (int) reference[top]);
+				reference[top] = null;
+			}
+		}
+	}
+}
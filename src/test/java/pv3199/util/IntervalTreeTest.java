@@ -0,0 +1,104 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntervalTreeTest {
+	@Test
+	public void intervalTest() {
+		IntervalTree.Interval<Integer> interval = new IntervalTree.Interval<>(2, 5);
+
+		assertTrue(interval.contains(2));
+		assertTrue(interval.contains(5));
+		assertFalse(interval.contains(6));
+		assertEquals("[2, 5]", interval.toString());
+		assertEquals(new IntervalTree.Interval<>(2, 5), interval);
+		assertTrue(interval.compareTo(new IntervalTree.Interval<>(2, 6)) < 0);
+		assertTrue(interval.compareTo(new IntervalTree.Interval<>(1, 9)) > 0);
+		assertThrows(IllegalArgumentException.class, () -> new IntervalTree.Interval<>(5, 2));
+		assertThrows(NullPointerException.class, () -> new IntervalTree.Interval<>(null, 2));
+	}
+
+	@Test
+	public void stabTest() {
+		IntervalTree<Integer> tree = new IntervalTree<>();
+
+		tree.add(1, 3);
+		tree.add(2, 8);
+		tree.add(5, 6);
+		tree.add(7, 7);
+		tree.add(9, 12);
+		tree.add(2, 8);
+
+		assertEquals(Arrays.asList("[1, 3]", "[2, 8]", "[2, 8]"), containing(tree, 3));
+		assertEquals(Arrays.asList("[2, 8]", "[2, 8]", "[7, 7]"), containing(tree, 7));
+		assertEquals(Collections.emptyList(), containing(tree, 0));
+		assertEquals(Collections.emptyList(), containing(tree, 13));
+
+		List<String> overlapping = new ArrayList<>();
+
+		tree.forEachOverlapping(6, 9, interval -> overlapping.add(interval.toString()));
+		assertEquals(Arrays.asList("[2, 8]", "[2, 8]", "[5, 6]", "[7, 7]", "[9, 12]"), overlapping);
+		assertThrows(IllegalArgumentException.class, () -> tree.forEachOverlapping(9, 6, interval -> {}));
+
+		assertTrue(tree.remove(2, 8));
+		assertFalse(tree.remove(2, 9));
+		assertEquals(Arrays.asList("[2, 8]", "[5, 6]"), containing(tree, 6));
+		assertTrue(tree.remove(2, 8));
+		assertEquals(Arrays.asList("[5, 6]"), containing(tree, 6));
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(50);
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		List<IntervalTree.Interval<Integer>> intervals = new ArrayList<>();
+
+		for (int step = 0; step < 20_000; step++) {
+			if (intervals.isEmpty() || random.nextInt(3) > 0) {
+				int start = random.nextInt(10_000);
+				IntervalTree.Interval<Integer> interval = new IntervalTree.Interval<>(start, start + random.nextInt(200));
+
+				tree.add(interval);
+				intervals.add(interval);
+			} else {
+				IntervalTree.Interval<Integer> interval = intervals.remove(random.nextInt(intervals.size()));
+
+				assertTrue(tree.remove(interval));
+			}
+
+			if (step % 100 == 0) {
+				int lo = random.nextInt(10_200);
+				int hi = lo + random.nextInt(50);
+				List<IntervalTree.Interval<Integer>> expected = new ArrayList<>();
+				List<IntervalTree.Interval<Integer>> found = new ArrayList<>();
+
+				for (IntervalTree.Interval<Integer> interval : intervals) {
+					if (interval.start() <= hi && interval.end() >= lo) {
+						expected.add(interval);
+					}
+				}
+
+				Collections.sort(expected);
+				tree.forEachOverlapping(lo, hi, found::add);
+				assertEquals(expected, found);
+			}
+		}
+
+		assertEquals(intervals.size(), tree.size());
+	}
+
+	private static List<String> containing(IntervalTree<Integer> tree, int point) {
+		List<String> list = new ArrayList<>();
+
+		tree.forEachContaining(point, interval -> list.add(interval.toString()));
+		return list;
+	}
+}
@@ -0,0 +1,133 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MembershipFilterTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+	private final static int INSERTIONS = 100_000;
+	private final static double FPP = .01;
+
+	@Test
+	public void constructorTest() {
+		assertThrows(IAE, () -> new BloomFilter<Integer>(0, FPP));
+		assertThrows(IAE, () -> new BlockedBloomFilter<Integer>(10, 0));
+		assertThrows(IAE, () -> new CuckooFilter<Integer>(10, 1));
+	}
+
+	@Test
+	public void bloomFilterTest() {
+		checkFilter(BloomFilter::new);
+	}
+
+	@Test
+	public void blockedBloomFilterTest() {
+		checkFilter(BlockedBloomFilter::new);
+	}
+
+	@Test
+	public void cuckooFilterTest() {
+		checkFilter(CuckooFilter::new);
+	}
+
+	@Test
+	public void cuckooRemoveTest() {
+		CuckooFilter<Integer> filter = new CuckooFilter<>(INSERTIONS, FPP);
+
+		for (int i = 0; i < INSERTIONS; i++) {
+			assertTrue(filter.add(i));
+		}
+
+		for (int i = 0; i < INSERTIONS; i += 2) {
+			assertTrue(filter.remove(i));
+		}
+
+		assertEquals(INSERTIONS / 2, filter.size());
+
+		int falsePositives = 0;
+		for (int i = 0; i < INSERTIONS; i++) {
+			if (i % 2 == 1) {
+				assertTrue(filter.mightContain(i));
+			} else if (filter.mightContain(i)) {
+				falsePositives++;
+			}
+		}
+
+		assertTrue(falsePositives < INSERTIONS / 2 * FPP * 2, "false positives: " + falsePositives);
+	}
+
+	@Test
+	public void cuckooFullTest() {
+		CuckooFilter<Integer> filter = new CuckooFilter<>(100, FPP);
+		int added = 0;
+
+		while (filter.add(added)) {
+			added++;
+		}
+
+		// every recorded element, including the evicted victim, is still reported
+		for (int i = 0; i < added; i++) {
+			assertTrue(filter.mightContain(i));
+		}
+
+		assertEquals(added, filter.size());
+	}
+
+	@Test
+	public void filteredUniqueHashtableTest() {
+		UniqueHashtable<Integer> table = new UniqueHashtable<>(Object::hashCode, 16, new CuckooFilter<>(1_000, FPP));
+
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 1_000; i++) {
+				table.add(i);
+			}
+		}
+
+		assertEquals(1_000, table.size());
+		assertNotNull(table.filter());
+
+		UniqueHashtable<Integer> clone = table.clone();
+		assertNotSame(table.filter(), clone.filter());
+
+		// overfilling the filter drops it rather than letting duplicates in
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 100_000; i++) {
+				table.add(i);
+			}
+		}
+
+		assertEquals(100_000, table.size());
+		assertNull(table.filter());
+		assertEquals(1_000, clone.size());
+	}
+
+	private static void checkFilter(BiFunction<Integer, Double, MembershipFilter<Integer>> constructor) {
+		MembershipFilter<Integer> filter = constructor.apply(INSERTIONS, FPP);
+
+		for (int i = 0; i < INSERTIONS; i++) {
+			assertTrue(filter.add(i * 7));
+		}
+
+		for (int i = 0; i < INSERTIONS; i++) {
+			assertTrue(filter.mightContain(i * 7));
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < INSERTIONS; i++) {
+			if (filter.mightContain(-i - 1)) {
+				falsePositives++;
+			}
+		}
+
+		assertTrue(falsePositives < INSERTIONS * FPP * 2, "false positives: " + falsePositives);
+
+		MembershipFilter<Integer> clone = filter.clone();
+		filter.clear();
+
+		assertFalse(filter.mightContain(7));
+		assertTrue(clone.mightContain(7));
+	}
+}
@@ -0,0 +1,148 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapUniqueHashtableTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	private OffHeapUniqueHashtable table;
+
+	@BeforeEach
+	public void resetTable() {
+		table = new OffHeapUniqueHashtable(8, 4);
+	}
+
+	@Test
+	public void constructorTest() {
+		assertEquals(0, new OffHeapUniqueHashtable(8).size());
+		assertThrows(IAE, () -> new OffHeapUniqueHashtable(0));
+		assertThrows(IAE, () -> new OffHeapUniqueHashtable(8, 0));
+		assertThrows(IAE, () -> new OffHeapUniqueHashtable(4).add(1L));
+		assertThrows(IAE, () -> new OffHeapUniqueHashtable(4).add(new byte[3]));
+	}
+
+	@Test
+	public void addTest() {
+		for (long i = 0; i < 10_000; i++) {
+			assertTrue(table.add(i * 31));
+		}
+
+		for (long i = 0; i < 10_000; i++) {
+			assertFalse(table.add(i * 31));
+			assertTrue(table.contains(i * 31));
+		}
+
+		assertEquals(10_000, table.size());
+		assertFalse(table.contains(1));
+		assertTrue(table.contains(new byte[]{ 0, 0, 0, 0, 0, 0, 0, 31 }));
+	}
+
+	@Test
+	public void wideKeyTest() {
+		OffHeapUniqueHashtable wide = new OffHeapUniqueHashtable(12);
+
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(wide.add(key(i)));
+		}
+
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(wide.contains(key(i)));
+		}
+
+		assertFalse(wide.contains(key(1_000)));
+		assertTrue(wide.remove(key(500)));
+		assertFalse(wide.contains(key(500)));
+		assertEquals(999, wide.size());
+	}
+
+	@Test
+	public void removeTest() {
+		addTest();
+
+		for (long i = 0; i < 10_000; i += 2) {
+			assertTrue(table.remove(i * 31));
+			assertFalse(table.remove(i * 31));
+		}
+
+		for (long i = 0; i < 10_000; i++) {
+			assertEquals(i % 2 == 1, table.contains(i * 31));
+		}
+
+		assertEquals(5_000, table.size());
+	}
+
+	@Test
+	public void snapshotTest() throws IOException {
+		addTest();
+		table.remove(0L);
+
+		File file = File.createTempFile("offheap", ".ht");
+		file.deleteOnExit();
+
+		try {
+			table.snapshot(file);
+
+			OffHeapUniqueHashtable reopened = OffHeapUniqueHashtable.open(file);
+
+			assertEquals(table.size(), reopened.size());
+			assertEquals(table.capacity(), reopened.capacity());
+			assertFalse(reopened.contains(0L));
+
+			for (long i = 1; i < 10_000; i++) {
+				assertTrue(reopened.contains(i * 31));
+			}
+
+			// the mapping is private, so changes are not written back to the file
+			assertTrue(reopened.add(-1L));
+			assertFalse(OffHeapUniqueHashtable.open(file).contains(-1L));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void snapshotInPlaceTest() throws IOException {
+		addTest();
+
+		File file = File.createTempFile("offheap", ".ht");
+		file.deleteOnExit();
+
+		try {
+			table.snapshot(file);
+
+			OffHeapUniqueHashtable reopened = OffHeapUniqueHashtable.open(file);
+
+			// the chunks are still mapped from the file being replaced
+			assertTrue(reopened.add(-1L));
+			assertTrue(reopened.remove(31L));
+			reopened.snapshot(file);
+
+			assertTrue(reopened.contains(62L));
+			assertTrue(reopened.contains(-1L));
+
+			OffHeapUniqueHashtable again = OffHeapUniqueHashtable.open(file);
+
+			assertEquals(reopened.size(), again.size());
+			assertTrue(again.contains(-1L));
+			assertFalse(again.contains(31L));
+
+			for (long i = 2; i < 10_000; i++) {
+				assertTrue(again.contains(i * 31));
+			}
+
+			assertEquals(1, file.getAbsoluteFile().getParentFile().listFiles((dir, name) -> name.startsWith(file.getName())).length);
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static byte[] key(int i) {
+		return new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, (byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i };
+	}
+}
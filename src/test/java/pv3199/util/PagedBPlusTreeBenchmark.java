@@ -0,0 +1,126 @@
+package pv3199.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Measures {@link PagedBPlusTree} on a million keys with the default page size: adding them in random order
+ * in batches of ten thousand per commit, looking them up in another random order with caches of several
+ * sizes, scanning ranges of a thousand keys, and opening the file again.
+ * <p>
+ * Each cell is the best of several rounds after warm-up, in nanoseconds per key, or per open. Not run as
+ * part of the test suite; run its {@link #main(String[])} directly, optionally with the directory for the
+ * file as argument.
+ */
+public class PagedBPlusTreeBenchmark {
+	private final static int SIZE = 1_000_000;
+	private final static int BATCH = 10_000;
+	private final static int SCANS = 1_000;
+	private final static int SCAN_LENGTH = 1_000;
+	private final static int ROUNDS = 5;
+	private final static int[] CACHE_PAGES = { 64, 1024, 16384 };
+
+	/**
+	 * Keeps the JIT from dropping work whose result is unused.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) throws IOException {
+		Random random = new Random(45);
+		long[] inserts = new long[SIZE];
+		long[] lookups = new long[SIZE];
+		long[] scans = new long[SCANS];
+
+		for (int i = 0; i < SIZE; i++) {
+			inserts[i] = i;
+			lookups[i] = i;
+		}
+
+		shuffle(inserts, random);
+		shuffle(lookups, random);
+
+		for (int i = 0; i < SCANS; i++) {
+			scans[i] = random.nextInt(SIZE - SCAN_LENGTH);
+		}
+
+		File file = File.createTempFile("paged", ".bpt", args.length > 0 ? new File(args[0]) : null);
+
+		file.deleteOnExit();
+		System.out.printf("%-12s %10s %10s %10s %10s%n", "cache pages", "add", "contains", "scan", "open");
+
+		try {
+			for (int cachePages : CACHE_PAGES) {
+				double add = best(() -> {
+					try (PagedBPlusTree tree = PagedBPlusTree.create(file, PagedBPlusTree.DEFAULT_PAGE_SIZE, cachePages)) {
+						for (int i = 0; i < SIZE; i++) {
+							tree.add(inserts[i]);
+
+							if (i % BATCH == BATCH - 1) {
+								tree.commit();
+							}
+						}
+					}
+				}, SIZE);
+
+				try (PagedBPlusTree tree = PagedBPlusTree.open(file, cachePages)) {
+					double contains = best(() -> {
+						for (long key : lookups) {
+							sink += tree.contains(key) ? 1 : 0;
+						}
+					}, SIZE);
+					double scan = best(() -> {
+						for (long start : scans) {
+							tree.forEachInRange(start, start + SCAN_LENGTH, key -> sink += key);
+						}
+					}, SCANS * SCAN_LENGTH);
+					double open = best(() -> {
+						try (PagedBPlusTree reopened = PagedBPlusTree.open(file, cachePages)) {
+							sink += reopened.size();
+						}
+					}, 1);
+
+					System.out.printf("%-12d %10.1f %10.1f %10.1f %10.1f%n", cachePages, add, contains, scan, open);
+				}
+			}
+		} finally {
+			file.delete();
+		}
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * A run that may fail with an {@link IOException}.
+	 */
+	private interface IORunnable {
+		void run() throws IOException;
+	}
+
+	/**
+	 * @return the best time of a run over several rounds, per operation.
+	 */
+	private static double best(IORunnable run, int operations) throws IOException {
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return (double) best / operations;
+	}
+
+	private static void shuffle(long[] array, Random random) {
+		for (int i = array.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			long t = array[i];
+
+			array[i] = array[j];
+			array[j] = t;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedBPlusTreeTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	private File file;
+
+	@BeforeEach
+	public void createFile() throws IOException {
+		file = File.createTempFile("paged", ".bpt");
+		file.deleteOnExit();
+	}
+
+	@AfterEach
+	public void deleteFile() {
+		file.delete();
+	}
+
+	@Test
+	public void createTest() throws IOException {
+		assertThrows(IAE, () -> PagedBPlusTree.create(file, 100, 8));
+		assertThrows(IAE, () -> PagedBPlusTree.create(file, 128, 8));
+		assertThrows(IAE, () -> PagedBPlusTree.create(file, 256, 0));
+
+		try (PagedBPlusTree tree = PagedBPlusTree.create(file)) {
+			assertEquals(0, tree.size());
+			assertEquals(0, tree.height());
+			assertEquals(PagedBPlusTree.DEFAULT_PAGE_SIZE, tree.pageSize());
+			assertFalse(tree.contains(1));
+			assertFalse(tree.remove(1));
+			assertFalse(tree.iterator().hasNext());
+		}
+
+		try (PagedBPlusTree tree = PagedBPlusTree.open(file)) {
+			assertEquals(0, tree.size());
+			assertEquals(PagedBPlusTree.DEFAULT_PAGE_SIZE, tree.pageSize());
+		}
+
+		File empty = File.createTempFile("empty", ".bpt");
+
+		try {
+			assertThrows(IOException.class, () -> PagedBPlusTree.open(empty));
+		} finally {
+			empty.delete();
+		}
+	}
+
+	@Test
+	public void randomTest() throws IOException {
+		Random random = new Random(45);
+		TreeMap<Long, Integer> counts = new TreeMap<>();
+
+		// small pages and a small cache, so that the tree is several levels deep and pages are evicted
+		try (PagedBPlusTree tree = PagedBPlusTree.create(file, 256, 8)) {
+			for (int step = 0; step < 100_000; step++) {
+				long key = random.nextInt(5_000);
+
+				if (random.nextInt(5) < 3) {
+					tree.add(key);
+					counts.merge(key, 1, Integer::sum);
+				} else {
+					assertEquals(counts.containsKey(key), tree.remove(key));
+					counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+				}
+
+				if (step % 10_000 == 0) {
+					check(tree, counts);
+					tree.commit();
+				}
+			}
+
+			check(tree, counts);
+			assertTrue(tree.height() >= 3);
+		}
+
+		try (PagedBPlusTree tree = PagedBPlusTree.open(file, 8)) {
+			check(tree, counts);
+
+			while (!counts.isEmpty()) {
+				long key = counts.firstKey();
+
+				assertTrue(tree.remove(key));
+				counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+			}
+
+			assertEquals(0, tree.size());
+			assertEquals(0, tree.height());
+			assertEquals(0, tree.leafCount());
+		}
+	}
+
+	@Test
+	public void reuseTest() throws IOException {
+		try (PagedBPlusTree tree = PagedBPlusTree.create(file, 256, 8)) {
+			for (long i = 0; i < 10_000; i++) {
+				tree.add(i);
+			}
+
+			tree.commit();
+
+			// the copies written by each commit reuse the pages left behind by the one before
+			long pages = tree.pages();
+
+			for (int round = 0; round < 20; round++) {
+				for (long i = 0; i < 10_000; i += 97) {
+					assertTrue(tree.remove(i));
+					tree.add(i);
+				}
+
+				tree.commit();
+			}
+
+			assertTrue(tree.pages() < 2 * pages, tree.pages() + " pages, from " + pages);
+			assertEquals(10_000, tree.size());
+		}
+	}
+
+	@Test
+	public void rollbackTest() throws IOException {
+		try (PagedBPlusTree tree = PagedBPlusTree.create(file, 256, 8)) {
+			for (long i = 0; i < 1_000; i++) {
+				tree.add(i);
+			}
+
+			tree.commit();
+
+			for (long i = 0; i < 1_000; i += 2) {
+				tree.remove(i);
+			}
+
+			for (long i = 1_000; i < 2_000; i++) {
+				tree.add(i);
+			}
+
+			// nothing of the transaction is visible in the file, even with its pages written out
+			try (PagedBPlusTree committed = PagedBPlusTree.open(file)) {
+				assertEquals(1_000, committed.size());
+
+				tree.rollback();
+				assertEquals(1_000, tree.size());
+				assertEquals(committed, tree);
+			}
+
+			for (long i = 0; i < 1_000; i++) {
+				assertTrue(tree.contains(i));
+			}
+
+			assertFalse(tree.contains(1_000));
+		}
+	}
+
+	@Test
+	public void headerTest() throws IOException {
+		try (PagedBPlusTree tree = PagedBPlusTree.create(file, 512, 8)) {
+			tree.add(1);
+			tree.commit();
+			tree.add(2);
+		}
+
+		// damage the newest header; opening falls back to the older one
+		try (PagedBPlusTree tree = PagedBPlusTree.open(file)) {
+			assertEquals(2, tree.size());
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			for (int h = 0; h < 2; h++) {
+				raf.seek(h * 512 + 16);
+
+				long generation = raf.readLong();
+
+				if (generation == 4) {
+					raf.seek(h * 512 + 40);
+					raf.writeLong(7);
+				}
+			}
+		}
+
+		try (PagedBPlusTree tree = PagedBPlusTree.open(file)) {
+			assertEquals(1, tree.size());
+			assertEquals(512, tree.pageSize());
+			assertTrue(tree.contains(1));
+			assertFalse(tree.contains(2));
+		}
+	}
+
+	@Test
+	public void rangeTest() throws IOException {
+		try (PagedBPlusTree tree = PagedBPlusTree.create(file, 256, 8)) {
+			for (long i = 0; i < 2_000; i += 2) {
+				tree.add(i);
+			}
+
+			tree.add(100);
+
+			List<Long> values = new ArrayList<>();
+
+			tree.forEachInRange(99, 107, values::add);
+			assertEquals(Arrays.asList(100L, 100L, 102L, 104L, 106L), values);
+
+			values.clear();
+			tree.forEachInRange(1_990, Long.MAX_VALUE, values::add);
+			assertEquals(Arrays.asList(1_990L, 1_992L, 1_994L, 1_996L, 1_998L), values);
+
+			values.clear();
+			tree.forEachInRange(5_000, 6_000, values::add);
+			assertTrue(values.isEmpty());
+		}
+	}
+
+	private static void check(PagedBPlusTree tree, TreeMap<Long, Integer> counts) {
+		PrimitiveIterator.OfLong iterator = tree.iterator();
+		int size = 0;
+
+		for (Map.Entry<Long, Integer> e : counts.entrySet()) {
+			for (int i = 0; i < e.getValue(); i++) {
+				assertEquals(e.getKey().longValue(), iterator.nextLong());
+			}
+
+			size += e.getValue();
+			assertTrue(tree.contains(e.getKey().longValue()));
+			assertFalse(tree.contains(e.getKey() + 5_000));
+		}
+
+		assertFalse(iterator.hasNext());
+		assertEquals(size, tree.size());
+
+		// leaves hold at most 30 values at a page size of 256, and each level has at least one page
+		assertTrue(tree.leafCount() >= (size + 29) / 30);
+		assertTrue(tree.internalNodes() >= tree.height() - 1);
+		assertEquals(tree.height() <= 1, tree.internalNodes() == 0);
+	}
+}
@@ -0,0 +1,142 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriorityHeapTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	private final static Supplier<PriorityHeap<Long>>[] engines = new Supplier[]{
+			() -> new MinHeap<Long>(),
+			() -> new DaryHeap<Long>(2),
+			() -> new DaryHeap<Long>(4),
+			() -> new DaryHeap<Long>(8, Long::compare, 1),
+			() -> new PairingHeap<Long>(),
+			() -> new RadixHeap<Long>(Long::longValue)
+	};
+
+	@Test
+	public void constructorTest() {
+		for (Supplier<PriorityHeap<Long>> engine : engines) {
+			PriorityHeap<Long> heap = engine.get();
+
+			assertEquals(0, heap.size());
+			assertTrue(heap.isEmpty());
+			assertNull(heap.peek());
+			assertNull(heap.pop());
+			assertThrows(NullPointerException.class, () -> heap.add(null));
+		}
+
+		assertThrows(IAE, () -> new DaryHeap<Long>(1));
+		assertThrows(IAE, () -> new DaryHeap<Long>(4, Long::compare, 0));
+	}
+
+	@Test
+	public void sortTest() {
+		Random random = new Random(3);
+		Long[] values = new Long[5_000];
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) random.nextInt(1_000);
+		}
+
+		Long[] sorted = values.clone();
+		java.util.Arrays.sort(sorted);
+
+		for (Supplier<PriorityHeap<Long>> engine : engines) {
+			PriorityHeap<Long> heap = engine.get();
+
+			for (Long v : values) {
+				heap.add(v);
+			}
+
+			assertEquals(values.length, heap.size());
+
+			for (Long v : sorted) {
+				assertEquals(v, heap.peek());
+				assertEquals(v, heap.pop());
+			}
+
+			assertTrue(heap.isEmpty());
+		}
+	}
+
+	@Test
+	public void monotoneTest() {
+		for (Supplier<PriorityHeap<Long>> engine : engines) {
+			Random random = new Random(5);
+			PriorityHeap<Long> heap = engine.get();
+			PriorityQueue<Long> reference = new PriorityQueue<>();
+
+			for (int i = 0; i < 100; i++) {
+				heap.add((long) i * 7);
+				reference.add((long) i * 7);
+			}
+
+			// keep adding keys no lower than the last popped one, as Dijkstra's algorithm does
+			for (int i = 0; i < 20_000; i++) {
+				Long top = heap.pop();
+
+				assertEquals(reference.poll(), top);
+
+				for (int j = random.nextInt(3); j > 0; j--) {
+					long next = top + random.nextInt(1 << (1 + random.nextInt(20)));
+
+					heap.add(next);
+					reference.add(next);
+				}
+
+				if (reference.isEmpty()) {
+					break;
+				}
+			}
+
+			assertEquals(reference.size(), heap.size());
+		}
+	}
+
+	@Test
+	public void radixTest() {
+		RadixHeap<Long> heap = new RadixHeap<>(Long::longValue);
+
+		assertThrows(IAE, () -> heap.add(-1L));
+
+		heap.add(10L);
+		heap.add(40L);
+		assertEquals(10L, (long) heap.pop());
+		assertEquals(10L, heap.lastKey());
+		assertThrows(IAE, () -> heap.add(9L));
+
+		heap.add(10L);
+		assertEquals(10L, (long) heap.pop());
+		assertEquals(40L, (long) heap.pop());
+	}
+
+	@Test
+	public void meldTest() {
+		PairingHeap<String> a = new PairingHeap<>(Comparator.<String>reverseOrder());
+		PairingHeap<String> b = new PairingHeap<>(Comparator.<String>reverseOrder());
+
+		a.add("b");
+		a.add("d");
+		b.add("a");
+		b.add("e");
+		b.add("c");
+		a.meld(b);
+
+		assertEquals(5, a.size());
+		assertEquals(0, b.size());
+		assertNull(b.peek());
+		assertThrows(IAE, () -> a.meld(a));
+
+		for (String s : new String[]{ "e", "d", "c", "b", "a" }) {
+			assertEquals(s, a.pop());
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package pv3199.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares a {@link RadixTree} of strings with a {@link BinaryTree} and an {@link AvlTree} of the same
+ * strings: paths with long shared prefixes, as in <code>/srv/data/tenant-0042/users/00012345/profile</code>.
+ * For each tree it prints the time to add the keys in random order and to look up every key and as many
+ * absent ones, in nanoseconds per key, and the heap the tree takes beyond the strings themselves, in bytes
+ * per key.
+ * <p>
+ * Times are the best of several rounds after warm-up; memory is measured after a full collection. Not run
+ * as part of the test suite; run its {@link #main(String[])} directly.
+ */
+public class RadixTreeBenchmark {
+	private final static int SIZE = 1_000_000;
+	private final static int ROUNDS = 5;
+
+	/**
+	 * Keeps the JIT from dropping work whose result is unused.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) {
+		Random random = new Random(49);
+		List<String> keys = new ArrayList<>();
+		List<String> absent = new ArrayList<>();
+
+		for (int i = 0; i < SIZE; i++) {
+			keys.add(path(random, i));
+			absent.add(path(random, i) + "/x");
+		}
+
+		Collections.shuffle(keys, random);
+		System.out.printf("%-12s %10s %10s %10s%n", "tree", "add", "contains", "bytes");
+		run("RadixTree", RadixTree::forStrings, keys, absent);
+		run("BinaryTree", BinaryTree::new, keys, absent);
+		run("AvlTree", AvlTree::new, keys, absent);
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * @return a path of about 50 characters, most of them shared with other paths.
+	 */
+	private static String path(Random random, int i) {
+		return String.format("/srv/data/tenant-%04d/users/%08d/%s", random.nextInt(100), i,
+				random.nextBoolean() ? "profile" : "settings");
+	}
+
+	private static void run(String name, Supplier<Tree<String>> create, List<String> keys, List<String> absent) {
+		Tree<String>[] tree = new Tree[1];
+		double add = best(() -> {
+			tree[0] = null;
+			tree[0] = create.get();
+
+			for (String key : keys) {
+				tree[0].add(key);
+			}
+		});
+		double contains = best(() -> {
+			for (int i = 0; i < SIZE; i++) {
+				sink += tree[0].contains(keys.get(i)) ? 1 : 0;
+				sink += tree[0].contains(absent.get(i)) ? 1 : 0;
+			}
+		}) / 2;
+
+		tree[0] = null;
+
+		long before = usedMemory();
+
+		tree[0] = create.get();
+
+		for (String key : keys) {
+			tree[0].add(key);
+		}
+
+		double bytes = (double) (usedMemory() - before) / SIZE;
+
+		sink += tree[0].size();
+		System.out.printf("%-12s %10.1f %10.1f %10.1f%n", name, add, contains, bytes);
+	}
+
+	/**
+	 * @return the heap in use after a full collection.
+	 */
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * @return the best time of a run over several rounds, per key.
+	 */
+	private static double best(Runnable run) {
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return (double) best / SIZE;
+	}
+}
@@ -0,0 +1,229 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RadixTreeTest {
+	/**
+	 * Orders byte arrays as the tree does: by their unsigned bytes, shorter first.
+	 */
+	private final static Comparator<byte[]> UNSIGNED = (a, b) -> {
+		for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			int c = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+
+			if (c != 0) {
+				return c;
+			}
+		}
+
+		return Integer.compare(a.length, b.length);
+	};
+
+	@Test
+	public void emptyTest() {
+		RadixTree<String> tree = RadixTree.forStrings();
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.height());
+		assertEquals(0, tree.internalNodes());
+		assertEquals(0, tree.internalPathLength());
+		assertFalse(tree.contains(""));
+		assertFalse(tree.remove(""));
+		assertNull(tree.longestPrefixOf("a"));
+		assertFalse(tree.iterator().hasNext());
+		assertThrows(NullPointerException.class, () -> tree.add(null));
+		assertThrows(NullPointerException.class, () -> tree.contains(null));
+		assertThrows(NullPointerException.class, () -> new RadixTree<String>(null));
+		assertEquals(RadixTree.forStrings(), tree);
+	}
+
+	@Test
+	public void metricsTest() {
+		RadixTree<String> tree = RadixTree.forStrings();
+
+		for (String s : new String[]{ "romane", "romanus", "romulus", "rubens", "ruber", "rubicon", "r" }) {
+			assertTrue(tree.insert(s));
+		}
+
+		assertFalse(tree.insert("ruber"));
+
+		// r: { (r), o-m: { a-n: { e, u }, u }, u-b: { e: { n, r }, i } }, with the prefixes after the dashes
+		assertEquals(7, tree.size());
+		assertEquals(7, tree.leafCount());
+		assertEquals(5, tree.internalNodes());
+		assertEquals(4, tree.height());
+		assertEquals(0 + 1 + (1 + 2 + 3 + 3 + 2) + (1 + 2 + 3 + 3 + 2), tree.internalPathLength());
+		assertEquals(Arrays.asList("r", "romane", "romanus", "romulus", "rubens", "ruber", "rubicon"), toList(tree));
+
+		// removing a key merges the node it leaves with one child into that child
+		assertTrue(tree.remove("romulus"));
+		assertEquals(4, tree.internalNodes());
+		assertEquals(Arrays.asList("romane", "romanus"), withPrefix(tree, "ro"));
+		assertTrue(tree.remove("r"));
+		assertTrue(tree.contains("romane"));
+		assertFalse(tree.contains("r"));
+		assertFalse(tree.contains("roman"));
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(49);
+		RadixTree<String> tree = RadixTree.forStrings();
+		TreeSet<String> set = new TreeSet<>();
+
+		for (int step = 0; step < 100_000; step++) {
+			// short keys over a small alphabet are often prefixes of one another
+			StringBuilder key = new StringBuilder();
+			int length = random.nextInt(6);
+
+			for (int i = 0; i < length; i++) {
+				key.append((char) ('a' + random.nextInt(4)));
+			}
+
+			String s = key.toString();
+
+			if (random.nextInt(5) < 3) {
+				assertEquals(set.add(s), tree.insert(s));
+			} else {
+				assertEquals(set.remove(s), tree.remove(s));
+			}
+
+			if (step % 10_000 == 0) {
+				assertEquals(new ArrayList<>(set), toList(tree));
+			}
+		}
+
+		assertEquals(new ArrayList<>(set), toList(tree));
+
+		for (String s : set) {
+			assertTrue(tree.contains(s));
+			assertTrue(tree.remove(s));
+			assertFalse(tree.contains(s));
+		}
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.internalNodes());
+	}
+
+	@Test
+	public void bytesTest() {
+		Random random = new Random(-49);
+		RadixTree<byte[]> tree = RadixTree.forBytes();
+		TreeSet<byte[]> set = new TreeSet<>(UNSIGNED);
+
+		// wide fan-outs make nodes of every layout grow and shrink
+		for (int round = 0; round < 4; round++) {
+			for (int step = 0; step < 50_000; step++) {
+				byte[] key = new byte[1 + random.nextInt(3)];
+
+				random.nextBytes(key);
+				key[0] &= round % 2 == 0 ? 0xff : 0x0f;
+
+				if (random.nextInt(3) < 2) {
+					assertEquals(set.add(key), tree.insert(key));
+				} else {
+					assertEquals(set.remove(key), tree.remove(key));
+				}
+			}
+
+			List<byte[]> values = toList(tree);
+
+			assertEquals(set.size(), tree.size());
+			assertEquals(set.size(), values.size());
+
+			Iterator<byte[]> iterator = set.iterator();
+
+			for (byte[] value : values) {
+				assertArrayEquals(iterator.next(), value);
+			}
+		}
+
+		for (byte[] key : set) {
+			assertTrue(tree.remove(key));
+		}
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.internalNodes());
+		assertNull(tree.root);
+	}
+
+	@Test
+	public void prefixTest() {
+		RadixTree<String> tree = RadixTree.forStrings();
+
+		for (String s : new String[]{ "/", "/srv", "/srv/data", "/srv/data/a", "/srv/data/b", "/srv/logs", "/usr" }) {
+			tree.add(s);
+		}
+
+		assertEquals(Arrays.asList("/srv/data", "/srv/data/a", "/srv/data/b"), withPrefix(tree, "/srv/data"));
+		assertEquals(Arrays.asList("/srv/data", "/srv/data/a", "/srv/data/b", "/srv/logs"), withPrefix(tree, "/srv/"));
+		assertEquals(Arrays.asList("/srv/data/b"), withPrefix(tree, "/srv/data/b"));
+		assertEquals(Arrays.asList("/usr"), withPrefix(tree, "/u"));
+		assertEquals(7, withPrefix(tree, "").size());
+		assertTrue(withPrefix(tree, "/srv/data/c").isEmpty());
+		assertTrue(withPrefix(tree, "/x").isEmpty());
+
+		assertEquals("/srv/data/a", tree.longestPrefixOf("/srv/data/a/1"));
+		assertEquals("/srv/data", tree.longestPrefixOf("/srv/data/c"));
+		assertEquals("/srv/data", tree.longestPrefixOf("/srv/data"));
+		assertEquals("/srv", tree.longestPrefixOf("/srv/dat"));
+		assertEquals("/", tree.longestPrefixOf("/us"));
+		assertEquals("/usr", tree.longestPrefixOf("/usr/bin"));
+		assertNull(tree.longestPrefixOf("srv"));
+		assertNull(tree.longestPrefixOf(""));
+
+		tree.add("");
+		assertEquals("", tree.longestPrefixOf("srv"));
+	}
+
+	@Test
+	public void equalsTest() {
+		List<String> keys = new ArrayList<>();
+
+		for (int i = 0; i < 5_000; i++) {
+			keys.add(Integer.toString(i * 7919, 36));
+		}
+
+		RadixTree<String> t1 = RadixTree.forStrings();
+		RadixTree<String> t2 = RadixTree.forStrings();
+
+		keys.forEach(t1::add);
+		Collections.shuffle(keys, new Random(49));
+		keys.forEach(t2::add);
+
+		// the layout of a node depends only on its children when keys are only added
+		assertEquals(t1, t2);
+		assertEquals(t1.height(), t2.height());
+		assertEquals(t1.internalPathLength(), t2.internalPathLength());
+
+		t2.remove(keys.get(0));
+		assertNotEquals(t1, t2);
+		t2.add(keys.get(0));
+		assertEquals(t1, t2);
+		assertNotEquals(t1, RadixTree.forBytes());
+	}
+
+	private static <E> List<E> toList(RadixTree<E> tree) {
+		List<E> list = new ArrayList<>();
+
+		tree.forEach(list::add);
+		return list;
+	}
+
+	private static List<String> withPrefix(RadixTree<String> tree, String prefix) {
+		List<String> list = new ArrayList<>();
+
+		tree.forEachWithPrefix(prefix, list::add);
+		return list;
+	}
+}
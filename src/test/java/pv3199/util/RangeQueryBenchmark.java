@@ -0,0 +1,148 @@
+package pv3199.util;
+
+import java.util.Random;
+
+/**
+ * Compares {@link FenwickTree}, {@link SegmentTree} and {@link IntervalTree} with scanning an array for the
+ * same answers. A series of a million values takes a stream of operations over windows of several sizes:
+ * adding to one value and summing a window, and adding to a whole window and finding its minimum and
+ * maximum. A set of a hundred thousand intervals is then asked which intervals contain random points. The
+ * trees pay <code>O(log n)</code> whatever the window; a scan is cheap per value, so it wins for small ones.
+ * <p>
+ * The last column is the segment tree, or the interval tree for the stabbing queries. Each cell is the best
+ * of several rounds after warm-up, in nanoseconds per operation. Not run as part of the test suite; run its
+ * {@link #main(String[])} directly.
+ */
+public class RangeQueryBenchmark {
+	private final static int SIZE = 1_000_000;
+	private final static int[] WINDOWS = { 100, 1_000, 10_000, 100_000 };
+	private final static int OPERATIONS = 10_000;
+	private final static int INTERVALS = 100_000;
+	private final static int ROUNDS = 5;
+
+	/**
+	 * Keeps the JIT from dropping work whose result is unused.
+	 */
+	private static long sink;
+
+	public static void main(String[] args) {
+		Random random = new Random(50);
+		long[] series = new long[SIZE];
+
+		for (int i = 0; i < SIZE; i++) {
+			series[i] = random.nextInt(1_000);
+		}
+
+		FenwickTree fenwick = new FenwickTree(series);
+		SegmentTree segment = new SegmentTree(series);
+
+		System.out.printf("%-24s %10s %10s %10s%n", "operation", "scan", "fenwick", "tree");
+
+		for (int window : WINDOWS) {
+			int[] indices = new int[OPERATIONS];
+
+			for (int i = 0; i < OPERATIONS; i++) {
+				indices[i] = random.nextInt(SIZE - window);
+			}
+
+			double scan = best(() -> {
+				for (int i : indices) {
+					series[i + window / 2]++;
+
+					for (int j = i; j < i + window; j++) {
+						sink += series[j];
+					}
+				}
+			});
+			double fenwickSum = best(() -> {
+				for (int i : indices) {
+					fenwick.add(i + window / 2, 1);
+					sink += fenwick.sum(i, i + window);
+				}
+			});
+			double segmentSum = best(() -> {
+				for (int i : indices) {
+					segment.add(i + window / 2, i + window / 2 + 1, 1);
+					sink += segment.sum(i, i + window);
+				}
+			});
+
+			System.out.printf("%-24s %10.1f %10.1f %10.1f%n", "sum " + window, scan, fenwickSum, segmentSum);
+
+			double scanMinMax = best(() -> {
+				for (int i : indices) {
+					long min = Long.MAX_VALUE;
+					long max = Long.MIN_VALUE;
+
+					for (int j = i; j < i + window; j++) {
+						series[j]++;
+					}
+
+					for (int j = i; j < i + window; j++) {
+						min = Math.min(min, series[j]);
+						max = Math.max(max, series[j]);
+					}
+
+					sink += min + max;
+				}
+			});
+			double segmentMinMax = best(() -> {
+				for (int i : indices) {
+					segment.add(i, i + window, 1);
+					sink += segment.min(i, i + window) + segment.max(i, i + window);
+				}
+			});
+
+			System.out.printf("%-24s %10.1f %10s %10.1f%n", "add, min/max " + window, scanMinMax, "-", segmentMinMax);
+		}
+
+		int[] starts = new int[INTERVALS];
+		int[] ends = new int[INTERVALS];
+		int[] points = new int[OPERATIONS];
+		IntervalTree<Integer> intervals = new IntervalTree<>();
+
+		for (int i = 0; i < INTERVALS; i++) {
+			starts[i] = random.nextInt(SIZE);
+			ends[i] = starts[i] + random.nextInt(1_000);
+			intervals.add(starts[i], ends[i]);
+		}
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			points[i] = random.nextInt(SIZE);
+		}
+
+		double scan = best(() -> {
+			for (int point : points) {
+				for (int j = 0; j < INTERVALS; j++) {
+					sink += starts[j] <= point && point <= ends[j] ? 1 : 0;
+				}
+			}
+		});
+		double tree = best(() -> {
+			for (int point : points) {
+				intervals.forEachContaining(point, interval -> sink++);
+			}
+		});
+
+		System.out.printf("%-24s %10.1f %10s %10.1f%n", "stab", scan, "-", tree);
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * @return the best time of a run over several rounds, per operation.
+	 */
+	private static double best(Runnable run) {
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return (double) best / OPERATIONS;
+	}
+}
@@ -0,0 +1,117 @@
+package pv3199.util;
+
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Compares membership tests on sorted keys across set sizes: an {@link IntSearchArray}, a binary search of
+ * the sorted <code>int</code> array, {@link Search#binarySearch(Object[], Object, Comparator)} on the boxed
+ * keys and {@link BinaryArray#contains(Comparable)} on a tree built from the keys in random order. Half of
+ * the queried keys are present.
+ * <p>
+ * Each cell is the best of several rounds after warm-up, in nanoseconds per lookup. Not run as part of the
+ * test suite; run its {@link #main(String[])} directly.
+ */
+public class SearchArrayBenchmark {
+	private final static int[] SIZES = { 1_000, 100_000, 1_000_000, 4_000_000 };
+	private final static int LOOKUPS = 2_000_000;
+	private final static int ROUNDS = 5;
+
+	/**
+	 * Keeps the JIT from dropping lookups whose results are unused.
+	 */
+	private static int sink;
+
+	public static void main(String[] args) {
+		System.out.printf("%-10s %12s %12s %12s %12s%n", "size", "eytzinger", "int[] bs", "Search", "BinaryArray");
+
+		for (int size : SIZES) {
+			Random random = new Random(size);
+			int[] sorted = new int[size];
+
+			// even keys are present, odd keys are not
+			for (int i = 0; i < size; i++) {
+				sorted[i] = 2 * i;
+			}
+
+			int[] queries = new int[LOOKUPS];
+			Integer[] boxedQueries = new Integer[LOOKUPS];
+
+			for (int i = 0; i < LOOKUPS; i++) {
+				queries[i] = random.nextInt(2 * size);
+				boxedQueries[i] = queries[i];
+			}
+
+			Integer[] boxed = new Integer[size];
+			BinaryArray<Integer> tree = new BinaryArray<>();
+
+			for (int i = 0; i < size; i++) {
+				boxed[i] = sorted[i];
+			}
+
+			for (int i : shuffled(size, random)) {
+				tree.add(boxed[i]);
+			}
+
+			IntSearchArray eytzinger = new IntSearchArray(sorted);
+			Comparator<Integer> natural = Comparator.naturalOrder();
+
+			System.out.printf("%-10d %12.1f %12.1f %12.1f %12.1f%n", size,
+					best(() -> {
+						for (int q : queries) {
+							sink += eytzinger.contains(q) ? 1 : 0;
+						}
+					}),
+					best(() -> {
+						for (int q : queries) {
+							sink += java.util.Arrays.binarySearch(sorted, q) >= 0 ? 1 : 0;
+						}
+					}),
+					best(() -> {
+						for (Integer q : boxedQueries) {
+							sink += Search.binarySearch(boxed, q, natural) >= 0 ? 1 : 0;
+						}
+					}),
+					best(() -> {
+						for (Integer q : boxedQueries) {
+							sink += tree.contains(q) ? 1 : 0;
+						}
+					}));
+		}
+
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	/**
+	 * @return the best time of a run of {@link #LOOKUPS} lookups over several rounds, per lookup.
+	 */
+	private static double best(Runnable lookups) {
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			lookups.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return (double) best / LOOKUPS;
+	}
+
+	/**
+	 * @return the indices below a bound in random order.
+	 */
+	private static int[] shuffled(int bound, Random random) {
+		int[] indices = new int[bound];
+
+		for (int i = 0; i < bound; i++) {
+			int j = random.nextInt(i + 1);
+
+			indices[i] = indices[j];
+			indices[j] = i;
+		}
+
+		return indices;
+	}
+}
@@ -0,0 +1,125 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchArrayTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	@Test
+	public void sortedIndexTest() {
+		// every slot of every size maps to a distinct sorted index, in in-order order
+		for (int n = 1; n <= 300; n++) {
+			int[] order = new int[n + 1];
+			int[] stack = new int[32];
+			int top = 0;
+			int k = 1;
+			int i = 0;
+
+			while (k <= n || top > 0) {
+				if (k <= n) {
+					stack[top++] = k;
+					k *= 2;
+				} else {
+					k = stack[--top];
+					order[k] = i++;
+					k = 2 * k + 1;
+				}
+			}
+
+			for (k = 1; k <= n; k++) {
+				assertEquals(order[k], Eytzinger.sortedIndex(k, n), "n=" + n + " k=" + k);
+			}
+		}
+	}
+
+	@Test
+	public void intTest() {
+		Random random = new Random(40);
+
+		for (int n : new int[]{ 0, 1, 2, 3, 7, 8, 100, 1_000 }) {
+			int[] sorted = new int[n];
+
+			for (int i = 0; i < n; i++) {
+				sorted[i] = random.nextInt(3 * n + 1) - n;
+			}
+
+			java.util.Arrays.sort(sorted);
+			IntSearchArray array = new IntSearchArray(sorted);
+
+			assertEquals(n, array.size());
+
+			for (int key = -n - 2; key <= 2 * n + 2; key++) {
+				int rank = lowerBound(sorted, key);
+
+				assertEquals(rank, array.rank(key));
+				assertEquals(rank < n && sorted[rank] == key, array.contains(key));
+
+				if (rank < n) {
+					assertEquals(sorted[rank], array.lowerBound(key));
+				} else {
+					int k = key;
+					assertThrows(NoSuchElementException.class, () -> array.lowerBound(k));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void extremesTest() {
+		IntSearchArray ints = new IntSearchArray(new int[]{ Integer.MIN_VALUE, 0, 0, 0, Integer.MAX_VALUE });
+
+		assertEquals(0, ints.rank(Integer.MIN_VALUE));
+		assertEquals(1, ints.rank(0));
+		assertEquals(4, ints.rank(1));
+		assertEquals(4, ints.rank(Integer.MAX_VALUE));
+		assertTrue(ints.contains(Integer.MAX_VALUE));
+		assertEquals(Integer.MAX_VALUE, ints.lowerBound(Integer.MAX_VALUE));
+
+		LongSearchArray longs = new LongSearchArray(new long[]{ Long.MIN_VALUE, -1L << 40, 1L << 40 });
+
+		assertTrue(longs.contains(1L << 40));
+		assertFalse(longs.contains(1));
+		assertEquals(1L << 40, longs.lowerBound(1));
+		assertEquals(2, longs.rank(1));
+		assertEquals(3, longs.rank(Long.MAX_VALUE));
+
+		DoubleSearchArray doubles = new DoubleSearchArray(new double[]{ Double.NEGATIVE_INFINITY, -0.5, 0, 2.5 });
+
+		assertTrue(doubles.contains(-0.0));
+		assertFalse(doubles.contains(Double.NaN));
+		assertEquals(2.5, doubles.lowerBound(0.1));
+		assertEquals(1, doubles.rank(-1));
+		assertEquals(4, doubles.rank(Double.POSITIVE_INFINITY));
+		assertThrows(NoSuchElementException.class, () -> doubles.lowerBound(3));
+	}
+
+	@Test
+	public void constructorTest() {
+		assertThrows(IAE, () -> new IntSearchArray(new int[]{ 2, 1 }));
+		assertThrows(IAE, () -> new LongSearchArray(new long[]{ 0, 2, 1 }));
+		assertThrows(IAE, () -> new DoubleSearchArray(new double[]{ 0, Double.NaN }));
+		assertThrows(NullPointerException.class, () -> new IntSearchArray(null));
+
+		int[] sorted = { 1, 2, 3 };
+		new IntSearchArray(sorted);
+		assertArrayEquals(new int[]{ 1, 2, 3 }, sorted);
+	}
+
+	/**
+	 * @return the index of the first value not less than the key; the length if there is none.
+	 */
+	private static int lowerBound(int[] sorted, int key) {
+		int i = 0;
+
+		while (i < sorted.length && sorted[i] < key) {
+			i++;
+		}
+
+		return i;
+	}
+}
@@ -0,0 +1,101 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentTreeTest {
+	private final static Class<? extends Throwable> IOOBE = IndexOutOfBoundsException.class;
+
+	@Test
+	public void constructorTest() {
+		assertEquals(0, new SegmentTree(0).size());
+		assertEquals(0, new SegmentTree(0).sum(0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new SegmentTree(-1));
+
+		long[] values = { 3, -1, 4, 1, -5, 9, 2 };
+		SegmentTree tree = new SegmentTree(values);
+
+		assertEquals(values.length, tree.size());
+
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(values[i], tree.get(i));
+		}
+
+		assertEquals(13, tree.sum(0, 7));
+		assertEquals(-5, tree.min(0, 7));
+		assertEquals(9, tree.max(0, 7));
+		assertEquals(-1, tree.min(0, 4));
+		assertEquals(4, tree.max(1, 4));
+	}
+
+	@Test
+	public void boundsTest() {
+		SegmentTree tree = new SegmentTree(5);
+
+		assertThrows(IOOBE, () -> tree.get(5));
+		assertThrows(IOOBE, () -> tree.set(-1, 0));
+		assertThrows(IOOBE, () -> tree.add(0, 6, 1));
+		assertThrows(IOOBE, () -> tree.sum(3, 2));
+		assertThrows(IllegalArgumentException.class, () -> tree.min(2, 2));
+		assertThrows(IllegalArgumentException.class, () -> tree.max(5, 5));
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(50);
+
+		for (int size : new int[]{ 1, 2, 3, 5, 64, 100, 1_000 }) {
+			long[] values = new long[size];
+
+			for (int i = 0; i < size; i++) {
+				values[i] = random.nextInt(2_000) - 1_000;
+			}
+
+			SegmentTree tree = new SegmentTree(values.clone());
+
+			for (int step = 0; step < 5_000; step++) {
+				int from = random.nextInt(size + 1);
+				int to = from + random.nextInt(size + 1 - from);
+
+				if (random.nextInt(3) == 0) {
+					int i = random.nextInt(size);
+
+					values[i] = random.nextInt(2_000) - 1_000;
+					tree.set(i, values[i]);
+				} else {
+					long delta = random.nextInt(200) - 100;
+
+					tree.add(from, to, delta);
+
+					for (int j = from; j < to; j++) {
+						values[j] += delta;
+					}
+				}
+
+				from = random.nextInt(size);
+				to = from + 1 + random.nextInt(size - from);
+
+				long sum = 0;
+				long min = Long.MAX_VALUE;
+				long max = Long.MIN_VALUE;
+
+				for (int j = from; j < to; j++) {
+					sum += values[j];
+					min = Math.min(min, values[j]);
+					max = Math.max(max, values[j]);
+				}
+
+				assertEquals(sum, tree.sum(from, to));
+				assertEquals(min, tree.min(from, to));
+				assertEquals(max, tree.max(from, to));
+			}
+
+			for (int i = 0; i < size; i++) {
+				assertEquals(values[i], tree.get(i));
+			}
+		}
+	}
+}
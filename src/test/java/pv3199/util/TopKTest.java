@@ -0,0 +1,119 @@
+package pv3199.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopKTest {
+	private final static Class<? extends Throwable> IAE = IllegalArgumentException.class;
+
+	private TopK top;
+
+	@BeforeEach
+	public void resetTop() {
+		top = new TopK(3);
+	}
+
+	@Test
+	public void intHeapTest() {
+		IntHeap heap = new IntHeap(1);
+		int[] values = { 5, -3, 9, 0, 5, Integer.MIN_VALUE, Integer.MAX_VALUE, 2 };
+
+		for (int v : values) {
+			heap.add(v);
+		}
+
+		int[] sorted = values.clone();
+		java.util.Arrays.sort(sorted);
+		IntHeap heapified = new IntHeap(values);
+
+		for (int v : sorted) {
+			assertEquals(v, heap.pop());
+			assertEquals(v, heapified.pop());
+		}
+
+		assertTrue(heap.isEmpty());
+		assertThrows(NoSuchElementException.class, heap::peek);
+		assertThrows(IAE, () -> new IntHeap(0));
+	}
+
+	@Test
+	public void longDoubleHeapTest() {
+		LongDoubleHeap heap = new LongDoubleHeap(1);
+
+		heap.add(1, 2.5);
+		heap.add(2, -1);
+		heap.add(3, 2.5);
+		heap.add(4, 10);
+
+		assertEquals(2, heap.peekId());
+		assertEquals(-1, heap.peekScore());
+		assertEquals(2, heap.replaceTop(5, 3));
+		assertEquals(3, heap.pop());
+		assertEquals(1, heap.pop());
+		assertEquals(5, heap.pop());
+		assertEquals(4, heap.pop());
+		assertThrows(NoSuchElementException.class, heap::pop);
+		assertThrows(IAE, () -> heap.add(6, Double.NaN));
+	}
+
+	@Test
+	public void offerTest() {
+		assertThrows(IAE, () -> new TopK(0));
+		assertEquals(Double.NEGATIVE_INFINITY, top.threshold());
+
+		assertTrue(top.offer(1, 10));
+		assertTrue(top.offer(2, 30));
+		assertTrue(top.offer(3, 20));
+		assertFalse(top.offer(4, 5));
+		assertTrue(top.offer(5, 25));
+		assertFalse(top.offer(6, 20));
+		assertTrue(top.offer(0, 20));
+		assertTrue(top.offer(7, 20.5));
+
+		assertEquals(3, top.size());
+		assertEquals(20.5, top.threshold());
+		assertFalse(top.offer(8, 20.5));
+		assertArrayEquals(new long[]{ 2, 5, 7 }, top.ids());
+		assertArrayEquals(new double[]{ 30, 25, 20.5 }, top.scores());
+	}
+
+	@Test
+	public void mergeTest() {
+		TopK other = new TopK(3);
+
+		top.offer(1, 1);
+		top.offer(2, 4);
+		other.offer(3, 3);
+		other.offer(4, 5);
+		other.offer(5, 0);
+
+		assertSame(top, top.merge(other));
+		assertArrayEquals(new long[]{ 4, 2, 3 }, top.ids());
+	}
+
+	@Test
+	public void collectorTest() {
+		Random random = new Random(11);
+		double[] scores = random.doubles(100_000).toArray();
+
+		TopK sequential = IntStream.range(0, scores.length).boxed()
+				.collect(TopK.collector(10, i -> i, i -> scores[i]));
+		TopK parallel = IntStream.range(0, scores.length).boxed().parallel()
+				.collect(TopK.collector(10, i -> i, i -> scores[i]));
+
+		double[] sorted = scores.clone();
+		java.util.Arrays.sort(sorted);
+
+		assertArrayEquals(sequential.ids(), parallel.ids());
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(sorted[sorted.length - 1 - i], sequential.scores()[i]);
+		}
+	}
+}